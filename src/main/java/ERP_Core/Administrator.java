@@ -202,6 +202,10 @@ public class Administrator extends User {
   private void deleteUser(int id) throws NoSuchElementException {
     User toDelete = User.searchUserById(id);
     User.getUsers().remove(toDelete);
+    if (toDelete instanceof Cashier) {
+      Cashier.removeCashier((Cashier) toDelete);
+    }
+    User.changes.markChanged();
   }
 
   /** Contains the user prompts for changing a user's password. */
@@ -1,6 +1,7 @@
 package ERP_Core;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class contains methods that are used in order to analyze data of sales. Methods in here are
@@ -12,13 +13,13 @@ import java.util.ArrayList;
 public class AnalyzeData {
 
   /**
-   * Sorts products that their id is found in an ArrayList of product sales based on their total
-   * sold quantities of the sales listed in the ArrayList.
+   * Sorts products that their id is found in a list of product sales based on their total
+   * sold quantities of the sales in the list.
    *
-   * @param productSales an ArrayList of ProductSale objects that are to be sorted.
+   * @param productSales a list of ProductSale objects that are to be sorted.
    * @return sorted [][] array that contains product ids and total quantities, type integer
    */
-  public static int[][] sortProductsBasedOnSoldQuantities(ArrayList<ProductSale> productSales) {
+  public static int[][] sortProductsBasedOnSoldQuantities(List<ProductSale> productSales) {
     // [0][1]: [0] = id of product, [1] = total sold quantity. array length = allProducts.size()
     int[][] productIDAndSoldQuantity = new int[Storage.getProducts().size()][2];
     for (int i = 0; i < productIDAndSoldQuantity.length; i++) {
@@ -37,13 +38,13 @@ public class AnalyzeData {
   }
 
   /**
-   * Sorts products that their id is found in an ArrayList of product sales based on the total
-   * revenue per product of the sales listed in the ArrayList.
+   * Sorts products that their id is found in a list of product sales based on the total
+   * revenue per product of the sales in the list.
    *
-   * @param productSales an ArrayList of ProductSale objects that are to be sorted.
+   * @param productSales a list of ProductSale objects that are to be sorted.
    * @return sorted [][] array that contains product ids and total revenues, type double
    */
-  public static double[][] sortProductsBasedOnSalesRevenue(ArrayList<ProductSale> productSales) {
+  public static double[][] sortProductsBasedOnSalesRevenue(List<ProductSale> productSales) {
     // [0][1]: [0] = id of product, [1] = total revenue of sale. array length = allProducts.size()
     double[][] productIDAndSaleRevenue = new double[Storage.getProducts().size()][2];
     for (int i = 0; i < productIDAndSaleRevenue.length; i++) {
@@ -65,10 +66,10 @@ public class AnalyzeData {
   /**
    * Returns top 10 Best Seller products, based on quantity.
    *
-   * @param productSales the ArrayList of ProductSales that is used to find the best sellers.
+   * @param productSales the list of ProductSales that is used to find the best sellers.
    * @return array [][] that contains top10 selling product ids and quantities, type integer
    */
-  public static int[][] getTop10_BestSellers(ArrayList<ProductSale> productSales) {
+  public static int[][] getTop10_BestSellers(List<ProductSale> productSales) {
     int[][] top10 = new int[10][2];
     int[][] productIDAndSoldQuantity = sortProductsBasedOnSoldQuantities(productSales);
     for (int i = 0; i < top10.length; i++) {
@@ -81,10 +82,10 @@ public class AnalyzeData {
   /**
    * Returns top 10 products that had the greatest revenue.
    *
-   * @param productSales the ArrayList of ProductSales that is used to find top revenues.
+   * @param productSales the list of ProductSales that is used to find top revenues.
    * @return array [][] that contains top10 selling product ids and revenues, type double
    */
-  public static double[][] getTop10_BestRevenue(ArrayList<ProductSale> productSales) {
+  public static double[][] getTop10_BestRevenue(List<ProductSale> productSales) {
     double[][] top10 = new double[10][2];
     double[][] productIDAndSaleRevenue = sortProductsBasedOnSalesRevenue(productSales);
     for (int i = 0; i < top10.length; i++) {
@@ -97,10 +98,10 @@ public class AnalyzeData {
   /**
    * Sorts products Sales to the month they were created.
    *
-   * @param sales an ArrayList of ProductSales objects.
+   * @param sales a list of ProductSales objects.
    * @return an ArrayList of 12 ArrayLists of sorted-per-month product sales, type ProductSale
    */
-  public static ArrayList<ArrayList<ProductSale>> sortSalesPerMonth(ArrayList<ProductSale> sales) {
+  public static ArrayList<ArrayList<ProductSale>> sortSalesPerMonth(List<ProductSale> sales) {
     ArrayList<ArrayList<ProductSale>> salesPerMonth = new ArrayList();
     for (int i = 0; i < 12; i++) {
       ArrayList<ProductSale> monthsale = new ArrayList<>();
@@ -122,11 +123,11 @@ public class AnalyzeData {
   /**
    * Separates certain product sales to corresponding year.
    *
-   * @param sales an ArrayList of ProductSales objects.
+   * @param sales a list of ProductSales objects.
    * @param year the year of which Product Sales are returned.
    * @return an ArrayList of sales of a certain year, type ProductSale
    */
-  public static ArrayList<ProductSale> getSalesOfYear(ArrayList<ProductSale> sales, int year) {
+  public static ArrayList<ProductSale> getSalesOfYear(List<ProductSale> sales, int year) {
     ArrayList<ProductSale> salesOfYear = new ArrayList();
     for (int i = 0; i < sales.size(); i++) {
       ProductSale sale = sales.get(i);
@@ -1,6 +1,7 @@
 package ERP_Core;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
@@ -36,11 +37,11 @@ public class AnalyzeOrders {
    * @param orders the order list
    * @return total order value of each month
    */
-  public static double[] getTotalOrderValueByMonth(ArrayList<Order> orders) {
+  public static double[] getTotalOrderValueByMonth(List<Order> orders) {
     double[] monthlySales = new double[12];
     int month;
     for (Order order : orders) {
-      month = getDateMonth(order.getOrderDate());
+      month = order.getOrderMonth();
       monthlySales[month - 1] += order.getTotalCost();
     }
     return monthlySales;
@@ -62,14 +63,12 @@ public class AnalyzeOrders {
    * @param year the year for which to print the orders
    * @return total order value each month for the given year
    */
-  public static double[] getSpecificYearOrderValueByMonth(ArrayList<Order> orders, int year) {
+  public static double[] getSpecificYearOrderValueByMonth(List<Order> orders, int year) {
     double[] monthlySales = new double[12];
     int month;
-    String date;
     for (Order order : orders) {
-      date = order.getOrderDate();
-      if (getDateYear(date) == year) {
-        month = getDateMonth(date);
+      if (order.getOrderYear() == year) {
+        month = order.getOrderMonth();
         monthlySales[month - 1] += order.getTotalCost();
       }
     }
@@ -116,7 +115,7 @@ public class AnalyzeOrders {
     ArrayList<Double> xValuesArrayList = new ArrayList<Double>();
     ArrayList<Double> yValuesArrayList = new ArrayList<Double>();
     for (Order order : Order.getOrders()) {
-      xValuesArrayList.add((double) getDateYear(order.getOrderDate()));
+      xValuesArrayList.add((double) order.getOrderYear());
       yValuesArrayList.add(order.getTotalCost());
     }
     int size = xValuesArrayList.size();
@@ -152,7 +151,7 @@ public class AnalyzeOrders {
     double[] sales = new double[size];
     int index = 0;
     for (Order order : Order.getOrders()) {
-      years[index] = getDateYear(order.getOrderDate());
+      years[index] = order.getOrderYear();
       sales[index] = order.getTotalCost();
       index++;
     }
@@ -282,11 +281,11 @@ public class AnalyzeOrders {
    */
   // value by year interval
   public static double[] getTotalOrderValueByYearInterval(
-      ArrayList<Order> orders, int startYear, int endYear) {
+      List<Order> orders, int startYear, int endYear) {
     double[] yearlySales = new double[(endYear - startYear) + 1];
     int orderYear;
     for (Order order : orders) {
-      orderYear = getDateYear(order.getOrderDate());
+      orderYear = order.getOrderYear();
       if (orderYear >= startYear && orderYear <= endYear) {
         yearlySales[orderYear - startYear] += order.getTotalCost();
       }
@@ -342,7 +341,7 @@ public class AnalyzeOrders {
     int min = Integer.MAX_VALUE;
     int year;
     for (Order order : Order.getOrders()) {
-      year = getDateYear(order.getOrderDate());
+      year = order.getOrderYear();
       if (year < min) {
         min = year;
       }
@@ -359,7 +358,7 @@ public class AnalyzeOrders {
     int max = Integer.MIN_VALUE;
     int year;
     for (Order order : Order.getOrders()) {
-      year = getDateYear(order.getOrderDate());
+      year = order.getOrderYear();
       if (year > max) {
         max = year;
       }
@@ -381,8 +380,7 @@ public class AnalyzeOrders {
    * @return the day of the date
    */
   public static int getDateDay(String date) {
-    String[] cutDate = date.split("-");
-    return Integer.parseInt(cutDate[0]);
+    return DateStamp.getDay(DateStamp.parse(date));
   }
 
   /**
@@ -392,8 +390,7 @@ public class AnalyzeOrders {
    * @return the month of the date
    */
   public static int getDateMonth(String date) {
-    String[] cutDate = date.split("-");
-    return Integer.parseInt(cutDate[1]);
+    return DateStamp.getMonth(DateStamp.parse(date));
   }
 
   /**
@@ -403,7 +400,6 @@ public class AnalyzeOrders {
    * @return the year of the date
    */
   public static int getDateYear(String date) {
-    String[] cutDate = date.split("-");
-    return Integer.parseInt(cutDate[2].substring(0, 4));
+    return DateStamp.getYear(DateStamp.parse(date));
   }
 }
@@ -0,0 +1,229 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A writer that replaces a file atomically. The text is written to a temporary file next to the
+ * target file ({@code <name>.tmp}), which is synced to the disk and then renamed over the target
+ * when the writer is committed. A crash at any moment leaves either the complete old file or the
+ * complete new file, never a truncated one. A writer that is closed without being committed
+ * deletes its temporary file and leaves the target untouched.
+ *
+ * <p>The text is encoded in UTF-8 into a large direct buffer, which is written to the file channel
+ * without an extra copy whenever it is full, so the data files are written in few large writes.
+ *
+ * @version 1.0
+ */
+public class AtomicFileWriter extends Writer {
+  /** The extension of the temporary files. */
+  static final String TEMP_EXTENSION = ".tmp";
+  /** The size of the direct buffer the encoded text is collected in. */
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  /** The file that is replaced. */
+  private final File target;
+  /** The temporary file the text is written to. */
+  private final File temp;
+  /** The channel of the temporary file. */
+  private final FileChannel channel;
+  /** The encoder of the text. */
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  /** The buffer the encoded text is collected in. */
+  private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  /** Whether the temporary file has replaced the target. */
+  private boolean committed;
+  /** Whether the writer is closed. */
+  private boolean closed;
+
+  /**
+   * Creates a writer that replaces the given file.
+   *
+   * @param target the file that is replaced
+   * @throws IOException the temporary file could not be created
+   */
+  public AtomicFileWriter(File target) throws IOException {
+    this.target = target;
+    this.temp = new File(target.getPath() + TEMP_EXTENSION);
+    this.channel =
+        FileChannel.open(
+            temp.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Writes a part of a character array.
+   *
+   * @param chars the characters
+   * @param offset the position of the first character
+   * @param length the number of characters
+   * @throws IOException the text could not be written
+   */
+  @Override
+  public void write(char[] chars, int offset, int length) throws IOException {
+    ensureOpen();
+    CharBuffer in = CharBuffer.wrap(chars, offset, length);
+    for (; ; ) {
+      CoderResult result = encoder.encode(in, bytes, false);
+      if (result.isOverflow()) {
+        drain();
+      } else if (result.isUnderflow()) {
+        return;
+      } else {
+        result.throwException();
+      }
+    }
+  }
+
+  /**
+   * Writes a string.
+   *
+   * @param text the string
+   * @throws IOException the text could not be written
+   */
+  @Override
+  public void write(String text) throws IOException {
+    write(text.toCharArray(), 0, text.length());
+  }
+
+  /**
+   * Writes the line separator of the system, the same way {@link java.io.BufferedWriter#newLine}
+   * does.
+   *
+   * @throws IOException the separator could not be written
+   */
+  public void newLine() throws IOException {
+    write(System.lineSeparator());
+  }
+
+  /**
+   * Writes the buffered text to the temporary file. The target is not changed until the writer is
+   * committed.
+   *
+   * @throws IOException the text could not be written
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    drain();
+  }
+
+  /**
+   * Writes the remaining text, syncs the temporary file to the disk and renames it over the target.
+   * The writer is closed afterwards.
+   *
+   * @throws IOException the file could not be written or replaced, the target is unchanged
+   */
+  public void commit() throws IOException {
+    ensureOpen();
+    CharBuffer empty = CharBuffer.allocate(0);
+    while (encoder.encode(empty, bytes, true).isOverflow()) {
+      drain();
+    }
+    while (encoder.flush(bytes).isOverflow()) {
+      drain();
+    }
+    drain();
+    channel.force(true);
+    channel.close();
+    closed = true;
+    replace(temp, target);
+    committed = true;
+  }
+
+  /**
+   * Closes the writer. If it was not committed, the temporary file is deleted and the target keeps
+   * its previous contents.
+   *
+   * @throws IOException the temporary file could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      channel.close();
+    }
+    if (!committed) {
+      temp.delete();
+    }
+  }
+
+  /**
+   * Renames a complete temporary file over the target file and syncs the directory, so that the
+   * rename itself survives a crash.
+   *
+   * @param temp the temporary file, already synced to the disk
+   * @param target the file that is replaced
+   * @throws IOException the file could not be renamed
+   */
+  static void replace(File temp, File target) throws IOException {
+    Files.move(
+        temp.toPath(),
+        target.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    File dir = target.getAbsoluteFile().getParentFile();
+    try (FileChannel directory = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+      directory.force(true);
+    } catch (IOException e) {
+      // not every platform can sync a directory, the rename is then synced by the file system
+    }
+  }
+
+  /**
+   * Deletes the temporary files a crash left in a directory. A temporary file is only renamed once
+   * it is complete, so a remaining one belongs to a write that never finished, and the target file
+   * still has its previous contents.
+   *
+   * @param dir the directory
+   * @return the number of deleted files
+   */
+  public static int deleteTempFiles(File dir) {
+    File[] files = dir.listFiles((parent, name) -> name.endsWith(TEMP_EXTENSION));
+    int deleted = 0;
+    if (files != null) {
+      for (File file : files) {
+        if (file.isFile() && file.delete()) {
+          deleted++;
+        }
+      }
+    }
+    return deleted;
+  }
+
+  /**
+   * Writes the encoded bytes of the buffer to the channel.
+   *
+   * @throws IOException the bytes could not be written
+   */
+  private void drain() throws IOException {
+    bytes.flip();
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+    bytes.clear();
+  }
+
+  /**
+   * Checks that the writer is not closed.
+   *
+   * @throws IOException the writer is closed
+   */
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("The writer is closed");
+    }
+  }
+}
@@ -0,0 +1,339 @@
+package ERP_Core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The product id - quantity lines of the basket of an order or the supplies of a storage order.
+ * The ids and the quantities are kept in two int arrays, so a line costs 8 bytes instead of an
+ * int[2] object and its reference, which matters for the many orders of the order history.
+ *
+ * <p>The basket is a list of {@code int[] {id, quantity}} lines, so it can be passed to the code
+ * that takes such a list, but {@link #get(int)} returns a new array on every call and changing it
+ * does not change the basket: the lines are changed with {@link #setQuantity(int, int)}, {@link
+ * #set(int, int[])} or {@link #merge(int, int)}. The loops over many baskets should read the lines
+ * with {@link #getProductId(int)} and {@link #getQuantity(int)}, which create no arrays.
+ *
+ * <p>The line of a product is found by scanning the ids, or, once the basket has more than 8
+ * lines, with an open-addressing table of the positions of the first line of every product, like
+ * the one of {@link IntIntMap}. The table is made on the first lookup, so the baskets that are
+ * only read, e.g. the ones of the loaded orders, never have one.
+ *
+ * @version 1.0
+ */
+public class Basket extends AbstractList<int[]> implements RandomAccess {
+  /** The number of lines up to which a product is found by scanning the ids. */
+  private static final int SCAN_LINES = 8;
+
+  /** The product ids, by the line. */
+  private int[] ids;
+  /** The quantities, by the line. */
+  private int[] quantities;
+  /** The number of lines. */
+  private int size;
+  /** The hash table: the first line of a product plus one, 0 for an empty slot; null if none. */
+  private int[] table;
+
+  /** Creates an empty basket. */
+  public Basket() {
+    this(4);
+  }
+
+  /**
+   * Creates an empty basket with room for the given number of lines.
+   *
+   * @param capacity the expected number of lines
+   */
+  public Basket(int capacity) {
+    ids = new int[Math.max(capacity, 1)];
+    quantities = new int[ids.length];
+  }
+
+  /**
+   * Creates a basket with the lines of a list.
+   *
+   * @param lines the product id - quantity lines
+   */
+  public Basket(List<int[]> lines) {
+    this(lines.size());
+    if (lines instanceof Basket) {
+      Basket basket = (Basket) lines;
+      System.arraycopy(basket.ids, 0, ids, 0, basket.size);
+      System.arraycopy(basket.quantities, 0, quantities, 0, basket.size);
+      size = basket.size;
+    } else {
+      for (int[] line : lines) {
+        add(line[0], line[1]);
+      }
+    }
+  }
+
+  /**
+   * Returns a list of lines as a basket: the list itself if it is a basket, else a basket with its
+   * lines.
+   *
+   * @param lines the product id - quantity lines
+   * @return the basket
+   */
+  public static Basket of(List<int[]> lines) {
+    return lines instanceof Basket ? (Basket) lines : new Basket(lines);
+  }
+
+  /**
+   * Returns the number of lines.
+   *
+   * @return the number of lines
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the product id of a line.
+   *
+   * @param line the line
+   * @return the product id
+   */
+  public int getProductId(int line) {
+    checkLine(line);
+    return ids[line];
+  }
+
+  /**
+   * Returns the quantity of a line.
+   *
+   * @param line the line
+   * @return the quantity
+   */
+  public int getQuantity(int line) {
+    checkLine(line);
+    return quantities[line];
+  }
+
+  /**
+   * Changes the quantity of a line.
+   *
+   * @param line the line
+   * @param quantity the new quantity
+   */
+  public void setQuantity(int line, int quantity) {
+    checkLine(line);
+    quantities[line] = quantity;
+  }
+
+  /**
+   * Returns a copy of a line.
+   *
+   * @param line the line
+   * @return a new {@code int[] {id, quantity}} array
+   */
+  @Override
+  public int[] get(int line) {
+    checkLine(line);
+    return new int[] {ids[line], quantities[line]};
+  }
+
+  /**
+   * Replaces a line.
+   *
+   * @param line the line
+   * @param value the new {@code int[] {id, quantity}} line
+   * @return a copy of the replaced line
+   */
+  @Override
+  public int[] set(int line, int[] value) {
+    int[] previous = get(line);
+    ids[line] = value[0];
+    quantities[line] = value[1];
+    if (previous[0] != value[0]) {
+      table = null;
+    }
+    return previous;
+  }
+
+  /**
+   * Appends a line, even if the basket already has a line of the product.
+   *
+   * @param value the {@code int[] {id, quantity}} line
+   * @return always true
+   */
+  @Override
+  public boolean add(int[] value) {
+    add(value[0], value[1]);
+    return true;
+  }
+
+  /**
+   * Inserts a line.
+   *
+   * @param line the position of the new line
+   * @param value the {@code int[] {id, quantity}} line
+   */
+  @Override
+  public void add(int line, int[] value) {
+    if (line < 0 || line > size) {
+      throw new IndexOutOfBoundsException("Line: " + line + ", Size: " + size);
+    }
+    add(value[0], value[1]);
+    if (line < size - 1) {
+      System.arraycopy(ids, line, ids, line + 1, size - 1 - line);
+      System.arraycopy(quantities, line, quantities, line + 1, size - 1 - line);
+      ids[line] = value[0];
+      quantities[line] = value[1];
+      table = null;
+    }
+  }
+
+  /**
+   * Appends a line, even if the basket already has a line of the product.
+   *
+   * @param id the product id
+   * @param quantity the quantity
+   */
+  public void add(int id, int quantity) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+      quantities = Arrays.copyOf(quantities, size * 2);
+    }
+    ids[size] = id;
+    quantities[size] = quantity;
+    modCount++;
+    size++;
+    if (table != null) {
+      if (size * 2 > table.length) {
+        table = null;
+      } else {
+        insert(size - 1);
+      }
+    }
+  }
+
+  /**
+   * Removes a line.
+   *
+   * @param line the line
+   * @return a copy of the removed line
+   */
+  @Override
+  public int[] remove(int line) {
+    int[] removed = get(line);
+    System.arraycopy(ids, line + 1, ids, line, size - 1 - line);
+    System.arraycopy(quantities, line + 1, quantities, line, size - 1 - line);
+    size--;
+    modCount++;
+    table = null;
+    return removed;
+  }
+
+  /** Removes all the lines. */
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+    table = null;
+  }
+
+  /**
+   * Returns the first line of a product.
+   *
+   * @param id the product id
+   * @return the line, -1 if the basket has no line of the product
+   */
+  public int findLine(int id) {
+    if (size <= SCAN_LINES) {
+      for (int i = 0; i < size; i++) {
+        if (ids[i] == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    if (table == null) {
+      table = new int[tableLength(size)];
+      for (int i = 0; i < size; i++) {
+        insert(i);
+      }
+    }
+    int mask = table.length - 1;
+    for (int slot = IntIntMap.hash(id) & mask; ; slot = (slot + 1) & mask) {
+      if (table[slot] == 0) {
+        return -1;
+      }
+      if (ids[table[slot] - 1] == id) {
+        return table[slot] - 1;
+      }
+    }
+  }
+
+  /**
+   * Adds a quantity to the line of a product, or appends a line if the basket has none.
+   *
+   * @param id the product id
+   * @param quantity the quantity to add
+   * @return the line of the product
+   */
+  public int merge(int id, int quantity) {
+    int line = findLine(id);
+    if (line < 0) {
+      add(id, quantity);
+      return size - 1;
+    }
+    quantities[line] += quantity;
+    return line;
+  }
+
+  /** Shrinks the arrays of the lines to the number of lines. */
+  public void trimToSize() {
+    if (ids.length > size) {
+      ids = Arrays.copyOf(ids, Math.max(size, 1));
+      quantities = Arrays.copyOf(quantities, ids.length);
+    }
+  }
+
+  /**
+   * Puts a line into the hash table, if the table has no line of its product yet.
+   *
+   * @param line the line
+   */
+  private void insert(int line) {
+    int mask = table.length - 1;
+    int slot = IntIntMap.hash(ids[line]) & mask;
+    while (table[slot] != 0) {
+      if (ids[table[slot] - 1] == ids[line]) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = line + 1;
+  }
+
+  /**
+   * Checks that a line exists.
+   *
+   * @param line the line
+   * @throws IndexOutOfBoundsException there is no such line
+   */
+  private void checkLine(int line) {
+    if (line < 0 || line >= size) {
+      throw new IndexOutOfBoundsException("Line: " + line + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Returns the length of a hash table for the given number of lines, a power of 2 that keeps the
+   * table at most half full.
+   *
+   * @param lines the number of lines
+   * @return the length of the table
+   */
+  private static int tableLength(int lines) {
+    int length = 16;
+    while (length < lines * 2) {
+      length <<= 1;
+    }
+    return length;
+  }
+}
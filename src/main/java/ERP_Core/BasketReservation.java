@@ -0,0 +1,159 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+/**
+ * The units reserved for a basket while the cashier is still filling it, so that the products
+ * that were checked when they were added to the basket are still there when the order is
+ * confirmed. Every line is reserved in the storage as soon as it is added, and confirming the
+ * order removes the reserved units from the storage.
+ *
+ * <p>A reservation only holds the units for a while: if the basket is neither confirmed nor
+ * cancelled before its time to live passes, e.g. because the customer left, the {@link
+ * ReservationWheel} releases the units. Adding a line renews the time to live. If a basket whose
+ * reservation expired is still used, its lines are reserved again, all together, if the units are
+ * still available. The time to live is given in seconds by the "erp.reservations.ttl" system
+ * property, 10 minutes by default.
+ *
+ * @version 1.0
+ */
+public class BasketReservation {
+  /** How long the units are held after the last line was added, in milliseconds. */
+  private static final long TIME_TO_LIVE = 1000 * Long.getLong("erp.reservations.ttl", 600);
+
+  /** The units are reserved. */
+  private static final int ACTIVE = 0;
+  /** The time to live passed and the units were released. */
+  private static final int EXPIRED = 1;
+  /** The order was confirmed and the units were removed from the storage. */
+  private static final int CONFIRMED = 2;
+  /** The order was cancelled and the units were released. */
+  private static final int RELEASED = 3;
+
+  /** The reserved quantities by the product id. */
+  private final IntIntMap lines = new IntIntMap(4);
+  /** The state of the reservation. */
+  private int state = ACTIVE;
+  /** When the units are released, in epoch milliseconds. */
+  private volatile long deadline;
+  /** Whether the reservation is in the reservation wheel. */
+  private boolean scheduled;
+
+  /** Creates an empty reservation, for a new basket. */
+  public BasketReservation() {}
+
+  /**
+   * Reserves units of a product for the basket, and renews the time to live of the reservation.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to add to the basket
+   * @return true if the units were reserved, false if there are not enough units available
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException the order was already confirmed or cancelled
+   */
+  public synchronized boolean reserve(int id, int quantity) throws NoSuchElementException {
+    if (quantity <= 0 || !renew() || !Storage.reserveProductQuantity(id, quantity)) {
+      return false;
+    }
+    lines.put(id, lines.get(id, 0) + quantity);
+    if (!scheduled) {
+      scheduled = true;
+      ReservationWheel.schedule(this);
+    }
+    return true;
+  }
+
+  /**
+   * Removes the reserved units from the storage, when the order of the basket is confirmed. If
+   * the reservation expired, the units are reserved again first.
+   *
+   * @return true if the units were removed, false if they are not available anymore
+   * @throws IllegalStateException the order was already confirmed or cancelled
+   */
+  public synchronized boolean confirm() {
+    if (!renew()) {
+      return false;
+    }
+    Storage.commitBasket(getLines());
+    state = CONFIRMED;
+    return true;
+  }
+
+  /** Releases the reserved units, when the order of the basket is cancelled. */
+  public synchronized void release() {
+    if (state == ACTIVE) {
+      Storage.releaseBasket(getLines());
+    }
+    if (state != CONFIRMED) {
+      state = RELEASED;
+    }
+  }
+
+  /**
+   * Returns the reserved lines.
+   *
+   * @return the product id - quantity lines
+   */
+  public synchronized ArrayList<int[]> getLines() {
+    ArrayList<int[]> basket = new ArrayList<int[]>(lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      basket.add(new int[] {lines.keyAt(i), lines.valueAt(i)});
+    }
+    return basket;
+  }
+
+  /**
+   * Returns when the units are released, if the reservation is not renewed.
+   *
+   * @return the deadline in epoch milliseconds
+   */
+  long getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * Releases the units if the time to live has passed. Called by the reservation wheel.
+   *
+   * @param now the current time in epoch milliseconds
+   * @return true if the reservation does not need to be checked again, false if its deadline has
+   *     not passed yet
+   */
+  synchronized boolean expire(long now) {
+    if (state == ACTIVE && deadline > now) {
+      return false;
+    }
+    if (state == ACTIVE) {
+      Storage.releaseBasket(getLines());
+      state = EXPIRED;
+    }
+    scheduled = false;
+    return true;
+  }
+
+  /**
+   * Renews the time to live, reserving the units again if the reservation expired.
+   *
+   * @return true if the units are reserved, false if the reservation expired and the units are not
+   *     available anymore
+   * @throws IllegalStateException the order was already confirmed or cancelled
+   */
+  private boolean renew() {
+    if (state == CONFIRMED || state == RELEASED) {
+      throw new IllegalStateException(
+          "The order of the basket was already confirmed or cancelled");
+    }
+    deadline = System.currentTimeMillis() + TIME_TO_LIVE;
+    if (state == EXPIRED) {
+      if (!Storage.reserveBasket(getLines())) {
+        return false;
+      }
+      state = ACTIVE;
+      if (!scheduled) {
+        scheduled = true;
+        ReservationWheel.schedule(this);
+      }
+    }
+    return true;
+  }
+}
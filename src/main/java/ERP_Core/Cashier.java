@@ -1,8 +1,11 @@
 package ERP_Core;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.InputMismatchException;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class represents a cashier made in the ERP system. The class is responsible for creating a new
@@ -14,14 +17,41 @@ import java.util.Scanner;
  * @author George Liargovas
  */
 public class Cashier extends User {
+  /**
+   * The cashiers by their id, kept up to date as the cashiers are created and deleted, so the
+   * order requests are validated without scanning the user list.
+   */
+  private static final ConcurrentHashMap<Integer, Cashier> cashiersById =
+      new ConcurrentHashMap<Integer, Cashier>();
 
   public Cashier(String name, String surname, String username, String password) {
     super(name, surname, username, password);
+    cashiersById.putIfAbsent(getIdUser(), this);
   }
 
   public Cashier(int idUser, String name, String surname, String username, String password) {
     super(idUser, name, surname, username, password);
+    cashiersById.putIfAbsent(idUser, this);
+  }
+
+  /**
+   * Returns the cashiers by their id. The map is updated as the cashiers are created and deleted.
+   *
+   * @return the cashiers, by their id
+   */
+  static Map<Integer, Cashier> getCashiersById() {
+    return Collections.unmodifiableMap(cashiersById);
   }
+
+  /**
+   * Removes a deleted cashier from the cashiers by their id.
+   *
+   * @param cashier the deleted cashier
+   */
+  static void removeCashier(Cashier cashier) {
+    cashiersById.remove(cashier.getIdUser(), cashier);
+  }
+
   /**
    * Login Method for Cashiers.
    *
@@ -0,0 +1,56 @@
+package ERP_Core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tracks whether the objects of one of the data files have changed since the file was last
+ * written or loaded, so that saving only rewrites the files that actually changed. Every class
+ * whose objects are saved to a file marks its tracker as changed whenever an object is added,
+ * removed or modified.
+ *
+ * @version 1.0
+ */
+public class ChangeTracker {
+  /** Whether there are changes that have not been written to the file. */
+  private final AtomicBoolean changed = new AtomicBoolean();
+
+  /** Marks the objects as changed since the file was last written. */
+  public void markChanged() {
+    changed.set(true);
+  }
+
+  /**
+   * Checks whether there are changes that have not been written to the file.
+   *
+   * @return true if the file needs to be written, else false
+   */
+  public boolean hasChanges() {
+    return changed.get();
+  }
+
+  /**
+   * Marks the objects as unchanged, after the file has been written or loaded. Changes made
+   * while the file is written mark the tracker as changed again.
+   *
+   * @return true if there were changes to write, else false
+   */
+  public boolean markSaved() {
+    return changed.getAndSet(false);
+  }
+
+  /**
+   * Writes the file with the given writer if there are changes. If the file could not be written,
+   * the changes are kept so that the next save tries again.
+   *
+   * @param writer writes the file and returns true if it was written
+   * @return false if the file had to be written and could not be, else true
+   */
+  public boolean save(BooleanSupplier writer) {
+    if (markSaved() && !writer.getAsBoolean()) {
+      markChanged();
+      return false;
+    }
+    return true;
+  }
+}
@@ -1,6 +1,7 @@
 package ERP_Core;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -233,9 +234,9 @@ public class Charts {
   /**
    * Fills data that are to be used for creating chart of Best-Sellers.
    *
-   * @param sales ProductSale ArrayList.
+   * @param sales ProductSale list.
    */
-  public static void fillData_BestSellers(ArrayList<ProductSale> sales) {
+  public static void fillData_BestSellers(List<ProductSale> sales) {
     try {
       System.out.printf(
           "%-8s %-15s %3s    %-12s%-8s", "Rank", "Product Name", "ID", "Quantity", "BarChart");
@@ -262,9 +263,9 @@ public class Charts {
   /**
    * Fills data that are to be used for creating chart of Greatest Revenue products.
    *
-   * @param sales ProductSale ArrayList.
+   * @param sales ProductSale list.
    */
-  public static void fillData_BestRevenue(ArrayList<ProductSale> sales) {
+  public static void fillData_BestRevenue(List<ProductSale> sales) {
     try {
       System.out.printf(
           "%-8s %-15s %3s    %-12s%8s", "Rank", "Product Name", "ID", "Revenue", "BarChart");
@@ -0,0 +1,395 @@
+package ERP_Core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/**
+ * A streaming reader for the ";" separated .csv files of the ERP system. The reader keeps a single
+ * char buffer that is refilled from the underlying stream, and the values of a record are parsed
+ * directly out of that buffer, so no intermediate line or field strings are created for numeric
+ * fields.
+ *
+ * <p>The reader is used as a cursor: {@link #nextRecord()} moves to the next line of the file and
+ * the {@code next*} methods consume the fields of that line from left to right. An empty line is
+ * skipped and a trailing separator at the end of a line does not produce an empty field, the same
+ * way the previous Scanner based parser behaved.
+ *
+ * @version 1.0
+ */
+public class CsvReader implements Closeable {
+  /** The separator between the fields of a record. */
+  private static final char SEPARATOR = ';';
+  /** The initial size of the char buffer. */
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+  /** Powers of ten that can be represented exactly as doubles. */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** The stream the records are read from, null if the whole input is already in the buffer. */
+  private final Reader in;
+  /** The buffer that holds the part of the file currently being parsed. */
+  private char[] buffer;
+  /** The number of valid chars in the buffer. */
+  private int limit;
+  /** The position of the next char to parse in the buffer. */
+  private int position;
+  /** The end of the current record in the buffer (exclusive). */
+  private int recordEnd;
+  /** The position where the next record starts. */
+  private int nextRecordStart;
+  /** True when the underlying stream has no more chars. */
+  private boolean endOfStream;
+
+  /**
+   * Creates a reader that streams the records from the given Reader.
+   *
+   * @param in the Reader that provides the contents of the file
+   */
+  public CsvReader(Reader in) {
+    this.in = in;
+    this.buffer = new char[DEFAULT_BUFFER_SIZE];
+  }
+
+  /**
+   * Creates a reader over a part of a char array that already contains whole records.
+   *
+   * @param chars the char array with the records
+   * @param offset the position of the first char of the records
+   * @param length the number of chars of the records
+   */
+  public CsvReader(char[] chars, int offset, int length) {
+    this.in = null;
+    this.buffer = chars;
+    this.position = offset;
+    this.nextRecordStart = offset;
+    this.recordEnd = offset;
+    this.limit = offset + length;
+    this.endOfStream = true;
+  }
+
+  /**
+   * Moves the cursor to the next non empty record of the file.
+   *
+   * @return true if a record was found, false at the end of the file
+   * @throws IOException the file could not be read
+   */
+  public boolean nextRecord() throws IOException {
+    for (; ; ) {
+      int start = nextRecordStart;
+      int newLine = indexOfNewLine(start);
+      while (newLine < 0 && !endOfStream) {
+        start = fill(start);
+        newLine = indexOfNewLine(start);
+      }
+      if (newLine < 0) {
+        if (start >= limit) {
+          position = recordEnd = nextRecordStart = limit;
+          return false;
+        }
+        newLine = limit;
+      }
+      nextRecordStart = newLine + 1;
+      int end = newLine;
+      if (end > start && buffer[end - 1] == '\r') {
+        end--;
+      }
+      if (end == start) {
+        continue;
+      }
+      position = start;
+      recordEnd = end;
+      return true;
+    }
+  }
+
+  /**
+   * Checks whether the current record has any fields left.
+   *
+   * @return true if there is another field in the current record, else false
+   */
+  public boolean hasNextField() {
+    return position < recordEnd;
+  }
+
+  /**
+   * Returns the number of fields left in the current record.
+   *
+   * @return the number of fields that have not been read yet
+   */
+  public int remainingFields() {
+    if (position >= recordEnd) {
+      return 0;
+    }
+    int count = 1;
+    for (int i = position; i < recordEnd; i++) {
+      if (buffer[i] == SEPARATOR && i + 1 < recordEnd) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reads the next field of the current record as a String.
+   *
+   * @return the value of the field
+   * @throws NoSuchElementException the record has no more fields
+   */
+  public String nextString() {
+    int start = position;
+    int end = fieldEnd();
+    return new String(buffer, start, end - start);
+  }
+
+  /**
+   * Parses the next field of the current record as an int, without creating a String.
+   *
+   * @return the value of the field
+   * @throws NumberFormatException the field is not an integer
+   */
+  public int nextInt() throws NumberFormatException {
+    int start = position;
+    int end = fieldEnd();
+    return parseInt(buffer, start, end);
+  }
+
+  /**
+   * Parses the next field of the current record as a long, without creating a String.
+   *
+   * @return the value of the field
+   * @throws NumberFormatException the field is not an integer
+   */
+  public long nextLong() throws NumberFormatException {
+    int start = position;
+    int end = fieldEnd();
+    return parseLong(buffer, start, end);
+  }
+
+  /**
+   * Parses the next field of the current record as a double. Plain decimal numbers are parsed
+   * directly out of the buffer, anything else falls back to {@link Double#parseDouble(String)}.
+   *
+   * @return the value of the field
+   * @throws NumberFormatException the field is not a number
+   */
+  public double nextDouble() throws NumberFormatException {
+    int start = position;
+    int end = fieldEnd();
+    return parseDouble(buffer, start, end);
+  }
+
+  /**
+   * Parses the next field of the current record as an order date, without creating a String.
+   *
+   * @return the epoch milliseconds of the local date and time, see {@link DateStamp}
+   * @throws java.time.format.DateTimeParseException the field is not a date
+   */
+  public long nextDate() {
+    int start = position;
+    int end = fieldEnd();
+    return DateStamp.parse(buffer, start, end);
+  }
+
+  /** Skips the next field of the current record. */
+  public void skipField() {
+    fieldEnd();
+  }
+
+  /**
+   * Closes the underlying stream.
+   *
+   * @throws IOException the stream could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (in != null) {
+      in.close();
+    }
+  }
+
+  /**
+   * Parses an int out of a part of a char array.
+   *
+   * @param chars the char array
+   * @param start the first char of the number
+   * @param end the end of the number (exclusive)
+   * @return the parsed int
+   * @throws NumberFormatException the chars do not represent an int
+   */
+  static int parseInt(char[] chars, int start, int end) throws NumberFormatException {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > 10) {
+      return Integer.parseInt(new String(chars, start, end - start));
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException(
+            "For input string: \"" + new String(chars, start, end - start) + "\"");
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new NumberFormatException(
+          "Value out of range: \"" + new String(chars, start, end - start) + "\"");
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parses a long out of a part of a char array.
+   *
+   * @param chars the char array
+   * @param start the first char of the number
+   * @param end the end of the number (exclusive)
+   * @return the parsed long
+   * @throws NumberFormatException the chars do not represent a long
+   */
+  static long parseLong(char[] chars, int start, int end) throws NumberFormatException {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    if (i == end || end - i > 18) {
+      return Long.parseLong(new String(chars, start, end - start));
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException(
+            "For input string: \"" + new String(chars, start, end - start) + "\"");
+      }
+      value = value * 10 + digit;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses a double out of a part of a char array. Numbers with at most 15 significant digits and
+   * no exponent are computed as an exact long divided by an exact power of ten, which gives the
+   * same correctly rounded result as {@link Double#parseDouble(String)}.
+   *
+   * @param chars the char array
+   * @param start the first char of the number
+   * @param end the end of the number (exclusive)
+   * @return the parsed double
+   * @throws NumberFormatException the chars do not represent a number
+   */
+  static double parseDouble(char[] chars, int start, int end) throws NumberFormatException {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int decimals = -1;
+    boolean anyDigit = false;
+    for (; i < end; i++) {
+      char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        anyDigit = true;
+        mantissa = mantissa * 10 + (c - '0');
+        if (mantissa != 0) {
+          digits++;
+        }
+        if (decimals >= 0) {
+          decimals++;
+        }
+      } else if (c == '.' && decimals < 0) {
+        decimals = 0;
+      } else {
+        break;
+      }
+    }
+    if (i != end || !anyDigit || digits > 15) {
+      return Double.parseDouble(new String(chars, start, end - start));
+    }
+    double value = mantissa;
+    if (decimals > 0) {
+      if (decimals >= POWERS_OF_TEN.length) {
+        return Double.parseDouble(new String(chars, start, end - start));
+      }
+      value = value / POWERS_OF_TEN[decimals];
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Finds the end of the next field, moves the cursor after its separator and returns the end.
+   *
+   * @return the end of the field (exclusive)
+   */
+  private int fieldEnd() {
+    if (position >= recordEnd) {
+      throw new NoSuchElementException("The record has no more fields");
+    }
+    int end = position;
+    while (end < recordEnd && buffer[end] != SEPARATOR) {
+      end++;
+    }
+    position = end + 1;
+    return end;
+  }
+
+  /**
+   * Returns the position of the next '\n' starting from the given position, or -1 if there is none
+   * in the buffer.
+   *
+   * @param from the position to start searching
+   * @return the position of the new line char, or -1
+   */
+  private int indexOfNewLine(int from) {
+    for (int i = from; i < limit; i++) {
+      if (buffer[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves the unparsed chars to the start of the buffer, growing it if a single record does not
+   * fit, and reads more chars from the stream.
+   *
+   * @param start the position of the first unparsed char
+   * @return the new position of the first unparsed char
+   * @throws IOException the stream could not be read
+   */
+  private int fill(int start) throws IOException {
+    int remaining = limit - start;
+    if (start == 0 && remaining == buffer.length) {
+      char[] grown = new char[buffer.length * 2];
+      System.arraycopy(buffer, 0, grown, 0, remaining);
+      buffer = grown;
+    } else if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, remaining);
+    }
+    limit = remaining;
+    int read = in.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      endOfStream = true;
+    } else {
+      limit += read;
+    }
+    nextRecordStart = 0;
+    position = 0;
+    recordEnd = 0;
+    return 0;
+  }
+}
@@ -0,0 +1,157 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The storage of the data in the .csv files of the Data directory. The files are loaded
+ * concurrently at startup by the {@link DataLoader}, the confirmed orders are appended to the
+ * journals of the order files and saving rewrites only the files whose lists changed. Every lookup
+ * searches the lists that were loaded into the memory.
+ *
+ * @version 1.0
+ */
+public class CsvRepository implements Repository {
+
+  /**
+   * Loads the .csv files and the warehouses, and replays the order journals on top of them, so the
+   * replayed storage orders add their supplies to their warehouses.
+   */
+  @Override
+  public void loadAll() {
+    DataLoader.loadAllLists();
+    Storage.loadWarehouses();
+    FileHandler.replayJournals();
+  }
+
+  /**
+   * Saving all the lists to .csv files. Only the files whose objects changed since they were last
+   * written are rewritten, and only the new orders are appended to the order files. The quantities,
+   * with the quantities of the warehouses, and the registered customers are saved with the orders
+   * when the journals are compacted, since the journals would make their changes again if they
+   * were saved while the journals are kept.
+   */
+  @Override
+  public void saveAll() {
+    FileHandler.compactJournals();
+    Storage.productChanges.save(() -> FileHandler.writeProductListToCSV(Storage.getProducts()));
+    User.changes.save(() -> FileHandler.writeUserListToCSV(User.getUsers()));
+    Supplier.changes.save(() -> FileHandler.writeSupplierToCSV(Supplier.getsuppliers()));
+  }
+
+  /**
+   * Appends a confirmed order to the order journal.
+   *
+   * @param order the confirmed order
+   */
+  @Override
+  public void appendOrder(Order order) {
+    FileHandler.appendOrderToJournal(order);
+  }
+
+  /**
+   * Appends the confirmed orders of a batch to the order journal.
+   *
+   * @param orders the confirmed orders
+   */
+  @Override
+  public void appendOrders(List<Order> orders) {
+    FileHandler.appendOrdersToJournal(orders);
+  }
+
+  /**
+   * Appends a confirmed storage order to the storage order journal.
+   *
+   * @param order the confirmed storage order
+   */
+  @Override
+  public void appendStorageOrder(StorageOrder order) {
+    FileHandler.appendStorageOrderToJournal(order);
+  }
+
+  /**
+   * Looks up an order in the order list, which is sorted by the order number.
+   *
+   * @param orderNo the order number
+   * @return the order, or null if there is no order with this number
+   */
+  @Override
+  public Order findOrder(int orderNo) {
+    OrderHistory orders = Order.orders;
+    int low = 0;
+    int high = orders.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int current = orders.getOrderNo(middle);
+      if (current < orderNo) {
+        low = middle + 1;
+      } else if (current > orderNo) {
+        high = middle - 1;
+      } else {
+        return orders.get(middle);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Looks up the orders of a period in the order list. Only the orders of the period are decoded.
+   *
+   * @param from the start of the period (inclusive)
+   * @param to the end of the period (exclusive)
+   * @return the orders of the period
+   */
+  @Override
+  public List<Order> findOrdersByDate(long from, long to) {
+    OrderHistory orders = Order.orders;
+    ArrayList<Order> found = new ArrayList<Order>();
+    for (int i = 0; i < orders.size(); i++) {
+      long date = orders.getDateMillis(i);
+      if (date >= from && date < to) {
+        found.add(orders.get(i));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Looks up a storage order in the storage order list.
+   *
+   * @param orderNo the storage order number
+   * @return the storage order, or null if there is no storage order with this number
+   */
+  @Override
+  public StorageOrder findStorageOrder(int orderNo) {
+    for (StorageOrder order : StorageOrder.getOrders()) {
+      if (order.getStorageOrderNumber() == orderNo) {
+        return order;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Looks up the storage orders of a period in the storage order list.
+   *
+   * @param from the start of the period (inclusive)
+   * @param to the end of the period (exclusive)
+   * @return the storage orders of the period
+   */
+  @Override
+  public List<StorageOrder> findStorageOrdersByDate(long from, long to) {
+    ArrayList<StorageOrder> found = new ArrayList<StorageOrder>();
+    for (StorageOrder order : StorageOrder.getOrders()) {
+      long date = order.getStorageOrderTime();
+      if (date >= from && date < to) {
+        found.add(order);
+      }
+    }
+    return found;
+  }
+
+  /** Syncs and closes the journal files. */
+  @Override
+  public void close() {
+    FileHandler.closeJournals();
+  }
+}
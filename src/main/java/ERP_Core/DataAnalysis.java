@@ -1,28 +1,28 @@
 package ERP_Core;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class DataAnalysis {
     // Checks if certain product is in the basket of the certain order adds the sold quantity to the product sales.
     // Returns the updated product sales
     public static int salesPerProduct(int productId, Order order, int soldPieces) {
-        ArrayList<int[]> basket = order.getBasket();
+        Basket basket = order.getBasket();
             for (int k = 0; k < basket.size(); k++){
-                int[] prodIdQuant = basket.get(k);
-                if (prodIdQuant[0] == productId) {
-                 soldPieces = soldPieces + prodIdQuant[1];
+                if (basket.getProductId(k) == productId) {
+                 soldPieces = soldPieces + basket.getQuantity(k);
                 }
             }
         return soldPieces;
     }
 
     //Separates certain products sales of a certain year per month
-    public static int[] salesPerProductPerMonth(int productId, ArrayList<Order> orders, int year) {
+    public static int[] salesPerProductPerMonth(int productId, List<Order> orders, int year) {
         int [] salesPerMonth = new int [12];
         for(int i = 0; i < orders.size(); i++){
             Order order = orders.get(i);
-            if (AnalyzeOrders.getDateYear(order.getOrderDate()) == year) {
-                int month = AnalyzeOrders.getDateMonth(order.getOrderDate());
+            if (order.getOrderYear() == year) {
+                int month = order.getOrderMonth();
                 for (int k = 0; k <12; k++) {
                     if (month == k) {
                         salesPerMonth[k] = salesPerProduct(productId, order, salesPerMonth[k]);
@@ -46,7 +46,7 @@ public class DataAnalysis {
         System.out.println();
     }
 
-    public static void salesOfAllProductsPerMonth(ArrayList<Product> products, ArrayList<Order> orders, int year) {
+    public static void salesOfAllProductsPerMonth(ArrayList<Product> products, List<Order> orders, int year) {
         for (int i = 0; i < products.size(); i++) {
             int [] salesPerMonth = salesPerProductPerMonth(products.get(i).getProductId(), orders, year);
             barchart(products.get(i).getProductId(), salesPerMonth);
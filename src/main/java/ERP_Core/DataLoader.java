@@ -0,0 +1,326 @@
+package ERP_Core;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the data files of the ERP system concurrently at startup. The work is split in two phases:
+ *
+ * <ul>
+ *   <li>All seven files are read and parsed at the same time on a thread pool. The users,
+ *       products, product quantities, customers and suppliers do not refer to other objects, so
+ *       their objects are created while their file is parsed. The orders and storage orders are
+ *       parsed in parallel chunks into an {@link OrderBatch}.
+ *   <li>The orders are linked to their customers, cashiers and products as soon as the users,
+ *       customers and products are loaded, and the storage orders are linked to their suppliers and
+ *       storekeepers as soon as the users and suppliers are loaded.
+ * </ul>
+ *
+ * <p>Each file adds its objects to its own list, so the tasks never share a list. A file that was
+ * loaded is marked as saved, so it is only written again once its objects change. The time each
+ * file took to parse and link is printed when all the files are loaded.
+ *
+ * @version 1.0
+ */
+public class DataLoader {
+  /** The names of the data files, in the order the timings are printed. */
+  private static final String[] FILES = {
+    "Users.csv",
+    "Products.csv",
+    "ProductQuantities.csv",
+    "Customers.csv",
+    "Orders.csv",
+    "Suppliers.csv",
+    "StorageOrders.csv"
+  };
+  /** The index of the users file. */
+  private static final int USERS = 0;
+  /** The index of the products file. */
+  private static final int PRODUCTS = 1;
+  /** The index of the product quantities file. */
+  private static final int QUANTITIES = 2;
+  /** The index of the customers file. */
+  private static final int CUSTOMERS = 3;
+  /** The index of the orders file. */
+  private static final int ORDERS = 4;
+  /** The index of the suppliers file. */
+  private static final int SUPPLIERS = 5;
+  /** The index of the storage orders file. */
+  private static final int STORAGE_ORDERS = 6;
+  /** The value of a timing that was not measured. */
+  private static final long NOT_MEASURED = -1;
+
+  /** The nanoseconds each file took to be read and parsed. */
+  private final long[] parseTimes = new long[FILES.length];
+  /** The nanoseconds each file took to be linked, NOT_MEASURED if it has no link phase. */
+  private final long[] linkTimes = new long[FILES.length];
+
+  /** Creates a loader. */
+  private DataLoader() {
+    Arrays.fill(linkTimes, NOT_MEASURED);
+  }
+
+  /**
+   * Loads all the data files and prints the load time of each file.
+   *
+   * @throws RuntimeException a file contains an invalid record
+   */
+  public static void loadAllLists() {
+    DataLoader loader = new DataLoader();
+    long start = System.nanoTime();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(FILES.length, Runtime.getRuntime().availableProcessors()),
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "data-loader");
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+    try {
+      loader.load(executor);
+    } finally {
+      executor.shutdown();
+    }
+    loader.printTimings(System.nanoTime() - start);
+  }
+
+  /**
+   * Runs the parse and link tasks following the dependencies between the files and waits until
+   * all of them are finished.
+   *
+   * @param executor the thread pool the tasks are run on
+   */
+  private void load(ExecutorService executor) {
+    CompletableFuture<Void> users =
+        CompletableFuture.runAsync(() -> parse(USERS, this::loadUsers), executor);
+    CompletableFuture<Void> products =
+        CompletableFuture.runAsync(() -> parse(PRODUCTS, this::loadProducts), executor);
+    CompletableFuture<Void> quantities =
+        CompletableFuture.runAsync(() -> parse(QUANTITIES, this::loadQuantities), executor);
+    CompletableFuture<Void> customers =
+        CompletableFuture.runAsync(() -> parse(CUSTOMERS, this::loadCustomers), executor);
+    CompletableFuture<Void> suppliers =
+        CompletableFuture.runAsync(() -> parse(SUPPLIERS, this::loadSuppliers), executor);
+    CompletableFuture<OrderBatch> orderBatch =
+        CompletableFuture.supplyAsync(() -> parseOrders(ORDERS), executor);
+    CompletableFuture<OrderBatch> storageOrderBatch =
+        CompletableFuture.supplyAsync(() -> parseOrders(STORAGE_ORDERS), executor);
+    // the orders refer to the cashiers, the customers and the sold products
+    CompletableFuture<Void> orders =
+        CompletableFuture.allOf(users, customers, products, orderBatch)
+            .thenRunAsync(() -> linkOrders(orderBatch.join()), executor);
+    // the storage orders refer to the storekeepers and the suppliers
+    CompletableFuture<Void> storageOrders =
+        CompletableFuture.allOf(users, suppliers, storageOrderBatch)
+            .thenRunAsync(() -> linkStorageOrders(storageOrderBatch.join()), executor);
+    try {
+      CompletableFuture.allOf(quantities, orders, storageOrders).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** A task that reads a data file. */
+  private interface FileTask {
+    /**
+     * Reads the file.
+     *
+     * @throws IOException the file could not be read
+     */
+    void run() throws IOException;
+  }
+
+  /**
+   * Runs the parse task of a file and measures its time. A missing file is reported with the same
+   * messages the sequential loader printed.
+   *
+   * @param file the index of the file
+   * @param task the task that reads the file
+   */
+  private void parse(int file, FileTask task) {
+    long start = System.nanoTime();
+    try {
+      task.run();
+    } catch (FileNotFoundException e) {
+      reportMissingFile(file);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    parseTimes[file] = System.nanoTime() - start;
+  }
+
+  /**
+   * Parses an orders or storage orders file into a batch of records. The orders are not parsed if
+   * they are loaded from the binary snapshot instead.
+   *
+   * @param file the index of the file
+   * @return the parsed records, or null if there is nothing to link
+   */
+  private OrderBatch parseOrders(int file) {
+    long start = System.nanoTime();
+    OrderBatch batch = null;
+    if (file != ORDERS || FileHandler.loadOrderSnapshot() == false) {
+      try {
+        batch = FileHandler.parseOrderFile(FILES[file]);
+      } catch (FileNotFoundException e) {
+        reportMissingFile(file);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    parseTimes[file] = System.nanoTime() - start;
+    return batch;
+  }
+
+  /**
+   * Creates the orders of the parsed orders file.
+   *
+   * @param batch the parsed records, or null if there are none
+   */
+  private void linkOrders(OrderBatch batch) {
+    if (batch != null) {
+      long start = System.nanoTime();
+      Order.createOrdersFromBatch(batch);
+      linkTimes[ORDERS] = System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Creates the storage orders of the parsed storage orders file.
+   *
+   * @param batch the parsed records, or null if there are none
+   */
+  private void linkStorageOrders(OrderBatch batch) {
+    if (batch != null) {
+      long start = System.nanoTime();
+      StorageOrder.createStorageOrdersFromBatch(batch);
+      linkTimes[STORAGE_ORDERS] = System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Loads the users file.
+   *
+   * @throws IOException the file could not be read
+   */
+  private void loadUsers() throws IOException {
+    try (CsvReader reader = FileHandler.openCsvReader(FILES[USERS])) {
+      User.createUsersFromCsv(reader);
+    }
+    User.changes.markSaved();
+  }
+
+  /**
+   * Loads the products file.
+   *
+   * @throws IOException the file could not be read
+   */
+  private void loadProducts() throws IOException {
+    try (CsvReader reader = FileHandler.openCsvReader(FILES[PRODUCTS])) {
+      Product.createProductsFromCsv(reader);
+    }
+    Storage.productChanges.markSaved();
+  }
+
+  /**
+   * Loads the product quantities file.
+   *
+   * @throws IOException the file could not be read
+   */
+  private void loadQuantities() throws IOException {
+    try (CsvReader reader = FileHandler.openCsvReader(FILES[QUANTITIES])) {
+      Storage.createProductQuantitiesFromCsv(reader);
+    }
+    Storage.quantityChanges.markSaved();
+  }
+
+  /**
+   * Loads the customers file.
+   *
+   * @throws IOException the file could not be read
+   */
+  private void loadCustomers() throws IOException {
+    try (CsvReader reader = FileHandler.openCsvReader(FILES[CUSTOMERS])) {
+      RegisteredCustomer.createRegisteredCustomersFromCsv(reader);
+    }
+    RegisteredCustomer.changes.markSaved();
+  }
+
+  /**
+   * Loads the suppliers file.
+   *
+   * @throws IOException the file could not be read
+   */
+  private void loadSuppliers() throws IOException {
+    try (CsvReader reader = FileHandler.openCsvReader(FILES[SUPPLIERS])) {
+      Supplier.createSuppliersFromCsv(reader);
+    }
+    Supplier.changes.markSaved();
+  }
+
+  /**
+   * Prints the message for a data file that does not exist. If there is no users file, the user
+   * list is initialized with the default administrator user.
+   *
+   * @param file the index of the file
+   */
+  private void reportMissingFile(int file) {
+    switch (file) {
+      case USERS:
+        new Administrator(1, "admin", "admin", "admin", "admin");
+        System.out.println("File Users.csv not found, initializing default user list");
+        break;
+      case PRODUCTS:
+        System.out.println("File Products.csv not found, initializing default product list");
+        break;
+      case QUANTITIES:
+        System.out.println(
+            "File ProductQuantities.csv not found, initializing default product quantity list");
+        break;
+      case CUSTOMERS:
+        System.out.println(
+            "File RegisteredCustomers.csv not found, "
+                + "initializing default registered customer list");
+        break;
+      case ORDERS:
+        System.out.println("File Orders.csv not found, initializing default order list");
+        break;
+      case SUPPLIERS:
+        System.out.println("File Suppliers.csv not found, initializing default supplier list");
+        break;
+      default:
+        System.out.println(
+            "File StorageOrders.csv not found, initializing default storage order list");
+    }
+  }
+
+  /**
+   * Prints the parse and link time of each file and the total load time.
+   *
+   * @param total the nanoseconds all the files took to be loaded
+   */
+  private void printTimings(long total) {
+    System.out.printf("Data files loaded in %.1f ms\n", total / 1e6);
+    for (int i = 0; i < FILES.length; i++) {
+      if (linkTimes[i] == NOT_MEASURED) {
+        System.out.printf("  %-22s parse %8.1f ms\n", FILES[i], parseTimes[i] / 1e6);
+      } else {
+        System.out.printf(
+            "  %-22s parse %8.1f ms   link %8.1f ms\n",
+            FILES[i], parseTimes[i] / 1e6, linkTimes[i] / 1e6);
+      }
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package ERP_Core;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts the dates of the orders and storage orders between their text form and epoch
+ * milliseconds. Like the dates of the {@link OrderSnapshot}, a date is kept as the epoch
+ * milliseconds of its local date and time, i.e. the local date and time taken as UTC, so the
+ * conversion does not depend on the time zone of the system.
+ *
+ * <p>The dates are parsed and formatted directly on chars, without {@link String#split(String)}
+ * or a {@link java.text.SimpleDateFormat}, so the methods keep no state, are thread-safe and are
+ * cheap enough for the millions of dates of the loaded orders. The parser accepts both forms of
+ * the files: the dates written by the ERP ("09-01-2020 09:09:22") and the shorter form of older
+ * files ("11-1-2020 10:40"). The dates are always written in the first form, with a 24-hour
+ * clock.
+ *
+ * @version 1.0
+ */
+public final class DateStamp {
+  /** The milliseconds of a day. */
+  private static final long DAY_MILLIS = 86_400_000L;
+  /** The length of a formatted date, "dd-MM-yyyy HH:mm:ss". */
+  private static final int FORMAT_LENGTH = 19;
+  /** The separators after the day, month, year, hour and minute of a date. */
+  private static final char[] SEPARATORS = {'-', '-', ' ', ':', ':'};
+
+  private DateStamp() {}
+
+  /**
+   * Returns the current local date and time, to the second.
+   *
+   * @return the epoch milliseconds of the local date and time
+   */
+  public static long now() {
+    return LocalDateTime.now().withNano(0).toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  /**
+   * Parses a date in the form "d-M-yyyy H:mm" or "d-M-yyyy H:mm:ss".
+   *
+   * @param date the date, e.g. "09-01-2020 09:09:22" or "11-1-2020 10:40"
+   * @return the epoch milliseconds of the local date and time
+   * @throws DateTimeParseException the date is not valid
+   */
+  public static long parse(String date) throws DateTimeParseException {
+    return parse(date.toCharArray(), 0, date.length());
+  }
+
+  /**
+   * Parses a date out of a part of a char array, see {@link #parse(String)}. Blanks around the
+   * date and leading zeros of its numbers are ignored.
+   *
+   * @param chars the char array
+   * @param start the first char of the date
+   * @param end the end of the date (exclusive)
+   * @return the epoch milliseconds of the local date and time
+   * @throws DateTimeParseException the date is not valid
+   */
+  static long parse(char[] chars, int start, int end) throws DateTimeParseException {
+    int i = start;
+    while (i < end && chars[i] == ' ') {
+      i++;
+    }
+    while (end > i && (chars[end - 1] == ' ' || chars[end - 1] == '\r')) {
+      end--;
+    }
+    // the fields of the date and their separators: day-month-year hour:minute[:second]
+    int[] fields = new int[6];
+    int count = 0;
+    while (count < 6) {
+      int digits = 0;
+      int value = 0;
+      while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+        value = value * 10 + (chars[i++] - '0');
+        if (++digits > 9) {
+          throw invalid(chars, start, end);
+        }
+      }
+      if (digits == 0) {
+        throw invalid(chars, start, end);
+      }
+      fields[count++] = value;
+      if (i == end || count == 6) {
+        break;
+      }
+      if (chars[i++] != SEPARATORS[count - 1]) {
+        throw invalid(chars, start, end);
+      }
+      if (count == 3) {
+        while (i < end && chars[i] == ' ') {
+          i++;
+        }
+      }
+    }
+    if (i != end || count < 5) {
+      throw invalid(chars, start, end);
+    }
+    int day = fields[0];
+    int month = fields[1];
+    int year = fields[2];
+    if (year > 9999
+        || month < 1
+        || month > 12
+        || day < 1
+        || day > lengthOfMonth(year, month)
+        || fields[3] > 23
+        || fields[4] > 59
+        || fields[5] > 59) {
+      throw invalid(chars, start, end);
+    }
+    return toEpochDay(year, month, day) * DAY_MILLIS
+        + ((fields[3] * 60L + fields[4]) * 60 + fields[5]) * 1000;
+  }
+
+  /**
+   * Formats a date as "dd-MM-yyyy HH:mm:ss".
+   *
+   * @param millis the epoch milliseconds of the local date and time
+   * @return the formatted date
+   */
+  public static String format(long millis) {
+    long days = Math.floorDiv(millis, DAY_MILLIS);
+    int seconds = (int) (Math.floorMod(millis, DAY_MILLIS) / 1000);
+    int date = toDate(days);
+    char[] chars = new char[FORMAT_LENGTH];
+    putDigits(chars, 0, date % 100, 2);
+    chars[2] = '-';
+    putDigits(chars, 3, date / 100 % 100, 2);
+    chars[5] = '-';
+    putDigits(chars, 6, date / 10000, 4);
+    chars[10] = ' ';
+    putDigits(chars, 11, seconds / 3600, 2);
+    chars[13] = ':';
+    putDigits(chars, 14, seconds / 60 % 60, 2);
+    chars[16] = ':';
+    putDigits(chars, 17, seconds % 60, 2);
+    return new String(chars);
+  }
+
+  /**
+   * Returns the year of a date.
+   *
+   * @param millis the epoch milliseconds of the local date and time
+   * @return the year
+   */
+  public static int getYear(long millis) {
+    return toDate(Math.floorDiv(millis, DAY_MILLIS)) / 10000;
+  }
+
+  /**
+   * Returns the month of a date.
+   *
+   * @param millis the epoch milliseconds of the local date and time
+   * @return the month, from 1 to 12
+   */
+  public static int getMonth(long millis) {
+    return toDate(Math.floorDiv(millis, DAY_MILLIS)) / 100 % 100;
+  }
+
+  /**
+   * Returns the day of the month of a date.
+   *
+   * @param millis the epoch milliseconds of the local date and time
+   * @return the day of the month, from 1 to 31
+   */
+  public static int getDay(long millis) {
+    return toDate(Math.floorDiv(millis, DAY_MILLIS)) % 100;
+  }
+
+  /**
+   * Converts a date to the number of days since 1-1-1970, with the civil calendar algorithm of
+   * Howard Hinnant.
+   *
+   * @param year the year
+   * @param month the month, from 1 to 12
+   * @param day the day of the month
+   * @return the epoch day
+   */
+  private static long toEpochDay(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Converts a number of days since 1-1-1970 to a date, the inverse of {@link #toEpochDay(int,
+   * int, int)}.
+   *
+   * @param epochDay the epoch day
+   * @return the date as the number yyyyMMdd
+   */
+  private static int toDate(long epochDay) {
+    long z = epochDay + 719468;
+    long era = Math.floorDiv(z, 146097);
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+    int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+    return year * 10000 + month * 100 + day;
+  }
+
+  /**
+   * Returns the number of days of a month.
+   *
+   * @param year the year
+   * @param month the month, from 1 to 12
+   * @return the number of days
+   */
+  private static int lengthOfMonth(int year, int month) {
+    if (month == 2) {
+      boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+      return leap ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Writes a number with leading zeros into a char array.
+   *
+   * @param chars the char array
+   * @param offset the position of the first digit
+   * @param value the number
+   * @param digits the number of digits
+   */
+  private static void putDigits(char[] chars, int offset, int value, int digits) {
+    for (int i = offset + digits - 1; i >= offset; i--) {
+      chars[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  /**
+   * Creates the exception for a date that is not valid.
+   *
+   * @param chars the char array
+   * @param start the first char of the date
+   * @param end the end of the date (exclusive)
+   * @return the exception
+   */
+  private static DateTimeParseException invalid(char[] chars, int start, int end) {
+    String date = new String(chars, start, end - start);
+    return new DateTimeParseException("Not a valid date: \"" + date + "\"", date, 0);
+  }
+}
@@ -1,22 +1,27 @@
 package ERP_Core;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The class contains the methods for writing and reading the data of the ERP system to and from
  * files. The files that the data is written are predefined. All the data except the object counters
  * are stored in .csv format. The counters are stored in .txt format.
  *
+ * <p>Every file is replaced atomically: it is written to a temporary file, synced to the disk and
+ * renamed over the previous file, so a crash during a save never leaves a truncated data file.
+ *
  * @version 1.0
  * @author George Liargkovas
  */
@@ -28,20 +33,75 @@ public class FileHandler {
    */
   private static final String CSV_SEPARATOR = ";";
 
+  /**
+   * The number of journal records after which the journals are compacted into their .csv files.
+   * Until then, the records of the new orders are only appended to the journals.
+   */
+  private static final int JOURNAL_COMPACTION_THRESHOLD = 10000;
+
+  /**
+   * The number of records after which the journals are synced to the disk. It can be set with the
+   * "erp.journal.syncInterval" system property, the default value 1 syncs every record.
+   */
+  private static final int JOURNAL_SYNC_INTERVAL =
+      Integer.getInteger("erp.journal.syncInterval", 1);
+
+  /**
+   * Whether the order list is also saved as a binary snapshot (Orders.bin) next to Orders.csv. It
+   * can be enabled with the "erp.binarySnapshots" system property.
+   */
+  private static final boolean BINARY_SNAPSHOTS = Boolean.getBoolean("erp.binarySnapshots");
+
+  /**
+   * The directory of the data files. It can be set with the "erp.dataDir" system property, the
+   * default is the directory "Data" in the working directory.
+   */
+  static final File DATA_DIRECTORY = new File(System.getProperty("erp.dataDir", "./Data"));
+
+  /** The journal of the orders confirmed since Orders.csv was last written. */
+  private static final Journal orderJournal =
+      new Journal(getDataFile("Orders.journal").getPath(), JOURNAL_SYNC_INTERVAL);
+
+  /** The journal of the storage orders confirmed since StorageOrders.csv was last written. */
+  private static final Journal storageOrderJournal =
+      new Journal(getDataFile("StorageOrders.journal").getPath(), JOURNAL_SYNC_INTERVAL);
+
+  /** The number of orders in Orders.csv. The orders after them are appended at the next save. */
+  private static int savedOrders;
+
+  /** The length of Orders.csv when it was last loaded or written, to detect external changes. */
+  private static long savedOrdersLength;
+
+  /** The number of storage orders in StorageOrders.csv. */
+  private static int savedStorageOrders;
+
+  /** The length of StorageOrders.csv when it was last loaded or written. */
+  private static long savedStorageOrdersLength;
+
+  /**
+   * Returns a file of the data directory.
+   *
+   * @param name the name of the file
+   * @return the file
+   */
+  static File getDataFile(String name) {
+    return new File(DATA_DIRECTORY, name);
+  }
+
   /**
    * Checks whether the Data directory has been created.
    *
    * @return true if the directory exists, else, false
    */
   public static boolean checkIfDataDirectoryExists() {
-    File dir = new File("./Data");
+    File dir = DATA_DIRECTORY;
     boolean exists = dir.exists();
     return exists;
   }
 
   /** Created the data directory. */
   public static void createDataDirectory() {
-    new File("./Data").mkdir();
+    DATA_DIRECTORY.mkdir();
   }
 
   /**
@@ -49,39 +109,32 @@ public class FileHandler {
    * "Counters.txt".
    */
   public static void writeAllCountersToFile() {
-    try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Counters.txt"), "UTF-8"));
-      bw.write("User counter: " + User.getUserIdCounter());
-      bw.newLine();
-      bw.write("Product counter: " + Product.getIdCounter());
-      bw.newLine();
-      bw.write("Registered customer counter: " + RegisteredCustomer.getIdCounter());
-      bw.newLine();
-      bw.write("Order counter: " + Order.getIdCounter());
-      bw.newLine();
-      bw.write("Supplier counter: " + Supplier.getIdCounter());
-      bw.newLine();
-      bw.write("Storage order counter: " + StorageOrder.getIdCounter());
-      bw.newLine();
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-      e.printStackTrace();
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
+    writeCountersFile(IdAllocator.getCounters());
+  }
+
+  /**
+   * Writes the given counters to "Counters.txt", one "label: value" line per counter.
+   *
+   * @param counters the values of the counters by their label
+   * @return true if the file was written, else false
+   */
+  static boolean writeCountersFile(Map<String, Integer> counters) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Counters.txt"))) {
+      for (Map.Entry<String, Integer> counter : counters.entrySet()) {
+        bw.write(counter.getKey() + ": " + counter.getValue());
+        bw.newLine();
+      }
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
   }
 
   /** Create default counters file */
   public static void createDefaultCountersFile() {
-    try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Counters.txt"), "UTF-8"));
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Counters.txt"))) {
       bw.write("User counter: 1");
       bw.newLine();
       bw.write("Product counter: 0");
@@ -94,12 +147,9 @@ public class FileHandler {
       bw.newLine();
       bw.write("Storage order counter: 0");
       bw.newLine();
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-      e.printStackTrace();
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
+      bw.write("Price version counter: 0");
+      bw.newLine();
+      bw.commit();
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -111,409 +161,845 @@ public class FileHandler {
    * @return true if the file exists, else, false
    */
   public static boolean checkIfCountersFileExists() {
-    return new File("./Data/Counters.txt").isFile();
+    return getDataFile("Counters.txt").isFile();
   }
 
   /**
-   * Retrieves the user counter stored in "Counters.txt".
+   * Reads all the counters stored in "Counters.txt" in a single pass. Every line of the file
+   * contains the label of a counter and its value, separated by ":".
    *
-   * @return userCounter as int
+   * @return the values of the counters by their label, empty if the file could not be read
    */
-  public static int getUserCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {;
-        if (line.contains("User counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(14));
+  public static Map<String, Integer> readCountersFile() {
+    HashMap<String, Integer> counters = new HashMap<String, Integer>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(getDataFile("Counters.txt")))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        int separator = line.indexOf(':');
+        if (separator > 0) {
+          counters.put(
+              line.substring(0, separator).trim(),
+              Integer.parseInt(line.substring(separator + 1).trim()));
         }
-        line = reader.readLine();
       }
-      reader.close();
     } catch (IOException e) {
       e.printStackTrace();
     }
-    return 0;
+    return counters;
   }
 
   /**
-   * Retrieves the product counter stored in "Counters.txt".
+   * Writes the product list stored in the memory, to a file named "Products.csv", in .csv format
+   * and UTF-8 encoding.
    *
-   * @return productCounter as int
+   * @param products ArrayList that contains the products created by the ERP
+   * @return true if the file was written, else false
    */
-  public static int getProductCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {;
-        if (line.contains("Product counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(17));
-        }
-        line = reader.readLine();
+  public static boolean writeProductListToCSV(ArrayList<Product> products) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Products.csv"))) {
+      for (Product product : products) {
+        bw.write(getProductRecord(product));
+        bw.newLine();
       }
-      reader.close();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
-    return 0;
   }
 
   /**
-   * Retrieves the registered customer counter stored in "Counters.txt".
+   * Returns the .csv record of a product, as it is written to "Products.csv".
    *
-   * @return registeredCustomerCounter as int
+   * @param product the product
+   * @return the product's fields separated by the CSV separator
    */
-  public static int getRegisteredCustomerCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {
-        if (line.contains("Registered customer counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(29));
-        }
-        line = reader.readLine();
+  static String getProductRecord(Product product) {
+    StringBuffer line = new StringBuffer();
+    line.append(product.getProductId());
+    line.append(CSV_SEPARATOR);
+    line.append(product.getName());
+    line.append(CSV_SEPARATOR);
+    line.append(product.getCategory());
+    line.append(CSV_SEPARATOR);
+    line.append(product.getDescription());
+    line.append(CSV_SEPARATOR);
+    line.append(product.getSalePrice());
+    line.append(CSV_SEPARATOR);
+    return line.toString();
+  }
+
+  /**
+   * Writes the ProductQuantities list stored in the memory, to a file named
+   * "ProductQuantities.csv", in .csv format and UTF-8 encoding.
+   *
+   * @param productQuantities the quantities of the products in the storage
+   * @return true if the file was written, else false
+   */
+  public static boolean writeProductQuantitiesListToCSV(Inventory productQuantities) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("ProductQuantities.csv"))) {
+      for (int i = 0; i < productQuantities.size(); i++) {
+        bw.write(
+            getProductQuantityRecord(productQuantities.idAt(i), productQuantities.quantityAt(i)));
+        bw.newLine();
       }
-      reader.close();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
-    return 0;
   }
 
   /**
-   * Retrieves the order counter stored in "Counters.txt".
+   * Returns the .csv record of the quantity of a product, as it is written to
+   * "ProductQuantities.csv".
    *
-   * @return orderCounter as int
+   * @param id the id of the product
+   * @param quantity the available quantity of the product
+   * @return the product id - quantity pair's fields separated by the CSV separator
    */
-  public static int getOrderCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {;
-        if (line.contains("Order counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(15));
-        }
-        line = reader.readLine();
+  static String getProductQuantityRecord(int id, int quantity) {
+    StringBuffer line = new StringBuffer();
+    line.append(id);
+    line.append(CSV_SEPARATOR);
+    line.append(quantity);
+    line.append(CSV_SEPARATOR);
+    return line.toString();
+  }
+
+  /**
+   * Returns the .csv record of the quantity of a product in a warehouse, as it is written to
+   * "WarehouseQuantities.csv".
+   *
+   * @param warehouseId the id of the warehouse
+   * @param id the id of the product
+   * @param quantity the quantity of the product in the warehouse
+   * @return the warehouse id - product id - quantity fields separated by the CSV separator
+   */
+  static String getWarehouseQuantityRecord(int warehouseId, int id, int quantity) {
+    StringBuffer line = new StringBuffer();
+    line.append(warehouseId);
+    line.append(CSV_SEPARATOR);
+    line.append(getProductQuantityRecord(id, quantity));
+    return line.toString();
+  }
+
+  /**
+   * Writes the Registered Customer list stored in the memory, to a file named "Customers.csv", in
+   * .csv format and UTF-8 encoding.
+   *
+   * @param customers ArrayList that contains the registered customer objects created by the ERP
+   * @return true if the file was written, else false
+   */
+  public static boolean writeCustomerListToCSV(ArrayList<RegisteredCustomer> customers) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Customers.csv"))) {
+      for (RegisteredCustomer registeredCustomer : customers) {
+        bw.write(getCustomerRecord(registeredCustomer));
+        bw.newLine();
       }
-      reader.close();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
-    return 0;
   }
 
   /**
-   * Retrieves the supplier counter stored in "Counters.txt".
+   * Returns the .csv record of a registered customer, as it is written to "Customers.csv".
    *
-   * @return supplierCounter as int
+   * @param registeredCustomer the registered customer
+   * @return the registered customer's fields separated by the CSV separator
    */
-  public static int getSupplierCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {;
-        if (line.contains("Supplier counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(18));
-        }
-        line = reader.readLine();
+  static String getCustomerRecord(RegisteredCustomer registeredCustomer) {
+    StringBuffer line = new StringBuffer();
+    line.append(registeredCustomer.getId());
+    line.append(CSV_SEPARATOR);
+    line.append(registeredCustomer.getCompanyName());
+    line.append(CSV_SEPARATOR);
+    line.append(registeredCustomer.getAddress());
+    line.append(CSV_SEPARATOR);
+    line.append(registeredCustomer.getTelephone());
+    line.append(CSV_SEPARATOR);
+    line.append(registeredCustomer.getPoints());
+    return line.toString();
+  }
+
+  /**
+   * Writes the User list stored in the memory, to a file named "Users.csv", in .csv format and
+   * UTF-8 encoding.
+   *
+   * @param users ArrayList that contains the user objects created by the ERP
+   * @return true if the file was written, else false
+   */
+  public static boolean writeUserListToCSV(ArrayList<User> users) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Users.csv"))) {
+      for (User user : users) {
+        bw.write(getUserRecord(user));
+        bw.newLine();
       }
-      reader.close();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
-    return 0;
   }
 
   /**
-   * Retrieves the storage order counter stored in "Counters.txt".
+   * Returns the .csv record of a user, as it is written to "Users.csv".
    *
-   * @return storageOrderCounter as int
+   * @param user the user
+   * @return the user's fields separated by the CSV separator
    */
-  public static int getStorageOrderCounterFromFile() {
-    BufferedReader reader;
-    try {
-      reader = new BufferedReader(new FileReader("./Data/Counters.txt"));
-      String line = reader.readLine();
-      while (line != null) {;
-        if (line.contains("Storage order counter:")) {
-          reader.close();
-          return Integer.parseInt(line.substring(23));
-        }
-        line = reader.readLine();
+  static String getUserRecord(User user) {
+    StringBuffer line = new StringBuffer();
+    if (user instanceof Cashier) {
+      line.append("Cashier");
+    } else if (user instanceof Storekeeper) {
+      line.append("Storekeeper");
+    } else if (user instanceof DataAnalyst) {
+      line.append("DataAnalyst");
+    } else if (user instanceof Administrator) {
+      line.append("Admin");
+    }
+    line.append(CSV_SEPARATOR);
+    line.append(user.getIdUser());
+    line.append(CSV_SEPARATOR);
+    line.append(user.getName());
+    line.append(CSV_SEPARATOR);
+    line.append(user.getSurname());
+    line.append(CSV_SEPARATOR);
+    line.append(user.getUsername());
+    line.append(CSV_SEPARATOR);
+    line.append(user.getPassword());
+    return line.toString();
+  }
+
+  /**
+   * Writes the order list stored in the memory, to a file named "Orders.csv", in .csv format and
+   * UTF-8 encoding.
+   *
+   * @param orders the list that contains the user order objects created by the ERP
+   * @return true if the file was written, else false
+   */
+  public static boolean writeOrderListToCSV(List<Order> orders) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Orders.csv"))) {
+      for (Order order : orders) {
+        bw.write(getOrderRecord(order));
+        bw.newLine();
       }
-      reader.close();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
-    return 0;
   }
 
   /**
-   * Writes the product list stored in the memory, to a file named "Products.csv", in .csv format
-   * and UTF-8 encoding.
+   * Returns the record of an order in the order journal: its .csv record, which always ends with
+   * the version of its prices in the journal, followed by the points of its registered customer
+   * after the order if they are known, so the points are restored when the journal is replayed.
+   * The records with the points have an even number of fields after the basket.
    *
-   * @param products ArrayList that contains the products created by the ERP
+   * @param order the order
+   * @return the order's fields separated by the CSV separator
    */
-  public static void writeProductListToCSV(ArrayList<Product> products) {
-    try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Products.csv"), "UTF-8"));
-      for (Product product : products) {
-        StringBuffer line = new StringBuffer();
-        line.append(product.getProductId());
-        line.append(CSV_SEPARATOR);
-        line.append(product.getName());
-        line.append(CSV_SEPARATOR);
-        line.append(product.getCategory());
-        line.append(CSV_SEPARATOR);
-        line.append(product.getDescription());
-        line.append(CSV_SEPARATOR);
-        line.append(product.getSalePrice());
-        line.append(CSV_SEPARATOR);
-        bw.write(line.toString());
+  static String getOrderJournalRecord(Order order) {
+    StringBuffer line = getOrderFields(order);
+    line.append(CSV_SEPARATOR);
+    line.append(order.getPriceVersion());
+    if (order.getCustomerPoints() >= 0) {
+      line.append(CSV_SEPARATOR);
+      line.append(order.getCustomerPoints());
+    }
+    return line.toString();
+  }
+
+  /**
+   * Returns the .csv record of an order, as it is written to "Orders.csv". The record ends with
+   * the version of the prices the order was priced with, told apart from the basket lines by the
+   * odd number of fields, unless the version is not known.
+   *
+   * @param order the order
+   * @return the order's fields separated by the CSV separator
+   */
+  static String getOrderRecord(Order order) {
+    StringBuffer line = getOrderFields(order);
+    // the orders loaded without a version keep their records
+    if (order.getPriceVersion() > 0) {
+      line.append(CSV_SEPARATOR);
+      line.append(order.getPriceVersion());
+    }
+    return line.toString();
+  }
+
+  /**
+   * Returns the fields of an order up to its basket lines, which both of its records start with.
+   *
+   * @param order the order
+   * @return the order's fields separated by the CSV separator
+   */
+  private static StringBuffer getOrderFields(Order order) {
+    StringBuffer line = new StringBuffer();
+    line.append(order.getOrderNo());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getOrderDate());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getTotalCost());
+    line.append(CSV_SEPARATOR);
+    // the unregistered customers are saved to the Orders.csv with the id value of 0
+    if (order.getCustomer() instanceof RegisteredCustomer)
+      line.append(((RegisteredCustomer) order.getCustomer()).getId());
+    else line.append("0");
+    line.append(CSV_SEPARATOR);
+    line.append(order.getCashier().getIdUser());
+    Basket basket = order.getBasket();
+    for (int i = 0; i < basket.size(); i++) {
+      line.append(CSV_SEPARATOR);
+      line.append(basket.getProductId(i));
+      line.append(CSV_SEPARATOR);
+      line.append(basket.getQuantity(i));
+    }
+    return line;
+  }
+
+  /**
+   * Writes the storage order list stored in the memory, to a file named "StorageOrders.csv", in
+   * .csv format and UTF-8 encoding.
+   *
+   * @param orders ArrayList that contains the storage order objects created by the ERP
+   * @return true if the file was written, else false
+   */
+  public static boolean writeStorageOrderToCSV(ArrayList<StorageOrder> orders) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("StorageOrders.csv"))) {
+      for (StorageOrder order : orders) {
+        bw.write(getStorageOrderRecord(order));
         bw.newLine();
       }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-      e.printStackTrace();
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
+      bw.commit();
+      return true;
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
   }
 
   /**
-   * Writes the ProductQuantities list stored in the memory, to a file named
-   * "ProductQuantities.csv", in .csv format and UTF-8 encoding.
+   * Returns the .csv record of a storage order, as it is written to "StorageOrders.csv" and to the
+   * storage order journal.
+   *
+   * @param order the storage order
+   * @return the storage order's fields separated by the CSV separator
+   */
+  static String getStorageOrderRecord(StorageOrder order) {
+    StringBuffer line = new StringBuffer();
+    line.append(order.getStorageOrderNumber());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getStorageOrderDate());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getTotalCost());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getSupplier().getId());
+    line.append(CSV_SEPARATOR);
+    line.append(order.getStorekeeper().getIdUser());
+    Basket supplies = order.getSupplies();
+    for (int i = 0; i < supplies.size(); i++) {
+      line.append(CSV_SEPARATOR);
+      line.append(supplies.getProductId(i));
+      line.append(CSV_SEPARATOR);
+      line.append(supplies.getQuantity(i));
+    }
+    // the main warehouse is left out, so the records stay the same with a single warehouse
+    if (order.getWarehouseId() != Warehouse.MAIN_ID) {
+      line.append(CSV_SEPARATOR);
+      line.append(order.getWarehouseId());
+    }
+    return line.toString();
+  }
+
+  /**
+   * Parses an orders or storage orders .csv file in parallel, by splitting it into byte ranges
+   * that end at a line break and parsing the ranges with fork/join. The records are returned in
+   * the order of their order numbers.
+   *
+   * @param fileName the name of the file in the data directory
+   * @return the parsed records, not yet linked to the customers, suppliers and users
+   * @throws FileNotFoundException the file does not exist
+   * @throws IOException the file could not be read
+   */
+  public static OrderBatch parseOrderFile(String fileName) throws IOException {
+    return OrderChunkParser.parse(getDataFile(fileName));
+  }
+
+  /**
+   * Writes the order list to the binary snapshot file "Orders.bin".
    *
-   * @param productQuantities ArrayList that contains the ids and the quantities of the
-   *     products in the storage
+   * @param orders the list that contains the order objects created by the ERP
+   * @return true if the file was written, else false
    */
-  public static void writeProductQuantitiesListToCSV(ArrayList<int[]> productQuantities) {
+  public static boolean writeOrderSnapshot(List<Order> orders) {
     try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(
-                  new FileOutputStream("./Data/ProductQuantities.csv"), "UTF-8"));
-      for (int[] productQuantity : productQuantities) {
-        StringBuffer line = new StringBuffer();
-        line.append(productQuantity[0]);
-        line.append(CSV_SEPARATOR);
-        line.append(productQuantity[1]);
-        line.append(CSV_SEPARATOR);
-        bw.write(line.toString());
-        bw.newLine();
-      }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
+      OrderSnapshot.write(orders, getDataFile("Orders.bin"));
+      return true;
     } catch (IOException e) {
+      e.printStackTrace();
+      return false;
     }
   }
 
   /**
-   * Writes the Registered Customer list stored in the memory, to a file named "Customers.csv", in
-   * .csv format and UTF-8 encoding.
+   * Writes the first orders of the order history to the binary snapshot file "Orders.bin".
    *
-   * @param customers ArrayList that contains the registered customer objects created by the ERP
+   * @param orders the order history
+   * @param count the number of orders to write
+   * @return true if the file was written, else false
    */
-  public static void writeCustomerListToCSV(ArrayList<RegisteredCustomer> customers) {
+  private static boolean writeOrderSnapshot(OrderHistory orders, int count) {
     try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Customers.csv"), "UTF-8"));
-      for (RegisteredCustomer registeredCustomer : customers) {
-        StringBuffer line = new StringBuffer();
-        line.append(registeredCustomer.getId());
-        line.append(CSV_SEPARATOR);
-        line.append(registeredCustomer.getCompanyName());
-        line.append(CSV_SEPARATOR);
-        line.append(registeredCustomer.getAddress());
-        line.append(CSV_SEPARATOR);
-        line.append(registeredCustomer.getTelephone());
-        line.append(CSV_SEPARATOR);
-        line.append(registeredCustomer.getPoints());
-        bw.write(line.toString());
-        bw.newLine();
-      }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
+      OrderSnapshot.write(orders, count, getDataFile("Orders.bin"));
+      return true;
     } catch (IOException e) {
+      e.printStackTrace();
+      return false;
     }
   }
 
   /**
-   * Writes the User list stored in the memory, to a file named "Users.csv", in .csv format and
-   * UTF-8 encoding.
+   * Attaches the binary snapshot file "Orders.bin" as the order history, if binary snapshots are
+   * enabled and the snapshot is at least as recent as Orders.csv. The orders stay in the memory
+   * mapped file and are only decoded when they are accessed. A newer Orders.csv, e.g. one that was
+   * imported or edited externally, is always preferred, and so is Orders.csv when the snapshot
+   * could not be mapped or is not valid.
    *
-   * @param users ArrayList that contains the user objects created by the ERP
+   * @return true if the orders were loaded from the snapshot, else false
    */
-  public static void writeUserListToCSV(ArrayList<User> users) {
+  public static boolean loadOrderSnapshot() {
+    if (!BINARY_SNAPSHOTS || !isOrderSnapshotCurrent()) {
+      return false;
+    }
     try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Users.csv"), "UTF-8"));
-      for (User user : users) {
-        StringBuffer line = new StringBuffer();
-        if (user instanceof Cashier) {
-          line.append("Cashier");
-        } else if (user instanceof Storekeeper) {
-          line.append("Storekeeper");
-        } else if (user instanceof DataAnalyst) {
-          line.append("DataAnalyst");
-        } else if (user instanceof Administrator) {
-          line.append("Admin");
+      Order.attachHistory(OrderSnapshot.open(getDataFile("Orders.bin")));
+      return true;
+    } catch (IOException | RuntimeException e) {
+      System.out.println("File Orders.bin could not be loaded, loading Orders.csv instead");
+      return false;
+    }
+  }
+
+  /**
+   * Checks whether the binary snapshot file "Orders.bin" exists and is at least as recent as
+   * Orders.csv.
+   *
+   * @return true if the snapshot contains the same orders as Orders.csv, else false
+   */
+  private static boolean isOrderSnapshotCurrent() {
+    File snapshot = getDataFile("Orders.bin");
+    return snapshot.isFile()
+        && snapshot.lastModified() >= getDataFile("Orders.csv").lastModified();
+  }
+
+  /**
+   * Appends a confirmed order to the order journal, so that it survives a crash before the next
+   * time Orders.csv is written. When the journal grows past the compaction threshold, the journals
+   * are compacted.
+   *
+   * @param order the confirmed order
+   */
+  public static void appendOrderToJournal(Order order) {
+    synchronized (orderJournal) {
+      try {
+        orderJournal.append(getOrderJournalRecord(order));
+        if (orderJournal.getRecords() >= JOURNAL_COMPACTION_THRESHOLD) {
+          compactJournals();
         }
-        line.append(CSV_SEPARATOR);
-        line.append(user.getIdUser());
-        line.append(CSV_SEPARATOR);
-        line.append(user.getName());
-        line.append(CSV_SEPARATOR);
-        line.append(user.getSurname());
-        line.append(CSV_SEPARATOR);
-        line.append(user.getUsername());
-        line.append(CSV_SEPARATOR);
-        line.append(user.getPassword());
-        bw.write(line.toString());
-        bw.newLine();
+      } catch (IOException e) {
+        System.err.println("The order could not be written to the order journal");
+        e.printStackTrace();
       }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
-    } catch (IOException e) {
     }
   }
 
   /**
-   * Writes the order list stored in the memory, to a file named "Orders.csv", in .csv format and
-   * UTF-8 encoding.
+   * Appends the confirmed orders of a batch to the order journal and syncs it once, after the last
+   * of them. When the journal grows past the compaction threshold, the journals are compacted.
    *
-   * @param orders ArrayList that contains the user order objects created by the ERP
+   * @param orders the confirmed orders
    */
-  public static void writeOrderListToCSV(ArrayList<Order> orders) {
-    try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Orders.csv"), "UTF-8"));
-      for (Order order : orders) {
-        StringBuffer line = new StringBuffer();
-        line.append(order.getOrderNo());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getOrderDate());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getTotalCost());
-        line.append(CSV_SEPARATOR);
-        // the unregistered customers are saved to the Orders.csv with the id value of 0
-        if (order.getCustomer() instanceof RegisteredCustomer)
-          line.append(((RegisteredCustomer) order.getCustomer()).getId());
-        else line.append("0");
-        line.append(CSV_SEPARATOR);
-        line.append(order.getCashier().getIdUser());
-        for (int[] i : order.getBasket()) {
-          line.append(CSV_SEPARATOR);
-          line.append(i[0]);
-          line.append(CSV_SEPARATOR);
-          line.append(i[1]);
+  public static void appendOrdersToJournal(List<Order> orders) {
+    synchronized (orderJournal) {
+      try {
+        for (Order order : orders) {
+          orderJournal.append(getOrderJournalRecord(order));
         }
-        bw.write(line.toString());
-        bw.newLine();
+        orderJournal.sync();
+        if (orderJournal.getRecords() >= JOURNAL_COMPACTION_THRESHOLD) {
+          compactJournals();
+        }
+      } catch (IOException e) {
+        System.err.println("The orders could not be written to the order journal");
+        e.printStackTrace();
       }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
+    }
+  }
+
+  /**
+   * Appends a confirmed storage order to the storage order journal, so that it survives a crash
+   * before the next time StorageOrders.csv is written. When the journal grows past the compaction
+   * threshold, the journals are compacted.
+   *
+   * @param order the confirmed storage order
+   */
+  public static void appendStorageOrderToJournal(StorageOrder order) {
+    boolean full = false;
+    synchronized (storageOrderJournal) {
+      try {
+        storageOrderJournal.append(getStorageOrderRecord(order));
+        full = storageOrderJournal.getRecords() >= JOURNAL_COMPACTION_THRESHOLD;
+      } catch (IOException e) {
+        System.err.println("The storage order could not be written to the storage order journal");
+        e.printStackTrace();
+      }
+    }
+    // the compaction locks the order journal before the storage order journal
+    if (full) {
+      compactJournals();
+    }
+  }
+
+  /**
+   * Saves the orders and the storage orders to their .csv files, saves the quantities of the
+   * storage and the registered customers, and empties both journals, whose records are now part of
+   * the files. The journals are compacted together because the saved quantities contain the
+   * changes of the records of both of them: a journal that was kept would make its changes again
+   * on top of them when it is replayed. The journals are kept if a file could not be written.
+   *
+   * <p>The order journal is locked first, then the storage order journal, so no record is appended
+   * to either of them until both have been emptied.
+   */
+  public static void compactJournals() {
+    synchronized (orderJournal) {
+      synchronized (storageOrderJournal) {
+        if (saveOrders() && saveStorageOrders()) {
+          saveOrderChanges();
+          try {
+            orderJournal.truncate();
+            storageOrderJournal.truncate();
+          } catch (IOException e) {
+            e.printStackTrace();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Saves the orders to Orders.csv. Orders are never changed after they are confirmed, so only the
+   * orders created since the file was last written are appended to it. The whole file is rewritten
+   * if it was changed by another program. If binary snapshots are enabled and the orders changed,
+   * Orders.bin is written as well and attached as the order history.
+   *
+   * <p>The orders can be confirmed by other threads while they are saved. The order journal is
+   * locked by the caller, and the number of orders to save is taken once from the order list:
+   * every order with a journal record is among them, and the orders added after them are saved by
+   * the next compaction.
+   *
+   * @return true if the file was written, else false
+   */
+  private static boolean saveOrders() {
+    OrderHistory orders = Order.orders;
+    int count = orders.size();
+    File csv = getDataFile("Orders.csv");
+    boolean unchangedFile = savedOrders > 0 && csv.length() == savedOrdersLength;
+    boolean written;
+    if (unchangedFile && savedOrders == count) {
+      written = true;
+    } else if (unchangedFile && savedOrders < count) {
+      ArrayList<String> records = new ArrayList<String>(count - savedOrders);
+      for (int i = savedOrders; i < count; i++) {
+        records.add(getOrderRecord(orders.get(i)));
+      }
+      written = appendRecordsToCSV(csv, records);
+    } else {
+      written = writeOrderListToCSV(orders.head(count));
+    }
+    if (written) {
+      boolean changed = savedOrders != count || !unchangedFile;
+      savedOrders = count;
+      savedOrdersLength = csv.length();
+      // the new snapshot replaces the order objects it covers
+      if (BINARY_SNAPSHOTS
+          && (changed || !isOrderSnapshotCurrent())
+          && writeOrderSnapshot(orders, count)) {
+        loadOrderSnapshot();
+      }
+    }
+    return written;
+  }
+
+  /**
+   * Saves the storage orders to StorageOrders.csv, appending the storage orders created since the
+   * file was last written. The whole file is rewritten if it was changed by another program. The
+   * storage order journal is locked by the caller, and the number of storage orders to save is
+   * taken once from the storage order list.
+   *
+   * @return true if the file was written, else false
+   */
+  private static boolean saveStorageOrders() {
+    ArrayList<StorageOrder> orders = StorageOrder.getOrders();
+    int count = orders.size();
+    File csv = getDataFile("StorageOrders.csv");
+    boolean unchangedFile = savedStorageOrders > 0 && csv.length() == savedStorageOrdersLength;
+    boolean written;
+    if (unchangedFile && savedStorageOrders == count) {
+      written = true;
+    } else if (unchangedFile && savedStorageOrders < count) {
+      ArrayList<String> records = new ArrayList<String>(count - savedStorageOrders);
+      for (int i = savedStorageOrders; i < count; i++) {
+        records.add(getStorageOrderRecord(orders.get(i)));
+      }
+      written = appendRecordsToCSV(csv, records);
+    } else {
+      written = writeStorageOrderToCSV(new ArrayList<StorageOrder>(orders.subList(0, count)));
+    }
+    if (written) {
+      savedStorageOrders = count;
+      savedStorageOrdersLength = csv.length();
+    }
+    return written;
+  }
+
+  /**
+   * Saves the quantities of the storage, with the quantities of the warehouses, and the registered
+   * customers if they changed, before the journals are emptied. The replay of a journal makes the
+   * changes of its orders again, so once its records are gone these changes must be part of the
+   * saved files.
+   */
+  private static void saveOrderChanges() {
+    Storage.quantityChanges.save(
+        () ->
+            writeProductQuantitiesListToCSV(Storage.getProductQuantities())
+                && Storage.saveWarehouseQuantities());
+    RegisteredCustomer.changes.save(
+        () -> writeCustomerListToCSV(RegisteredCustomer.getCustomers()));
+  }
+
+  /**
+   * Appends records to the end of a .csv file and syncs the file to the disk. If the file does not
+   * end with a line separator, one is added before the records. If the records could not be
+   * written completely, the file is truncated back to its previous length.
+   *
+   * @param file the .csv file
+   * @param records the records, without line separators
+   * @return true if the records were appended, else false
+   */
+  private static boolean appendRecordsToCSV(File file, List<String> records) {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long length = raf.length();
+      StringBuilder text = new StringBuilder();
+      if (length > 0) {
+        raf.seek(length - 1);
+        if (raf.read() != '\n') {
+          text.append(System.lineSeparator());
+        }
+      }
+      for (String record : records) {
+        text.append(record).append(System.lineSeparator());
+      }
+      try {
+        raf.seek(length);
+        raf.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        raf.getFD().sync();
+      } catch (IOException e) {
+        raf.setLength(length);
+        throw e;
+      }
+      return true;
     } catch (IOException e) {
+      e.printStackTrace();
+      return false;
     }
   }
 
   /**
-   * Writes the storage order list stored in the memory, to a file named "StorageOrders.csv", in
-   * .csv format and UTF-8 encoding.
+   * Repairs the data files after a crash, before they are loaded. The temporary files of writes
+   * that never finished are deleted, since their target files still have the previous contents.
+   * A record that was only partly appended to Orders.csv or StorageOrders.csv is removed from the
+   * end of the file, since it is still in the journal and is recovered from there.
+   */
+  public static void recoverDataFiles() {
+    int deleted = AtomicFileWriter.deleteTempFiles(DATA_DIRECTORY);
+    if (deleted > 0) {
+      System.out.printf("Deleted %d unfinished temporary files from the Data directory\n", deleted);
+    }
+    try {
+      if (trimPartialRecord(getDataFile("Orders.csv"), orderJournal)) {
+        System.out.println("Removed a partly written order from the end of Orders.csv");
+      }
+      if (trimPartialRecord(getDataFile("StorageOrders.csv"), storageOrderJournal)) {
+        System.out.println(
+            "Removed a partly written storage order from the end of StorageOrders.csv");
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Removes the last line of a .csv file if it is an incomplete copy of one of the records of its
+   * journal, left there by a crash while the journal was appended to the file. A last line without
+   * a line separator that is not found in the journal was written by another program, and is kept.
    *
-   * @param orders ArrayList that contains the storage order objects created by the ERP
+   * @param file the .csv file
+   * @param journal the journal of the file
+   * @return true if the line was removed, else false
+   * @throws IOException the files could not be read or the file could not be truncated
+   */
+  private static boolean trimPartialRecord(File file, Journal journal) throws IOException {
+    if (!file.isFile() || !journal.hasRecords()) {
+      return false;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long length = raf.length();
+      long start = length;
+      while (start > 0) {
+        raf.seek(start - 1);
+        if (raf.read() == '\n') {
+          break;
+        }
+        start--;
+      }
+      if (start == length) {
+        return false;
+      }
+      byte[] tail = new byte[(int) (length - start)];
+      raf.seek(start);
+      raf.readFully(tail);
+      String partial = new String(tail, StandardCharsets.UTF_8);
+      if (partial.endsWith("\r")) {
+        partial = partial.substring(0, partial.length() - 1);
+      }
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(
+                  new FileInputStream(journal.getPath()), StandardCharsets.UTF_8))) {
+        for (String record = reader.readLine(); record != null; record = reader.readLine()) {
+          if (record.startsWith(partial)) {
+            raf.setLength(start);
+            raf.getFD().sync();
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Replays the order and storage order journals on top of the orders loaded from the .csv files.
+   * The journal records of orders that are already part of the loaded files (a crash after writing
+   * the file but before emptying the journal) are skipped. The replayed orders make their changes
+   * of the quantities and of the points of the customers again, since the journals are emptied
+   * only after these were saved, so it must run before the inventory log is opened.
    */
-  public static void writeStorageOrderToCSV(ArrayList<StorageOrder> orders) {
+  public static void replayJournals() {
+    // the loaded orders are the ones already saved in the .csv files
+    savedOrders = Order.getOrders().size();
+    savedOrdersLength = getDataFile("Orders.csv").length();
+    savedStorageOrders = StorageOrder.getOrders().size();
+    savedStorageOrdersLength = getDataFile("StorageOrders.csv").length();
     try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/StorageOrders.csv"), "UTF-8"));
-      for (StorageOrder order : StorageOrder.getOrders()) {
-        StringBuffer line = new StringBuffer();
-        line.append(order.getStorageOrderNumber());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getStorageOrderDate());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getTotalCost());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getSupplier().getId());
-        line.append(CSV_SEPARATOR);
-        line.append(order.getStorekeeper().getIdUser());
-        for (int[] i : order.getSupplies()) {
-          line.append(CSV_SEPARATOR);
-          line.append(i[0]);
-          line.append(CSV_SEPARATOR);
-          line.append(i[1]);
+      orderJournal.recover();
+      if (orderJournal.hasRecords()) {
+        List<Order> orders = Order.getOrders();
+        int lastOrderNo =
+            orders.isEmpty() ? Integer.MIN_VALUE : orders.get(orders.size() - 1).getOrderNo();
+        try (CsvReader reader = new CsvReader(openJournal(orderJournal))) {
+          int replayed = Order.replayOrdersFromJournal(reader, lastOrderNo);
+          System.out.printf("Recovered %d orders from the order journal\n", replayed);
         }
-        bw.write(line.toString());
-        bw.newLine();
       }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
+      storageOrderJournal.recover();
+      if (storageOrderJournal.hasRecords()) {
+        ArrayList<StorageOrder> orders = StorageOrder.getOrders();
+        int lastOrderNo =
+            orders.isEmpty()
+                ? Integer.MIN_VALUE
+                : orders.get(orders.size() - 1).getStorageOrderNumber();
+        try (CsvReader reader = new CsvReader(openJournal(storageOrderJournal))) {
+          int replayed = StorageOrder.replayStorageOrdersFromJournal(reader, lastOrderNo);
+          System.out.printf(
+              "Recovered %d storage orders from the storage order journal\n", replayed);
+        }
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Syncs and closes the journal files. */
+  public static void closeJournals() {
+    try {
+      orderJournal.close();
+      storageOrderJournal.close();
     } catch (IOException e) {
+      e.printStackTrace();
     }
   }
 
+  /**
+   * Opens a reader over the records of a journal.
+   *
+   * @param journal the journal
+   * @return a UTF-8 reader over the journal file
+   * @throws FileNotFoundException the journal file does not exist
+   */
+  private static InputStreamReader openJournal(Journal journal) throws FileNotFoundException {
+    return new InputStreamReader(new FileInputStream(journal.getPath()), StandardCharsets.UTF_8);
+  }
+
   /**
    * Writes the supplier list stored in the memory, to a file named "Suppliers.csv", in .csv format
    * and UTF-8 encoding.
    *
    * @param suppliers ArrayList that contains the supplier objects created by the ERP file
+   * @return true if the file was written, else false
    */
-  public static void writeSupplierToCSV(ArrayList<Supplier> suppliers) {
-    try {
-      BufferedWriter bw =
-          new BufferedWriter(
-              new OutputStreamWriter(new FileOutputStream("./Data/Suppliers.csv"), "UTF-8"));
+  public static boolean writeSupplierToCSV(ArrayList<Supplier> suppliers) {
+    try (AtomicFileWriter bw = new AtomicFileWriter(getDataFile("Suppliers.csv"))) {
       for (Supplier supplier : suppliers) {
-        StringBuffer line = new StringBuffer();
-        line.append(supplier.getId());
-        line.append(CSV_SEPARATOR);
-        line.append(supplier.getName());
-        line.append(CSV_SEPARATOR);
-        line.append(supplier.getAddress());
-        line.append(CSV_SEPARATOR);
-        line.append(supplier.getTel());
-        line.append(CSV_SEPARATOR);
-        bw.write(line.toString());
+        bw.write(getSupplierRecord(supplier));
         bw.newLine();
       }
-      bw.flush();
-      bw.close();
-    } catch (UnsupportedEncodingException e) {
-    } catch (FileNotFoundException e) {
+      bw.commit();
+      return true;
     } catch (IOException e) {
+      e.printStackTrace();
+      return false;
     }
   }
 
+  /**
+   * Returns the .csv record of a supplier, as it is written to "Suppliers.csv".
+   *
+   * @param supplier the supplier
+   * @return the supplier's fields separated by the CSV separator
+   */
+  static String getSupplierRecord(Supplier supplier) {
+    StringBuffer line = new StringBuffer();
+    line.append(supplier.getId());
+    line.append(CSV_SEPARATOR);
+    line.append(supplier.getName());
+    line.append(CSV_SEPARATOR);
+    line.append(supplier.getAddress());
+    line.append(CSV_SEPARATOR);
+    line.append(supplier.getTel());
+    line.append(CSV_SEPARATOR);
+    return line.toString();
+  }
+
   /**
    * .csv file format reader for loading the contents of the "Products.csv" file to the main memory
    * as an ArrayList of strings.
@@ -523,15 +1009,7 @@ public class FileHandler {
    * @throws FileNotFoundException file not found
    */
   public static ArrayList<ArrayList<String>> getProductsFromCsv() throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/Products.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("Products.csv");
   }
 
   /**
@@ -544,15 +1022,7 @@ public class FileHandler {
    */
   public static ArrayList<ArrayList<String>> getProductQuantityFromCsv()
       throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/ProductQuantities.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("ProductQuantities.csv");
   }
 
   /**
@@ -563,15 +1033,7 @@ public class FileHandler {
    * @throws FileNotFoundException file not found
    */
   public static ArrayList<ArrayList<String>> getUsersFromCsv() throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/Users.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("Users.csv");
   }
 
   /**
@@ -584,15 +1046,7 @@ public class FileHandler {
    */
   public static ArrayList<ArrayList<String>> getRegisteredCustomersFromCsv()
       throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/Customers.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("Customers.csv");
   }
 
   /**
@@ -603,15 +1057,7 @@ public class FileHandler {
    * @throws FileNotFoundException file not found
    */
   public static ArrayList<ArrayList<String>> getOrdersFromCsv() throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/Orders.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("Orders.csv");
   }
 
   /**
@@ -624,15 +1070,7 @@ public class FileHandler {
    */
   public static ArrayList<ArrayList<String>> getStorageOrdersFromCsv()
       throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/StorageOrders.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("StorageOrders.csv");
   }
 
   /**
@@ -644,30 +1082,46 @@ public class FileHandler {
    * @throws FileNotFoundException file not found
    */
   public static ArrayList<ArrayList<String>> getSuppliersFromCsv() throws FileNotFoundException {
-    Scanner scanner = null;
-    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
-    scanner = new Scanner(new File("./Data/Suppliers.csv"));
-    scanner.useDelimiter(CSV_SEPARATOR);
-    while (scanner.hasNext()) {
-      records.add(getRecordFromLine(scanner.nextLine()));
-    }
-    scanner.close();
-    return records;
+    return getRecordsFromCsv("Suppliers.csv");
+  }
+
+  /**
+   * Opens a streaming reader over one of the .csv files of the Data directory. The records of the
+   * file are parsed on demand by the caller, without loading the whole file in the memory.
+   *
+   * @param fileName the name of the .csv file in the Data directory (e.g. "Orders.csv")
+   * @return a CsvReader positioned before the first record of the file
+   * @throws FileNotFoundException file not found
+   */
+  public static CsvReader openCsvReader(String fileName) throws FileNotFoundException {
+    return new CsvReader(
+        new InputStreamReader(
+            new FileInputStream(getDataFile(fileName)), StandardCharsets.UTF_8));
   }
 
   /**
-   * A String parser used for reading a single line of a .csv file using the ";" delimiter.
+   * Reads all the records of a .csv file of the Data directory as lists of strings.
    *
-   * @param line of the .csv file that contains separators
-   * @return ArrayList that contains the split line according to the separators
+   * @param fileName the name of the .csv file in the Data directory
+   * @return ArrayList that contains the split lines of the file
+   * @throws FileNotFoundException file not found
    */
-  private static ArrayList<String> getRecordFromLine(String line) {
-    ArrayList<String> values = new ArrayList<String>();
-    Scanner rowScanner = new Scanner(line);
-    rowScanner.useDelimiter(CSV_SEPARATOR);
-    while (rowScanner.hasNext()) {
-      values.add(rowScanner.next());
+  private static ArrayList<ArrayList<String>> getRecordsFromCsv(String fileName)
+      throws FileNotFoundException {
+    ArrayList<ArrayList<String>> records = new ArrayList<ArrayList<String>>();
+    try (CsvReader reader = openCsvReader(fileName)) {
+      while (reader.nextRecord()) {
+        ArrayList<String> values = new ArrayList<String>();
+        while (reader.hasNextField()) {
+          values.add(reader.nextString());
+        }
+        records.add(values);
+      }
+    } catch (FileNotFoundException e) {
+      throw e;
+    } catch (IOException e) {
+      e.printStackTrace();
     }
-    return values;
+    return records;
   }
 }
@@ -0,0 +1,166 @@
+package ERP_Core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the unique ids of the users, products, registered customers, orders, suppliers and
+ * storage orders, and the versions of the prices. The counters are read from "Counters.txt" once,
+ * when the first id is needed, and the ids are allocated with atomic counters, so concurrent
+ * callers never get the same id.
+ *
+ * <p>The ids are reserved in blocks: before an id past the reserved block is handed out, the end
+ * of the next block (the high-water mark) is written to "Counters.txt". After a crash the counters
+ * continue from the high-water mark, so an id that was handed out is never given again, while the
+ * file is only written once per block instead of on every allocation. When the ERP exits normally,
+ * the exact counters are written, so no ids are skipped. The block size can be set with the
+ * "erp.ids.blockSize" system property.
+ *
+ * <p>If "Counters.txt" could not be written, the ids of the block are still handed out, so the ERP
+ * keeps working, but they are not reserved: the file keeps its previous high-water mark and the
+ * write is tried again at the end of the block. A warning is printed once, until a write succeeds.
+ *
+ * @version 1.0
+ */
+public class IdAllocator {
+  /** The number of ids reserved with every write of the counters file. */
+  private static final int BLOCK_SIZE = Math.max(1, Integer.getInteger("erp.ids.blockSize", 100));
+
+  /** The ids of the users. */
+  public static final IdAllocator USERS = new IdAllocator("User counter", false);
+  /** The ids of the products. */
+  public static final IdAllocator PRODUCTS = new IdAllocator("Product counter", false);
+  /** The ids of the registered customers. */
+  public static final IdAllocator CUSTOMERS =
+      new IdAllocator("Registered customer counter", false);
+  /** The numbers of the orders. The counters file stores the next order number. */
+  public static final IdAllocator ORDERS = new IdAllocator("Order counter", true);
+  /** The ids of the suppliers. */
+  public static final IdAllocator SUPPLIERS = new IdAllocator("Supplier counter", false);
+  /** The numbers of the storage orders. */
+  public static final IdAllocator STORAGE_ORDERS =
+      new IdAllocator("Storage order counter", false);
+  /**
+   * The versions of the published prices, see {@link PriceTable}. They keep growing across the
+   * starts of the system, so the version an order was priced with names one set of prices.
+   */
+  public static final IdAllocator PRICE_VERSIONS =
+      new IdAllocator("Price version counter", false);
+  /** All the counters, in the order they are written to the counters file. */
+  private static final IdAllocator[] ALL = {
+    USERS, PRODUCTS, CUSTOMERS, ORDERS, SUPPLIERS, STORAGE_ORDERS, PRICE_VERSIONS
+  };
+  /** Whether the last write of the counters file failed and the failure was printed. */
+  private static boolean writeFailed;
+
+  static {
+    Map<String, Integer> counters = FileHandler.readCountersFile();
+    for (IdAllocator allocator : ALL) {
+      Integer value = counters.get(allocator.label);
+      int last = value == null ? 0 : value - allocator.offset;
+      allocator.last.set(last);
+      allocator.reserved = last;
+      allocator.blockEnd = last;
+    }
+  }
+
+  /** The label of the counter in the counters file. */
+  private final String label;
+  /** The difference between the value in the counters file and the last id, 1 for a next id. */
+  private final int offset;
+  /** The last id that was handed out or loaded. */
+  private final AtomicInteger last = new AtomicInteger();
+  /** The last id that is reserved in the counters file. */
+  private volatile int reserved;
+  /** The last id of the current block, reserved unless the counters file could not be written. */
+  private volatile int blockEnd;
+
+  /**
+   * Creates a counter.
+   *
+   * @param label the label of the counter in the counters file
+   * @param storesNextId whether the counters file stores the next id instead of the last one
+   */
+  private IdAllocator(String label, boolean storesNextId) {
+    this.label = label;
+    this.offset = storesNextId ? 1 : 0;
+  }
+
+  /**
+   * Hands out a new id. If the id is past the current block, the next block is reserved in the
+   * counters file first.
+   *
+   * @return the new id
+   */
+  public int next() {
+    int id = last.incrementAndGet();
+    if (id > blockEnd) {
+      reserve(id);
+    }
+    return id;
+  }
+
+  /**
+   * Moves the counter past an id that already exists, e.g. the id of an order loaded from a file
+   * that was written after the counters file.
+   *
+   * @param id the existing id
+   */
+  public void observe(int id) {
+    last.accumulateAndGet(id, Math::max);
+  }
+
+  /**
+   * Returns the value of the counter, as it is stored in the counters file: the last id handed
+   * out, or the next one for the orders.
+   *
+   * @return the value of the counter
+   */
+  public int getCounter() {
+    return last.get() + offset;
+  }
+
+  /**
+   * Returns the exact values of all the counters, in the order of the counters file.
+   *
+   * @return the labels and values of the counters
+   */
+  public static Map<String, Integer> getCounters() {
+    LinkedHashMap<String, Integer> counters = new LinkedHashMap<String, Integer>();
+    for (IdAllocator allocator : ALL) {
+      counters.put(allocator.label, allocator.getCounter());
+    }
+    return counters;
+  }
+
+  /**
+   * Starts the block of ids that contains the given id and reserves it, by writing the high-water
+   * marks of all the counters to the counters file. If the file could not be written, the block
+   * is started without being reserved and the write is tried again at its end.
+   *
+   * @param id the id that needs to be reserved
+   */
+  private void reserve(int id) {
+    synchronized (IdAllocator.class) {
+      if (id <= blockEnd) {
+        return;
+      }
+      int newReserved = id + BLOCK_SIZE - 1;
+      LinkedHashMap<String, Integer> counters = new LinkedHashMap<String, Integer>();
+      for (IdAllocator allocator : ALL) {
+        int mark = allocator == this ? newReserved : allocator.reserved;
+        counters.put(allocator.label, Math.max(mark, allocator.last.get()) + allocator.offset);
+      }
+      if (FileHandler.writeCountersFile(counters)) {
+        reserved = newReserved;
+        writeFailed = false;
+      } else if (!writeFailed) {
+        // the ids stay unique until the ERP exits, but not after a crash
+        System.err.println("The ids could not be reserved in Counters.txt, trying again later");
+        writeFailed = true;
+      }
+      blockEnd = newReserved;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package ERP_Core;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values, e.g. the available quantities of the products by their id.
+ * The keys and the values are kept in two int arrays, in the order they were added, so there are
+ * no boxed keys or per-entry objects. The keys are found with an open-addressing hash table of
+ * ints, with linear probing, that holds the positions of the keys in the arrays.
+ *
+ * <p>The entries can be read by their position, from 0 to {@code size() - 1}, in the order they
+ * were added. Entries are never removed, only the whole map can be cleared.
+ *
+ * @version 1.0
+ */
+public class IntIntMap {
+  /** The keys, in the order they were added. */
+  private int[] keys;
+  /** The values of the keys. */
+  private int[] values;
+  /** The number of entries. */
+  private int size;
+  /** The hash table: the position of a key plus one, 0 for an empty slot. */
+  private int[] table;
+  /** The length of the table minus one, the table length is a power of 2. */
+  private int mask;
+
+  /** Creates an empty map. */
+  public IntIntMap() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty map with room for the given number of entries.
+   *
+   * @param capacity the expected number of entries
+   */
+  public IntIntMap(int capacity) {
+    capacity = Math.max(capacity, 4);
+    keys = new int[capacity];
+    values = new int[capacity];
+    table = new int[tableLength(capacity)];
+    mask = table.length - 1;
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the position of a key.
+   *
+   * @param key the key
+   * @return the position of the key, -1 if the map does not contain it
+   */
+  public int indexOf(int key) {
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int entry = table[slot];
+      if (entry == 0) {
+        return -1;
+      }
+      if (keys[entry - 1] == key) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /**
+   * Checks if the map contains a key.
+   *
+   * @param key the key
+   * @return true if the map contains the key, else false
+   */
+  public boolean containsKey(int key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the value of a key.
+   *
+   * @param key the key
+   * @param missing the value returned if the map does not contain the key
+   * @return the value of the key, or the missing value
+   */
+  public int get(int key, int missing) {
+    int index = indexOf(key);
+    return index < 0 ? missing : values[index];
+  }
+
+  /**
+   * Sets the value of a key, adding the key if the map does not contain it.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(int key, int value) {
+    int index = indexOf(key);
+    if (index < 0) {
+      add(key, value);
+    } else {
+      values[index] = value;
+    }
+  }
+
+  /**
+   * Adds a key with a value, if the map does not contain the key yet.
+   *
+   * @param key the key
+   * @param value the value
+   * @return true if the key was added, false if the map already contained it
+   */
+  public boolean putIfAbsent(int key, int value) {
+    if (indexOf(key) >= 0) {
+      return false;
+    }
+    add(key, value);
+    return true;
+  }
+
+  /**
+   * Returns the key at a position.
+   *
+   * @param index the position of the entry
+   * @return the key
+   */
+  public int keyAt(int index) {
+    checkIndex(index);
+    return keys[index];
+  }
+
+  /**
+   * Returns the value at a position.
+   *
+   * @param index the position of the entry
+   * @return the value
+   */
+  public int valueAt(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * Sets the value at a position.
+   *
+   * @param index the position of the entry
+   * @param value the new value
+   */
+  public void setValueAt(int index, int value) {
+    checkIndex(index);
+    values[index] = value;
+  }
+
+  /**
+   * Returns the keys, in the order they were added.
+   *
+   * @return a copy of the keys
+   */
+  public int[] keys() {
+    return Arrays.copyOf(keys, size);
+  }
+
+  /** Removes all the entries. */
+  public void clear() {
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+
+  /**
+   * Appends a key that the map does not contain.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  private void add(int key, int value) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    if (size * 2 > table.length) {
+      rehash(table.length * 2);
+    } else {
+      insert(size - 1);
+    }
+  }
+
+  /**
+   * Puts the position of an entry into the first free slot of its key.
+   *
+   * @param index the position of the entry
+   */
+  private void insert(int index) {
+    int slot = hash(keys[index]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = index + 1;
+  }
+
+  /**
+   * Replaces the hash table with a larger one.
+   *
+   * @param length the length of the new table
+   */
+  private void rehash(int length) {
+    table = new int[length];
+    mask = length - 1;
+    for (int i = 0; i < size; i++) {
+      insert(i);
+    }
+  }
+
+  /**
+   * Checks that a position refers to an entry.
+   *
+   * @param index the position
+   * @throws IndexOutOfBoundsException there is no entry at the position
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Returns the length of a table that stays at most half full with the given entries.
+   *
+   * @param capacity the number of entries
+   * @return a power of 2
+   */
+  private static int tableLength(int capacity) {
+    return Integer.highestOneBit(capacity * 2 - 1) << 1;
+  }
+
+  /**
+   * Spreads the bits of a key, so that keys with a common stride do not collide.
+   *
+   * @param key the key
+   * @return the hash of the key
+   */
+  static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,478 @@
+package ERP_Core;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The stock of the products, which many cashiers and storekeepers can change at the same time.
+ * For every product the inventory keeps the quantity in the storage and the quantity that is
+ * reserved by the orders being made; the available quantity is the difference of the two.
+ *
+ * <p>The two quantities of a product are packed in one long and are changed with a
+ * compare-and-set, so a reservation checks the available quantity and reserves it in one atomic
+ * step and two orders can never sell the same units. The orders of different products do not
+ * wait for each other, and there is no lock on the reservations at all: a reservation that loses
+ * a race to an other one just reads the new quantities and tries again.
+ *
+ * <p>The product ids and the quantities are kept in int and long arrays of fixed size chunks, in
+ * the order the products were added, and a product is found with an open-addressing table of the
+ * positions of the products, like the one of {@link IntIntMap}. The chunks are never moved and a
+ * full table is replaced by a larger one, so the lookups need no locks either. Only adding a
+ * product is synchronized.
+ *
+ * @version 1.0
+ */
+public class Inventory {
+  /** The number of products in a chunk is 2 to the power of this. */
+  private static final int CHUNK_BITS = 10;
+  /** The number of products in a chunk. */
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  /** The chunks of the product ids, by the position of the product. */
+  private volatile int[][] ids = new int[0][];
+  /**
+   * The chunks of the quantities, by the position of the product: the quantity in the storage in
+   * the upper 32 bits and the reserved quantity in the lower 32 bits.
+   */
+  private volatile AtomicLongArray[] stock = new AtomicLongArray[0];
+  /** The hash table: the position of a product plus one, 0 for an empty slot. */
+  private volatile AtomicIntegerArray table = new AtomicIntegerArray(16);
+  /** The number of products. */
+  private volatile int size;
+
+  /**
+   * Returns the number of products.
+   *
+   * @return the number of products
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds a product with its quantity in the storage, if the inventory does not contain it yet.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity in the storage
+   * @return true if the product was added, false if the inventory already contained it
+   */
+  public synchronized boolean create(int id, int quantity) {
+    if (indexOf(id) >= 0) {
+      return false;
+    }
+    int index = size;
+    int chunk = index >>> CHUNK_BITS;
+    if (chunk == ids.length) {
+      int[][] newIds = Arrays.copyOf(ids, chunk + 1);
+      newIds[chunk] = new int[CHUNK_SIZE];
+      AtomicLongArray[] newStock = Arrays.copyOf(stock, chunk + 1);
+      newStock[chunk] = new AtomicLongArray(CHUNK_SIZE);
+      ids = newIds;
+      stock = newStock;
+    }
+    ids[chunk][index & (CHUNK_SIZE - 1)] = id;
+    stock[chunk].set(index & (CHUNK_SIZE - 1), pack(quantity, 0));
+    AtomicIntegerArray current = table;
+    if ((index + 1) * 2 > current.length()) {
+      AtomicIntegerArray larger = new AtomicIntegerArray(current.length() * 2);
+      for (int i = 0; i <= index; i++) {
+        insert(larger, i);
+      }
+      table = larger;
+    } else {
+      insert(current, index);
+    }
+    size = index + 1;
+    return true;
+  }
+
+  /**
+   * Returns the id of the product at a position.
+   *
+   * @param index the position of the product, in the order the products were added
+   * @return the id of the product
+   */
+  public int idAt(int index) {
+    checkIndex(index);
+    return ids[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+  }
+
+  /**
+   * Returns the quantity in the storage of the product at a position.
+   *
+   * @param index the position of the product, in the order the products were added
+   * @return the quantity in the storage
+   */
+  public int quantityAt(int index) {
+    checkIndex(index);
+    return onHand(stock[index >>> CHUNK_BITS].get(index & (CHUNK_SIZE - 1)));
+  }
+
+  /**
+   * Checks if the inventory contains a product.
+   *
+   * @param id the id of the product
+   * @return true if the product exists, else false
+   */
+  public boolean contains(int id) {
+    return indexOf(id) >= 0;
+  }
+
+  /**
+   * Returns the quantity of a product in the storage, including the reserved units.
+   *
+   * @param id the id of the product
+   * @return the quantity in the storage
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int getQuantity(int id) throws NoSuchElementException {
+    return onHand(get(id));
+  }
+
+  /**
+   * Returns the quantity of a product that is reserved by the orders being made.
+   *
+   * @param id the id of the product
+   * @return the reserved quantity
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int getReserved(int id) throws NoSuchElementException {
+    return reserved(get(id));
+  }
+
+  /**
+   * Returns the quantity of a product that is neither sold nor reserved.
+   *
+   * @param id the id of the product
+   * @return the available quantity
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int getAvailable(int id) throws NoSuchElementException {
+    long state = get(id);
+    return onHand(state) - reserved(state);
+  }
+
+  /**
+   * Reserves units of a product for an order, if there are enough units available.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to reserve
+   * @return true if the units were reserved, false if there are not enough units available
+   * @throws NoSuchElementException the product does not exist
+   */
+  public boolean reserve(int id, int quantity) throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      if (onHand(state) - reserved(state) < quantity) {
+        return false;
+      }
+      if (chunk.compareAndSet(i, state, pack(onHand(state), reserved(state) + quantity))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Reserves as many units of a product as are available, up to a quantity.
+   *
+   * @param id the id of the product
+   * @param quantity the largest quantity to reserve
+   * @return the quantity that was reserved
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int reserveUpTo(int id, int quantity) throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      int taken = Math.min(quantity, onHand(state) - reserved(state));
+      if (taken <= 0) {
+        return 0;
+      }
+      if (chunk.compareAndSet(i, state, pack(onHand(state), reserved(state) + taken))) {
+        return taken;
+      }
+    }
+  }
+
+  /**
+   * Removes reserved units of a product from the storage, when their order is confirmed.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity that was sold
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException less units are reserved
+   */
+  public void commit(int id, int quantity) throws NoSuchElementException {
+    update(id, -quantity, -quantity);
+  }
+
+  /**
+   * Makes reserved units of a product available again, when their order is cancelled.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException less units are reserved
+   */
+  public void release(int id, int quantity) throws NoSuchElementException {
+    update(id, 0, -quantity);
+  }
+
+  /**
+   * Removes as many reserved units of a product from the storage as are reserved, up to a
+   * quantity.
+   *
+   * @param id the id of the product
+   * @param quantity the largest reserved quantity that was sold
+   * @return the quantity that was removed
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int commitUpTo(int id, int quantity) throws NoSuchElementException {
+    return updateReservedUpTo(id, quantity, true);
+  }
+
+  /**
+   * Makes as many reserved units of a product available again as are reserved, up to a quantity.
+   *
+   * @param id the id of the product
+   * @param quantity the largest reserved quantity
+   * @return the quantity that was released
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int releaseUpTo(int id, int quantity) throws NoSuchElementException {
+    return updateReservedUpTo(id, quantity, false);
+  }
+
+  /**
+   * Adds units of a product to the storage.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to add
+   * @throws NoSuchElementException the product does not exist
+   */
+  public void add(int id, int quantity) throws NoSuchElementException {
+    update(id, quantity, 0);
+  }
+
+  /**
+   * Removes units of a product from the storage, if there are enough units available. This is a
+   * reservation and its commit in one step.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to remove
+   * @return true if the units were removed, false if there are not enough units available
+   * @throws NoSuchElementException the product does not exist
+   */
+  public boolean remove(int id, int quantity) throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      if (onHand(state) - reserved(state) < quantity) {
+        return false;
+      }
+      if (chunk.compareAndSet(i, state, pack(onHand(state) - quantity, reserved(state)))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Removes as many units of a product from the storage as are available, up to a quantity.
+   *
+   * @param id the id of the product
+   * @param quantity the largest quantity to remove
+   * @return the quantity that was removed
+   * @throws NoSuchElementException the product does not exist
+   */
+  public int removeUpTo(int id, int quantity) throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      int removed = Math.min(quantity, onHand(state) - reserved(state));
+      if (removed <= 0) {
+        return 0;
+      }
+      if (chunk.compareAndSet(i, state, pack(onHand(state) - removed, reserved(state)))) {
+        return removed;
+      }
+    }
+  }
+
+  /** Removes all the products. No other thread may use the inventory while it is cleared. */
+  public synchronized void clear() {
+    ids = new int[0][];
+    stock = new AtomicLongArray[0];
+    table = new AtomicIntegerArray(16);
+    size = 0;
+  }
+
+  /**
+   * Changes the quantities of a product.
+   *
+   * @param id the id of the product
+   * @param onHandChange the change of the quantity in the storage
+   * @param reservedChange the change of the reserved quantity
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException the reserved quantity would become negative
+   */
+  private void update(int id, int onHandChange, int reservedChange)
+      throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      int reserved = reserved(state) + reservedChange;
+      if (reserved < 0) {
+        throw new IllegalStateException("Not enough reserved units of product " + id);
+      }
+      if (chunk.compareAndSet(i, state, pack(onHand(state) + onHandChange, reserved))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Takes as many reserved units of a product as are reserved, up to a quantity, removing them
+   * from the storage as well if they were sold.
+   *
+   * @param id the id of the product
+   * @param quantity the largest quantity to take
+   * @param sold true to remove the units from the storage, false to make them available again
+   * @return the quantity that was taken
+   * @throws NoSuchElementException the product does not exist
+   */
+  private int updateReservedUpTo(int id, int quantity, boolean sold)
+      throws NoSuchElementException {
+    int index = find(id);
+    AtomicLongArray chunk = stock[index >>> CHUNK_BITS];
+    int i = index & (CHUNK_SIZE - 1);
+    for (; ; ) {
+      long state = chunk.get(i);
+      int taken = Math.min(quantity, reserved(state));
+      if (taken <= 0) {
+        return 0;
+      }
+      int onHand = sold ? onHand(state) - taken : onHand(state);
+      if (chunk.compareAndSet(i, state, pack(onHand, reserved(state) - taken))) {
+        return taken;
+      }
+    }
+  }
+
+  /**
+   * Returns the packed quantities of a product.
+   *
+   * @param id the id of the product
+   * @return the packed quantities
+   * @throws NoSuchElementException the product does not exist
+   */
+  private long get(int id) throws NoSuchElementException {
+    int index = find(id);
+    return stock[index >>> CHUNK_BITS].get(index & (CHUNK_SIZE - 1));
+  }
+
+  /**
+   * Returns the position of a product.
+   *
+   * @param id the id of the product
+   * @return the position of the product
+   * @throws NoSuchElementException the product does not exist
+   */
+  private int find(int id) throws NoSuchElementException {
+    int index = indexOf(id);
+    if (index < 0) {
+      throw new NoSuchElementException("Product with such id does not exist");
+    }
+    return index;
+  }
+
+  /**
+   * Returns the position of a product.
+   *
+   * @param id the id of the product
+   * @return the position of the product, -1 if the product does not exist
+   */
+  private int indexOf(int id) {
+    AtomicIntegerArray current = table;
+    int mask = current.length() - 1;
+    for (int slot = IntIntMap.hash(id) & mask; ; slot = (slot + 1) & mask) {
+      int entry = current.get(slot);
+      if (entry == 0) {
+        return -1;
+      }
+      if (ids[(entry - 1) >>> CHUNK_BITS][(entry - 1) & (CHUNK_SIZE - 1)] == id) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /**
+   * Puts the position of a product into the first free slot of a table.
+   *
+   * @param into the table
+   * @param index the position of the product
+   */
+  private void insert(AtomicIntegerArray into, int index) {
+    int mask = into.length() - 1;
+    int slot = IntIntMap.hash(ids[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)]) & mask;
+    while (into.get(slot) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    into.set(slot, index + 1);
+  }
+
+  /**
+   * Checks that a position refers to a product.
+   *
+   * @param index the position
+   * @throws IndexOutOfBoundsException there is no product at the position
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Packs the quantities of a product into a long.
+   *
+   * @param onHand the quantity in the storage
+   * @param reserved the reserved quantity
+   * @return the packed quantities
+   */
+  private static long pack(int onHand, int reserved) {
+    return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the quantity in the storage of packed quantities.
+   *
+   * @param state the packed quantities
+   * @return the quantity in the storage
+   */
+  private static int onHand(long state) {
+    return (int) (state >> 32);
+  }
+
+  /**
+   * Returns the reserved quantity of packed quantities.
+   *
+   * @param state the packed quantities
+   * @return the reserved quantity
+   */
+  private static int reserved(long state) {
+    return (int) state;
+  }
+}
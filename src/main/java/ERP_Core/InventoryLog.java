@@ -0,0 +1,365 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * The history of the stock of the products. Every change of a quantity in the storage is appended
+ * as an event to an append-only log, "events.log", with the time of the change, the product id,
+ * the change and the quantity after it, e.g. "1583020800000;12;-2;40;". The time is given in epoch
+ * milliseconds of the local date and time, read as UTC, like the dates of the {@link Repository}.
+ *
+ * <p>Every {@code erp.inventory.snapshotInterval} events (1000 by default) the quantities of all
+ * the products are written to a snapshot file, named after the position in the log and the time
+ * it was taken, e.g. "snapshot-52311-1583020800000.csv". At startup only the latest snapshot and
+ * the events after it are read, and the quantity of a product at any time since the history began
+ * is found by reading the last snapshot before that time and at most one interval of events after
+ * it, without scanning the orders or the whole log.
+ *
+ * <p>The quantities loaded at startup stay the quantities of the storage: if they differ from the
+ * quantities of the log, e.g. because the .csv file was edited, the differences are appended to
+ * the log as events. The log is synced to the disk every {@code erp.inventory.syncInterval} events
+ * (64 by default), before every snapshot and when it is closed.
+ *
+ * @version 1.0
+ */
+public class InventoryLog {
+  /** The number of events after which a snapshot is taken. */
+  private static final int SNAPSHOT_INTERVAL =
+      Math.max(1, Integer.getInteger("erp.inventory.snapshotInterval", 1000));
+  /** The number of events after which the log is synced to the disk. */
+  private static final int SYNC_INTERVAL =
+      Math.max(1, Integer.getInteger("erp.inventory.syncInterval", 64));
+  /** The name of the log file. */
+  private static final String EVENTS_FILE = "events.log";
+  /** The start of the names of the snapshot files. */
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  /** The end of the names of the snapshot files. */
+  private static final String SNAPSHOT_SUFFIX = ".csv";
+
+  /** The directory of the log and the snapshots. */
+  private final File directory;
+  /** The log, null while it is closed. */
+  private Journal events;
+  /** The length of the log file, in bytes. */
+  private long length;
+  /** The time of the last event or snapshot. */
+  private long lastTime = Long.MIN_VALUE;
+  /** The quantities after the last event, by the product id. */
+  private final IntIntMap balances = new IntIntMap();
+  /** The number of events since the last snapshot. */
+  private int eventsSinceSnapshot;
+  /** The times of the snapshots, in the order they were taken. */
+  private long[] snapshotTimes = new long[16];
+  /** The positions in the log of the snapshots. */
+  private long[] snapshotOffsets = new long[16];
+  /** The number of snapshots. */
+  private int snapshots;
+  /** The snapshot that was read last, by the position of the snapshot, -1 for none. */
+  private int cachedSnapshot = -1;
+  /** The quantities of the snapshot that was read last. */
+  private IntIntMap cachedQuantities;
+
+  /**
+   * Creates the log of a directory. The log is not read until it is opened.
+   *
+   * @param directory the directory of the log and the snapshots
+   */
+  public InventoryLog(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Checks if the log is open.
+   *
+   * @return true if the changes are recorded, else false
+   */
+  public synchronized boolean isOpen() {
+    return events != null;
+  }
+
+  /**
+   * Opens the log: reads the latest snapshot and the events after it, and records the
+   * differences between them and the quantities loaded into the storage.
+   *
+   * @param inventory the quantities loaded into the storage
+   * @throws IOException the log could not be read or written
+   */
+  public synchronized void open(Inventory inventory) throws IOException {
+    if (events != null) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("The directory " + directory + " could not be created");
+    }
+    File file = new File(directory, EVENTS_FILE);
+    Journal journal = new Journal(file.getPath(), SYNC_INTERVAL);
+    journal.recover();
+    file.createNewFile();
+    length = file.length();
+    loadSnapshotIndex();
+    balances.clear();
+    eventsSinceSnapshot = 0;
+    long from = 0;
+    if (snapshots > 0) {
+      readSnapshot(snapshots - 1, balances);
+      from = snapshotOffsets[snapshots - 1];
+      lastTime = snapshotTimes[snapshots - 1];
+    }
+    try (CsvReader reader = openEvents(from)) {
+      while (reader.nextRecord()) {
+        lastTime = Math.max(lastTime, reader.nextLong());
+        int id = reader.nextInt();
+        reader.skipField();
+        balances.put(id, reader.nextInt());
+        eventsSinceSnapshot++;
+      }
+    }
+    events = journal;
+    long now = now();
+    for (int i = 0; i < inventory.size(); i++) {
+      int id = inventory.idAt(i);
+      int index = balances.indexOf(id);
+      int logged = index < 0 ? 0 : balances.valueAt(index);
+      if (index < 0 || logged != inventory.quantityAt(i)) {
+        append(now, id, inventory.quantityAt(i) - logged);
+      }
+    }
+    if (snapshots == 0 || eventsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+      takeSnapshot();
+    }
+    events.sync();
+  }
+
+  /**
+   * Records a change of the quantity of a product in the storage. Nothing is recorded while the
+   * log is closed.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity
+   */
+  public synchronized void record(int id, int change) {
+    if (events == null || change == 0) {
+      return;
+    }
+    try {
+      append(now(), id, change);
+      if (eventsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+        takeSnapshot();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Returns the quantity of a product in the storage at a point in time.
+   *
+   * @param id the id of the product
+   * @param time the point in time, in epoch milliseconds of the local date and time
+   * @return the quantity after all the changes up to that time, -1 if the history of the product
+   *     does not reach back to that time
+   * @throws IOException the log could not be read
+   * @throws IllegalStateException the log is not open
+   */
+  public synchronized int getQuantityAt(int id, long time) throws IOException {
+    if (events == null) {
+      throw new IllegalStateException("The inventory log is not open");
+    }
+    int snapshot = Arrays.binarySearch(snapshotTimes, 0, snapshots, time);
+    if (snapshot < 0) {
+      snapshot = -snapshot - 2;
+    } else {
+      // take the last of the snapshots with the same time
+      while (snapshot + 1 < snapshots && snapshotTimes[snapshot + 1] == time) {
+        snapshot++;
+      }
+    }
+    if (snapshot < 0) {
+      return -1;
+    }
+    if (cachedSnapshot != snapshot) {
+      IntIntMap quantities = new IntIntMap();
+      readSnapshot(snapshot, quantities);
+      cachedQuantities = quantities;
+      cachedSnapshot = snapshot;
+    }
+    int quantity = cachedQuantities.get(id, -1);
+    try (CsvReader reader = openEvents(snapshotOffsets[snapshot])) {
+      while (reader.nextRecord()) {
+        if (reader.nextLong() > time) {
+          break;
+        }
+        if (reader.nextInt() == id) {
+          reader.skipField();
+          quantity = reader.nextInt();
+        }
+      }
+    }
+    return quantity;
+  }
+
+  /**
+   * Syncs and closes the log.
+   *
+   * @throws IOException the log could not be synced or closed
+   */
+  public synchronized void close() throws IOException {
+    if (events != null) {
+      events.close();
+      events = null;
+    }
+  }
+
+  /**
+   * Appends an event to the log and updates the quantity of the product.
+   *
+   * @param time the time of the change
+   * @param id the id of the product
+   * @param change the change of the quantity
+   * @throws IOException the event could not be written
+   */
+  private void append(long time, int id, int change) throws IOException {
+    int balance = balances.get(id, 0) + change;
+    String record = time + ";" + id + ";" + change + ";" + balance + ";";
+    events.append(record);
+    // the records contain only ASCII characters
+    length += record.length() + 1;
+    balances.put(id, balance);
+    lastTime = time;
+    eventsSinceSnapshot++;
+  }
+
+  /**
+   * Writes the quantities of all the products to a new snapshot file.
+   *
+   * @throws IOException the snapshot could not be written
+   */
+  private void takeSnapshot() throws IOException {
+    // a snapshot must not refer to events that are not on the disk yet
+    events.sync();
+    long time = now();
+    File file = new File(directory, SNAPSHOT_PREFIX + length + "-" + time + SNAPSHOT_SUFFIX);
+    try (AtomicFileWriter out = new AtomicFileWriter(file)) {
+      for (int i = 0; i < balances.size(); i++) {
+        out.write(FileHandler.getProductQuantityRecord(balances.keyAt(i), balances.valueAt(i)));
+        out.newLine();
+      }
+      out.commit();
+    }
+    addSnapshot(time, length);
+    lastTime = time;
+    eventsSinceSnapshot = 0;
+  }
+
+  /**
+   * Reads the times and the positions of the snapshots from the names of the snapshot files.
+   * Snapshots of events that are not in the log anymore are ignored.
+   */
+  private void loadSnapshotIndex() {
+    snapshots = 0;
+    cachedSnapshot = -1;
+    String[] names = directory.list();
+    if (names == null) {
+      return;
+    }
+    long[][] found = new long[names.length][];
+    int count = 0;
+    for (String name : names) {
+      if (!name.startsWith(SNAPSHOT_PREFIX) || !name.endsWith(SNAPSHOT_SUFFIX)) {
+        continue;
+      }
+      String[] parts =
+          name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())
+              .split("-", 2);
+      try {
+        long offset = Long.parseLong(parts[0]);
+        if (parts.length == 2 && offset <= length) {
+          found[count++] = new long[] {offset, Long.parseLong(parts[1])};
+        }
+      } catch (NumberFormatException e) {
+        System.err.println("Skipping the file " + name + " of the inventory log");
+      }
+    }
+    Arrays.sort(found, 0, count, (a, b) -> Long.compare(a[0], b[0]));
+    for (int i = 0; i < count; i++) {
+      addSnapshot(found[i][1], found[i][0]);
+    }
+  }
+
+  /**
+   * Adds a snapshot to the index of the snapshots.
+   *
+   * @param time the time the snapshot was taken
+   * @param offset the position in the log of the snapshot
+   */
+  private void addSnapshot(long time, long offset) {
+    if (snapshots == snapshotTimes.length) {
+      snapshotTimes = Arrays.copyOf(snapshotTimes, snapshots * 2);
+      snapshotOffsets = Arrays.copyOf(snapshotOffsets, snapshots * 2);
+    }
+    snapshotTimes[snapshots] = time;
+    snapshotOffsets[snapshots] = offset;
+    snapshots++;
+  }
+
+  /**
+   * Reads the quantities of a snapshot.
+   *
+   * @param snapshot the position of the snapshot in the index
+   * @param into the map the quantities are put into
+   * @throws IOException the snapshot could not be read
+   */
+  private void readSnapshot(int snapshot, IntIntMap into) throws IOException {
+    File file =
+        new File(
+            directory,
+            SNAPSHOT_PREFIX
+                + snapshotOffsets[snapshot]
+                + "-"
+                + snapshotTimes[snapshot]
+                + SNAPSHOT_SUFFIX);
+    try (CsvReader reader =
+        new CsvReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+      while (reader.nextRecord()) {
+        int id = reader.nextInt();
+        into.put(id, reader.nextInt());
+      }
+    }
+  }
+
+  /**
+   * Opens a reader of the log, at a position.
+   *
+   * @param from the position in the log
+   * @return the reader
+   * @throws IOException the log could not be opened
+   */
+  private CsvReader openEvents(long from) throws IOException {
+    FileInputStream in = new FileInputStream(new File(directory, EVENTS_FILE));
+    try {
+      in.getChannel().position(from);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    return new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the current local date and time, never before the last event, so the times in the
+   * log do not go back when the clock is set back.
+   *
+   * @return the time in epoch milliseconds of the local date and time
+   */
+  private long now() {
+    return Math.max(lastTime, LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli());
+  }
+}
@@ -0,0 +1,196 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An append-only journal file. Every record is a single line in the same ";" separated format as
+ * the .csv file the journal belongs to, so the journal can be replayed with the same parser. The
+ * records are written to the file at the moment they are appended, and the file is synced to the
+ * disk every {@code syncInterval} records, so a crash loses at most the records of the last
+ * unsynced batch.
+ *
+ * @version 1.0
+ */
+public class Journal {
+  /** The path of the journal file. */
+  private final String path;
+  /** The channel the records are written to, opened on the first append. */
+  private FileChannel channel;
+  /** The number of records appended since the last sync. */
+  private int unsyncedRecords;
+  /** The number of records in the journal since it was last truncated. */
+  private int records;
+  /** The number of appended records after which the file is synced to the disk. */
+  private int syncInterval;
+
+  /**
+   * Creates a journal for the given file.
+   *
+   * @param path the path of the journal file
+   * @param syncInterval the number of records after which the file is synced to the disk
+   */
+  public Journal(String path, int syncInterval) {
+    this.path = path;
+    setSyncInterval(syncInterval);
+  }
+
+  /**
+   * Returns the path of the journal file.
+   *
+   * @return the path of the journal file
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the number of records in the journal since it was last truncated.
+   *
+   * @return the number of records
+   */
+  public synchronized int getRecords() {
+    return records;
+  }
+
+  /**
+   * Sets the number of appended records after which the file is synced to the disk. The value 1
+   * syncs every record.
+   *
+   * @param syncInterval the number of records, at least 1
+   * @throws IllegalArgumentException the interval is smaller than 1
+   */
+  public synchronized void setSyncInterval(int syncInterval) throws IllegalArgumentException {
+    if (syncInterval < 1) {
+      throw new IllegalArgumentException("The sync interval must be at least 1");
+    }
+    this.syncInterval = syncInterval;
+  }
+
+  /**
+   * Checks whether the journal file exists and contains any records.
+   *
+   * @return true if there are records to replay, else false
+   */
+  public boolean hasRecords() {
+    return new File(path).length() > 0;
+  }
+
+  /**
+   * Appends a record to the end of the journal.
+   *
+   * @param record the record, without the line separator
+   * @throws IOException the record could not be written
+   */
+  public synchronized void append(String record) throws IOException {
+    ByteBuffer bytes = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+    FileChannel out = getChannel();
+    while (bytes.hasRemaining()) {
+      out.write(bytes);
+    }
+    records++;
+    if (++unsyncedRecords >= syncInterval) {
+      sync();
+    }
+  }
+
+  /**
+   * Syncs the appended records to the disk.
+   *
+   * @throws IOException the file could not be synced
+   */
+  public synchronized void sync() throws IOException {
+    if (channel != null && unsyncedRecords > 0) {
+      channel.force(false);
+    }
+    unsyncedRecords = 0;
+  }
+
+  /**
+   * Removes a partially written record from the end of the journal, left there by a crash in the
+   * middle of an append, and counts the complete records.
+   *
+   * @throws IOException the file could not be read or truncated
+   */
+  public synchronized void recover() throws IOException {
+    File file = new File(path);
+    if (!file.isFile()) {
+      return;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      long length = raf.length();
+      long end = length;
+      while (end > 0) {
+        raf.seek(end - 1);
+        if (raf.read() == '\n') {
+          break;
+        }
+        end--;
+      }
+      if (end < length) {
+        raf.setLength(end);
+      }
+      int count = 0;
+      raf.seek(0);
+      byte[] chunk = new byte[1 << 16];
+      for (int read = raf.read(chunk); read > 0; read = raf.read(chunk)) {
+        for (int i = 0; i < read; i++) {
+          if (chunk[i] == '\n') {
+            count++;
+          }
+        }
+      }
+      records = count;
+    }
+  }
+
+  /**
+   * Empties the journal, after its records have been written to the .csv file.
+   *
+   * @throws IOException the file could not be truncated
+   */
+  public synchronized void truncate() throws IOException {
+    if (channel == null && !new File(path).isFile()) {
+      records = 0;
+      return;
+    }
+    FileChannel out = getChannel();
+    out.truncate(0);
+    out.force(true);
+    records = 0;
+    unsyncedRecords = 0;
+  }
+
+  /**
+   * Syncs and closes the journal file.
+   *
+   * @throws IOException the file could not be synced or closed
+   */
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      sync();
+      channel.close();
+      channel = null;
+    }
+  }
+
+  /**
+   * Returns the channel of the journal file, opening it in append mode if needed.
+   *
+   * @return the channel of the journal file
+   * @throws IOException the file could not be opened
+   */
+  @SuppressWarnings("resource")
+  private FileChannel getChannel() throws IOException {
+    if (channel == null) {
+      RandomAccessFile raf = new RandomAccessFile(path, "rw");
+      channel = raf.getChannel();
+      channel.position(channel.size());
+    }
+    return channel;
+  }
+}
@@ -0,0 +1,706 @@
+package ERP_Core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The storage of the data in an embedded key-value store, the file "Data/Store.db" (see {@link
+ * LogStore}). Every object is stored under the key of its list and its id, with the same record
+ * the .csv files use as its value, e.g. "product/0000000004" = "4;Laptop;...". The orders and the
+ * storage orders are also indexed by their date, under keys that contain the date and the order
+ * number and sort in the order of the dates, so the orders of a period are found with a scan of
+ * the keys and only the orders of the period are read from the file.
+ *
+ * <p>If the store does not exist yet, the .csv files of the Data directory are loaded and imported
+ * into it. The confirmed orders and storage orders are stored and synced to the disk as soon as
+ * they are made, together with the quantities of their products, in the storage and in every
+ * warehouse other than the main one, and the points of their customers, so the store is
+ * consistent after a crash without replaying anything, and saving stores only the
+ * lists that changed. The records of a list are read from the store one at a time when it is
+ * loaded.
+ *
+ * @version 1.0
+ */
+public class KeyValueRepository implements Repository {
+  /** The key prefix of the products. */
+  private static final String PRODUCT = "product/";
+  /** The key prefix of the product quantities. */
+  private static final String QUANTITY = "quantity/";
+  /** The key prefix of the product quantities of the warehouses other than the main one. */
+  private static final String WAREHOUSE_QUANTITY = "warehousequantity/";
+  /** The key prefix of the registered customers. */
+  private static final String CUSTOMER = "customer/";
+  /** The key prefix of the users. */
+  private static final String USER = "user/";
+  /** The key prefix of the suppliers. */
+  private static final String SUPPLIER = "supplier/";
+  /** The key prefix of the orders. */
+  private static final String ORDER = "order/";
+  /** The key prefix of the date index of the orders. */
+  private static final String ORDER_DATE = "orderdate/";
+  /** The key prefix of the storage orders. */
+  private static final String STORAGE_ORDER = "storageorder/";
+  /** The key prefix of the date index of the storage orders. */
+  private static final String STORAGE_ORDER_DATE = "storageorderdate/";
+
+  /** The file of the store. */
+  private final File file;
+  /** The store, opened when the data is loaded. */
+  private LogStore store;
+  /** The number of orders of the order list that are stored. */
+  private int storedOrders;
+  /** The number of storage orders of the storage order list that are stored. */
+  private int storedStorageOrders;
+
+  /** Creates the repository of the store file "Data/Store.db". */
+  public KeyValueRepository() {
+    this(FileHandler.getDataFile("Store.db"));
+  }
+
+  /**
+   * Creates the repository of a store file.
+   *
+   * @param file the file of the store
+   */
+  public KeyValueRepository(File file) {
+    this.file = file;
+  }
+
+  /**
+   * Loads all the data from the store. An empty store is filled with the data of the .csv files.
+   *
+   * @throws RuntimeException the store could not be opened
+   */
+  @Override
+  public void loadAll() {
+    try {
+      store = new LogStore(file);
+      if (store.size() == 0) {
+        importCsvFiles();
+        return;
+      }
+      loadList(USER, reader -> User.createUsersFromCsv(reader));
+      User.changes.markSaved();
+      loadList(PRODUCT, reader -> Product.createProductsFromCsv(reader));
+      Storage.productChanges.markSaved();
+      loadList(QUANTITY, reader -> Storage.createProductQuantitiesFromCsv(reader));
+      Warehouse.loadWarehousesFromCsv();
+      loadList(WAREHOUSE_QUANTITY, reader -> Storage.loadWarehouseQuantities(reader));
+      Storage.quantityChanges.markSaved();
+      loadList(CUSTOMER, reader -> RegisteredCustomer.createRegisteredCustomersFromCsv(reader));
+      RegisteredCustomer.changes.markSaved();
+      loadList(SUPPLIER, reader -> Supplier.createSuppliersFromCsv(reader));
+      Supplier.changes.markSaved();
+      loadList(ORDER, reader -> Order.createOrdersFromBatch(OrderBatch.parse(reader)));
+      loadList(
+          STORAGE_ORDER,
+          reader -> StorageOrder.createStorageOrdersFromBatch(OrderBatch.parse(reader)));
+      storedOrders = Order.getOrders().size();
+      storedStorageOrders = StorageOrder.getOrders().size();
+    } catch (IOException e) {
+      throw new RuntimeException("The store " + file + " could not be loaded", e);
+    }
+  }
+
+  /**
+   * Stores the new orders and the lists that changed, and compacts the store file if most of it
+   * consists of overwritten values.
+   */
+  @Override
+  public void saveAll() {
+    try {
+      storeNewOrders();
+      Storage.productChanges.save(this::storeProducts);
+      Storage.quantityChanges.save(() -> storeQuantities() && storeWarehouseQuantities());
+      User.changes.save(this::storeUsers);
+      Supplier.changes.save(this::storeSuppliers);
+      RegisteredCustomer.changes.save(this::storeCustomers);
+      store.sync();
+      if (store.needsCompaction()) {
+        store.compact();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Stores a confirmed order, its date index entry, the quantities of its products and the points
+   * of its customer, and syncs the store to the disk.
+   *
+   * @param order the confirmed order
+   */
+  @Override
+  public void appendOrder(Order order) {
+    try {
+      putOrder(order);
+      putOrderChanges(order);
+      store.sync();
+    } catch (IOException e) {
+      System.err.println("The order could not be written to the store");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Stores the confirmed orders of a batch, their date index entries, the quantities of their
+   * products and the points of their customers, and syncs the store to the disk once.
+   *
+   * @param orders the confirmed orders
+   */
+  @Override
+  public void appendOrders(List<Order> orders) {
+    try {
+      for (Order order : orders) {
+        putOrder(order);
+        putOrderChanges(order);
+      }
+      store.sync();
+    } catch (IOException e) {
+      System.err.println("The orders could not be written to the store");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Stores a confirmed storage order, its date index entry and the quantities of its products, and
+   * syncs the store to the disk.
+   *
+   * @param order the confirmed storage order
+   */
+  @Override
+  public void appendStorageOrder(StorageOrder order) {
+    try {
+      putStorageOrder(order);
+      putQuantities(order.getSupplies());
+      store.sync();
+    } catch (IOException e) {
+      System.err.println("The storage order could not be written to the store");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Reads an order from the store.
+   *
+   * @param orderNo the order number
+   * @return the order, or null if there is no order with this number
+   */
+  @Override
+  public Order findOrder(int orderNo) {
+    OrderBatch batch = readOrders(Arrays.asList(key(ORDER, orderNo)));
+    if (batch.size() == 0) {
+      return null;
+    }
+    return Order.createView(
+        batch.getOrderNo(0),
+        batch.getDateMillis(0),
+        batch.getTotalCost(0),
+        batch.getPartnerId(0),
+        batch.getUserId(0),
+        batch.getBasket(0),
+        batch.getPriceVersion(0));
+  }
+
+  /**
+   * Reads the orders of a period from the store, by scanning the date index.
+   *
+   * @param from the start of the period (inclusive)
+   * @param to the end of the period (exclusive)
+   * @return the orders of the period
+   */
+  @Override
+  public List<Order> findOrdersByDate(long from, long to) {
+    OrderBatch batch = readOrders(orderKeys(ORDER_DATE, ORDER, from, to));
+    ArrayList<Order> found = new ArrayList<Order>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      found.add(
+          Order.createView(
+              batch.getOrderNo(i),
+              batch.getDateMillis(i),
+              batch.getTotalCost(i),
+              batch.getPartnerId(i),
+              batch.getUserId(i),
+              batch.getBasket(i),
+              batch.getPriceVersion(i)));
+    }
+    return found;
+  }
+
+  /**
+   * Reads a storage order from the store.
+   *
+   * @param orderNo the storage order number
+   * @return the storage order, or null if there is no storage order with this number
+   */
+  @Override
+  public StorageOrder findStorageOrder(int orderNo) {
+    OrderBatch batch = readOrders(Arrays.asList(key(STORAGE_ORDER, orderNo)));
+    if (batch.size() == 0) {
+      return null;
+    }
+    return StorageOrder.createView(
+        batch.getOrderNo(0),
+        batch.getDateMillis(0),
+        batch.getTotalCost(0),
+        batch.getPartnerId(0),
+        batch.getUserId(0),
+        batch.getBasket(0),
+        batch.getLocationId(0));
+  }
+
+  /**
+   * Reads the storage orders of a period from the store, by scanning the date index.
+   *
+   * @param from the start of the period (inclusive)
+   * @param to the end of the period (exclusive)
+   * @return the storage orders of the period
+   */
+  @Override
+  public List<StorageOrder> findStorageOrdersByDate(long from, long to) {
+    OrderBatch batch = readOrders(orderKeys(STORAGE_ORDER_DATE, STORAGE_ORDER, from, to));
+    ArrayList<StorageOrder> found = new ArrayList<StorageOrder>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      found.add(
+          StorageOrder.createView(
+              batch.getOrderNo(i),
+              batch.getDateMillis(i),
+              batch.getTotalCost(i),
+              batch.getPartnerId(i),
+              batch.getUserId(i),
+              batch.getBasket(i),
+              batch.getLocationId(i)));
+    }
+    return found;
+  }
+
+  /** Syncs and closes the store file. */
+  @Override
+  public void close() {
+    try {
+      if (store != null) {
+        store.close();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Loads the .csv files of the Data directory and stores all their data in the empty store.
+   *
+   * @throws IOException the data could not be stored
+   */
+  private void importCsvFiles() throws IOException {
+    new CsvRepository().loadAll();
+    storedOrders = 0;
+    storedStorageOrders = 0;
+    storeNewOrders();
+    storeProducts();
+    storeQuantities();
+    storeWarehouseQuantities();
+    storeUsers();
+    storeSuppliers();
+    storeCustomers();
+    store.sync();
+    User.changes.markSaved();
+    Storage.productChanges.markSaved();
+    Storage.quantityChanges.markSaved();
+    RegisteredCustomer.changes.markSaved();
+    Supplier.changes.markSaved();
+    System.out.printf("Imported the .csv data files into %s\n", file.getPath());
+  }
+
+  /** A task that creates the objects of a list from the records of a reader. */
+  private interface ListLoader {
+    /**
+     * Creates the objects.
+     *
+     * @param reader the reader of the records
+     * @throws IOException the records could not be read
+     */
+    void load(CsvReader reader) throws IOException;
+  }
+
+  /**
+   * Reads the records of all the keys with the given prefix and creates their objects.
+   *
+   * @param prefix the key prefix of the list
+   * @param loader creates the objects of the records
+   * @throws IOException the records could not be read
+   */
+  private void loadList(String prefix, ListLoader loader) throws IOException {
+    try (CsvReader reader = new CsvReader(openRecords(store.keysWithPrefix(prefix)))) {
+      loader.load(reader);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Opens a reader over the records of the given keys, one record per line. The values are read
+   * from the store one at a time, when the reader reaches them, so the records of a list are never
+   * all in the memory at once. The keys that do not exist are skipped.
+   *
+   * @param keys the keys of the records
+   * @return the reader, which throws an {@link UncheckedIOException} if a value cannot be read
+   */
+  private Reader openRecords(List<String> keys) {
+    Iterator<String> iterator = keys.iterator();
+    Enumeration<InputStream> values =
+        new Enumeration<InputStream>() {
+          @Override
+          public boolean hasMoreElements() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public InputStream nextElement() {
+            try {
+              byte[] value = store.get(iterator.next());
+              if (value == null) {
+                return new ByteArrayInputStream(new byte[0]);
+              }
+              byte[] record = Arrays.copyOf(value, value.length + 1);
+              record[value.length] = '\n';
+              return new ByteArrayInputStream(record);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        };
+    return new InputStreamReader(new SequenceInputStream(values), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Stores the products.
+   *
+   * @return true if the products were stored, else false
+   */
+  private boolean storeProducts() {
+    return storeList(
+        PRODUCT, Storage.getProducts(), Product::getProductId, FileHandler::getProductRecord);
+  }
+
+  /**
+   * Stores the product quantities.
+   *
+   * @return true if the quantities were stored, else false
+   */
+  private boolean storeQuantities() {
+    Inventory quantities = Storage.getProductQuantities();
+    ArrayList<Integer> indexes = new ArrayList<Integer>(quantities.size());
+    for (int i = 0; i < quantities.size(); i++) {
+      indexes.add(i);
+    }
+    return storeList(
+        QUANTITY,
+        indexes,
+        quantities::idAt,
+        i -> FileHandler.getProductQuantityRecord(quantities.idAt(i), quantities.quantityAt(i)));
+  }
+
+  /**
+   * Stores the product quantities of the warehouses other than the main one, and deletes the
+   * stored quantities of the products a warehouse does not hold anymore.
+   *
+   * @return true if the quantities were stored, else false
+   */
+  private boolean storeWarehouseQuantities() {
+    try {
+      HashSet<String> keys = new HashSet<String>();
+      for (Warehouse warehouse : Warehouse.getWarehouses()) {
+        Inventory stock = warehouse.getStock();
+        for (int i = 0; warehouse != Warehouse.getMain() && i < stock.size(); i++) {
+          if (stock.quantityAt(i) == 0) {
+            continue;
+          }
+          String key = warehouseKey(warehouse.getId(), stock.idAt(i));
+          byte[] value =
+              FileHandler.getWarehouseQuantityRecord(
+                      warehouse.getId(), stock.idAt(i), stock.quantityAt(i))
+                  .getBytes(StandardCharsets.UTF_8);
+          if (!Arrays.equals(value, store.get(key))) {
+            store.put(key, value);
+          }
+          keys.add(key);
+        }
+      }
+      for (String key : store.keysWithPrefix(WAREHOUSE_QUANTITY)) {
+        if (!keys.contains(key)) {
+          store.delete(key);
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Stores the users.
+   *
+   * @return true if the users were stored, else false
+   */
+  private boolean storeUsers() {
+    return storeList(USER, User.getUsers(), User::getIdUser, FileHandler::getUserRecord);
+  }
+
+  /**
+   * Stores the suppliers.
+   *
+   * @return true if the suppliers were stored, else false
+   */
+  private boolean storeSuppliers() {
+    return storeList(
+        SUPPLIER, Supplier.getsuppliers(), Supplier::getId, FileHandler::getSupplierRecord);
+  }
+
+  /**
+   * Stores the registered customers.
+   *
+   * @return true if the customers were stored, else false
+   */
+  private boolean storeCustomers() {
+    return storeList(
+        CUSTOMER,
+        RegisteredCustomer.getCustomers(),
+        RegisteredCustomer::getId,
+        FileHandler::getCustomerRecord);
+  }
+
+  /**
+   * Stores the objects of a list and deletes the stored objects that are not in the list anymore.
+   * The objects whose record did not change are not written again.
+   *
+   * @param <T> the type of the objects
+   * @param prefix the key prefix of the list
+   * @param list the objects
+   * @param id returns the id of an object
+   * @param record returns the record of an object
+   * @return true if the list was stored, else false
+   */
+  private <T> boolean storeList(
+      String prefix, List<T> list, ToIntFunction<T> id, Function<T, String> record) {
+    try {
+      HashSet<String> keys = new HashSet<String>();
+      for (T object : list) {
+        String key = key(prefix, id.applyAsInt(object));
+        byte[] value = record.apply(object).getBytes(StandardCharsets.UTF_8);
+        if (!Arrays.equals(value, store.get(key))) {
+          store.put(key, value);
+        }
+        keys.add(key);
+      }
+      for (String key : store.keysWithPrefix(prefix)) {
+        if (!keys.contains(key)) {
+          store.delete(key);
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Stores the orders and storage orders that were added to their lists since they were last
+   * stored.
+   *
+   * @throws IOException the orders could not be stored
+   */
+  private void storeNewOrders() throws IOException {
+    List<Order> orders = Order.getOrders();
+    for (int i = storedOrders; i < orders.size(); i++) {
+      if (!store.contains(key(ORDER, orders.get(i).getOrderNo()))) {
+        putOrder(orders.get(i));
+      }
+    }
+    storedOrders = orders.size();
+    ArrayList<StorageOrder> storageOrders = StorageOrder.getOrders();
+    for (int i = storedStorageOrders; i < storageOrders.size(); i++) {
+      if (!store.contains(key(STORAGE_ORDER, storageOrders.get(i).getStorageOrderNumber()))) {
+        putStorageOrder(storageOrders.get(i));
+      }
+    }
+    storedStorageOrders = storageOrders.size();
+  }
+
+  /**
+   * Writes an order and its date index entry to the store.
+   *
+   * @param order the order
+   * @throws IOException the order could not be written
+   */
+  private void putOrder(Order order) throws IOException {
+    store.put(
+        key(ORDER, order.getOrderNo()),
+        FileHandler.getOrderRecord(order).getBytes(StandardCharsets.UTF_8));
+    putDateIndex(ORDER_DATE, order.getOrderTime(), order.getOrderNo());
+  }
+
+  /**
+   * Writes the quantities of the products of an order and the points of its registered customer
+   * to the store, as they are after the order.
+   *
+   * @param order the order
+   * @throws IOException the records could not be written
+   */
+  private void putOrderChanges(Order order) throws IOException {
+    putQuantities(order.getBasket());
+    if (order.getCustomer() instanceof RegisteredCustomer) {
+      RegisteredCustomer customer = (RegisteredCustomer) order.getCustomer();
+      synchronized (store) {
+        store.put(
+            key(CUSTOMER, customer.getId()),
+            FileHandler.getCustomerRecord(customer).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  /**
+   * Writes the quantities of the products of a basket to the store, in the storage and in every
+   * warehouse other than the main one, which holds the rest of the totals when they are loaded. A
+   * quantity is read while the store is locked, so of the orders that write the same product at
+   * the same time, the last one writes the quantity that contains the changes of all of them.
+   *
+   * @param basket the product id - quantity lines of the basket
+   * @throws IOException the quantities could not be written
+   */
+  private void putQuantities(Basket basket) throws IOException {
+    Inventory quantities = Storage.getProductQuantities();
+    for (int i = 0; i < basket.size(); i++) {
+      int id = basket.getProductId(i);
+      if (!quantities.contains(id)) {
+        continue;
+      }
+      synchronized (store) {
+        store.put(
+            key(QUANTITY, id),
+            FileHandler.getProductQuantityRecord(id, quantities.getQuantity(id))
+                .getBytes(StandardCharsets.UTF_8));
+        for (Warehouse warehouse : Warehouse.getWarehouses()) {
+          Inventory stock = warehouse.getStock();
+          if (warehouse != Warehouse.getMain() && stock.contains(id)) {
+            store.put(
+                warehouseKey(warehouse.getId(), id),
+                FileHandler.getWarehouseQuantityRecord(
+                        warehouse.getId(), id, stock.getQuantity(id))
+                    .getBytes(StandardCharsets.UTF_8));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes a storage order and its date index entry to the store.
+   *
+   * @param order the storage order
+   * @throws IOException the storage order could not be written
+   */
+  private void putStorageOrder(StorageOrder order) throws IOException {
+    store.put(
+        key(STORAGE_ORDER, order.getStorageOrderNumber()),
+        FileHandler.getStorageOrderRecord(order).getBytes(StandardCharsets.UTF_8));
+    putDateIndex(STORAGE_ORDER_DATE, order.getStorageOrderTime(), order.getStorageOrderNumber());
+  }
+
+  /**
+   * Writes the date index entry of an order.
+   *
+   * @param prefix the key prefix of the date index
+   * @param millis the date of the order, see {@link DateStamp}
+   * @param orderNo the order number
+   * @throws IOException the entry could not be written
+   */
+  private void putDateIndex(String prefix, long millis, int orderNo) throws IOException {
+    store.put(dateKey(prefix, millis) + '/' + key("", orderNo), new byte[0]);
+  }
+
+  /**
+   * Scans the date index for the orders of a period.
+   *
+   * @param indexPrefix the key prefix of the date index
+   * @param orderPrefix the key prefix of the orders
+   * @param from the start of the period (inclusive)
+   * @param to the end of the period (exclusive)
+   * @return the keys of the orders, in the order of their dates
+   */
+  private List<String> orderKeys(String indexPrefix, String orderPrefix, long from, long to) {
+    ArrayList<String> keys = new ArrayList<String>();
+    if (from >= to) {
+      return keys;
+    }
+    for (String entry : store.keys(dateKey(indexPrefix, from), dateKey(indexPrefix, to))) {
+      keys.add(orderPrefix + entry.substring(entry.lastIndexOf('/') + 1));
+    }
+    return keys;
+  }
+
+  /**
+   * Reads the records of orders or storage orders from the store.
+   *
+   * @param keys the keys of the orders
+   * @return the parsed records of the orders that exist
+   */
+  private OrderBatch readOrders(List<String> keys) {
+    try (CsvReader reader = new CsvReader(openRecords(keys))) {
+      return OrderBatch.parse(reader);
+    } catch (IOException | UncheckedIOException e) {
+      e.printStackTrace();
+      return new OrderBatch();
+    }
+  }
+
+  /**
+   * Returns the key of an object. The id is zero padded, so the keys sort in the order of the ids.
+   *
+   * @param prefix the key prefix of the list
+   * @param id the id of the object
+   * @return the key
+   */
+  private static String key(String prefix, int id) {
+    return String.format("%s%010d", prefix, id);
+  }
+
+  /**
+   * Returns the key of the quantity of a product in a warehouse.
+   *
+   * @param warehouseId the id of the warehouse
+   * @param id the id of the product
+   * @return the key
+   */
+  private static String warehouseKey(int warehouseId, int id) {
+    return key(key(WAREHOUSE_QUANTITY, warehouseId) + "/", id);
+  }
+
+  /**
+   * Returns the start of the date index keys of a date. The sign bit of the date is flipped, so
+   * the hexadecimal keys sort in the order of the dates.
+   *
+   * @param prefix the key prefix of the date index
+   * @param millis the date in epoch milliseconds
+   * @return the key
+   */
+  private static String dateKey(String prefix, long millis) {
+    return String.format("%s%016x", prefix, millis ^ Long.MIN_VALUE);
+  }
+}
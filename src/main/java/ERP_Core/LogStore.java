@@ -0,0 +1,363 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded, log-structured key-value store kept in a single file. Every put or delete is
+ * appended to the end of the file as a record; a record is never changed after it is written.
+ * Only the keys are kept in the memory, in a sorted index that points to the position of the
+ * latest value of every key, so a value is read from the file when it is looked up and the keys
+ * can be scanned in order, e.g. by a date that is part of the key.
+ *
+ * <p>Every record has the layout: key length (int), value length (int, -1 for a deleted key),
+ * CRC32 of the key and value (int), the UTF-8 key and the value. When the store is opened, the
+ * records are read in order to rebuild the index, and a record that was only partly written by a
+ * crash is removed from the end of the file. The values that were overwritten or deleted stay in
+ * the file until it is compacted, which rewrites only the latest values into a new file that
+ * atomically replaces the old one.
+ *
+ * @version 1.0
+ */
+public class LogStore {
+  /** The size of the header of every record. */
+  private static final int HEADER_SIZE = 12;
+  /** The value length of a record that deletes its key. */
+  private static final int DELETED = -1;
+  /** The size of the buffer the appended records are collected in before they are written. */
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+  /** The smallest file that is compacted. */
+  private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+  /** The file of the store. */
+  private final File file;
+  /**
+   * The position and length of the latest value of every key and the length of its record, in the
+   * order of the keys.
+   */
+  private final TreeMap<String, long[]> index = new TreeMap<String, long[]>();
+  /** The channel of the file. */
+  private FileChannel channel;
+  /** The records appended since the buffer was last written to the file. */
+  private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+  /** The length of the file, including the records that are still in the write buffer. */
+  private long length;
+  /** The number of bytes of the records of the latest values. */
+  private long liveBytes;
+
+  /**
+   * Opens the store in the given file, creating the file if it does not exist.
+   *
+   * @param file the file of the store
+   * @throws IOException the file could not be opened or read
+   */
+  public LogStore(File file) throws IOException {
+    this.file = file;
+    open();
+  }
+
+  /**
+   * Returns the number of keys in the store.
+   *
+   * @return the number of keys
+   */
+  public synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * Checks whether the store contains a key.
+   *
+   * @param key the key
+   * @return true if the key has a value, else false
+   */
+  public synchronized boolean contains(String key) {
+    return index.containsKey(key);
+  }
+
+  /**
+   * Reads the value of a key from the file.
+   *
+   * @param key the key
+   * @return the value, or null if the key does not exist
+   * @throws IOException the value could not be read
+   */
+  public synchronized byte[] get(String key) throws IOException {
+    long[] location = index.get(key);
+    if (location == null) {
+      return null;
+    }
+    flushBuffer();
+    ByteBuffer value = ByteBuffer.allocate((int) location[1]);
+    while (value.hasRemaining()) {
+      if (channel.read(value, location[0] + value.position()) < 0) {
+        throw new IOException("Unexpected end of the store file " + file);
+      }
+    }
+    return value.array();
+  }
+
+  /**
+   * Returns the keys from one key (inclusive) to an other (exclusive), in order.
+   *
+   * @param from the first key
+   * @param to the end of the keys
+   * @return a new list with the keys
+   */
+  public synchronized List<String> keys(String from, String to) {
+    return new ArrayList<String>(index.subMap(from, to).keySet());
+  }
+
+  /**
+   * Returns the keys that start with the given prefix, in order.
+   *
+   * @param prefix the prefix of the keys
+   * @return a new list with the keys
+   */
+  public List<String> keysWithPrefix(String prefix) {
+    return keys(prefix, prefix + Character.MAX_VALUE);
+  }
+
+  /**
+   * Sets the value of a key, replacing its previous value.
+   *
+   * @param key the key
+   * @param value the value
+   * @throws IOException the record could not be written
+   */
+  public synchronized void put(String key, byte[] value) throws IOException {
+    append(key, value);
+  }
+
+  /**
+   * Deletes a key and its value. Nothing is written if the key does not exist.
+   *
+   * @param key the key
+   * @throws IOException the record could not be written
+   */
+  public synchronized void delete(String key) throws IOException {
+    if (index.containsKey(key)) {
+      append(key, null);
+    }
+  }
+
+  /**
+   * Writes the appended records to the file and syncs it to the disk.
+   *
+   * @throws IOException the file could not be written
+   */
+  public synchronized void sync() throws IOException {
+    flushBuffer();
+    channel.force(false);
+  }
+
+  /**
+   * Checks whether most of the file consists of overwritten and deleted values, so that the file
+   * should be compacted.
+   *
+   * @return true if the file should be compacted, else false
+   */
+  public synchronized boolean needsCompaction() {
+    return length >= MIN_COMPACTION_SIZE && length > 2 * liveBytes;
+  }
+
+  /**
+   * Rewrites the latest value of every key into a new file, which replaces the file of the store.
+   * The store keeps its previous file if the new one could not be written.
+   *
+   * @throws IOException the file could not be compacted
+   */
+  public synchronized void compact() throws IOException {
+    flushBuffer();
+    File temp = new File(file.getPath() + AtomicFileWriter.TEMP_EXTENSION);
+    int keys = index.size();
+    long position = 0;
+    try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        FileChannel out = raf.getChannel()) {
+      out.truncate(0);
+      for (String key : index.keySet()) {
+        ByteBuffer record = encode(key, get(key));
+        while (record.hasRemaining()) {
+          position += out.write(record);
+        }
+      }
+      out.force(true);
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+    channel.close();
+    AtomicFileWriter.replace(temp, file);
+    // the index is rebuilt from the new file, with the new positions of the values
+    open();
+    if (index.size() != keys || length != position) {
+      throw new IOException("The compacted store file " + file + " could not be read back");
+    }
+  }
+
+  /**
+   * Writes the appended records to the file and closes it.
+   *
+   * @throws IOException the file could not be written or closed
+   */
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      sync();
+      channel.close();
+      channel = null;
+    }
+  }
+
+  /**
+   * Opens the file and rebuilds the index from its records. A record that is incomplete or does
+   * not match its checksum ends the file, which is truncated before it.
+   *
+   * @throws IOException the file could not be opened or read
+   */
+  @SuppressWarnings("resource")
+  private void open() throws IOException {
+    index.clear();
+    liveBytes = 0;
+    channel = new RandomAccessFile(file, "rw").getChannel();
+    long size = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    CRC32 crc = new CRC32();
+    while (position + HEADER_SIZE <= size) {
+      header.clear();
+      readFully(header, position);
+      int keyLength = header.getInt(0);
+      int valueLength = header.getInt(4);
+      long recordLength = HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0);
+      if (keyLength < 0 || valueLength < DELETED || position + recordLength > size) {
+        break;
+      }
+      ByteBuffer data = ByteBuffer.allocate((int) (recordLength - HEADER_SIZE));
+      readFully(data, position + HEADER_SIZE);
+      crc.reset();
+      crc.update(data.array(), 0, data.capacity());
+      if ((int) crc.getValue() != header.getInt(8)) {
+        break;
+      }
+      String key = new String(data.array(), 0, keyLength, StandardCharsets.UTF_8);
+      remove(key);
+      if (valueLength != DELETED) {
+        index.put(
+            key, new long[] {position + HEADER_SIZE + keyLength, valueLength, recordLength});
+        liveBytes += recordLength;
+      }
+      position += recordLength;
+    }
+    if (position < size) {
+      channel.truncate(position);
+      channel.force(true);
+    }
+    channel.position(position);
+    length = position;
+    writeBuffer.clear();
+  }
+
+  /**
+   * Appends a record to the write buffer and updates the index.
+   *
+   * @param key the key
+   * @param value the value, or null to delete the key
+   * @throws IOException the buffer could not be written to the file
+   */
+  private void append(String key, byte[] value) throws IOException {
+    ByteBuffer record = encode(key, value);
+    int keyLength = record.getInt(0);
+    if (record.remaining() > writeBuffer.remaining()) {
+      flushBuffer();
+    }
+    long position = length;
+    if (record.remaining() > writeBuffer.capacity()) {
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+    } else {
+      writeBuffer.put(record);
+    }
+    long recordLength = HEADER_SIZE + keyLength + (value == null ? 0 : value.length);
+    length += recordLength;
+    remove(key);
+    if (value != null) {
+      index.put(
+          key, new long[] {position + HEADER_SIZE + keyLength, value.length, recordLength});
+      liveBytes += recordLength;
+    }
+  }
+
+  /**
+   * Removes a key from the index.
+   *
+   * @param key the key
+   */
+  private void remove(String key) {
+    long[] previous = index.remove(key);
+    if (previous != null) {
+      liveBytes -= previous[2];
+    }
+  }
+
+  /**
+   * Encodes a record.
+   *
+   * @param key the key
+   * @param value the value, or null to delete the key
+   * @return the record, ready to be written
+   */
+  private static ByteBuffer encode(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int valueLength = value == null ? 0 : value.length;
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + valueLength);
+    CRC32 crc = new CRC32();
+    crc.update(keyBytes);
+    if (value != null) {
+      crc.update(value);
+    }
+    record.putInt(keyBytes.length).putInt(value == null ? DELETED : value.length);
+    record.putInt((int) crc.getValue()).put(keyBytes);
+    if (value != null) {
+      record.put(value);
+    }
+    record.flip();
+    return record;
+  }
+
+  /**
+   * Writes the records of the write buffer to the end of the file.
+   *
+   * @throws IOException the records could not be written
+   */
+  private void flushBuffer() throws IOException {
+    writeBuffer.flip();
+    while (writeBuffer.hasRemaining()) {
+      channel.write(writeBuffer);
+    }
+    writeBuffer.clear();
+  }
+
+  /**
+   * Reads bytes from the file until the buffer is full.
+   *
+   * @param buffer the buffer
+   * @param position the position in the file
+   * @throws IOException the bytes could not be read
+   */
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of the store file " + file);
+      }
+    }
+  }
+}
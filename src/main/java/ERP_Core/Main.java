@@ -1,10 +1,16 @@
 package ERP_Core;
 
-import java.io.FileNotFoundException;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
 public class Main {
+  /**
+   * The storage of the data, selected with the "erp.storage" system property: "csv" (the default)
+   * for the .csv files, or "kv" for the embedded key-value store.
+   */
+  private static final Repository repository =
+      createRepository(System.getProperty("erp.storage", "csv"));
+
   /**
    * The main method of the program. Starts the ERP.
    * @param args the arguments given while starting the program
@@ -66,6 +72,8 @@ public class Main {
           case 5:
             saveAllListsToCsv();
             FileHandler.writeAllCountersToFile();
+            repository.close();
+            Storage.closeInventoryLog();
             in.close();
             Thread.sleep(100);
             return;
@@ -158,64 +166,52 @@ public class Main {
     }
   }
 
-  /** Saving all the lists to .csv files */
+  /**
+   * Saving all the lists to the storage. Only the lists that changed since they were last saved
+   * are written, and only the new orders are added to the stored orders.
+   */
   public static void saveAllListsToCsv() {
-    FileHandler.writeOrderListToCSV(Order.getOrders());
-    FileHandler.writeProductListToCSV(Storage.getProducts());
-    FileHandler.writeProductQuantitiesListToCSV(Storage.getProductQuantities());
-    FileHandler.writeUserListToCSV(User.getUsers());
-    FileHandler.writeStorageOrderToCSV(StorageOrder.getOrders());
-    FileHandler.writeSupplierToCSV(Supplier.getsuppliers());
-    FileHandler.writeCustomerListToCSV(RegisteredCustomer.getCustomers());
+    repository.saveAll();
+  }
+
+  /**
+   * Returns the storage of the data.
+   *
+   * @return the repository selected at startup
+   */
+  public static Repository getRepository() {
+    return repository;
+  }
+
+  /**
+   * Creates the storage of the data.
+   *
+   * @param storage the name of the storage, "csv" or "kv"
+   * @return the repository of the storage
+   */
+  private static Repository createRepository(String storage) {
+    if (storage.equals("kv")) {
+      return new KeyValueRepository();
+    }
+    if (!storage.equals("csv")) {
+      System.out.printf("Unknown storage \"%s\", using the .csv files\n", storage);
+    }
+    return new CsvRepository();
   }
 
-  /** Loading all the lists from the .csv files */
   public static void loadAllListsFromCsv() {
 	if (FileHandler.checkIfDataDirectoryExists() == false) {
 		System.out.println("Directory \"Data\" not found. Creating a new directory...");
 		FileHandler.createDataDirectory();
 	}
+    FileHandler.recoverDataFiles();
 	if (FileHandler.checkIfCountersFileExists() == false) {
 		System.out.println("File Counters.txt not found, creating default file" ); 
 		FileHandler.createDefaultCountersFile();
 	}
-    try {
-      User.createUsersFromList(FileHandler.getUsersFromCsv());
-    } catch (FileNotFoundException e) {
-      // if no user file was found, the user list is initialized with the default administrator user
-      new Administrator(1, "admin", "admin", "admin", "admin");
-      System.out.println("File Users.csv not found, initializing default user list");
-    }
-    try {
-      Product.createProductsFromList(FileHandler.getProductsFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File Products.csv not found, initializing default product list");
-    }
-    try {
-      Storage.createProductQuantitiesFromList(FileHandler.getProductQuantityFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File ProductQuantities.csv not found, initializing default product quantity list");
-    }
-    try {
-      RegisteredCustomer.createRegisteredCustomersFromList(
-          FileHandler.getRegisteredCustomersFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File RegisteredCustomers.csv not found, initializing default registered customer list");
-    }
-    try {
-      Order.createOrdersFromList(FileHandler.getOrdersFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File Orders.csv not found, initializing default order list");
-    }
-    try {
-      Supplier.createSuppliersFromList(FileHandler.getSuppliersFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File Suppliers.csv not found, initializing default supplier list");
-    }
-    try {
-      StorageOrder.createStorageOrdersFromList(FileHandler.getStorageOrdersFromCsv());
-    } catch (FileNotFoundException e) {
-      System.out.println("File StorageOrders.csv not found, initializing default storage order list");
-    }
+    repository.loadAll();
+    Storage.openInventoryLog();
+    ReorderEngine.loadSales(Order.orders);
+    StockAlerts.loadThresholds();
   }
 }
@@ -1,9 +1,9 @@
 package ERP_Core;
 
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
@@ -17,8 +17,14 @@ import java.util.Scanner;
 public class Order {
   /** The unique id of the order. */
   private final int orderNo;
-  /** Date and time the order was made. */
-  private final String orderDate;
+  /** Date and time the order was made, as epoch milliseconds of the local date and time. */
+  private final long orderTime;
+  /** The year of the order date. */
+  private final short orderYear;
+  /** The month of the order date, from 1 to 12. */
+  private final byte orderMonth;
+  /** The day of the month of the order date. */
+  private final byte orderDay;
   /** Total cost of the order in euro currency. */
   private double totalCost;
   /** The customer that made the order. */
@@ -26,29 +32,61 @@ public class Order {
   /** The user that made the order. */
   private final Cashier cashier;
   /** Contains the combination of the product id and quantity of all the products. */
-  private ArrayList<int[]> basket = new ArrayList<int[]>();
-  /** The counter of the created orders, used for generating new order ids. */
-  private static int count = FileHandler.getOrderCounterFromFile();
-  /** The order list that contains all the orders made. */
-  protected static ArrayList<Order> orders = new ArrayList<Order>();
+  private Basket basket = new Basket();
+  /**
+   * The version of the {@link PriceTable} the order was priced with, 0 if it is not known, e.g. for
+   * an order saved before the versions were written. The versions are kept in the counters file,
+   * so they are never handed out twice, see {@link IdAllocator#PRICE_VERSIONS}.
+   */
+  private long priceVersion;
+  /**
+   * The points of the registered customer after the order, -1 if they are not known, e.g. for an
+   * order that was loaded. They are written only to the order journal, see {@link
+   * #replayOrdersFromJournal(CsvReader, int)}.
+   */
+  private int customerPoints = -1;
+  /**
+   * The order list that contains all the orders made. The historical orders can be kept in a
+   * memory mapped snapshot, see {@link OrderHistory}.
+   */
+  protected static OrderHistory orders = new OrderHistory();
+
+  /**
+   * Constructor for creating a new order.
+   *
+   * @param orderDate the date the order was created, e.g. "09-01-2020 09:09:22"
+   * @param customer the customer who made the order
+   * @param cashier the cashier who made the order
+   * @param basket the products the order contains
+   */
+  public Order(String orderDate, Customer customer, Cashier cashier, List<int[]> basket) {
+    this(DateStamp.parse(orderDate), customer, cashier, basket);
+  }
 
   /**
    * Constructor for creating a new order.
    *
-   * @param orderDate the date the order was created
+   * @param orderTime the date the order was created, see {@link DateStamp}
    * @param customer the customer who made the order
    * @param cashier the cashier who made the order
    * @param basket the products the order contains
    */
-  public Order(String orderDate, Customer customer, Cashier cashier, ArrayList<int[]> basket) {
-    this.orderNo = count++;
-    this.orderDate = orderDate;
-    this.totalCost = calculateBasketCost(basket);
+  Order(long orderTime, Customer customer, Cashier cashier, List<int[]> basket) {
+    this.orderTime = orderTime;
+    this.orderYear = (short) DateStamp.getYear(orderTime);
+    this.orderMonth = (byte) DateStamp.getMonth(orderTime);
+    this.orderDay = (byte) DateStamp.getDay(orderTime);
+    PriceTable prices = Storage.getPriceTable();
+    this.totalCost = prices.getBasketCost(basket);
+    this.priceVersion = prices.getVersion();
     this.customer = customer;
     this.cashier = cashier;
-    this.basket = basket;
-    ProductSale.orderToSale(this);
-    orders.add(this);
+    this.basket = Basket.of(basket);
+    // the orders are numbered in the order they are added to the order list
+    synchronized (orders) {
+      this.orderNo = IdAllocator.ORDERS.next();
+      register(this);
+    }
   }
 
   /**
@@ -56,7 +94,7 @@ public class Order {
    * the total cost again as it has been created.
    *
    * @param orderNo the order's number
-   * @param orderDate the date the order was created
+   * @param orderDate the date the order was created, e.g. "11-1-2020 10:40"
    * @param totalCost the order's total cost
    * @param customer the customer who made the order
    * @param cashier the cashier who made the order
@@ -68,15 +106,88 @@ public class Order {
       double totalCost,
       Customer customer,
       Cashier cashier,
-      ArrayList<int[]> basket) {
+      List<int[]> basket) {
+    this(orderNo, DateStamp.parse(orderDate), totalCost, customer, cashier, basket, true);
+  }
+
+  /**
+   * Constructor for an already created order, that is only added to the order list and converted
+   * to product sales if it is registered. The orders decoded from the order history are not
+   * registered, as they are already part of the history.
+   *
+   * @param orderNo the order's number
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the order's total cost
+   * @param customer the customer who made the order
+   * @param cashier the cashier who made the order
+   * @param basket the products the order contains
+   * @param register whether the order is added to the order list
+   */
+  private Order(
+      int orderNo,
+      long orderTime,
+      double totalCost,
+      Customer customer,
+      Cashier cashier,
+      List<int[]> basket,
+      boolean register) {
     this.orderNo = orderNo;
-    this.orderDate = orderDate;
+    this.orderTime = orderTime;
+    this.orderYear = (short) DateStamp.getYear(orderTime);
+    this.orderMonth = (byte) DateStamp.getMonth(orderTime);
+    this.orderDay = (byte) DateStamp.getDay(orderTime);
     this.totalCost = totalCost;
     this.customer = customer;
     this.cashier = cashier;
-    this.basket = basket;
-    ProductSale.orderToSale(this);
-    orders.add(this);
+    this.basket = Basket.of(basket);
+    if (register) {
+      register(this);
+    }
+  }
+
+  /**
+   * Creates a new order whose basket was already priced, so the total cost is not calculated
+   * again.
+   *
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param customer the customer who made the order
+   * @param cashier the cashier who made the order
+   * @param basket the products the order contains
+   * @param totalCost the total cost of the basket
+   * @param priceVersion the version of the prices the basket was priced with
+   * @return the new order
+   */
+  static Order createPriced(
+      long orderTime,
+      Customer customer,
+      Cashier cashier,
+      List<int[]> basket,
+      double totalCost,
+      long priceVersion) {
+    Order order;
+    synchronized (orders) {
+      order =
+          new Order(
+              IdAllocator.ORDERS.next(), orderTime, totalCost, customer, cashier, basket, true);
+    }
+    order.priceVersion = priceVersion;
+    return order;
+  }
+
+  /**
+   * Adds a new order to the order list and its sales to the list of sales. The order list is
+   * locked while they are added, so that the sales are in the same order as their orders and a
+   * snapshot of the first orders covers exactly the first sales. The new orders take their number
+   * while the list is locked too, so the list, and the order files saved from it, are in the order
+   * of the numbers, which the replay of the order journal relies on to skip the saved orders.
+   *
+   * @param order the order
+   */
+  private static void register(Order order) {
+    synchronized (orders) {
+      ProductSale.orderToSale(order);
+      orders.add(order);
+    }
   }
 
   /**
@@ -89,12 +200,48 @@ public class Order {
   }
 
   /**
-   * Returns the order date.
+   * Returns the order date, formatted as "dd-MM-yyyy HH:mm:ss".
    *
    * @return the order date, type String
    */
   public String getOrderDate() {
-    return orderDate;
+    return DateStamp.format(orderTime);
+  }
+
+  /**
+   * Returns the order date as epoch milliseconds of its local date and time.
+   *
+   * @return the order date, see {@link DateStamp}
+   */
+  public long getOrderTime() {
+    return orderTime;
+  }
+
+  /**
+   * Returns the year of the order date.
+   *
+   * @return the year
+   */
+  public int getOrderYear() {
+    return orderYear;
+  }
+
+  /**
+   * Returns the month of the order date.
+   *
+   * @return the month, from 1 to 12
+   */
+  public int getOrderMonth() {
+    return orderMonth;
+  }
+
+  /**
+   * Returns the day of the month of the order date.
+   *
+   * @return the day of the month
+   */
+  public int getOrderDay() {
+    return orderDay;
   }
 
   /**
@@ -110,6 +257,24 @@ public class Order {
     this.totalCost = totalCost;
   }
 
+  /**
+   * Returns the version of the prices the order was priced with.
+   *
+   * @return the version of the {@link PriceTable}, 0 if it is not known
+   */
+  public long getPriceVersion() {
+    return priceVersion;
+  }
+
+  /**
+   * Returns the points of the registered customer after the order.
+   *
+   * @return the points, -1 if they are not known
+   */
+  int getCustomerPoints() {
+    return customerPoints;
+  }
+
   /**
    * Returns the order's Customer object.
    *
@@ -129,30 +294,44 @@ public class Order {
   }
 
   /**
-   * Returns the ArrayList that represents the order's basket.
+   * Returns the basket of the order.
    *
-   * @return an ArrayList of Products, type integer
+   * @return the product id - quantity lines of the basket
    */
-  public ArrayList<int[]> getBasket() {
+  public Basket getBasket() {
     return basket;
   }
 
   /**
-   * Returns the ArrayList that the order objects are stored.
+   * Returns the list that the order objects are stored.
    *
-   * @return an ArrayList of the previous Orders, type Order
+   * @return a list of the previous Orders, type Order
    */
-  public static ArrayList<Order> getOrders() {
+  public static List<Order> getOrders() {
     return orders;
   }
 
+  /**
+   * Replaces the order list and the product sales with the orders of a memory mapped snapshot,
+   * which must contain all the orders made. The order counter is moved past the last order.
+   *
+   * @param snapshot the snapshot of all the orders
+   */
+  static void attachHistory(OrderSnapshot snapshot) {
+    orders.attach(snapshot);
+    ProductSale.attachHistory(snapshot);
+    if (snapshot.size() > 0) {
+      IdAllocator.ORDERS.observe(snapshot.getOrderNo(snapshot.size() - 1));
+    }
+  }
+
   /**
    * Returns the products id counter.
    *
    * @return The count of products' id, type Integer
    */
   public static int getIdCounter() {
-    return count;
+    return IdAllocator.ORDERS.getCounter();
   }
 
   /** Prints all the orders. */
@@ -172,8 +351,14 @@ public class Order {
    */
   public static void printOrderHistory(int id) {
     int counter = 0;
-    for (Order order : orders) {
-      if (order.getCustomer() != null && ((RegisteredCustomer) order.getCustomer()).getId() == id) {
+    Order order;
+    for (int i = 0; i < orders.size(); i++) {
+      // only the orders of the customer are decoded
+      if (orders.getCustomerId(i) != id) {
+        continue;
+      }
+      order = orders.get(i);
+      if (order.getCustomer() != null) {
         if (counter == 0) {
           System.out.printf("\nPrinting orders of the customer with id %d:\n\n", id);
         }
@@ -216,8 +401,7 @@ public class Order {
    * @param quantity how many specific products the customer orders
    */
   public void addProductToBasket(int id, int quantity) {
-    int[] products = {id, quantity};
-    basket.add(products);
+    basket.add(id, quantity);
   }
 
   /**
@@ -226,12 +410,10 @@ public class Order {
    * @param id product's id
    * @param quantity how many specific products the customer orders
    * @return the total cost of a product, type double
+   * @throws NoSuchElementException the product does not exist
    */
-  public static double calculateCost(int id, int quantity) {
-    Product prod = Storage.searchById(id);
-    double price = prod.getSalePrice();
-    double cost = price * quantity;
-    return cost;
+  public static double calculateCost(int id, int quantity) throws NoSuchElementException {
+    return Storage.getPriceTable().getCost(id, quantity);
   }
 
   /**
@@ -239,17 +421,11 @@ public class Order {
    *
    * @param basket all the products the customer choose
    * @return total cost of the Basket, type double
+   * @throws NoSuchElementException a product of the basket does not exist
    */
-  public static double calculateBasketCost(ArrayList<int[]> basket) {
-    double totalCost = 0;
-    double productCost;
-    Product prod;
-    for (int[] product : basket) {
-      prod = Storage.searchById(product[0]);
-      productCost = prod.getSalePrice() * product[1];
-      totalCost += productCost;
-    }
-    return totalCost;
+  public static double calculateBasketCost(List<int[]> basket)
+      throws NoSuchElementException {
+    return Storage.getPriceTable().getBasketCost(basket);
   }
 
   /**
@@ -258,14 +434,30 @@ public class Order {
    *
    * @param id product's id
    * @param quantity how many specific products the customer orders
+   * @throws NoSuchElementException the product does not exist
+   */
+  public static void printProduct(int id, int quantity) throws NoSuchElementException {
+    printProduct(id, quantity, Storage.getPriceTable());
+  }
+
+  /**
+   * Prints a product's information with a given id, in the format used to print the order
+   * information, with the prices of a price table.
+   *
+   * @param id product's id
+   * @param quantity how many specific products the customer orders
+   * @param prices the prices of the products
+   * @return the cost of the product and quantity combination
+   * @throws NoSuchElementException the product does not exist
    */
-  public static void printProduct(int id, int quantity) {
+  private static double printProduct(int id, int quantity, PriceTable prices)
+      throws NoSuchElementException {
+    double price = prices.getCost(id, quantity);
     Product prod = Storage.searchById(id);
-    String name = prod.getName();
-    double price = calculateCost(id, quantity);
     System.out.printf(
         "Product id: %d | Product name: %s | Quantity: %d | Price: %.02f",
         prod.getProductId(), prod.getName(), quantity, price);
+    return price;
   }
 
   /**
@@ -275,7 +467,7 @@ public class Order {
    * @param customer the customer who made the order
    * @param basket all the products the customer choose
    */
-  public static void previewOrder(Cashier cashier, Customer customer, ArrayList<int[]> basket) {
+  public static void previewOrder(Cashier cashier, Customer customer, List<int[]> basket) {
     int cashierId = cashier.getIdUser();
     double totalCost = 0;
     System.out.println("***Preview of Order***");
@@ -291,12 +483,13 @@ public class Order {
       System.out.println("Guest or Deleted");
     }
     System.out.println("\n---Product Basket: ");
+    // the lines and the total are priced with the same prices
+    PriceTable prices = Storage.getPriceTable();
     for (int[] prod : basket) {
-      printProduct(prod[0], prod[1]);
+      totalCost += printProduct(prod[0], prod[1], prices);
       System.out.println();
     }
     System.out.println();
-    totalCost = calculateBasketCost(basket);
     System.out.println("---Order's total cost: " + totalCost);
   }
 
@@ -345,7 +538,7 @@ public class Order {
     Scanner in = new Scanner(System.in);
     String ans;
     Customer customer;
-    ArrayList<int[]> basket;
+    Basket basket;
     int id;
     for (; ; ) {
       try {
@@ -372,16 +565,18 @@ public class Order {
           System.out.println("*** Guest Customer Order Menu ***");
           customer = null;
         }
-        basket = fillBasket();
+        BasketReservation reservation = new BasketReservation();
+        basket = fillBasket(reservation);
         Order.previewOrder(cashier, customer, basket);
 
         for (; ; ) {
           System.out.print("Confirm order? (Y/N): ");
           ans = in.nextLine();
           if (ans.toLowerCase().equals("y") || ans.toLowerCase().equals("yes")) {
-            Order.confirmOrder(cashier, customer, basket);
+            Order.confirmOrder(cashier, customer, basket, reservation);
             return;
           } else if (ans.toLowerCase().equals("n") || ans.toLowerCase().equals("no")) {
+            reservation.release();
             System.out.println("Process cancelled. Returning to previous menu...");
             return;
           }
@@ -400,29 +595,68 @@ public class Order {
 
   /**
    * Makes the needed changes in the storage product quantities, and creates the order object with
-   * the system's current date and time.
+   * the system's current date and time. The new order is appended to the order journal. The
+   * products of the basket are removed from the storage all together: if one of them does not have
+   * enough units left, e.g. because an other cashier sold them in the meantime, nothing is removed
+   * and the order is not made.
    *
    * @param cashier the cashier who made the order
    * @param customer the customer who made the order
    * @param basket all the products the customer choose
    */
-  public static void confirmOrder(Cashier cashier, Customer customer, ArrayList<int[]> basket) {
-    for (int[] product : basket) {
-      try {
-        // remove the products from storage
-        Storage.removeProductQuantity(product[0], product[1]);
-      } catch (NoSuchElementException e) {
-        e.printStackTrace();
-      } catch (Exception e) {
-        e.printStackTrace();
+  public static void confirmOrder(Cashier cashier, Customer customer, List<int[]> basket) {
+    try {
+      if (!Storage.reserveBasket(basket)) {
+        System.out.println(
+            "There are not enough product units available.\n" + "The order was not made.");
+        return;
       }
+    } catch (NoSuchElementException e) {
+      System.out.println(e.getMessage() + ". The order was not made.");
+      return;
+    }
+    Storage.commitBasket(basket);
+    createConfirmedOrder(cashier, customer, basket);
+  }
+
+  /**
+   * Confirms an order whose basket was reserved while it was filled. The reserved units are
+   * removed from the storage and the order object is created with the system's current date and
+   * time. If the reservation expired and the units are not available anymore, the order is not
+   * made.
+   *
+   * @param cashier the cashier who made the order
+   * @param customer the customer who made the order
+   * @param basket all the products the customer choose
+   * @param reservation the reservation of the basket, see {@link #fillBasket(BasketReservation)}
+   */
+  public static void confirmOrder(
+      Cashier cashier, Customer customer, List<int[]> basket, BasketReservation reservation) {
+    if (!reservation.confirm()) {
+      System.out.println(
+          "There are not enough product units available.\n" + "The order was not made.");
+      return;
     }
-    String orderDate = getCurrentDate();
-    Order newOrder = new Order(orderDate, customer, cashier, basket);
+    createConfirmedOrder(cashier, customer, basket);
+  }
+
+  /**
+   * Creates the order object of a basket whose units were removed from the storage, with the
+   * system's current date and time, and appends it to the order journal.
+   *
+   * @param cashier the cashier who made the order
+   * @param customer the customer who made the order
+   * @param basket all the products the customer choose
+   */
+  private static void createConfirmedOrder(
+      Cashier cashier, Customer customer, List<int[]> basket) {
+    Order newOrder = new Order(DateStamp.now(), customer, cashier, basket);
     if (customer instanceof RegisteredCustomer
         && newOrder.checkPointDiscount((RegisteredCustomer) customer) == true) {
       newOrder.setTotalCost(0.9 * newOrder.getTotalCost());
     }
+    Main.getRepository().appendOrder(newOrder);
+    ReorderEngine.recordSale(basket);
     newOrder.printFinalOrder();
   }
 
@@ -433,16 +667,35 @@ public class Order {
    * @return true if he is eligible for discount, else false
    */
   public boolean checkPointDiscount(RegisteredCustomer c) {
-    ((RegisteredCustomer) (this.getCustomer()))
-        .setPoints((int) Math.round(((this.getTotalCost() * 5))));
-    System.out.println(
-        "\nWith this purchase " + Math.round(this.getTotalCost() * 5) + " points were earned!");
-    if (c.getPoints() >= 10000) {
+    long earned = Math.round(this.getTotalCost() * 5);
+    boolean discounted = redeemPoints(c);
+    System.out.println("\nWith this purchase " + earned + " points were earned!");
+    if (discounted) {
       System.out.println("\nOrder has been discounted by 10% by redeeming 10000 points!");
-      c.setPoints(c.getPoints() - 10000);
-      return true;
     }
-    return false;
+    return discounted;
+  }
+
+  /**
+   * Gives the points of the order to a customer and redeems 10000 of them if the customer has
+   * enough points for a discount, without printing anything. The points are read and changed
+   * while the lock of the {@link OrderService} class is held, so two orders of the same customer
+   * never redeem the same points.
+   *
+   * @param c the customer
+   * @return true if he is eligible for discount, else false
+   */
+  boolean redeemPoints(RegisteredCustomer c) {
+    synchronized (OrderService.class) {
+      ((RegisteredCustomer) (this.getCustomer()))
+          .setPoints((int) Math.round(((this.getTotalCost() * 5))));
+      boolean discounted = c.getPoints() >= 10000;
+      if (discounted) {
+        c.setPoints(c.getPoints() - 10000);
+      }
+      customerPoints = c.getPoints();
+      return discounted;
+    }
   }
 
   /**
@@ -451,9 +704,7 @@ public class Order {
    * @return the specific form of date, type String
    */
   public static String getCurrentDate() {
-    SimpleDateFormat dateFormatter = new SimpleDateFormat("dd-MM-yyyy hh:mm:ss");
-    Date date = new Date();
-    return dateFormatter.format(date);
+    return DateStamp.format(DateStamp.now());
   }
 
   /**
@@ -461,10 +712,22 @@ public class Order {
    *
    * @return the temporary Basket, type integer
    */
-  public static ArrayList<int[]> fillBasket() {
+  public static Basket fillBasket() {
+    return fillBasket(null);
+  }
+
+  /**
+   * Contains the prompts in order for the user to fill the order basket. The units of every line
+   * are reserved as soon as the line is added, so they are still available when the order is
+   * confirmed.
+   *
+   * @param reservation the reservation of the basket, null to only check the available units
+   * @return the temporary Basket, type integer
+   */
+  public static Basket fillBasket(BasketReservation reservation) {
     Scanner in = new Scanner(System.in);
     String input;
-    ArrayList<int[]> tempBasket = new ArrayList<int[]>();
+    Basket tempBasket = new Basket();
     int[] tempProduct = new int[2];
     boolean alreadyExists;
     for (; ; ) {
@@ -482,12 +745,15 @@ public class Order {
         tempProduct[1] = in.nextInt();
         in.nextLine();
         alreadyExists =
-            checkIfProductAlreadyExistsAndAddToBasket(tempProduct[0], tempProduct[1], tempBasket);
-        if (alreadyExists == false
-            && Storage.checkIfQuantityIsEnough(tempProduct[0], tempProduct[1]) == true) {
-          tempBasket.add(tempProduct);
-        } else {
-          System.out.println("There are not enough product units available.\n" + "Try Again...");
+            checkIfProductAlreadyExistsAndAddToBasket(
+                tempProduct[0], tempProduct[1], tempBasket, reservation);
+        if (alreadyExists == false) {
+          if (reserveLine(tempProduct[0], tempProduct[1], tempProduct[1], reservation)) {
+            tempBasket.add(tempProduct[0], tempProduct[1]);
+          } else {
+            System.out.println(
+                "There are not enough product units available.\n" + "Try Again...");
+          }
         }
       } catch (NumberFormatException e) {
         System.out.println("Product id must be an integer larger than 0. Try again...");
@@ -512,23 +778,55 @@ public class Order {
    * @return if the product is available, type boolean
    */
   public static boolean checkIfProductAlreadyExistsAndAddToBasket(
-      int id, int quantity, ArrayList<int[]> basket) {
-    int combinedQuantity;
-    for (int[] line : basket) {
-      if (line[0] == id) {
-        combinedQuantity = line[1] + quantity;
-        if (Storage.checkIfQuantityIsEnough(id, combinedQuantity) == true) {
-          line[1] = combinedQuantity;
+      int id, int quantity, Basket basket) {
+    return checkIfProductAlreadyExistsAndAddToBasket(id, quantity, basket, null);
+  }
 
-        } else {
-          System.out.println(
-              "There are not enough product units available.\n"
-                  + "Change the quantity or order more. Try Again...");
-        }
-        return true;
-      }
+  /**
+   * Checks if a product already exists in the temporary basket. If it does, the method reserves
+   * the additional units and either updates the basket or rejects the product.
+   *
+   * @param id product's id
+   * @param quantity how many specific products the customer orders
+   * @param basket all the products the customer choose
+   * @param reservation the reservation of the basket, null to only check the available units
+   * @return if the product is available, type boolean
+   */
+  public static boolean checkIfProductAlreadyExistsAndAddToBasket(
+      int id, int quantity, Basket basket, BasketReservation reservation) {
+    int line = basket.findLine(id);
+    if (line < 0) {
+      return false;
+    }
+    int combinedQuantity = basket.getQuantity(line) + quantity;
+    if (reserveLine(id, quantity, combinedQuantity, reservation) == true) {
+      basket.setQuantity(line, combinedQuantity);
+    } else {
+      System.out.println(
+          "There are not enough product units available.\n"
+              + "Change the quantity or order more. Try Again...");
     }
-    return false;
+    return true;
+  }
+
+  /**
+   * Reserves the units of a basket line, or only checks that the whole line is available if the
+   * basket is not reserved.
+   *
+   * @param id product's id
+   * @param quantity the units to add to the line
+   * @param lineQuantity the quantity of the whole line, with the added units
+   * @param reservation the reservation of the basket, null to only check the available units
+   * @return true if the units are available, else false
+   * @throws NoSuchElementException the product does not exist
+   */
+  private static boolean reserveLine(
+      int id, int quantity, int lineQuantity, BasketReservation reservation)
+      throws NoSuchElementException {
+    if (reservation == null) {
+      return Storage.checkIfQuantityIsEnough(id, lineQuantity);
+    }
+    return reservation.reserve(id, quantity);
   }
 
   /**
@@ -541,40 +839,234 @@ public class Order {
     int cashierId;
     int orderNo;
     double totalCost;
-    ArrayList<int[]> basket;
-    String orderDate;
-    Customer customer = null;
-    Cashier cashier;
-    int[] temp = null;
+    Basket basket;
+    long orderTime;
+    long priceVersion;
+    int lastField;
     for (ArrayList<String> order : orders) {
-      basket = new ArrayList<int[]>();
+      basket = new Basket((order.size() - 5) / 2);
+      lastField = order.size() - (order.size() - 5) % 2;
       orderNo = Integer.parseInt(order.get(0));
-      orderDate = order.get(1);
+      orderTime = DateStamp.parse(order.get(1));
       totalCost = Double.parseDouble(order.get(2));
       customerId = Integer.parseInt(order.get(3));
-      basket = new ArrayList<int[]>();
-      if (customerId == 0) {
-        customer = null;
-      } else {
-        try {
-          customer = RegisteredCustomer.searchById(customerId);
-        } catch (NoSuchElementException e) {
-          customer = null;
-        }
-      }
       cashierId = Integer.parseInt(order.get(4));
-      try {
-        cashier = (Cashier) User.searchUserById(cashierId);
-      } catch (NoSuchElementException e) {
-        cashier = null;
+      for (int i = 5; i < lastField; i += 2) {
+        basket.add(Integer.parseInt(order.get(i)), Integer.parseInt(order.get(i + 1)));
       }
-      for (int i = 5; i < order.size(); i += 2) {
-        temp = new int[2];
-        temp[0] = Integer.parseInt(order.get(i));
-        temp[1] = Integer.parseInt(order.get(i + 1));
-        basket.add(temp);
+      priceVersion = lastField < order.size() ? Long.parseLong(order.get(lastField)) : 0;
+      restoreOrder(orderNo, orderTime, totalCost, customerId, cashierId, basket, priceVersion);
+    }
+  }
+
+  /**
+   * Creates the orders by streaming the records of an orders .csv file. The values are parsed
+   * directly by the reader, so no intermediate lists of strings are created.
+   *
+   * @param reader the reader of the orders file
+   * @throws IOException the file could not be read
+   */
+  public static void createOrdersFromCsv(CsvReader reader) throws IOException {
+    createOrdersFromCsv(reader, Integer.MIN_VALUE, false);
+  }
+
+  /**
+   * Creates the orders of the order journal whose order number is larger than the given one, with
+   * their changes of the storage: the units of their baskets are removed from the quantities and
+   * their registered customers get the points they had after the order. These changes were made
+   * after the quantities and the customers were last saved. The records of orders that are
+   * already loaded are skipped, their changes are part of the saved files.
+   *
+   * @param reader the reader of the order journal
+   * @param lastOrderNo the number of the last order already loaded, {@link Integer#MIN_VALUE} if
+   *     no order is loaded
+   * @return the number of orders created
+   * @throws IOException the journal could not be read
+   */
+  public static int replayOrdersFromJournal(CsvReader reader, int lastOrderNo) throws IOException {
+    return createOrdersFromCsv(reader, lastOrderNo, true);
+  }
+
+  /**
+   * Creates the orders of a .csv file or journal whose order number is larger than the given one.
+   * The records of orders that are already loaded are skipped. A record of the orders file with an
+   * odd number of fields after the basket ends with the price version of the order. A record of
+   * the journal always has the price version, followed by the points of the customer after the
+   * order if they are known, so an even number of fields after the basket ends with both.
+   *
+   * @param reader the reader of the orders file or journal
+   * @param lastOrderNo the number of the last order already loaded
+   * @param replay true to make the changes of the orders in the storage as well
+   * @return the number of orders created
+   * @throws IOException the file could not be read
+   */
+  private static int createOrdersFromCsv(CsvReader reader, int lastOrderNo, boolean replay)
+      throws IOException {
+    int created = 0;
+    int customerId;
+    int cashierId;
+    int orderNo;
+    double totalCost;
+    Basket basket;
+    long orderTime;
+    int productId;
+    int points;
+    long priceVersion;
+    int lines;
+    int trailing;
+    while (reader.nextRecord()) {
+      orderNo = reader.nextInt();
+      if (orderNo <= lastOrderNo) {
+        continue;
       }
-      new Order(orderNo, orderDate, totalCost, customer, cashier, basket);
+      orderTime = reader.nextDate();
+      totalCost = reader.nextDouble();
+      customerId = reader.nextInt();
+      cashierId = reader.nextInt();
+      lines = reader.remainingFields();
+      trailing = replay ? Math.min(2 - lines % 2, lines) : lines % 2;
+      lines = (lines - trailing) / 2;
+      basket = new Basket(lines);
+      for (int i = 0; i < lines; i++) {
+        productId = reader.nextInt();
+        basket.add(productId, reader.nextInt());
+      }
+      priceVersion = trailing > 0 ? reader.nextLong() : 0;
+      points = trailing > 1 ? reader.nextInt() : -1;
+      Order order =
+          restoreOrder(orderNo, orderTime, totalCost, customerId, cashierId, basket, priceVersion);
+      if (replay) {
+        Storage.replayQuantities(basket, true, Warehouse.MAIN_ID);
+        if (points >= 0 && order.getCustomer() instanceof RegisteredCustomer) {
+          ((RegisteredCustomer) order.getCustomer()).setPoints(points);
+        }
+      }
+      created++;
+    }
+    return created;
+  }
+
+  /**
+   * Creates the orders of a parsed orders file, by linking the stored customer and cashier ids to
+   * the loaded objects the same way {@link #createOrdersFromList(ArrayList)} does.
+   *
+   * @param batch the parsed records of the orders file
+   */
+  public static void createOrdersFromBatch(OrderBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      restoreOrder(
+          batch.getOrderNo(i),
+          batch.getDateMillis(i),
+          batch.getTotalCost(i),
+          batch.getPartnerId(i),
+          batch.getUserId(i),
+          batch.getBasket(i),
+          batch.getPriceVersion(i));
+    }
+  }
+
+  /**
+   * Creates an already existing order, by linking the stored customer and cashier ids to the
+   * loaded objects. The customer id 0 refers to a guest customer and an id that does not exist
+   * anymore refers to a deleted customer or cashier, in both cases the reference is null. The order
+   * counter is moved past the restored order number, in case the counters file was not written
+   * after the order was created.
+   *
+   * @param orderNo the order's number
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the order's total cost
+   * @param customerId the id of the customer who made the order, 0 for a guest
+   * @param cashierId the id of the cashier who made the order
+   * @param basket the products the order contains
+   * @param priceVersion the version of the prices of the order, 0 if it is not known
+   * @return the restored order
+   */
+  static Order restoreOrder(
+      int orderNo,
+      long orderTime,
+      double totalCost,
+      int customerId,
+      int cashierId,
+      List<int[]> basket,
+      long priceVersion) {
+    IdAllocator.ORDERS.observe(orderNo);
+    IdAllocator.PRICE_VERSIONS.observe((int) priceVersion);
+    Order order =
+        new Order(
+            orderNo,
+            orderTime,
+            totalCost,
+            findCustomer(customerId),
+            findCashier(cashierId),
+            basket,
+            true);
+    order.priceVersion = priceVersion;
+    return order;
+  }
+
+  /**
+   * Creates a view of an order of the order history, linked to the loaded customer and cashier
+   * like a restored order, without adding it to the order list.
+   *
+   * @param orderNo the order's number
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the order's total cost
+   * @param customerId the id of the customer who made the order, 0 for a guest
+   * @param cashierId the id of the cashier who made the order
+   * @param basket the products the order contains
+   * @param priceVersion the version of the prices of the order, 0 if it is not known
+   * @return the order view
+   */
+  static Order createView(
+      int orderNo,
+      long orderTime,
+      double totalCost,
+      int customerId,
+      int cashierId,
+      List<int[]> basket,
+      long priceVersion) {
+    Order order =
+        new Order(
+            orderNo,
+            orderTime,
+            totalCost,
+            findCustomer(customerId),
+            findCashier(cashierId),
+            basket,
+            false);
+    order.priceVersion = priceVersion;
+    return order;
+  }
+
+  /**
+   * Returns the registered customer with the given id, or null for a guest (id 0) or a deleted
+   * customer.
+   *
+   * @param customerId the stored customer id
+   * @return the customer, or null
+   */
+  private static Customer findCustomer(int customerId) {
+    if (customerId == 0) {
+      return null;
+    }
+    try {
+      return RegisteredCustomer.searchById(customerId);
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the cashier with the given id, or null for a deleted cashier.
+   *
+   * @param cashierId the stored cashier id
+   * @return the cashier, or null
+   */
+  private static Cashier findCashier(int cashierId) {
+    try {
+      return (Cashier) User.searchUserById(cashierId);
+    } catch (NoSuchElementException e) {
+      return null;
     }
   }
 }
@@ -0,0 +1,306 @@
+package ERP_Core;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The parsed, not yet linked records of an orders or a storage orders .csv file. The records are
+ * kept in columns of primitive arrays, so a file can be parsed before the customers, suppliers and
+ * users its records refer to are loaded, and be linked to them afterwards.
+ *
+ * <p>Both files have the same layout: the order number, the date, the total cost, the id of the
+ * partner of the order (the customer, 0 for a guest, or the supplier), the id of the user who made
+ * the order (the cashier or the storekeeper) and the product id - quantity pairs of the basket.
+ * A record may end with one more field, which is told apart from the pairs by the odd number of
+ * fields: the version of the prices of an order, or the id of the warehouse that received a
+ * storage order.
+ *
+ * @version 1.0
+ */
+public class OrderBatch {
+  /** The initial number of records the columns can hold. */
+  private static final int INITIAL_CAPACITY = 256;
+
+  /** The number of records in the batch. */
+  private int size;
+  /** The number of basket lines of all the records. */
+  private int lineCount;
+  /** The order numbers. */
+  private int[] orderNumbers;
+  /** The order dates, as epoch milliseconds of their local date and time. */
+  private long[] dates;
+  /** The total costs. */
+  private double[] totalCosts;
+  /** The ids of the customers or suppliers. */
+  private int[] partnerIds;
+  /** The ids of the cashiers or storekeepers. */
+  private int[] userIds;
+  /**
+   * The last field of the records with an odd one, the price version of an order or the warehouse
+   * id of a storage order, 0 for a record without it.
+   */
+  private int[] lastFields;
+  /** The position of the first basket line of each record, followed by the number of lines. */
+  private int[] lineOffsets;
+  /** The product id - quantity pairs of the basket lines. */
+  private int[] lines;
+
+  /** Creates an empty batch. */
+  public OrderBatch() {
+    this(INITIAL_CAPACITY, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates an empty batch that can hold the given number of records and basket lines.
+   *
+   * @param capacity the number of records
+   * @param lineCapacity the number of basket lines
+   */
+  private OrderBatch(int capacity, int lineCapacity) {
+    capacity = Math.max(capacity, 1);
+    orderNumbers = new int[capacity];
+    dates = new long[capacity];
+    totalCosts = new double[capacity];
+    partnerIds = new int[capacity];
+    userIds = new int[capacity];
+    lastFields = new int[capacity];
+    lineOffsets = new int[capacity + 1];
+    lines = new int[2 * Math.max(lineCapacity, 1)];
+  }
+
+  /**
+   * Parses all the records of an orders or storage orders .csv file.
+   *
+   * @param reader the reader of the file
+   * @return the parsed records
+   * @throws IOException the file could not be read
+   */
+  public static OrderBatch parse(CsvReader reader) throws IOException {
+    OrderBatch batch = new OrderBatch();
+    batch.parseRecords(reader);
+    return batch;
+  }
+
+  /**
+   * Parses the records of a reader and appends them to the batch.
+   *
+   * @param reader the reader of the records
+   * @throws IOException the records could not be read
+   */
+  void parseRecords(CsvReader reader) throws IOException {
+    while (reader.nextRecord()) {
+      if (size == orderNumbers.length) {
+        grow();
+      }
+      orderNumbers[size] = reader.nextInt();
+      dates[size] = reader.nextDate();
+      totalCosts[size] = reader.nextDouble();
+      partnerIds[size] = reader.nextInt();
+      userIds[size] = reader.nextInt();
+      lastFields[size] = 0;
+      while (reader.hasNextField()) {
+        int value = reader.nextInt();
+        if (!reader.hasNextField()) {
+          lastFields[size] = value;
+          break;
+        }
+        if (2 * lineCount + 2 > lines.length) {
+          lines = Arrays.copyOf(lines, 2 * lines.length);
+        }
+        lines[2 * lineCount] = value;
+        lines[2 * lineCount + 1] = reader.nextInt();
+        lineCount++;
+      }
+      lineOffsets[++size] = lineCount;
+    }
+  }
+
+  /**
+   * Concatenates the records of several batches into a new batch.
+   *
+   * @param parts the batches, in the order their records are concatenated
+   * @return the batch with the records of all the batches
+   */
+  static OrderBatch concat(OrderBatch[] parts) {
+    int size = 0;
+    int lineCount = 0;
+    for (OrderBatch part : parts) {
+      size += part.size;
+      lineCount += part.lineCount;
+    }
+    OrderBatch batch = new OrderBatch(size, lineCount);
+    for (OrderBatch part : parts) {
+      System.arraycopy(part.orderNumbers, 0, batch.orderNumbers, batch.size, part.size);
+      System.arraycopy(part.dates, 0, batch.dates, batch.size, part.size);
+      System.arraycopy(part.totalCosts, 0, batch.totalCosts, batch.size, part.size);
+      System.arraycopy(part.partnerIds, 0, batch.partnerIds, batch.size, part.size);
+      System.arraycopy(part.userIds, 0, batch.userIds, batch.size, part.size);
+      System.arraycopy(part.lastFields, 0, batch.lastFields, batch.size, part.size);
+      System.arraycopy(part.lines, 0, batch.lines, 2 * batch.lineCount, 2 * part.lineCount);
+      for (int i = 1; i <= part.size; i++) {
+        batch.lineOffsets[batch.size + i] = batch.lineCount + part.lineOffsets[i];
+      }
+      batch.size += part.size;
+      batch.lineCount += part.lineCount;
+    }
+    return batch;
+  }
+
+  /**
+   * Sorts the records by their order number, if they are not already sorted. Records with the
+   * same order number keep their order.
+   */
+  void sortByOrderNo() {
+    boolean sorted = true;
+    for (int i = 1; i < size && sorted; i++) {
+      sorted = orderNumbers[i - 1] <= orderNumbers[i];
+    }
+    if (sorted) {
+      return;
+    }
+    // the order number in the high bits and the index in the low bits keep the sort stable
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = ((long) orderNumbers[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+    int[] sortedNumbers = new int[orderNumbers.length];
+    long[] sortedDates = new long[dates.length];
+    double[] sortedCosts = new double[totalCosts.length];
+    int[] sortedPartners = new int[partnerIds.length];
+    int[] sortedUsers = new int[userIds.length];
+    int[] sortedLastFields = new int[lastFields.length];
+    int[] sortedOffsets = new int[lineOffsets.length];
+    int[] sortedLines = new int[lines.length];
+    int line = 0;
+    for (int i = 0; i < size; i++) {
+      int index = (int) keys[i];
+      sortedNumbers[i] = orderNumbers[index];
+      sortedDates[i] = dates[index];
+      sortedCosts[i] = totalCosts[index];
+      sortedPartners[i] = partnerIds[index];
+      sortedUsers[i] = userIds[index];
+      sortedLastFields[i] = lastFields[index];
+      int start = lineOffsets[index];
+      int count = lineOffsets[index + 1] - start;
+      System.arraycopy(lines, 2 * start, sortedLines, 2 * line, 2 * count);
+      line += count;
+      sortedOffsets[i + 1] = line;
+    }
+    orderNumbers = sortedNumbers;
+    dates = sortedDates;
+    totalCosts = sortedCosts;
+    partnerIds = sortedPartners;
+    userIds = sortedUsers;
+    lastFields = sortedLastFields;
+    lineOffsets = sortedOffsets;
+    lines = sortedLines;
+  }
+
+  /**
+   * Returns the number of records in the batch.
+   *
+   * @return the number of records
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of an order.
+   *
+   * @param index the index of the record
+   * @return the order number
+   */
+  public int getOrderNo(int index) {
+    return orderNumbers[index];
+  }
+
+  /**
+   * Returns the date of an order.
+   *
+   * @param index the index of the record
+   * @return the epoch milliseconds of the local date and time of the order
+   */
+  public long getDateMillis(int index) {
+    return dates[index];
+  }
+
+  /**
+   * Returns the total cost of an order.
+   *
+   * @param index the index of the record
+   * @return the total cost
+   */
+  public double getTotalCost(int index) {
+    return totalCosts[index];
+  }
+
+  /**
+   * Returns the id of the customer (0 for a guest) or the supplier of an order.
+   *
+   * @param index the index of the record
+   * @return the customer or supplier id
+   */
+  public int getPartnerId(int index) {
+    return partnerIds[index];
+  }
+
+  /**
+   * Returns the id of the cashier or the storekeeper who made an order.
+   *
+   * @param index the index of the record
+   * @return the user id
+   */
+  public int getUserId(int index) {
+    return userIds[index];
+  }
+
+  /**
+   * Returns the id of the warehouse of an order.
+   *
+   * @param index the index of the record
+   * @return the warehouse id, 0 if the order does not name a warehouse
+   */
+  public int getLocationId(int index) {
+    return lastFields[index];
+  }
+
+  /**
+   * Returns the version of the prices of an order.
+   *
+   * @param index the index of the record
+   * @return the price version, 0 if the record does not have it
+   */
+  public long getPriceVersion(int index) {
+    return lastFields[index];
+  }
+
+  /**
+   * Creates the basket of an order, in the product id - quantity form used by the orders.
+   *
+   * @param index the index of the record
+   * @return a new basket with the basket lines
+   */
+  public Basket getBasket(int index) {
+    int start = lineOffsets[index];
+    int end = lineOffsets[index + 1];
+    Basket basket = new Basket(end - start);
+    for (int line = start; line < end; line++) {
+      basket.add(lines[2 * line], lines[2 * line + 1]);
+    }
+    return basket;
+  }
+
+  /** Doubles the capacity of the record columns. */
+  private void grow() {
+    int capacity = 2 * orderNumbers.length;
+    orderNumbers = Arrays.copyOf(orderNumbers, capacity);
+    dates = Arrays.copyOf(dates, capacity);
+    totalCosts = Arrays.copyOf(totalCosts, capacity);
+    partnerIds = Arrays.copyOf(partnerIds, capacity);
+    userIds = Arrays.copyOf(userIds, capacity);
+    lastFields = Arrays.copyOf(lastFields, capacity);
+    lineOffsets = Arrays.copyOf(lineOffsets, capacity + 1);
+  }
+}
@@ -0,0 +1,228 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses an orders or storage orders .csv file in parallel. The file is split into byte ranges
+ * that start and end at a line break, so no record is split between two ranges. The ranges are
+ * parsed with fork/join: every range is memory mapped, decoded and parsed into its own {@link
+ * OrderBatch}, and the batches are concatenated once all of them are parsed, in the order of the
+ * ranges, so the records keep the order of the file.
+ *
+ * @version 1.0
+ */
+public class OrderChunkParser extends RecursiveAction {
+  /** The serial version of the task. */
+  private static final long serialVersionUID = 1L;
+  /** The smallest range that is parsed on its own. Smaller files are parsed as a single range. */
+  private static final long MIN_CHUNK_SIZE = 1 << 20;
+  /**
+   * The largest range that is chosen from the file size, since every range is mapped and decoded
+   * as a whole. Larger files are split into more ranges than the threads parse at once.
+   */
+  private static final long MAX_CHUNK_SIZE = 64L << 20;
+  /** The number of ranges per thread of the pool, so that the threads finish at the same time. */
+  private static final int CHUNKS_PER_THREAD = 4;
+  /** The size of the window that is searched for the next line break. */
+  private static final int SEARCH_WINDOW = 1 << 12;
+
+  /** The channel of the file. */
+  private final FileChannel channel;
+  /** The start of every range, followed by the size of the file. */
+  private final long[] bounds;
+  /** The parsed records of every range. */
+  private final OrderBatch[] parts;
+  /** The first range parsed by this task. */
+  private final int from;
+  /** The end of the ranges parsed by this task (exclusive). */
+  private final int to;
+
+  /**
+   * Creates a task that parses the ranges from to to (exclusive).
+   *
+   * @param channel the channel of the file
+   * @param bounds the start of every range, followed by the size of the file
+   * @param parts the parsed records of every range
+   * @param from the first range
+   * @param to the end of the ranges (exclusive)
+   */
+  private OrderChunkParser(
+      FileChannel channel, long[] bounds, OrderBatch[] parts, int from, int to) {
+    this.channel = channel;
+    this.bounds = bounds;
+    this.parts = parts;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Parses all the records of an orders or storage orders file in parallel, on the common
+   * fork/join pool. The records are sorted by their order number, if the file is not.
+   *
+   * @param file the file
+   * @return the parsed records
+   * @throws IOException the file does not exist or could not be read
+   */
+  public static OrderBatch parse(File file) throws IOException {
+    return parse(file, 0);
+  }
+
+  /**
+   * Parses all the records of an orders or storage orders file in parallel, splitting the file
+   * into ranges of about the given size. When the size is chosen from the file size, a small file,
+   * or any file on a pool without spare threads, is streamed as a single range instead, and a large
+   * file is split into ranges of at most 64 MB.
+   *
+   * @param file the file
+   * @param chunkSize the size of the ranges in bytes, 0 to choose it from the file size
+   * @return the parsed records
+   * @throws IOException the file does not exist or could not be read
+   */
+  public static OrderBatch parse(File file, long chunkSize) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      if (chunkSize <= 0) {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        if (parallelism < 2 || channel.size() < 2 * MIN_CHUNK_SIZE) {
+          // a single range is parsed faster by streaming it than by decoding it as a whole
+          try (CsvReader reader = new CsvReader(Channels.newReader(channel, newDecoder(), -1))) {
+            return sortedByOrderNo(OrderBatch.parse(reader));
+          }
+        }
+        chunkSize =
+            Math.min(
+                MAX_CHUNK_SIZE,
+                Math.max(MIN_CHUNK_SIZE, channel.size() / (CHUNKS_PER_THREAD * parallelism)));
+      }
+      long[] bounds = splitAtLineBreaks(channel, chunkSize);
+      OrderBatch[] parts = new OrderBatch[bounds.length - 1];
+      try {
+        ForkJoinPool.commonPool()
+            .invoke(new OrderChunkParser(channel, bounds, parts, 0, parts.length));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return sortedByOrderNo(parts.length == 1 ? parts[0] : OrderBatch.concat(parts));
+    }
+  }
+
+  /**
+   * Sorts the records of a batch by their order number, if the file was not sorted.
+   *
+   * @param batch the parsed records
+   * @return the batch
+   */
+  private static OrderBatch sortedByOrderNo(OrderBatch batch) {
+    batch.sortByOrderNo();
+    return batch;
+  }
+
+  /**
+   * Splits the file into ranges of at least the given size that end after a line break.
+   *
+   * @param channel the channel of the file
+   * @param chunkSize the size of the ranges
+   * @return the start of every range, followed by the size of the file
+   * @throws IOException the file could not be read
+   */
+  static long[] splitAtLineBreaks(FileChannel channel, long chunkSize) throws IOException {
+    long size = channel.size();
+    long[] bounds = new long[(int) Math.min(Integer.MAX_VALUE - 1, size / chunkSize + 2)];
+    int count = 0;
+    bounds[count++] = 0;
+    ByteBuffer window = ByteBuffer.allocate(SEARCH_WINDOW);
+    long position = chunkSize;
+    while (position < size) {
+      long lineEnd = -1;
+      while (lineEnd < 0 && position < size) {
+        window.clear();
+        int read = channel.read(window, position);
+        if (read <= 0) {
+          break;
+        }
+        for (int i = 0; i < read; i++) {
+          if (window.get(i) == '\n') {
+            lineEnd = position + i + 1;
+            break;
+          }
+        }
+        if (lineEnd < 0) {
+          position += read;
+        }
+      }
+      if (lineEnd < 0 || lineEnd >= size) {
+        break;
+      }
+      bounds[count++] = lineEnd;
+      position = lineEnd + chunkSize;
+    }
+    bounds[count++] = size;
+    long[] result = new long[count];
+    System.arraycopy(bounds, 0, result, 0, count);
+    return result;
+  }
+
+  /**
+   * Parses the ranges of the task, splitting them in two halves that are parsed in parallel while
+   * there is more than one range.
+   */
+  @Override
+  protected void compute() {
+    if (to - from == 1) {
+      try {
+        parts[from] = parseRange(bounds[from], bounds[to]);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    invokeAll(
+        new OrderChunkParser(channel, bounds, parts, from, middle),
+        new OrderChunkParser(channel, bounds, parts, middle, to));
+  }
+
+  /**
+   * Maps, decodes and parses a range of the file.
+   *
+   * @param start the start of the range
+   * @param end the end of the range (exclusive)
+   * @return the records of the range
+   * @throws IOException the range could not be read
+   */
+  private OrderBatch parseRange(long start, long end) throws IOException {
+    OrderBatch batch = new OrderBatch();
+    if (end > start) {
+      CharBuffer chars =
+          newDecoder().decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+      batch.parseRecords(
+          new CsvReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+    }
+    return batch;
+  }
+
+  /**
+   * Creates a UTF-8 decoder that replaces malformed bytes, the same way the stream reader of the
+   * other data files does.
+   *
+   * @return the decoder
+   */
+  private static CharsetDecoder newDecoder() {
+    return StandardCharsets.UTF_8
+        .newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+}
@@ -0,0 +1,281 @@
+package ERP_Core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The order list of the ERP system. The historical orders can be kept in a memory mapped {@link
+ * OrderSnapshot} instead of the heap: such an order is decoded into an Order view only when it is
+ * accessed, and the view is not kept after it has been used, so the heap usage does not grow with
+ * the number of historical orders. The orders created after the snapshot was attached are kept as
+ * objects until the next snapshot is written and attached.
+ *
+ * <p>The order fields that are needed for filtering, e.g. the customer id, can be read by index
+ * without decoding the whole order.
+ *
+ * <p>The history is appended to by the threads that confirm orders while other threads read it
+ * and compact the order journal, so its methods are synchronized on the history. The orders are
+ * only appended, so the order at an index never changes once it has been added.
+ *
+ * @version 1.0
+ */
+public class OrderHistory extends AbstractList<Order> {
+  /** The memory mapped historical orders, null if there is no snapshot attached. */
+  private OrderSnapshot snapshot;
+  /** The orders created or loaded after the snapshot. */
+  private final ArrayList<Order> recent = new ArrayList<Order>();
+
+  /** Creates an empty order history. */
+  public OrderHistory() {}
+
+  /**
+   * Creates an order history that contains the given orders.
+   *
+   * @param orders the orders
+   */
+  public OrderHistory(List<Order> orders) {
+    recent.addAll(orders);
+  }
+
+  /**
+   * Returns the order at the given index. An order of the snapshot is decoded into a new Order
+   * view on every call.
+   *
+   * @param index the index of the order
+   * @return the order
+   */
+  @Override
+  public synchronized Order get(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      if (index < 0) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      return decode(index);
+    }
+    return recent.get(index - snapshotSize);
+  }
+
+  /**
+   * Returns the number of orders.
+   *
+   * @return the number of orders
+   */
+  @Override
+  public synchronized int size() {
+    return getSnapshotSize() + recent.size();
+  }
+
+  /**
+   * Appends an order after the orders of the history.
+   *
+   * @param order the order
+   * @return always true
+   */
+  @Override
+  public synchronized boolean add(Order order) {
+    modCount++;
+    return recent.add(order);
+  }
+
+  /**
+   * Returns the number of orders that are kept in the memory mapped snapshot.
+   *
+   * @return the number of orders of the snapshot
+   */
+  public synchronized int getSnapshotSize() {
+    return snapshot == null ? 0 : snapshot.size();
+  }
+
+  /**
+   * Returns a view of the first orders of the history. Unlike {@link #subList(int, int)}, the view
+   * stays valid while orders are appended after it.
+   *
+   * @param count the number of orders of the view
+   * @return the first orders of the history
+   */
+  List<Order> head(final int count) {
+    return new AbstractList<Order>() {
+      @Override
+      public Order get(int index) {
+        if (index >= count) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return OrderHistory.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Replaces the first orders of the history with the orders of a snapshot. The snapshot must
+   * start with the orders of the history, and only the orders that it covers are dropped; the
+   * orders added after the snapshot was written are kept as objects.
+   *
+   * @param snapshot the snapshot
+   */
+  synchronized void attach(OrderSnapshot snapshot) {
+    modCount++;
+    int covered = Math.min(Math.max(snapshot.size() - getSnapshotSize(), 0), recent.size());
+    this.snapshot = snapshot;
+    recent.subList(0, covered).clear();
+    recent.trimToSize();
+  }
+
+  /**
+   * Returns the number of an order.
+   *
+   * @param index the index of the order
+   * @return the order number
+   */
+  public synchronized int getOrderNo(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getOrderNo(index);
+    }
+    return recent.get(index - snapshotSize).getOrderNo();
+  }
+
+  /**
+   * Returns the date of an order as epoch milliseconds of its local date and time.
+   *
+   * @param index the index of the order
+   * @return the date of the order
+   */
+  public synchronized long getDateMillis(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getDateMillis(index);
+    }
+    return recent.get(index - snapshotSize).getOrderTime();
+  }
+
+  /**
+   * Returns the total cost of an order.
+   *
+   * @param index the index of the order
+   * @return the total cost
+   */
+  public synchronized double getTotalCost(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getTotalCost(index);
+    }
+    return recent.get(index - snapshotSize).getTotalCost();
+  }
+
+  /**
+   * Returns the version of the prices an order was priced with.
+   *
+   * @param index the index of the order
+   * @return the price version, 0 if it is not known
+   */
+  public synchronized long getPriceVersion(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getPriceVersion(index);
+    }
+    return recent.get(index - snapshotSize).getPriceVersion();
+  }
+
+  /**
+   * Returns the id of the customer of an order, 0 for a guest or deleted customer.
+   *
+   * @param index the index of the order
+   * @return the customer id
+   */
+  public synchronized int getCustomerId(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getCustomerId(index);
+    }
+    Customer customer = recent.get(index - snapshotSize).getCustomer();
+    return customer instanceof RegisteredCustomer ? ((RegisteredCustomer) customer).getId() : 0;
+  }
+
+  /**
+   * Returns the id of the cashier of an order, 0 for a deleted cashier.
+   *
+   * @param index the index of the order
+   * @return the cashier id
+   */
+  public synchronized int getCashierId(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getCashierId(index);
+    }
+    Cashier cashier = recent.get(index - snapshotSize).getCashier();
+    return cashier != null ? cashier.getIdUser() : 0;
+  }
+
+  /**
+   * Returns the number of lines in the basket of an order.
+   *
+   * @param index the index of the order
+   * @return the number of basket lines
+   */
+  public synchronized int getBasketSize(int index) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getBasketSize(index);
+    }
+    return recent.get(index - snapshotSize).getBasket().size();
+  }
+
+  /**
+   * Returns the product id of a basket line of an order.
+   *
+   * @param index the index of the order
+   * @param line the index of the line in the basket
+   * @return the product id
+   */
+  public synchronized int getBasketProductId(int index, int line) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getBasketProductId(index, line);
+    }
+    return recent.get(index - snapshotSize).getBasket().getProductId(line);
+  }
+
+  /**
+   * Returns the quantity of a basket line of an order.
+   *
+   * @param index the index of the order
+   * @param line the index of the line in the basket
+   * @return the quantity
+   */
+  public synchronized int getBasketQuantity(int index, int line) {
+    int snapshotSize = getSnapshotSize();
+    if (index < snapshotSize) {
+      return snapshot.getBasketQuantity(index, line);
+    }
+    return recent.get(index - snapshotSize).getBasket().getQuantity(line);
+  }
+
+  /**
+   * Decodes an order of the snapshot into an Order view, linked to the loaded customer and cashier.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the order view
+   */
+  private Order decode(int index) {
+    int lines = snapshot.getBasketSize(index);
+    Basket basket = new Basket(lines);
+    for (int j = 0; j < lines; j++) {
+      basket.add(snapshot.getBasketProductId(index, j), snapshot.getBasketQuantity(index, j));
+    }
+    return Order.createView(
+        snapshot.getOrderNo(index),
+        snapshot.getDateMillis(index),
+        snapshot.getTotalCost(index),
+        snapshot.getCustomerId(index),
+        snapshot.getCashierId(index),
+        basket,
+        snapshot.getPriceVersion(index));
+  }
+}
@@ -0,0 +1,407 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import ERP_Core.OrderService.OrderRequest;
+import ERP_Core.OrderService.OrderResult;
+import ERP_Core.OrderService.Status;
+
+/**
+ * Makes customer orders in a pipeline of stages, so the steps of many orders overlap instead of
+ * running one order after the other on the thread of the cashier. The stages are the ones of
+ * {@link OrderService}: validation, pricing, reservation of the units, the order with the points
+ * of the customer, and storage of the orders.
+ *
+ * <p>Every stage has its own thread and a bounded queue of the requests waiting for it. A stage
+ * takes all the waiting requests up to the batch size at once, handles them and passes them on to
+ * the queue of the next stage; a request that failed is completed at the stage where it failed.
+ * When a queue is full, the stage before it waits, and when the queue of the first stage is full,
+ * {@link #submit(OrderRequest)} waits, so a slow stage slows down the submission instead of
+ * letting the queues grow. The reservation and the order stages have a single thread, so the
+ * units go to the requests in the order they were submitted.
+ *
+ * <p>Every stage counts the requests and batches it handled, the time the requests waited in its
+ * queue and the time it spent on them, see {@link Stage}. The capacity of the queues and the batch
+ * size are read from the "erp.pipeline.capacity" (default 1024) and "erp.pipeline.batchSize"
+ * (default 64) system properties.
+ *
+ * @version 1.0
+ */
+public class OrderPipeline {
+  /** The capacity of the queues of the stages. */
+  private static final int DEFAULT_CAPACITY = Integer.getInteger("erp.pipeline.capacity", 1024);
+  /** The largest number of requests a stage handles at once. */
+  private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("erp.pipeline.batchSize", 64);
+  /** The time a stage waits for a request before it checks whether the pipeline was closed. */
+  private static final long POLL_MILLIS = 50;
+
+  /** The stages, in the order the requests pass through them. */
+  private final Stage[] stages;
+  /** Whether the pipeline accepts new requests. */
+  private volatile boolean open = true;
+
+  /** A request on its way through the pipeline. */
+  private static class Job {
+    /** The result of the request. */
+    final OrderResult result;
+    /** The future that is completed with the result. */
+    final CompletableFuture<OrderResult> future = new CompletableFuture<OrderResult>();
+    /** The time the request was put into the queue of its current stage, in nanoseconds. */
+    long queued;
+
+    /**
+     * Creates the job of a request.
+     *
+     * @param request the request
+     */
+    Job(OrderRequest request) {
+      this.result = new OrderResult(request);
+    }
+  }
+
+  /** A stage of the pipeline, with its queue, its thread and its metrics. */
+  public static class Stage {
+    /** The name of the stage. */
+    private final String name;
+    /** The requests waiting for the stage. */
+    private final ArrayBlockingQueue<Job> queue;
+    /** The largest number of requests handled at once. */
+    private final int batchSize;
+    /** Handles a batch of requests. */
+    private final Consumer<List<Job>> work;
+    /** The next stage, null for the last one. */
+    private Stage next;
+    /** The thread of the stage. */
+    private Thread thread;
+    /** Whether the stage stops when its queue is empty. */
+    private volatile boolean stopping;
+    /** The number of requests handled. */
+    private final AtomicLong requests = new AtomicLong();
+    /** The number of batches handled. */
+    private final AtomicLong batches = new AtomicLong();
+    /** The total time the requests waited in the queue, in nanoseconds. */
+    private final AtomicLong queueNanos = new AtomicLong();
+    /** The total time spent on the batches, in nanoseconds. */
+    private final AtomicLong workNanos = new AtomicLong();
+
+    /**
+     * Creates a stage.
+     *
+     * @param name the name of the stage
+     * @param capacity the capacity of the queue
+     * @param batchSize the largest number of requests handled at once
+     * @param work handles a batch of requests
+     */
+    private Stage(String name, int capacity, int batchSize, Consumer<List<Job>> work) {
+      this.name = name;
+      this.queue = new ArrayBlockingQueue<Job>(capacity);
+      this.batchSize = batchSize;
+      this.work = work;
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the number of requests waiting in the queue of the stage.
+     *
+     * @return the number of waiting requests
+     */
+    public int getQueueSize() {
+      return queue.size();
+    }
+
+    /**
+     * Returns the number of requests the stage handled.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+      return requests.get();
+    }
+
+    /**
+     * Returns the number of batches the stage handled.
+     *
+     * @return the number of batches
+     */
+    public long getBatches() {
+      return batches.get();
+    }
+
+    /**
+     * Returns the average time a request waited in the queue of the stage.
+     *
+     * @return the average time in milliseconds, 0 if no request was handled
+     */
+    public double getAverageQueueMillis() {
+      long count = requests.get();
+      return count == 0 ? 0 : queueNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * Returns the average time the stage spent on a request.
+     *
+     * @return the average time in milliseconds, 0 if no request was handled
+     */
+    public double getAverageWorkMillis() {
+      long count = requests.get();
+      return count == 0 ? 0 : workNanos.get() / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-8s | Requests: %8d | Batches: %7d | Queued: %3d | Wait: %8.3f ms | Work: %8.3f ms",
+          name,
+          getRequests(),
+          getBatches(),
+          getQueueSize(),
+          getAverageQueueMillis(),
+          getAverageWorkMillis());
+    }
+
+    /**
+     * Puts a request into the queue of the stage, waiting while the queue is full.
+     *
+     * @param job the request
+     * @throws InterruptedException the thread was interrupted while waiting
+     */
+    private void put(Job job) throws InterruptedException {
+      job.queued = System.nanoTime();
+      queue.put(job);
+    }
+
+    /** Handles the batches of the queue until the stage is stopped and the queue is empty. */
+    private void run() {
+      ArrayList<Job> batch = new ArrayList<Job>(batchSize);
+      try {
+        for (; ; ) {
+          Job first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            if (stopping) {
+              return;
+            }
+            continue;
+          }
+          batch.add(first);
+          queue.drainTo(batch, batchSize - 1);
+          handle(batch);
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail(batch, e);
+        ArrayList<Job> left = new ArrayList<Job>();
+        queue.drainTo(left);
+        fail(left, e);
+      }
+    }
+
+    /**
+     * Handles a batch of requests and passes the ones that are not completed on to the next stage.
+     *
+     * @param batch the requests
+     * @throws InterruptedException the thread was interrupted while waiting for the next stage
+     */
+    private void handle(ArrayList<Job> batch) throws InterruptedException {
+      long start = System.nanoTime();
+      for (Job job : batch) {
+        queueNanos.addAndGet(start - job.queued);
+      }
+      requests.addAndGet(batch.size());
+      batches.incrementAndGet();
+      try {
+        work.accept(batch);
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+        fail(batch, e);
+        batch.clear();
+        return;
+      } finally {
+        workNanos.addAndGet(System.nanoTime() - start);
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        Job job = batch.get(i);
+        Status status = job.result.getStatus();
+        if (next == null || (status != null && status != Status.CONFIRMED)) {
+          job.future.complete(job.result);
+        } else {
+          next.put(job);
+        }
+        // the jobs that were passed on are not failed if the thread is interrupted later
+        batch.set(i, null);
+      }
+    }
+
+    /**
+     * Completes the requests of a batch that could not be handled with an exception.
+     *
+     * @param batch the requests, null for the ones that were already passed on
+     * @param cause the exception
+     */
+    private static void fail(List<Job> batch, Exception cause) {
+      for (Job job : batch) {
+        if (job != null) {
+          job.future.completeExceptionally(cause);
+        }
+      }
+    }
+  }
+
+  /** Creates and starts a pipeline with the default queue capacity and batch size. */
+  public OrderPipeline() {
+    this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates and starts a pipeline.
+   *
+   * @param capacity the capacity of the queues of the stages, at least 1
+   * @param batchSize the largest number of requests a stage handles at once, at least 1
+   * @throws IllegalArgumentException the capacity or the batch size is smaller than 1
+   */
+  public OrderPipeline(int capacity, int batchSize) throws IllegalArgumentException {
+    if (capacity < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("The capacity and the batch size must be at least 1");
+    }
+    stages =
+        new Stage[] {
+          new Stage("validate", capacity, batchSize, OrderPipeline::validate),
+          new Stage("price", capacity, batchSize, OrderPipeline::price),
+          new Stage("reserve", capacity, batchSize, OrderPipeline::reserve),
+          new Stage("order", capacity, batchSize, OrderPipeline::confirm),
+          new Stage("persist", capacity, batchSize, OrderPipeline::persist)
+        };
+    for (int i = 0; i < stages.length; i++) {
+      Stage stage = stages[i];
+      stage.next = i + 1 < stages.length ? stages[i + 1] : null;
+      stage.thread = new Thread(stage::run, "order-" + stage.name);
+      stage.thread.setDaemon(true);
+      stage.thread.start();
+    }
+  }
+
+  /**
+   * Submits an order request, waiting while the queue of the first stage is full.
+   *
+   * @param request the request
+   * @return the future that is completed with the result of the request
+   * @throws IllegalStateException the pipeline was closed
+   * @throws InterruptedException the thread was interrupted while waiting
+   */
+  public CompletableFuture<OrderResult> submit(OrderRequest request)
+      throws IllegalStateException, InterruptedException {
+    if (!open) {
+      throw new IllegalStateException("The order pipeline is closed");
+    }
+    Job job = new Job(request);
+    stages[0].put(job);
+    return job.future;
+  }
+
+  /**
+   * Returns the stages of the pipeline, with their metrics.
+   *
+   * @return the stages, in the order the requests pass through them
+   */
+  public List<Stage> getStages() {
+    ArrayList<Stage> list = new ArrayList<Stage>(stages.length);
+    for (Stage stage : stages) {
+      list.add(stage);
+    }
+    return list;
+  }
+
+  /**
+   * Stops accepting requests, waits until the submitted requests passed through all the stages
+   * and stops the threads of the stages.
+   *
+   * @throws InterruptedException the thread was interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    open = false;
+    for (Stage stage : stages) {
+      stage.stopping = true;
+      stage.thread.join();
+      // a request submitted at the moment the pipeline was closed may be left behind
+      ArrayList<Job> left = new ArrayList<Job>();
+      stage.queue.drainTo(left);
+      Stage.fail(left, new IllegalStateException("The order pipeline is closed"));
+    }
+  }
+
+  /**
+   * Validates a batch of requests against the customers and cashiers of the moment.
+   *
+   * @param batch the requests
+   */
+  private static void validate(List<Job> batch) {
+    Map<Integer, RegisteredCustomer> customers = RegisteredCustomer.getCustomersById();
+    Map<Integer, Cashier> cashiers = Cashier.getCashiersById();
+    for (Job job : batch) {
+      OrderService.validate(job.result, customers, cashiers);
+    }
+  }
+
+  /**
+   * Prices a batch of requests with the same prices.
+   *
+   * @param batch the requests
+   */
+  private static void price(List<Job> batch) {
+    PriceTable prices = Storage.getPriceTable();
+    for (Job job : batch) {
+      OrderService.price(job.result, prices);
+    }
+  }
+
+  /**
+   * Reserves the units of a batch of requests.
+   *
+   * @param batch the requests
+   */
+  private static void reserve(List<Job> batch) {
+    for (Job job : batch) {
+      OrderService.reserve(job.result);
+    }
+  }
+
+  /**
+   * Makes the orders of a batch of reserved requests, with the date of the batch.
+   *
+   * @param batch the requests
+   */
+  private static void confirm(List<Job> batch) {
+    long orderTime = DateStamp.now();
+    for (Job job : batch) {
+      OrderService.confirm(job.result, orderTime);
+    }
+  }
+
+  /**
+   * Stores the orders of a batch together.
+   *
+   * @param batch the requests
+   */
+  private static void persist(List<Job> batch) {
+    ArrayList<Order> orders = new ArrayList<Order>(batch.size());
+    for (Job job : batch) {
+      orders.add(job.result.getOrder());
+    }
+    OrderService.persist(orders);
+  }
+}
@@ -0,0 +1,323 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Makes customer orders without the menus, e.g. for the orders sent by the point of sale
+ * terminals. The orders are submitted in batches of requests, and every request gets a result
+ * that tells whether its order was made; nothing is printed and nothing is read from the console.
+ *
+ * <p>The orders are made the way {@link Order#confirmOrder(Cashier, Customer, List)} makes
+ * them, but a batch is handled in passes: all the requests are validated and priced first, with
+ * the customers and cashiers looked up in the maps that are kept by their id, then the baskets are
+ * reserved in the order of the requests, so an earlier request gets the units before a later one,
+ * and finally the reserved baskets are committed, the orders are created with the points of their
+ * customers and the orders of the whole batch are stored together, with one sync of the storage.
+ * All the orders of a batch have the same date.
+ *
+ * <p>The lock of the OrderService class guards the points of the customers: it is held only while
+ * the points of a customer are read, given and redeemed by {@link Order#redeemPoints}, which the
+ * orders made from the menus take as well. The validation, the pricing, the reservation of the
+ * units, which may wait for the reservations of other baskets, and the storage of the orders,
+ * which syncs the disk, need no lock of the service, so the batches of other threads and the
+ * cashiers' orders go on meanwhile.
+ *
+ * @version 1.0
+ */
+public class OrderService {
+  /** The outcome of an order request. */
+  public enum Status {
+    /** The order was made. */
+    CONFIRMED,
+    /** There is no registered customer with the id of the request. */
+    UNKNOWN_CUSTOMER,
+    /** There is no cashier with the id of the request. */
+    UNKNOWN_CASHIER,
+    /** The basket is empty. */
+    EMPTY_BASKET,
+    /** A product of the basket does not exist. */
+    UNKNOWN_PRODUCT,
+    /** A quantity of the basket is not larger than 0. */
+    INVALID_QUANTITY,
+    /** A line of the basket is not a product id - quantity pair. */
+    INVALID_LINE,
+    /** There are not enough units available for the basket. */
+    NOT_ENOUGH_UNITS
+  }
+
+  /** A request for an order: the customer, the cashier and the basket. */
+  public static class OrderRequest {
+    /** The id of the registered customer, 0 for a guest. */
+    private final int customerId;
+    /** The id of the cashier. */
+    private final int cashierId;
+    /** The product id - quantity lines of the basket. */
+    private final List<int[]> basket;
+
+    /**
+     * Creates an order request.
+     *
+     * @param customerId the id of the registered customer, 0 for a guest
+     * @param cashierId the id of the cashier
+     * @param basket the product id - quantity lines of the basket
+     */
+    public OrderRequest(int customerId, int cashierId, List<int[]> basket) {
+      this.customerId = customerId;
+      this.cashierId = cashierId;
+      this.basket = basket;
+    }
+
+    /**
+     * Returns the id of the customer.
+     *
+     * @return the id of the registered customer, 0 for a guest
+     */
+    public int getCustomerId() {
+      return customerId;
+    }
+
+    /**
+     * Returns the id of the cashier.
+     *
+     * @return the id of the cashier
+     */
+    public int getCashierId() {
+      return cashierId;
+    }
+
+    /**
+     * Returns the basket.
+     *
+     * @return the product id - quantity lines of the basket
+     */
+    public List<int[]> getBasket() {
+      return basket;
+    }
+  }
+
+  /** The result of an order request. */
+  public static class OrderResult {
+    /** The request. */
+    final OrderRequest request;
+    /** The outcome of the request, null while the request is handled. */
+    Status status;
+    /** The order that was made, null if the request failed. */
+    Order order;
+    /** The customer of the request, null for a guest. */
+    RegisteredCustomer customer;
+    /** The cashier of the request. */
+    Cashier cashier;
+    /** A copy of the basket of the request. */
+    Basket basket;
+    /** The total cost of the basket, before any discount. */
+    double totalCost;
+    /** The version of the prices the basket was priced with. */
+    long priceVersion;
+
+    /**
+     * Creates the result of a request, before the request is handled.
+     *
+     * @param request the request
+     */
+    OrderResult(OrderRequest request) {
+      this.request = request;
+    }
+
+    /**
+     * Returns the request.
+     *
+     * @return the request
+     */
+    public OrderRequest getRequest() {
+      return request;
+    }
+
+    /**
+     * Returns the outcome of the request.
+     *
+     * @return the outcome
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * Checks whether the order was made.
+     *
+     * @return true if the order was made, else false
+     */
+    public boolean isConfirmed() {
+      return status == Status.CONFIRMED;
+    }
+
+    /**
+     * Returns the order that was made.
+     *
+     * @return the order, null if the request failed
+     */
+    public Order getOrder() {
+      return order;
+    }
+  }
+
+  /**
+   * Makes the orders of a batch of requests.
+   *
+   * @param requests the requests
+   * @return the results, in the order of the requests
+   */
+  public static List<OrderResult> submit(List<OrderRequest> requests) {
+    ArrayList<OrderResult> results = new ArrayList<OrderResult>(requests.size());
+    Map<Integer, RegisteredCustomer> customers = RegisteredCustomer.getCustomersById();
+    Map<Integer, Cashier> cashiers = Cashier.getCashiersById();
+    PriceTable prices = Storage.getPriceTable();
+    for (OrderRequest request : requests) {
+      OrderResult result = new OrderResult(request);
+      validate(result, customers, cashiers);
+      price(result, prices);
+      results.add(result);
+    }
+    for (OrderResult result : results) {
+      reserve(result);
+    }
+    long orderTime = DateStamp.now();
+    ArrayList<Order> confirmed = new ArrayList<Order>();
+    for (OrderResult result : results) {
+      if (confirm(result, orderTime)) {
+        confirmed.add(result.order);
+      }
+    }
+    persist(confirmed);
+    return results;
+  }
+
+  /**
+   * Looks up the customer, the cashier and the products of a request and copies its basket. The
+   * status of a request that is not valid is set to the reason it failed; a malformed basket line
+   * fails only the request it belongs to.
+   *
+   * @param result the result of the request
+   * @param customers the registered customers, by their id
+   * @param cashiers the cashiers, by their id
+   */
+  static void validate(
+      OrderResult result,
+      Map<Integer, RegisteredCustomer> customers,
+      Map<Integer, Cashier> cashiers) {
+    OrderRequest request = result.request;
+    if (request.customerId != 0) {
+      result.customer = customers.get(request.customerId);
+      if (result.customer == null) {
+        result.status = Status.UNKNOWN_CUSTOMER;
+        return;
+      }
+    }
+    result.cashier = cashiers.get(request.cashierId);
+    if (result.cashier == null) {
+      result.status = Status.UNKNOWN_CASHIER;
+      return;
+    }
+    if (request.basket == null || request.basket.isEmpty()) {
+      result.status = Status.EMPTY_BASKET;
+      return;
+    }
+    result.basket = new Basket(request.basket.size());
+    for (int[] line : request.basket) {
+      if (line == null || line.length < 2) {
+        result.status = Status.INVALID_LINE;
+        return;
+      }
+      if (Storage.searchById(line[0]) == null
+          || !Storage.getProductQuantities().contains(line[0])) {
+        result.status = Status.UNKNOWN_PRODUCT;
+        return;
+      }
+      if (line[1] <= 0) {
+        result.status = Status.INVALID_QUANTITY;
+        return;
+      }
+      result.basket.add(line[0], line[1]);
+    }
+  }
+
+  /**
+   * Calculates the total cost of the basket of a valid request.
+   *
+   * @param result the result of the request
+   * @param prices the prices of the products
+   */
+  static void price(OrderResult result, PriceTable prices) {
+    if (result.status != null) {
+      return;
+    }
+    try {
+      result.totalCost = prices.getBasketCost(result.basket);
+      result.priceVersion = prices.getVersion();
+    } catch (NoSuchElementException e) {
+      // the product was deleted after the request was validated
+      result.status = Status.UNKNOWN_PRODUCT;
+    }
+  }
+
+  /**
+   * Reserves the units of the basket of a priced request.
+   *
+   * @param result the result of the request
+   */
+  static void reserve(OrderResult result) {
+    if (result.status != null) {
+      return;
+    }
+    try {
+      if (!Storage.reserveBasket(result.basket)) {
+        result.status = Status.NOT_ENOUGH_UNITS;
+      }
+    } catch (NoSuchElementException e) {
+      result.status = Status.UNKNOWN_PRODUCT;
+    }
+  }
+
+  /**
+   * Removes the reserved units of a request from the storage and makes its order, with the points
+   * of its customer.
+   *
+   * @param result the result of the reserved request
+   * @param orderTime the date of the order, see {@link DateStamp}
+   * @return true if the order was made, false if the request failed before
+   */
+  static boolean confirm(OrderResult result, long orderTime) {
+    if (result.status != null) {
+      return false;
+    }
+    Storage.commitBasket(result.basket);
+    Order order =
+        Order.createPriced(
+            orderTime,
+            result.customer,
+            result.cashier,
+            result.basket,
+            result.totalCost,
+            result.priceVersion);
+    if (result.customer != null && order.redeemPoints(result.customer)) {
+      order.setTotalCost(0.9 * order.getTotalCost());
+    }
+    ReorderEngine.recordSale(result.basket);
+    result.order = order;
+    result.status = Status.CONFIRMED;
+    return true;
+  }
+
+  /**
+   * Stores the orders of a batch together.
+   *
+   * @param orders the confirmed orders
+   */
+  static void persist(List<Order> orders) {
+    if (!orders.isEmpty()) {
+      Main.getRepository().appendOrders(orders);
+    }
+  }
+}
@@ -0,0 +1,392 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * A binary, column oriented snapshot of the order list. The snapshot is an alternative to
+ * Orders.csv that is much faster to load, as no text has to be parsed: the file is memory mapped
+ * and the values are read directly out of fixed width columns.
+ *
+ * <p>The file starts with a header of four ints (magic number, format version, number of orders
+ * and number of basket lines), followed by the columns of the orders: the dates as epoch
+ * milliseconds (long), the total costs (double), the price versions (long), the order numbers, the
+ * customer ids and the cashier ids (int). The baskets are stored in a column of n + 1 int
+ * offsets, where the basket of the order i consists of the lines offset[i] to offset[i + 1],
+ * followed by the basket lines as product id - quantity int pairs.
+ *
+ * <p>The snapshot is also the storage of the {@link OrderHistory}: the orders are read directly
+ * out of the mapped file when they are accessed, so the file is never rewritten in place while it
+ * may be mapped. A new snapshot is written to a temporary file that replaces the old one. The file
+ * is mapped as a single buffer with int positions, so a snapshot holds at most 2 GB: a larger
+ * order list is not written as a snapshot and is loaded from Orders.csv.
+ *
+ * @version 1.0
+ */
+public class OrderSnapshot {
+  /** The magic number at the start of every snapshot file ("ERPO"). */
+  private static final int MAGIC = 0x4552504F;
+  /** The version of the file format. */
+  private static final int VERSION = 2;
+  /** The size of the header in bytes. */
+  private static final int HEADER_SIZE = 16;
+  /** The size of the buffer used for writing the snapshot. */
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+  /** The largest size of a snapshot file in bytes, the capacity of a single mapped buffer. */
+  private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+  /** The memory mapped contents of the snapshot file. */
+  private final ByteBuffer buffer;
+  /** The number of orders in the snapshot. */
+  private final int size;
+  /** The number of basket lines in the snapshot. */
+  private final int lines;
+  /** The position of the date column. */
+  private final int datePosition;
+  /** The position of the total cost column. */
+  private final int costPosition;
+  /** The position of the price version column. */
+  private final int priceVersionPosition;
+  /** The position of the order number column. */
+  private final int orderNoPosition;
+  /** The position of the customer id column. */
+  private final int customerPosition;
+  /** The position of the cashier id column. */
+  private final int cashierPosition;
+  /** The position of the basket offset column. */
+  private final int offsetPosition;
+  /** The position of the basket lines. */
+  private final int basketPosition;
+
+  /**
+   * Creates a snapshot view over the contents of a snapshot file.
+   *
+   * @param buffer the contents of the file
+   * @throws IOException the contents are not a valid snapshot
+   */
+  private OrderSnapshot(ByteBuffer buffer) throws IOException {
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not an order snapshot file");
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported order snapshot version " + buffer.getInt(4));
+    }
+    this.buffer = buffer;
+    this.size = buffer.getInt(8);
+    this.lines = buffer.getInt(12);
+    if (size < 0 || lines < 0 || getFileSize(size, lines) != buffer.capacity()) {
+      throw new IOException("The order snapshot file is incomplete");
+    }
+    datePosition = HEADER_SIZE;
+    costPosition = datePosition + 8 * size;
+    priceVersionPosition = costPosition + 8 * size;
+    orderNoPosition = priceVersionPosition + 8 * size;
+    customerPosition = orderNoPosition + 4 * size;
+    cashierPosition = customerPosition + 4 * size;
+    offsetPosition = cashierPosition + 4 * size;
+    basketPosition = offsetPosition + 4 * (size + 1);
+  }
+
+  /**
+   * Memory maps a snapshot file.
+   *
+   * @param file the snapshot file
+   * @return the snapshot view of the file
+   * @throws IOException the file could not be mapped, is larger than 2 GB or is not a valid
+   *     snapshot
+   */
+  public static OrderSnapshot open(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      if (channel.size() > MAX_FILE_SIZE) {
+        throw new IOException("The order snapshot file is larger than 2 GB");
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new OrderSnapshot(mapped);
+    }
+  }
+
+  /**
+   * Writes the given orders to a snapshot file. The orders are written to a temporary file first,
+   * which then replaces the snapshot file, so a snapshot that is currently mapped is not modified.
+   *
+   * @param orders the orders to write
+   * @param file the snapshot file
+   * @throws IOException the file could not be written, or the snapshot would be larger than 2 GB
+   */
+  public static void write(List<Order> orders, File file) throws IOException {
+    // the columns are read by index, so the orders of a mapped history are not decoded
+    OrderHistory history =
+        orders instanceof OrderHistory ? (OrderHistory) orders : new OrderHistory(orders);
+    write(history, history.size(), file);
+  }
+
+  /**
+   * Writes the first orders of an order history to a snapshot file, see {@link #write(List,
+   * File)}. The orders added to the history after them are not written.
+   *
+   * @param history the order history
+   * @param size the number of orders to write
+   * @param file the snapshot file
+   * @throws IOException the file could not be written, or the snapshot would be larger than 2 GB
+   */
+  static void write(OrderHistory history, int size, File file) throws IOException {
+    long totalLines = 0;
+    for (int i = 0; i < size; i++) {
+      totalLines += history.getBasketSize(i);
+    }
+    if (getFileSize(size, totalLines) > MAX_FILE_SIZE) {
+      throw new IOException("The orders are too many for an order snapshot file of 2 GB");
+    }
+    int lines = (int) totalLines;
+    File temp = new File(file.getPath() + AtomicFileWriter.TEMP_EXTENSION);
+    try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        FileChannel channel = raf.getChannel()) {
+      channel.truncate(0);
+      ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+      out.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(lines);
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 8);
+        out.putLong(history.getDateMillis(i));
+      }
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 8);
+        out.putDouble(history.getTotalCost(i));
+      }
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 8);
+        out.putLong(history.getPriceVersion(i));
+      }
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 4);
+        out.putInt(history.getOrderNo(i));
+      }
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 4);
+        // the unregistered customers are saved with the id value of 0
+        out.putInt(history.getCustomerId(i));
+      }
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 4);
+        out.putInt(history.getCashierId(i));
+      }
+      int offset = 0;
+      for (int i = 0; i < size; i++) {
+        ensureRemaining(channel, out, 4);
+        out.putInt(offset);
+        offset += history.getBasketSize(i);
+      }
+      ensureRemaining(channel, out, 4);
+      out.putInt(offset);
+      for (int i = 0; i < size; i++) {
+        int basketSize = history.getBasketSize(i);
+        for (int j = 0; j < basketSize; j++) {
+          ensureRemaining(channel, out, 8);
+          out.putInt(history.getBasketProductId(i, j)).putInt(history.getBasketQuantity(i, j));
+        }
+      }
+      flush(channel, out);
+      channel.force(false);
+    }
+    AtomicFileWriter.replace(temp, file);
+  }
+
+  /**
+   * Returns the size of a snapshot file.
+   *
+   * @param size the number of orders
+   * @param lines the number of basket lines
+   * @return the size of the file in bytes
+   */
+  private static long getFileSize(int size, long lines) {
+    return HEADER_SIZE + 40L * size + 4 + 8 * lines;
+  }
+
+  /**
+   * Returns the number of orders in the snapshot.
+   *
+   * @return the number of orders
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of basket lines of all the orders in the snapshot.
+   *
+   * @return the number of basket lines
+   */
+  public int getLines() {
+    return lines;
+  }
+
+  /**
+   * Returns the number of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the order number
+   */
+  public int getOrderNo(int index) {
+    return buffer.getInt(orderNoPosition + 4 * index);
+  }
+
+  /**
+   * Returns the date of an order as epoch milliseconds of its local date and time.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the date of the order
+   */
+  public long getDateMillis(int index) {
+    return buffer.getLong(datePosition + 8 * index);
+  }
+
+  /**
+   * Returns the total cost of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the total cost
+   */
+  public double getTotalCost(int index) {
+    return buffer.getDouble(costPosition + 8 * index);
+  }
+
+  /**
+   * Returns the version of the prices an order was priced with.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the price version, 0 if it is not known
+   */
+  public long getPriceVersion(int index) {
+    return buffer.getLong(priceVersionPosition + 8 * index);
+  }
+
+  /**
+   * Returns the id of the customer of an order, 0 for a guest customer.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the customer id
+   */
+  public int getCustomerId(int index) {
+    return buffer.getInt(customerPosition + 4 * index);
+  }
+
+  /**
+   * Returns the id of the cashier of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the cashier id
+   */
+  public int getCashierId(int index) {
+    return buffer.getInt(cashierPosition + 4 * index);
+  }
+
+  /**
+   * Returns the number of lines in the basket of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @return the number of basket lines
+   */
+  public int getBasketSize(int index) {
+    return buffer.getInt(offsetPosition + 4 * (index + 1))
+        - buffer.getInt(offsetPosition + 4 * index);
+  }
+
+  /**
+   * Returns the product id of a basket line of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @param line the index of the line in the basket
+   * @return the product id
+   */
+  public int getBasketProductId(int index, int line) {
+    return buffer.getInt(basketPosition + 8 * (buffer.getInt(offsetPosition + 4 * index) + line));
+  }
+
+  /**
+   * Returns the quantity of a basket line of an order.
+   *
+   * @param index the index of the order in the snapshot
+   * @param line the index of the line in the basket
+   * @return the quantity
+   */
+  public int getBasketQuantity(int index, int line) {
+    return buffer.getInt(
+        basketPosition + 8 * (buffer.getInt(offsetPosition + 4 * index) + line) + 4);
+  }
+
+  /**
+   * Returns the product id of a basket line, counting the lines of all the orders.
+   *
+   * @param line the index of the line in the snapshot
+   * @return the product id
+   */
+  public int getLineProductId(int line) {
+    return buffer.getInt(basketPosition + 8 * line);
+  }
+
+  /**
+   * Returns the quantity of a basket line, counting the lines of all the orders.
+   *
+   * @param line the index of the line in the snapshot
+   * @return the quantity
+   */
+  public int getLineQuantity(int line) {
+    return buffer.getInt(basketPosition + 8 * line + 4);
+  }
+
+  /**
+   * Finds the order a basket line belongs to, with a binary search over the basket offsets.
+   *
+   * @param line the index of the line in the snapshot
+   * @return the index of the order
+   */
+  public int findOrderOfLine(int line) {
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      // the last order whose basket starts at or before the line, skipping empty baskets
+      int middle = (low + high + 1) >>> 1;
+      if (buffer.getInt(offsetPosition + 4 * middle) <= line) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Writes the buffer to the channel if it does not have the given number of bytes left.
+   *
+   * @param channel the channel of the snapshot file
+   * @param out the write buffer
+   * @param bytes the number of bytes needed
+   * @throws IOException the buffer could not be written
+   */
+  private static void ensureRemaining(FileChannel channel, ByteBuffer out, int bytes)
+      throws IOException {
+    if (out.remaining() < bytes) {
+      flush(channel, out);
+    }
+  }
+
+  /**
+   * Writes the contents of the buffer to the channel and clears it.
+   *
+   * @param channel the channel of the snapshot file
+   * @param out the write buffer
+   * @throws IOException the buffer could not be written
+   */
+  private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      channel.write(out);
+    }
+    out.clear();
+  }
+}
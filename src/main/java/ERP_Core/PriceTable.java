@@ -0,0 +1,217 @@
+package ERP_Core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable table of the sale prices of the products, by the product id. A table is never
+ * changed after it is created: a price change creates a new table with a new version, which the
+ * {@link Storage} publishes in place of the old one. So pricing a basket is a few array reads on
+ * the table of the moment, without any lock, all the lines of a basket are priced with the same
+ * prices, and an order can record the version of the prices it was made with.
+ *
+ * <p>The ids and the prices are kept in an int and a double array, in the order of the product
+ * list, and a product is found with an open-addressing table of the positions of the products,
+ * like the one of {@link IntIntMap}. A table with a changed price shares the ids and the hash
+ * table of the table it was made from and copies only the prices.
+ *
+ * @version 1.0
+ */
+public final class PriceTable {
+  /** The version of the prices. */
+  private final long version;
+  /** The product ids, in the order of the product list. */
+  private final int[] ids;
+  /** The sale prices of the products. */
+  private final double[] prices;
+  /** The hash table: the position of a product plus one, 0 for an empty slot. */
+  private final int[] table;
+  /** The number of products of the product list the table was made from. */
+  private final int listSize;
+
+  /**
+   * Creates the price table of a product list. If the list contains a product id more than once,
+   * the first product with the id is priced, the same one {@link Storage#searchById(int)} finds.
+   *
+   * @param version the version of the prices
+   * @param products the product list
+   */
+  PriceTable(long version, List<Product> products) {
+    this.version = version;
+    this.listSize = products.size();
+    int[] ids = new int[products.size()];
+    double[] prices = new double[products.size()];
+    int[] table = new int[tableLength(products.size())];
+    int size = 0;
+    for (Product product : products) {
+      int slot = slotOf(table, ids, product.getProductId());
+      if (table[slot] == 0) {
+        ids[size] = product.getProductId();
+        prices[size] = product.getSalePrice();
+        table[slot] = ++size;
+      }
+    }
+    this.ids = Arrays.copyOf(ids, size);
+    this.prices = Arrays.copyOf(prices, size);
+    this.table = table;
+  }
+
+  /**
+   * Creates a copy of a price table with new prices.
+   *
+   * @param base the table to copy
+   * @param version the version of the new prices
+   * @param prices the new prices, in the order of the ids of the base table
+   */
+  private PriceTable(PriceTable base, long version, double[] prices) {
+    this.version = version;
+    this.listSize = base.listSize;
+    this.ids = base.ids;
+    this.prices = prices;
+    this.table = base.table;
+  }
+
+  /**
+   * Returns the version of the prices.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the number of products in the table.
+   *
+   * @return the number of products
+   */
+  public int size() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the number of products of the product list the table was made from, including the
+   * products whose id was used twice.
+   *
+   * @return the size of the product list
+   */
+  int getListSize() {
+    return listSize;
+  }
+
+  /**
+   * Checks if the table contains a product.
+   *
+   * @param id the id of the product
+   * @return true if the product has a price, else false
+   */
+  public boolean contains(int id) {
+    return indexOf(id) >= 0;
+  }
+
+  /**
+   * Returns the sale price of a product.
+   *
+   * @param id the id of the product
+   * @return the price
+   * @throws NoSuchElementException the product does not exist
+   */
+  public double getPrice(int id) throws NoSuchElementException {
+    int index = indexOf(id);
+    if (index < 0) {
+      throw new NoSuchElementException("Product with such id does not exist");
+    }
+    return prices[index];
+  }
+
+  /**
+   * Calculates the cost of a product and quantity combination.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity
+   * @return the cost
+   * @throws NoSuchElementException the product does not exist
+   */
+  public double getCost(int id, int quantity) throws NoSuchElementException {
+    return getPrice(id) * quantity;
+  }
+
+  /**
+   * Calculates the total cost of a basket.
+   *
+   * @param basket the product id - quantity lines of the basket
+   * @return the total cost
+   * @throws NoSuchElementException a product of the basket does not exist
+   */
+  public double getBasketCost(List<int[]> basket) throws NoSuchElementException {
+    double totalCost = 0;
+    for (int[] line : basket) {
+      totalCost += getPrice(line[0]) * line[1];
+    }
+    return totalCost;
+  }
+
+  /**
+   * Returns a copy of the table with a changed price.
+   *
+   * @param id the id of the product
+   * @param price the new price
+   * @param version the version of the new prices
+   * @return the new table
+   * @throws NoSuchElementException the product does not exist
+   */
+  PriceTable withPrice(int id, double price, long version) throws NoSuchElementException {
+    int index = indexOf(id);
+    if (index < 0) {
+      throw new NoSuchElementException("Product with such id does not exist");
+    }
+    double[] changed = prices.clone();
+    changed[index] = price;
+    return new PriceTable(this, version, changed);
+  }
+
+  /**
+   * Returns the position of a product.
+   *
+   * @param id the id of the product
+   * @return the position of the product, -1 if the product does not exist
+   */
+  private int indexOf(int id) {
+    int entry = table[slotOf(table, ids, id)];
+    return entry - 1;
+  }
+
+  /**
+   * Returns the slot of a hash table that holds the position of a product, or the empty slot
+   * where it would be put.
+   *
+   * @param table the hash table
+   * @param ids the product ids of the positions
+   * @param id the id of the product
+   * @return the slot
+   */
+  private static int slotOf(int[] table, int[] ids, int id) {
+    int mask = table.length - 1;
+    int slot = IntIntMap.hash(id) & mask;
+    while (table[slot] != 0 && ids[table[slot] - 1] != id) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the length of a hash table for the given number of products, a power of 2 that keeps
+   * the table at most half full.
+   *
+   * @param products the number of products
+   * @return the length of the table
+   */
+  private static int tableLength(int products) {
+    int length = 4;
+    while (length < products * 2) {
+      length <<= 1;
+    }
+    return length;
+  }
+}
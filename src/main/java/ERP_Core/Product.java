@@ -1,5 +1,6 @@
 package ERP_Core;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -10,8 +11,6 @@ import java.util.ArrayList;
  */
 public class Product {
 
-  /** idCounter counts the number of objects created. */
-  private static int idCounter = FileHandler.getProductCounterFromFile();
   /** productId product's id. */
   private final int productId;
   /** name product's name. */
@@ -33,7 +32,7 @@ public class Product {
    * @param salePrice product's price
    */
   public Product(String name, String category, String description, double salePrice) {
-    this.productId = ++idCounter;
+    this.productId = IdAllocator.PRODUCTS.next();
     this.name = name;
     this.category = category;
     this.description = description;
@@ -76,6 +75,7 @@ public class Product {
    */
   public void setSalePrice(double salePrice) {
     this.salePrice = salePrice;
+    Storage.productChanges.markChanged();
   }
   
   /**
@@ -120,7 +120,7 @@ public class Product {
    * @return idCounter the number of objects created
    */
   public static int getIdCounter() {
-    return idCounter;
+    return IdAllocator.PRODUCTS.getCounter();
   }
   
   public ArrayList<ProductSale> getSales() {
@@ -185,4 +185,26 @@ public class Product {
       new Product(name, category, description, salePrice, id);
     }
   }
+
+  /**
+   * Creates the products by streaming the records of a products .csv file.
+   *
+   * @param reader the reader of the products file
+   * @throws IOException the file could not be read
+   */
+  public static void createProductsFromCsv(CsvReader reader) throws IOException {
+    int id;
+    String name;
+    String category;
+    String description;
+    double salePrice;
+    while (reader.nextRecord()) {
+      id = reader.nextInt();
+      name = reader.nextString();
+      category = reader.nextString();
+      description = reader.nextString();
+      salePrice = reader.nextDouble();
+      new Product(name, category, description, salePrice, id);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package ERP_Core;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class represents a sale of a product. The class is responsible for converting an order into
@@ -12,14 +13,20 @@ import java.util.ArrayList;
 public class ProductSale {
   /** The id of the product sold. */
   private int productId;
-  /** Date and time the sale was made. */
-  private String date;
+  /** Date and time the sale was made, as epoch milliseconds of the local date and time. */
+  private long time;
+  /** The year of the sale. */
+  private short year;
+  /** The month of the sale, from 1 to 12. */
+  private byte month;
+  /** The day of the month of the sale. */
+  private byte day;
   /** Quantity of sold pieces of certain product. */
   private int quantity;
   /** Selling price per unit. */
   private double price;
-  /** ArrayList of all ProductSale objects created. */
-  private static ArrayList<ProductSale> allSales = new ArrayList<>();
+  /** List of all product sales, see {@link SalesHistory}. */
+  private static SalesHistory allSales = new SalesHistory();
 
   /**
    * Constructor for creating a new ProductSale.
@@ -27,11 +34,26 @@ public class ProductSale {
    * @param productId the id of the product sold
    * @param quantity the sold quantity of the product
    * @param price the price of the product
-   * @param date the date of the sale
+   * @param date the date of the sale, e.g. "09-01-2020 09:09:22"
    */
   public ProductSale(int productId, int quantity, double price, String date) {
+    this(productId, quantity, price, DateStamp.parse(date));
+  }
+
+  /**
+   * Constructor for creating a new ProductSale.
+   *
+   * @param productId the id of the product sold
+   * @param quantity the sold quantity of the product
+   * @param price the price of the product
+   * @param time the date of the sale, see {@link DateStamp}
+   */
+  ProductSale(int productId, int quantity, double price, long time) {
     this.productId = productId;
-    this.date = date;
+    this.time = time;
+    this.year = (short) DateStamp.getYear(time);
+    this.month = (byte) DateStamp.getMonth(time);
+    this.day = (byte) DateStamp.getDay(time);
     this.quantity = quantity;
     this.price = price;
   }
@@ -46,12 +68,21 @@ public class ProductSale {
   }
 
   /**
-   * Returns the date of the sale.
+   * Returns the date of the sale, formatted as "dd-MM-yyyy HH:mm:ss".
    *
    * @return date of sale, type String
    */
   public String getDate() {
-    return date;
+    return DateStamp.format(time);
+  }
+
+  /**
+   * Returns the date of the sale as epoch milliseconds of its local date and time.
+   *
+   * @return the date of the sale, see {@link DateStamp}
+   */
+  public long getTime() {
+    return time;
   }
 
   /**
@@ -73,23 +104,30 @@ public class ProductSale {
   }
 
   /**
-   * Returns the ArrayList that contains all the sales created.
+   * Returns the list that contains all the sales created.
    *
-   * @return an ArrayList of all sales, type ProductSale
+   * @return a list of all sales, type ProductSale
    */
-  public static ArrayList<ProductSale> getAllSales() {
+  public static List<ProductSale> getAllSales() {
     return allSales;
   }
 
+  /**
+   * Replaces the sales with the basket lines of a memory mapped snapshot of all the orders.
+   *
+   * @param snapshot the snapshot of all the orders
+   */
+  static void attachHistory(OrderSnapshot snapshot) {
+    allSales.attach(snapshot);
+  }
+
   /**
    * Returns the Day (number) of the date of the sale.
    *
    * @return the day of the sale, type integer
    */
   public int getDay() {
-    String date = getDate();
-    String[] cutDate = date.split("-");
-    return Integer.parseInt(cutDate[0]);
+    return day;
   }
 
   /**
@@ -98,13 +136,10 @@ public class ProductSale {
    * @return the month of the sale, type integer
    */
   public int getMonth() {
-    String date = getDate();
-    String[] cutDate = date.split("-");
-    int intDate = Integer.parseInt(cutDate[1]);
-    if (intDate == 12) {
+    if (month == 12) {
       return 0;
     } else {
-      return intDate;
+      return month;
     }
   }
 
@@ -114,9 +149,7 @@ public class ProductSale {
    * @return the year of the sale, type integer
    */
   public int getYear() {
-    String date = getDate();
-    String[] cutDate = date.split("-");
-    return Integer.parseInt(cutDate[2].substring(0, 4));
+    return year;
   }
 
   /**
@@ -127,14 +160,14 @@ public class ProductSale {
    */
   public static void orderToSale(Order order) {
     try {
-      String date = order.getOrderDate();
-      ArrayList<int[]> basket = order.getBasket();
-      int[] prodSale = new int[2];
+      long time = order.getOrderTime();
+      Basket basket = order.getBasket();
       for (int i = 0; i < basket.size(); i++) {
-        prodSale = basket.get(i);
-        Product product = Storage.searchById(prodSale[0]);
+        Product product = Storage.searchById(basket.getProductId(i));
         assert product != null;
-        ProductSale sale = new ProductSale(prodSale[0], prodSale[1], product.getSalePrice(), date);
+        ProductSale sale =
+            new ProductSale(
+                basket.getProductId(i), basket.getQuantity(i), product.getSalePrice(), time);
         product.getSales().add(sale);
         allSales.add(sale);
       }
@@ -0,0 +1,276 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An inverted index of the words of the names, categories and descriptions of the products, so a
+ * search finds the products that contain the words of a query without looking at every product.
+ *
+ * <p>The text is split into words at every character that is not a letter or a digit, and the
+ * words are folded to lower case. Every word points to the products that contain it, with a weight
+ * for the fields it is found in: 3 for the name, 2 for the category and 1 for the description.
+ * The words are kept sorted, so the words that start with a query word are a range of the index,
+ * and every sequence of three characters of a word points to the words that contain it, so the
+ * words that contain a query word elsewhere are found from the shortest of those lists.
+ *
+ * <p>A product matches a query if it matches every word of the query. It scores the weight of a
+ * word it contains for every query word that is that word, 60% of it if the query word is the
+ * start of the word and 30% of it if the query word is found inside the word, and the products
+ * are returned with the best score first. A removed product keeps its words in the index with a
+ * weight of 0, which is skipped, and gets its weights back if it is added again.
+ *
+ * @version 1.0
+ */
+public class ProductSearchIndex {
+  /** The weight of a word of the name. */
+  private static final int NAME_WEIGHT = 3;
+  /** The weight of a word of the category. */
+  private static final int CATEGORY_WEIGHT = 2;
+  /** The weight of a word of the description. */
+  private static final int DESCRIPTION_WEIGHT = 1;
+  /** The share of the weight of a word that a query word scores when it starts the word. */
+  private static final double PREFIX_FACTOR = 0.6;
+  /** The share of the weight of a word that a query word scores when it is inside the word. */
+  private static final double INFIX_FACTOR = 0.3;
+  /** The length of the sequences of characters that point to the words. */
+  private static final int GRAM = 3;
+
+  /** The weights of the products that contain a word, by the product id, by the word. */
+  private final TreeMap<String, IntIntMap> words = new TreeMap<String, IntIntMap>();
+  /** The words that contain a sequence of three characters, by the sequence. */
+  private final HashMap<String, ArrayList<String>> grams = new HashMap<String, ArrayList<String>>();
+  /** The number of products in the index. */
+  private int size;
+
+  /**
+   * Returns the number of products in the index.
+   *
+   * @return the number of products
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Adds the words of a product to the index.
+   *
+   * @param product the product
+   */
+  public synchronized void add(Product product) {
+    for (Map.Entry<String, Integer> word : weights(product).entrySet()) {
+      IntIntMap products = words.get(word.getKey());
+      if (products == null) {
+        products = new IntIntMap(4);
+        words.put(word.getKey(), products);
+        addGrams(word.getKey());
+      }
+      int index = products.indexOf(product.getProductId());
+      int weight = word.getValue() + (index < 0 ? 0 : products.valueAt(index));
+      products.put(product.getProductId(), weight);
+    }
+    size++;
+  }
+
+  /**
+   * Removes the words of a product from the index.
+   *
+   * @param product the product
+   */
+  public synchronized void remove(Product product) {
+    for (Map.Entry<String, Integer> word : weights(product).entrySet()) {
+      IntIntMap products = words.get(word.getKey());
+      int index = products == null ? -1 : products.indexOf(product.getProductId());
+      if (index >= 0) {
+        products.setValueAt(index, Math.max(0, products.valueAt(index) - word.getValue()));
+      }
+    }
+    size--;
+  }
+
+  /** Removes all the products from the index. */
+  public synchronized void clear() {
+    words.clear();
+    grams.clear();
+    size = 0;
+  }
+
+  /**
+   * Finds the products that match all the words of a query.
+   *
+   * @param query the query
+   * @return the ids of the products, with the best match first
+   */
+  public synchronized int[] search(String query) {
+    String[] terms = tokenize(query);
+    if (terms.length == 0) {
+      return new int[0];
+    }
+    HashMap<Integer, double[]> total = null;
+    for (String term : terms) {
+      HashMap<Integer, double[]> scores = score(term);
+      if (total != null) {
+        // keep only the products that matched the previous words too
+        HashMap<Integer, double[]> both = new HashMap<Integer, double[]>();
+        for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+          double[] previous = total.get(entry.getKey());
+          if (previous != null) {
+            previous[0] += entry.getValue()[0];
+            both.put(entry.getKey(), previous);
+          }
+        }
+        scores = both;
+      }
+      total = scores;
+      if (total.isEmpty()) {
+        return new int[0];
+      }
+    }
+    ArrayList<Map.Entry<Integer, double[]>> ranked =
+        new ArrayList<Map.Entry<Integer, double[]>>(total.entrySet());
+    ranked.sort(
+        (a, b) -> {
+          int byScore = Double.compare(b.getValue()[0], a.getValue()[0]);
+          return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+        });
+    int[] ids = new int[ranked.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = ranked.get(i).getKey();
+    }
+    return ids;
+  }
+
+  /**
+   * Splits a text into lower case words.
+   *
+   * @param text the text
+   * @return the words, in the order of the text
+   */
+  static String[] tokenize(String text) {
+    if (text == null) {
+      return new String[0];
+    }
+    String folded = text.toLowerCase(Locale.ROOT);
+    ArrayList<String> tokens = new ArrayList<String>();
+    int start = -1;
+    for (int i = 0; i <= folded.length(); i++) {
+      boolean inWord = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        tokens.add(folded.substring(start, i));
+        start = -1;
+      }
+    }
+    return tokens.toArray(new String[tokens.size()]);
+  }
+
+  /**
+   * Scores the products for a word of a query.
+   *
+   * @param term the word of the query
+   * @return the score of every product that matches the word, by the product id
+   */
+  private HashMap<Integer, double[]> score(String term) {
+    HashMap<Integer, double[]> scores = new HashMap<Integer, double[]>();
+    for (Map.Entry<String, IntIntMap> word :
+        words.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+      addScores(scores, word.getValue(), word.getKey().equals(term) ? 1 : PREFIX_FACTOR);
+    }
+    if (term.length() >= GRAM) {
+      ArrayList<String> candidates = null;
+      for (int i = 0; i + GRAM <= term.length(); i++) {
+        ArrayList<String> containing = grams.get(term.substring(i, i + GRAM));
+        if (containing == null) {
+          return scores;
+        }
+        if (candidates == null || containing.size() < candidates.size()) {
+          candidates = containing;
+        }
+      }
+      for (String word : candidates) {
+        if (!word.startsWith(term) && word.contains(term)) {
+          addScores(scores, words.get(word), INFIX_FACTOR);
+        }
+      }
+    }
+    return scores;
+  }
+
+  /**
+   * Adds the weights of the products that contain a word to their scores, keeping the best score
+   * of every product.
+   *
+   * @param scores the scores of the products, by the product id
+   * @param products the weights of the products that contain the word
+   * @param factor the share of the weights that is scored
+   */
+  private static void addScores(
+      HashMap<Integer, double[]> scores, IntIntMap products, double factor) {
+    for (int i = 0; i < products.size(); i++) {
+      if (products.valueAt(i) > 0) {
+        double score = factor * products.valueAt(i);
+        double[] best = scores.get(products.keyAt(i));
+        if (best == null) {
+          scores.put(products.keyAt(i), new double[] {score});
+        } else if (score > best[0]) {
+          best[0] = score;
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a new word to the lists of the sequences of three characters it contains.
+   *
+   * @param word the word
+   */
+  private void addGrams(String word) {
+    HashSet<String> seen = new HashSet<String>();
+    for (int i = 0; i + GRAM <= word.length(); i++) {
+      String gram = word.substring(i, i + GRAM);
+      // a word is added once to the list of a sequence it contains more than once
+      if (!seen.add(gram)) {
+        continue;
+      }
+      ArrayList<String> containing = grams.get(gram);
+      if (containing == null) {
+        containing = new ArrayList<String>(2);
+        grams.put(gram, containing);
+      }
+      containing.add(word);
+    }
+  }
+
+  /**
+   * Returns the words of a product with their weights.
+   *
+   * @param product the product
+   * @return the sum of the weights of the fields that contain a word, by the word
+   */
+  private static HashMap<String, Integer> weights(Product product) {
+    HashMap<String, Integer> weights = new HashMap<String, Integer>();
+    addWeights(weights, product.getName(), NAME_WEIGHT);
+    addWeights(weights, product.getCategory(), CATEGORY_WEIGHT);
+    addWeights(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+    return weights;
+  }
+
+  /**
+   * Adds the weight of a field to the words of the field, once for every word.
+   *
+   * @param weights the weights by the word
+   * @param field the text of the field
+   * @param weight the weight of the field
+   */
+  private static void addWeights(HashMap<String, Integer> weights, String field, int weight) {
+    for (String token : new HashSet<String>(Arrays.asList(tokenize(field)))) {
+      weights.merge(token, weight, Integer::sum);
+    }
+  }
+}
@@ -1,9 +1,13 @@
 package ERP_Core;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.InputMismatchException;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The class represents a registered corporate customer of the ERP system The class is responsible
@@ -21,10 +25,16 @@ public class RegisteredCustomer extends Customer {
   private int id;
   /** points each customer earns depending on his purchases. */
   private int points;
-  /** counts the number of registered customers created. */
-  private static int idCounter = FileHandler.getRegisteredCustomerCounterFromFile();
   /** an @Arraylist in which Customer information is temporarily saved. */
   protected static ArrayList<RegisteredCustomer> customers = new ArrayList<RegisteredCustomer>();
+  /**
+   * The registered customers by their id, kept up to date as the customers are created and
+   * deleted, so the order requests are validated without scanning the customer list.
+   */
+  private static final ConcurrentHashMap<Integer, RegisteredCustomer> customersById =
+      new ConcurrentHashMap<Integer, RegisteredCustomer>();
+  /** Tracks the changes of the customers since Customers.csv was last written. */
+  static final ChangeTracker changes = new ChangeTracker();
 
   /**
    * Constructor for creating a new registered customer.
@@ -37,9 +47,11 @@ public class RegisteredCustomer extends Customer {
   public RegisteredCustomer(String name, String address, int telephone, int points) {
     super(name, address, telephone);
     this.points = points;
-    this.id = ++idCounter;
+    this.id = IdAllocator.CUSTOMERS.next();
     // ** adding registered customer to @Arraylist */
     customers.add(this);
+    customersById.putIfAbsent(id, this);
+    changes.markChanged();
   }
 
   /**
@@ -57,6 +69,8 @@ public class RegisteredCustomer extends Customer {
     this.id = id;
     this.points = points;
     customers.add(this);
+    customersById.putIfAbsent(id, this);
+    changes.markChanged();
   }
 
   /**
@@ -74,7 +88,7 @@ public class RegisteredCustomer extends Customer {
    * @return the counter of the unique registered customers created
    */
   public static int getIdCounter() {
-    return idCounter;
+    return IdAllocator.CUSTOMERS.getCounter();
   }
 
   /**
@@ -84,6 +98,7 @@ public class RegisteredCustomer extends Customer {
    */
   public void setPoints(int points) {
     this.points = points;
+    changes.markChanged();
   }
 
   /**
@@ -104,6 +119,16 @@ public class RegisteredCustomer extends Customer {
     return customers;
   }
 
+  /**
+   * Returns the registered customers by their id. The map is updated as the customers are created
+   * and deleted.
+   *
+   * @return the registered customers, by their id
+   */
+  static Map<Integer, RegisteredCustomer> getCustomersById() {
+    return Collections.unmodifiableMap(customersById);
+  }
+
   /**
    * Returns the current registered customer object in String format.
    *
@@ -152,6 +177,28 @@ public class RegisteredCustomer extends Customer {
     }
   }
 
+  /**
+   * Creates the registered customers by streaming the records of the customers .csv file.
+   *
+   * @param reader the reader of the customers file
+   * @throws IOException the file could not be read
+   */
+  public static void createRegisteredCustomersFromCsv(CsvReader reader) throws IOException {
+    int id;
+    int points;
+    int telephone;
+    String name;
+    String address;
+    while (reader.nextRecord()) {
+      id = reader.nextInt();
+      name = reader.nextString();
+      address = reader.nextString();
+      telephone = reader.nextInt();
+      points = reader.nextInt();
+      new RegisteredCustomer(name, address, telephone, id, points);
+    }
+  }
+
   /** Prints the customer list as a whole. */
   public static void printAllCustomers() {
     for (RegisteredCustomer c : customers) {
@@ -263,6 +310,8 @@ public class RegisteredCustomer extends Customer {
       throw new NoSuchElementException("Customer with such id does not exist");
     }
     customers.remove(customers.indexOf(customer));
+    customersById.remove(id, customer);
+    changes.markChanged();
   }
 
   /**
@@ -299,6 +348,7 @@ public class RegisteredCustomer extends Customer {
       throw new NoSuchElementException("Customer with such id does not exist");
     } else {
       customer.setName(name);
+      changes.markChanged();
     }
   }
 
@@ -315,6 +365,7 @@ public class RegisteredCustomer extends Customer {
       throw new NoSuchElementException("Customer with such id does not exist");
     } else {
       customer.setAddress(address);
+      changes.markChanged();
     }
   }
 
@@ -331,6 +382,7 @@ public class RegisteredCustomer extends Customer {
       throw new NoSuchElementException("Customer with such id does not exist");
     } else {
       customer.setTelephone(telephone);
+      changes.markChanged();
     }
   }
 
@@ -0,0 +1,285 @@
+package ERP_Core;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Monitors the rate at which the orders reduce the quantities of the products and drafts the
+ * storage orders that resupply them before they run out.
+ *
+ * <p>The demand of every product is an exponentially weighted rate of its sales, in units per
+ * day: a sale counts fully on the day it is made and half as much after every half-life, so the
+ * rate follows recent changes of the demand. The rate is updated with every confirmed order, and
+ * the orders loaded at startup are counted once, without decoding them.
+ *
+ * <p>A product reaches its reorder point when its available units cover less than the lead time
+ * of a storage order plus the safety days. It is then ordered up to the units needed for the lead
+ * time, the safety days and the cover days. A product is ordered from the supplier of its latest
+ * storage order.
+ *
+ * <p>Only the products whose demand or quantity changed since the last draft, and the products
+ * that were below their reorder point then, are checked again, so drafting takes time in the
+ * number of changed products and not in the number of orders or products.
+ *
+ * <p>The half-life, lead time, safety days and cover days are given in days by the
+ * "erp.reorder.halfLifeDays" (14), "erp.reorder.leadTimeDays" (7), "erp.reorder.safetyDays" (3)
+ * and "erp.reorder.coverDays" (14) system properties.
+ *
+ * @version 1.0
+ */
+public class ReorderEngine {
+  /** The length of a day, in milliseconds. */
+  private static final double DAY = 24 * 60 * 60 * 1000.0;
+  /** The time in which the weight of a sale halves, in days. */
+  private static final double HALF_LIFE_DAYS = getDays("erp.reorder.halfLifeDays", 14);
+  /** The time a storage order needs to arrive, in days. */
+  private static final double LEAD_TIME_DAYS = getDays("erp.reorder.leadTimeDays", 7);
+  /** The days of demand kept in the storage in case an order is late. */
+  private static final double SAFETY_DAYS = getDays("erp.reorder.safetyDays", 3);
+  /** The days of demand a storage order covers after it arrives. */
+  private static final double COVER_DAYS = getDays("erp.reorder.coverDays", 14);
+  /** The time constant of the decay of the demand, in milliseconds. */
+  private static final double TIME_CONSTANT = HALF_LIFE_DAYS * DAY / Math.log(2);
+
+  /** The positions of the products in the arrays, by the product id. */
+  private static final IntIntMap positions = new IntIntMap();
+  /** The product ids, by position. */
+  private static int[] ids = new int[16];
+  /** The decayed sum of the sales at the time of the last sale, divided by the time constant. */
+  private static double[] demand = new double[16];
+  /** The time of the last sale, in epoch milliseconds of the local date and time. */
+  private static long[] lastSale = new long[16];
+  /** The id of the supplier of the latest storage order of the product, 0 if there is none. */
+  private static int[] suppliers = new int[16];
+  /** Whether the product is in the list of the products to check. */
+  private static boolean[] queued = new boolean[16];
+  /** The positions of the products to check in the next draft. */
+  private static int[] toCheck = new int[16];
+  /** The number of products to check. */
+  private static int checkCount;
+
+  private ReorderEngine() {}
+
+  /**
+   * Counts the sales of the orders loaded at startup into the demand of the products. The orders
+   * are read through the fields of the order history, without decoding them.
+   *
+   * @param orders the loaded orders
+   */
+  public static synchronized void loadSales(OrderHistory orders) {
+    for (int i = 0; i < orders.size(); i++) {
+      long time = orders.getDateMillis(i);
+      for (int line = 0; line < orders.getBasketSize(i); line++) {
+        addSale(
+            position(orders.getBasketProductId(i, line)), orders.getBasketQuantity(i, line), time);
+      }
+    }
+  }
+
+  /**
+   * Counts the sales of a confirmed order into the demand of its products.
+   *
+   * @param basket the product id - quantity lines of the order
+   */
+  public static synchronized void recordSale(List<int[]> basket) {
+    long now = now();
+    for (int[] line : basket) {
+      addSale(position(line[0]), line[1], now);
+    }
+  }
+
+  /**
+   * Makes the supplier of a storage order the supplier of its products.
+   *
+   * @param supplier the supplier of the storage order, null if it was deleted
+   * @param supplies the product id - quantity lines of the storage order
+   */
+  public static synchronized void recordSupplier(Supplier supplier, List<int[]> supplies) {
+    if (supplier == null) {
+      return;
+    }
+    for (int[] line : supplies) {
+      int position = position(line[0]);
+      suppliers[position] = supplier.getId();
+      queue(position);
+    }
+  }
+
+  /**
+   * Notes that the quantity of a product in the storage changed, so that it is checked in the
+   * next draft.
+   *
+   * @param id the id of the product
+   */
+  public static synchronized void recordStockChange(int id) {
+    queue(position(id));
+  }
+
+  /**
+   * Returns the demand of a product.
+   *
+   * @param id the id of the product
+   * @return the units sold per day, weighted towards the recent sales
+   */
+  public static synchronized double getDailyDemand(int id) {
+    int position = positions.indexOf(id);
+    return position < 0 ? 0 : dailyDemand(position, now());
+  }
+
+  /**
+   * Returns the reorder point of a product.
+   *
+   * @param id the id of the product
+   * @return the available units below which the product is resupplied
+   */
+  public static synchronized int getReorderPoint(int id) {
+    return (int) Math.ceil(getDailyDemand(id) * (LEAD_TIME_DAYS + SAFETY_DAYS));
+  }
+
+  /**
+   * Drafts the storage orders of the products that reached their reorder point, one for every
+   * supplier. The products without a supplier are drafted under the supplier id 0.
+   *
+   * @return the product id - quantity lines of the drafts, by the supplier id
+   */
+  public static LinkedHashMap<Integer, Basket> draftStorageOrders() {
+    // the stock changes made so far must be noted before the products are checked
+    Storage.awaitStockChanges();
+    synchronized (ReorderEngine.class) {
+      long now = now();
+      int[] checked = Arrays.copyOf(toCheck, checkCount);
+      Arrays.sort(checked);
+      checkCount = 0;
+      LinkedHashMap<Integer, Basket> drafts = new LinkedHashMap<Integer, Basket>();
+      for (int position : checked) {
+        queued[position] = false;
+        double daily = dailyDemand(position, now);
+        int available;
+        try {
+          available = Storage.getAvailableQuantity(ids[position]);
+        } catch (NoSuchElementException e) {
+          continue;
+        }
+        if (daily <= 0 || available > Math.ceil(daily * (LEAD_TIME_DAYS + SAFETY_DAYS))) {
+          continue;
+        }
+        int quantity =
+            (int) Math.ceil(daily * (LEAD_TIME_DAYS + SAFETY_DAYS + COVER_DAYS)) - available;
+        if (quantity > 0) {
+          Basket draft = drafts.get(suppliers[position]);
+          if (draft == null) {
+            draft = new Basket();
+            drafts.put(suppliers[position], draft);
+          }
+          draft.add(ids[position], quantity);
+        }
+        // still below the reorder point, so it is checked again in the next draft
+        queue(position);
+      }
+      return drafts;
+    }
+  }
+
+  /**
+   * Adds a sale to the demand of a product.
+   *
+   * @param position the position of the product
+   * @param quantity the units sold
+   * @param time the time of the sale
+   */
+  private static void addSale(int position, int quantity, long time) {
+    // in doubles, as there is no last sale before the first one
+    double elapsed = (double) time - lastSale[position];
+    if (elapsed >= 0) {
+      demand[position] =
+          demand[position] * Math.exp(-elapsed / TIME_CONSTANT) + quantity / TIME_CONSTANT;
+      lastSale[position] = time;
+    } else {
+      demand[position] += quantity * Math.exp(elapsed / TIME_CONSTANT) / TIME_CONSTANT;
+    }
+    queue(position);
+  }
+
+  /**
+   * Returns the demand of a product at a point in time.
+   *
+   * @param position the position of the product
+   * @param now the point in time
+   * @return the units sold per day
+   */
+  private static double dailyDemand(int position, long now) {
+    double elapsed = Math.max(0, (double) now - lastSale[position]);
+    return demand[position] * Math.exp(-elapsed / TIME_CONSTANT) * DAY;
+  }
+
+  /**
+   * Adds a product to the products to check in the next draft.
+   *
+   * @param position the position of the product
+   */
+  private static void queue(int position) {
+    if (queued[position]) {
+      return;
+    }
+    if (checkCount == toCheck.length) {
+      toCheck = Arrays.copyOf(toCheck, checkCount * 2);
+    }
+    toCheck[checkCount++] = position;
+    queued[position] = true;
+  }
+
+  /**
+   * Returns the position of a product in the arrays, adding the product if it is new.
+   *
+   * @param id the id of the product
+   * @return the position of the product
+   */
+  private static int position(int id) {
+    int position = positions.indexOf(id);
+    if (position >= 0) {
+      return position;
+    }
+    position = positions.size();
+    positions.put(id, position);
+    if (position == ids.length) {
+      int length = position * 2;
+      ids = Arrays.copyOf(ids, length);
+      demand = Arrays.copyOf(demand, length);
+      lastSale = Arrays.copyOf(lastSale, length);
+      suppliers = Arrays.copyOf(suppliers, length);
+      queued = Arrays.copyOf(queued, length);
+    }
+    ids[position] = id;
+    lastSale[position] = Long.MIN_VALUE;
+    return position;
+  }
+
+  /**
+   * Returns the current local date and time.
+   *
+   * @return the time in epoch milliseconds of the local date and time
+   */
+  private static long now() {
+    return LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  /**
+   * Reads a number of days from a system property.
+   *
+   * @param property the name of the property
+   * @param days the default number of days
+   * @return the number of days
+   */
+  private static double getDays(String property, double days) {
+    try {
+      return Double.parseDouble(System.getProperty(property, String.valueOf(days)));
+    } catch (NumberFormatException e) {
+      System.err.println("Invalid number of days for " + property + ", using " + days);
+      return days;
+    }
+  }
+}
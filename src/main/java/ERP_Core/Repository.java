@@ -0,0 +1,85 @@
+package ERP_Core;
+
+import java.util.List;
+
+/**
+ * The storage of the data of the ERP system: the products, the product quantities, the registered
+ * customers, the users, the suppliers, the orders and the storage orders. The data is loaded into
+ * the lists of the classes at startup, the confirmed orders are stored as soon as they are made and
+ * the changed lists are stored when the data is saved. The orders and storage orders can also be
+ * looked up in the storage by their number or by the date they were made. The dates of a period
+ * are given in epoch milliseconds of the local date and time of the orders, read as UTC, the same
+ * way the order snapshot stores them.
+ *
+ * <p>The storage is selected with the "erp.storage" system property: "csv" (the default) keeps
+ * the data in the .csv files of the Data directory, see {@link CsvRepository}, and "kv" keeps it in
+ * an embedded key-value store, see {@link KeyValueRepository}.
+ *
+ * @version 1.0
+ */
+public interface Repository {
+
+  /** Loads all the data into the lists of the classes. */
+  void loadAll();
+
+  /** Stores the data that changed since it was loaded or last saved. */
+  void saveAll();
+
+  /**
+   * Stores a confirmed order, so that it survives a crash before the next save.
+   *
+   * @param order the confirmed order
+   */
+  void appendOrder(Order order);
+
+  /**
+   * Stores the confirmed orders of a batch together, syncing the storage once for all of them.
+   *
+   * @param orders the confirmed orders, in the order they were made
+   */
+  void appendOrders(List<Order> orders);
+
+  /**
+   * Stores a confirmed storage order, so that it survives a crash before the next save.
+   *
+   * @param order the confirmed storage order
+   */
+  void appendStorageOrder(StorageOrder order);
+
+  /**
+   * Looks up an order by its number.
+   *
+   * @param orderNo the order number
+   * @return the order, or null if there is no order with this number
+   */
+  Order findOrder(int orderNo);
+
+  /**
+   * Looks up the orders made in a period of time.
+   *
+   * @param from the start of the period, in epoch milliseconds (inclusive)
+   * @param to the end of the period, in epoch milliseconds (exclusive)
+   * @return the orders of the period, in the order they were made
+   */
+  List<Order> findOrdersByDate(long from, long to);
+
+  /**
+   * Looks up a storage order by its number.
+   *
+   * @param orderNo the storage order number
+   * @return the storage order, or null if there is no storage order with this number
+   */
+  StorageOrder findStorageOrder(int orderNo);
+
+  /**
+   * Looks up the storage orders made in a period of time.
+   *
+   * @param from the start of the period, in epoch milliseconds (inclusive)
+   * @param to the end of the period, in epoch milliseconds (exclusive)
+   * @return the storage orders of the period, in the order they were made
+   */
+  List<StorageOrder> findStorageOrdersByDate(long from, long to);
+
+  /** Writes the pending data to the disk and closes the storage. */
+  void close();
+}
@@ -0,0 +1,103 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+
+/**
+ * Releases the basket reservations whose time to live has passed. The reservations are kept in a
+ * timing wheel: a ring of slots, one for every tick of a second, and a reservation is put in the
+ * slot of the tick of its deadline. A single daemon thread empties the slot of every tick and
+ * releases the reservations that expired, so there is no timer per reservation and scheduling or
+ * expiring a reservation costs the same with any number of open baskets.
+ *
+ * <p>A reservation whose deadline is more than one turn of the wheel away, or whose time to live
+ * was renewed, is found in its slot before its deadline and is just put back in the slot of its
+ * new deadline.
+ *
+ * @version 1.0
+ */
+class ReservationWheel {
+  /** The length of a tick, in milliseconds. */
+  private static final long TICK = 1000;
+  /** The number of slots of the wheel, a power of 2. */
+  private static final int SLOTS = 512;
+
+  /** The reservations by the slot of their deadline. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final ArrayList<BasketReservation>[] slots = new ArrayList[SLOTS];
+  /** The last tick whose slot was emptied. */
+  private static long currentTick;
+  /** The thread that turns the wheel, started with the first reservation. */
+  private static Thread thread;
+
+  private ReservationWheel() {}
+
+  /**
+   * Puts a reservation in the slot of its deadline.
+   *
+   * @param reservation the reservation
+   */
+  static synchronized void schedule(BasketReservation reservation) {
+    if (thread == null) {
+      currentTick = System.currentTimeMillis() / TICK;
+      thread = new Thread(ReservationWheel::turn, "reservation-expiry");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    long tick = Math.max(reservation.getDeadline() / TICK + 1, currentTick + 1);
+    int slot = (int) (tick & (SLOTS - 1));
+    if (slots[slot] == null) {
+      slots[slot] = new ArrayList<BasketReservation>();
+    }
+    slots[slot].add(reservation);
+  }
+
+  /**
+   * Takes the reservations out of the slot of the next tick.
+   *
+   * @return the reservations of the slot, null if it is empty
+   */
+  private static synchronized ArrayList<BasketReservation> advance() {
+    currentTick++;
+    int slot = (int) (currentTick & (SLOTS - 1));
+    ArrayList<BasketReservation> due = slots[slot];
+    slots[slot] = null;
+    return due;
+  }
+
+  /**
+   * Returns when the next tick starts.
+   *
+   * @return the start of the next tick, in epoch milliseconds
+   */
+  private static synchronized long nextTickTime() {
+    return (currentTick + 1) * TICK;
+  }
+
+  /** Turns the wheel, one slot every tick, for as long as the ERP runs. */
+  private static void turn() {
+    for (; ; ) {
+      long wait = nextTickTime() - System.currentTimeMillis();
+      if (wait > 0) {
+        try {
+          Thread.sleep(wait);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+      ArrayList<BasketReservation> due = advance();
+      if (due == null) {
+        continue;
+      }
+      long now = System.currentTimeMillis();
+      for (BasketReservation reservation : due) {
+        try {
+          if (!reservation.expire(now)) {
+            schedule(reservation);
+          }
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+}
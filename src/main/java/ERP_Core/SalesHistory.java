@@ -0,0 +1,92 @@
+package ERP_Core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+
+/**
+ * The list of all product sales. Like the {@link OrderHistory}, the sales of the historical orders
+ * are not kept on the heap: every basket line of the attached {@link OrderSnapshot} is a sale,
+ * which is decoded into a ProductSale with the current price of the product when it is accessed.
+ * The sale of a product that has been deleted has the price 0. The sales of the orders created
+ * after the snapshot was attached are kept as objects. The methods are synchronized on the
+ * history, see {@link OrderHistory}.
+ *
+ * @version 1.0
+ */
+public class SalesHistory extends AbstractList<ProductSale> {
+  /** The memory mapped historical orders, null if there is no snapshot attached. */
+  private OrderSnapshot snapshot;
+  /** The sales created after the snapshot. */
+  private final ArrayList<ProductSale> recent = new ArrayList<ProductSale>();
+
+  /**
+   * Returns the sale at the given index. A sale of the snapshot is decoded into a new ProductSale
+   * on every call.
+   *
+   * @param index the index of the sale
+   * @return the sale
+   */
+  @Override
+  public synchronized ProductSale get(int index) {
+    int snapshotLines = getSnapshotLines();
+    if (index < snapshotLines) {
+      if (index < 0) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      int productId = snapshot.getLineProductId(index);
+      Product product = Storage.searchById(productId);
+      return new ProductSale(
+          productId,
+          snapshot.getLineQuantity(index),
+          product != null ? product.getSalePrice() : 0,
+          snapshot.getDateMillis(snapshot.findOrderOfLine(index)));
+    }
+    return recent.get(index - snapshotLines);
+  }
+
+  /**
+   * Returns the number of sales.
+   *
+   * @return the number of sales
+   */
+  @Override
+  public synchronized int size() {
+    return getSnapshotLines() + recent.size();
+  }
+
+  /**
+   * Appends a sale after the sales of the history.
+   *
+   * @param sale the sale
+   * @return always true
+   */
+  @Override
+  public synchronized boolean add(ProductSale sale) {
+    modCount++;
+    return recent.add(sale);
+  }
+
+  /**
+   * Replaces the first sales of the history with the basket lines of a snapshot. The snapshot must
+   * start with the orders of the sales, and only the sales that it covers are dropped; the sales
+   * of the orders added after the snapshot was written are kept as objects.
+   *
+   * @param snapshot the snapshot
+   */
+  synchronized void attach(OrderSnapshot snapshot) {
+    modCount++;
+    int covered = Math.min(Math.max(snapshot.getLines() - getSnapshotLines(), 0), recent.size());
+    this.snapshot = snapshot;
+    recent.subList(0, covered).clear();
+    recent.trimToSize();
+  }
+
+  /**
+   * Returns the number of basket lines of the attached snapshot.
+   *
+   * @return the number of sales in the snapshot
+   */
+  private int getSnapshotLines() {
+    return snapshot == null ? 0 : snapshot.getLines();
+  }
+}
@@ -0,0 +1,443 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Finds the products that are running out of stock. Every product has a low stock threshold, the
+ * default one of the "erp.stock.threshold" system property (10 units) unless an other one was set
+ * for it, and when a change of its quantity in the storage takes it from its threshold or more to
+ * below it, an {@link Alert} is sent to the listeners and kept in the list of the recent alerts.
+ *
+ * <p>The quantities are the sums of the changes the {@link Storage} sends, starting from no units
+ * when a product is created, as the {@link InventoryLog} keeps its balances, so they do not depend
+ * on when a change is consumed.
+ *
+ * <p>The quantities of the products are indexed in buckets, one for every quantity up to {@code
+ * BUCKETS - 2} units and a last one for all the larger quantities, and the products of a bucket
+ * are linked to each other, so a product moves to the bucket of its new quantity in constant
+ * time. The products below a number of units are then found by walking the buckets of the smaller
+ * quantities, in the order of their quantities, without looking at the products that have more.
+ *
+ * <p>The thresholds that were set are kept in "Thresholds.csv" in the Data directory, e.g.
+ * "12;25;" for a threshold of 25 units for the product with id 12.
+ *
+ * @version 1.0
+ */
+public class StockAlerts {
+  /** The threshold of the products without one of their own. */
+  private static final int DEFAULT_THRESHOLD =
+      Math.max(0, Integer.getInteger("erp.stock.threshold", 10));
+  /** The number of buckets; the last bucket holds all the quantities that do not fit the others. */
+  private static final int BUCKETS = 1024;
+  /** The number of alerts kept in the list of the recent alerts. */
+  private static final int RECENT_ALERTS = 100;
+  /** The file of the thresholds that were set. */
+  private static final File THRESHOLDS_FILE = FileHandler.getDataFile("Thresholds.csv");
+
+  /** The positions of the products in the arrays, by the product id. */
+  private static final IntIntMap positions = new IntIntMap();
+  /** The product ids, by position. */
+  private static int[] ids = new int[16];
+  /** The quantities in the storage, by position. */
+  private static int[] quantities = new int[16];
+  /** The thresholds that were set, by position, -1 for the default threshold. */
+  private static int[] thresholds = new int[16];
+  /** The next product in the bucket, by position, -1 for the last one. */
+  private static int[] next = new int[16];
+  /** The previous product in the bucket, by position, -1 for the first one. */
+  private static int[] previous = new int[16];
+  /** The first product of every bucket, -1 for an empty bucket. */
+  private static final int[] heads = newHeads();
+  /** The largest threshold of all the products. */
+  private static int maxThreshold = DEFAULT_THRESHOLD;
+  /** The most recent alerts, the oldest first. */
+  private static final ArrayDeque<Alert> recent = new ArrayDeque<Alert>();
+  /** The listeners that are sent the alerts. */
+  private static final CopyOnWriteArrayList<Consumer<Alert>> listeners =
+      new CopyOnWriteArrayList<Consumer<Alert>>();
+
+  private StockAlerts() {}
+
+  /** A product whose quantity fell below its low stock threshold. */
+  public static class Alert {
+    private final int productId;
+    private final int quantity;
+    private final int threshold;
+    private final String date;
+
+    /**
+     * Creates an alert, with the system's current date and time.
+     *
+     * @param productId the id of the product
+     * @param quantity the quantity of the product in the storage
+     * @param threshold the threshold of the product
+     */
+    Alert(int productId, int quantity, int threshold) {
+      this.productId = productId;
+      this.quantity = quantity;
+      this.threshold = threshold;
+      this.date = StorageOrder.getCurrentDate();
+    }
+
+    /**
+     * Returns the id of the product.
+     *
+     * @return the product id
+     */
+    public int getProductId() {
+      return productId;
+    }
+
+    /**
+     * Returns the quantity of the product in the storage after the change.
+     *
+     * @return the quantity
+     */
+    public int getQuantity() {
+      return quantity;
+    }
+
+    /**
+     * Returns the threshold the quantity fell below.
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+      return threshold;
+    }
+
+    /**
+     * Returns the date of the alert.
+     *
+     * @return the date in "dd-MM-yyyy hh:mm:ss" format
+     */
+    public String getDate() {
+      return date;
+    }
+
+    @Override
+    public String toString() {
+      return date
+          + ": product "
+          + productId
+          + " has "
+          + quantity
+          + " units left, below its threshold of "
+          + threshold;
+    }
+  }
+
+  /**
+   * Adds a listener that is sent every alert. The listeners are called by the thread of the stock
+   * changes of the {@link Storage}, after the quantity was indexed, so they should return quickly.
+   *
+   * @param listener the listener
+   */
+  public static void addListener(Consumer<Alert> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener.
+   *
+   * @param listener the listener
+   */
+  public static void removeListener(Consumer<Alert> listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Adds a change of the quantity of a product in the storage to its indexed quantity, and sends
+   * an alert if the quantity fell below the threshold of the product.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity
+   */
+  static void update(int id, int change) {
+    Alert alert = index(id, change);
+    if (alert != null) {
+      for (Consumer<Alert> listener : listeners) {
+        listener.accept(alert);
+      }
+    }
+  }
+
+  /**
+   * Returns the products that have less units in the storage than a number.
+   *
+   * @param units the number of units
+   * @return the ids of the products, from the smallest quantity to the largest
+   */
+  public static int[] getProductsBelow(int units) {
+    Storage.awaitStockChanges();
+    synchronized (StockAlerts.class) {
+      int[] found = new int[16];
+      int count = 0;
+      int last = Math.min(units, BUCKETS) - 1;
+      for (int bucket = 0; bucket <= last; bucket++) {
+        for (int p = heads[bucket]; p >= 0; p = next[p]) {
+          if (quantities[p] < units) {
+            if (count == found.length) {
+              found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = ids[p];
+          }
+        }
+      }
+      return Arrays.copyOf(found, count);
+    }
+  }
+
+  /**
+   * Returns the products that have less units in the storage than their threshold.
+   *
+   * @return the ids of the products, from the smallest quantity to the largest
+   */
+  public static int[] getLowStockProducts() {
+    Storage.awaitStockChanges();
+    synchronized (StockAlerts.class) {
+      int[] found = new int[16];
+      int count = 0;
+      int last = Math.min(maxThreshold, BUCKETS) - 1;
+      for (int bucket = 0; bucket <= last; bucket++) {
+        for (int p = heads[bucket]; p >= 0; p = next[p]) {
+          if (quantities[p] < threshold(p)) {
+            if (count == found.length) {
+              found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = ids[p];
+          }
+        }
+      }
+      return Arrays.copyOf(found, count);
+    }
+  }
+
+  /**
+   * Returns the low stock threshold of a product.
+   *
+   * @param id the id of the product
+   * @return the threshold of the product
+   */
+  public static synchronized int getThreshold(int id) {
+    int position = positions.indexOf(id);
+    return position < 0 ? DEFAULT_THRESHOLD : threshold(position);
+  }
+
+  /**
+   * Sets the low stock threshold of a product, and writes the thresholds to their file. Setting a
+   * threshold sends no alert for a product that is already below it.
+   *
+   * @param id the id of the product
+   * @param threshold the threshold, -1 for the default threshold
+   * @throws NoSuchElementException the product is not in the storage
+   */
+  public static void setThreshold(int id, int threshold) throws NoSuchElementException {
+    synchronized (StockAlerts.class) {
+      putThreshold(id, threshold);
+    }
+    saveThresholds();
+  }
+
+  /**
+   * Returns the most recent alerts.
+   *
+   * @return the alerts, the oldest first
+   */
+  public static ArrayList<Alert> getRecentAlerts() {
+    Storage.awaitStockChanges();
+    synchronized (StockAlerts.class) {
+      return new ArrayList<Alert>(recent);
+    }
+  }
+
+  /**
+   * Reads the thresholds that were set from their file, if it exists. The thresholds of the
+   * products that are not in the storage are skipped.
+   */
+  public static void loadThresholds() {
+    if (!THRESHOLDS_FILE.exists()) {
+      return;
+    }
+    try (CsvReader reader =
+        new CsvReader(
+            new InputStreamReader(
+                new FileInputStream(THRESHOLDS_FILE), StandardCharsets.UTF_8))) {
+      synchronized (StockAlerts.class) {
+        while (reader.nextRecord()) {
+          int id = reader.nextInt();
+          int threshold = reader.nextInt();
+          if (Storage.getProductQuantities().contains(id)) {
+            putThreshold(id, threshold);
+          }
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Writes the thresholds that were set to their file. */
+  private static void saveThresholds() {
+    try (AtomicFileWriter out = new AtomicFileWriter(THRESHOLDS_FILE)) {
+      synchronized (StockAlerts.class) {
+        for (int p = 0; p < positions.size(); p++) {
+          if (thresholds[p] >= 0) {
+            out.write(ids[p] + ";" + thresholds[p] + ";");
+            out.newLine();
+          }
+        }
+      }
+      out.commit();
+    } catch (IOException e) {
+      System.out.println("The thresholds could not be saved in Thresholds.csv");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Moves a product to the bucket of its quantity after a change.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity, or the quantity of a product that is not indexed
+   * @return the alert if the quantity fell below the threshold of the product, else null
+   */
+  private static synchronized Alert index(int id, int change) {
+    int position = positions.indexOf(id);
+    boolean wasAbove;
+    if (position < 0) {
+      position = add(id);
+      wasAbove = false;
+    } else {
+      wasAbove = quantities[position] >= threshold(position);
+      unlink(position);
+    }
+    int quantity = quantities[position] + change;
+    quantities[position] = quantity;
+    link(position);
+    if (!wasAbove || quantity >= threshold(position)) {
+      return null;
+    }
+    Alert alert = new Alert(id, quantity, threshold(position));
+    if (recent.size() == RECENT_ALERTS) {
+      recent.removeFirst();
+    }
+    recent.addLast(alert);
+    return alert;
+  }
+
+  /**
+   * Sets the threshold of a product, indexing the product first with no units if the change that
+   * created it has not been consumed yet.
+   *
+   * @param id the id of the product
+   * @param threshold the threshold, -1 for the default threshold
+   * @throws NoSuchElementException the product is not in the storage
+   */
+  private static void putThreshold(int id, int threshold) throws NoSuchElementException {
+    if (positions.indexOf(id) < 0) {
+      if (!Storage.getProductQuantities().contains(id)) {
+        throw new NoSuchElementException("Product with such id does not exist");
+      }
+      index(id, 0);
+    }
+    int position = positions.indexOf(id);
+    thresholds[position] = Math.max(-1, threshold);
+    maxThreshold = Math.max(maxThreshold, threshold);
+  }
+
+  /**
+   * Returns the threshold of a product.
+   *
+   * @param position the position of the product
+   * @return the threshold
+   */
+  private static int threshold(int position) {
+    return thresholds[position] < 0 ? DEFAULT_THRESHOLD : thresholds[position];
+  }
+
+  /**
+   * Adds a product with no units, without putting it in a bucket.
+   *
+   * @param id the id of the product
+   * @return the position of the product
+   */
+  private static int add(int id) {
+    int position = positions.size();
+    positions.put(id, position);
+    if (position == ids.length) {
+      int length = position * 2;
+      ids = Arrays.copyOf(ids, length);
+      quantities = Arrays.copyOf(quantities, length);
+      thresholds = Arrays.copyOf(thresholds, length);
+      next = Arrays.copyOf(next, length);
+      previous = Arrays.copyOf(previous, length);
+    }
+    ids[position] = id;
+    quantities[position] = 0;
+    thresholds[position] = -1;
+    return position;
+  }
+
+  /**
+   * Puts a product first in the bucket of its quantity.
+   *
+   * @param position the position of the product
+   */
+  private static void link(int position) {
+    int bucket = bucket(quantities[position]);
+    next[position] = heads[bucket];
+    previous[position] = -1;
+    if (heads[bucket] >= 0) {
+      previous[heads[bucket]] = position;
+    }
+    heads[bucket] = position;
+  }
+
+  /**
+   * Takes a product out of the bucket of its quantity.
+   *
+   * @param position the position of the product
+   */
+  private static void unlink(int position) {
+    if (previous[position] >= 0) {
+      next[previous[position]] = next[position];
+    } else {
+      heads[bucket(quantities[position])] = next[position];
+    }
+    if (next[position] >= 0) {
+      previous[next[position]] = previous[position];
+    }
+  }
+
+  /**
+   * Returns the bucket of a quantity.
+   *
+   * @param quantity the quantity
+   * @return the bucket
+   */
+  private static int bucket(int quantity) {
+    return Math.min(Math.max(quantity, 0), BUCKETS - 1);
+  }
+
+  /**
+   * Creates the empty buckets.
+   *
+   * @return the first products of the buckets
+   */
+  private static int[] newHeads() {
+    int[] heads = new int[BUCKETS];
+    Arrays.fill(heads, -1);
+    return heads;
+  }
+}
@@ -0,0 +1,116 @@
+package ERP_Core;
+
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands the changes of the quantities in the storage to their consumers on a thread of its own.
+ * The storage only puts a change in a queue, so the threads that make orders do not wait for the
+ * locks of the consumers or for their disk writes: the changes are taken from the queue by a
+ * single daemon thread, which passes each of them to the consumer. Only the changes are queued,
+ * never the quantities they led to: the changes of a product can reach the queue in another order
+ * than they were made in, which does not change their sum, so a consumer keeps its own quantities
+ * by adding them up.
+ *
+ * <p>A thread that reads the state of a consumer and needs it to include its own changes calls
+ * {@link #await()} first, which waits until the changes made before the call have been consumed.
+ *
+ * @version 1.0
+ */
+class StockChanges {
+  /** Consumes a change of the quantity of a product. */
+  interface Consumer {
+    /**
+     * Consumes a change of the quantity of a product.
+     *
+     * @param id the id of the product
+     * @param change the change of the quantity
+     */
+    void accept(int id, int change);
+  }
+
+  /** The changes that have not been consumed yet, as product id - change pairs. */
+  private final LinkedBlockingQueue<int[]> queue = new LinkedBlockingQueue<int[]>();
+  /** The consumer of the changes. */
+  private final Consumer consumer;
+  /** The thread that consumes the changes. */
+  private final Thread thread;
+  /** The number of changes put in the queue. */
+  private final AtomicLong submitted = new AtomicLong();
+  /** The number of changes consumed. */
+  private volatile long consumed;
+
+  /**
+   * Creates the queue of the changes and starts the thread that consumes them.
+   *
+   * @param consumer the consumer of the changes
+   * @param name the name of the thread
+   */
+  StockChanges(Consumer consumer, String name) {
+    this.consumer = consumer;
+    this.thread = new Thread(this::run, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Puts a change in the queue of the changes to consume.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity
+   */
+  void submit(int id, int change) {
+    submitted.incrementAndGet();
+    queue.add(new int[] {id, change});
+  }
+
+  /**
+   * Waits until the changes put in the queue before the call have been consumed. It returns at
+   * once when it is called by a consumer, on the thread of the queue.
+   */
+  void await() {
+    long target = submitted.get();
+    if (consumed >= target || Thread.currentThread() == thread) {
+      return;
+    }
+    boolean interrupted = false;
+    synchronized (this) {
+      while (consumed < target) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Takes the changes from the queue and passes them to the consumer, until the JVM exits. */
+  private void run() {
+    ArrayList<int[]> batch = new ArrayList<int[]>();
+    for (; ; ) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        continue;
+      }
+      queue.drainTo(batch);
+      for (int[] change : batch) {
+        try {
+          consumer.accept(change[0], change[1]);
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+        }
+      }
+      consumed += batch.size();
+      synchronized (this) {
+        notifyAll();
+      }
+      batch.clear();
+    }
+  }
+}
@@ -1,22 +1,96 @@
 package ERP_Core;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The class represents the storage of the ERP system. It is responsible for handling the products
  * and their quantities.
  *
+ * <p>The products are kept in a list, in the order they were added, and are also indexed by the
+ * product id, so they are looked up without scanning the list. The index is a concurrent map that
+ * is only changed when a product is added or deleted, so it can be read by many threads at once;
+ * the product list must not be changed directly, through the list returned by {@link
+ * #getProducts()}. When the list contains the same id twice, the index refers to the first product
+ * with the id, the one a scan of the list would find. The names, categories and descriptions of
+ * the products are indexed by their words in a {@link ProductSearchIndex}, which is changed in the
+ * same way. The sale prices
+ * are published in an immutable, versioned {@link PriceTable}: a price change publishes a new
+ * table in place of the old one, so the orders are priced without locks, and the table is made
+ * again from the list when the next basket is priced after a product was added or deleted. The
+ * versions of the tables are handed out by the {@link IdAllocator} and kept in the counters file,
+ * so they keep growing across the starts of the system.
+ *
+ * <p>The quantities are kept in an {@link Inventory}, which many cashiers can change at the same
+ * time: the units of an order can be reserved while the order is made and removed from the
+ * storage when it is confirmed, or released when it is cancelled, and the quantity of a product is
+ * checked and changed in one atomic step. The lines of a basket are reserved all together or not
+ * at all. Every change of a quantity in the storage is recorded in the {@link InventoryLog}, so the
+ * quantity of a product at any time since the log began can be looked up, and is indexed by the
+ * {@link StockAlerts}, which find the products that are running out of stock. These consumers get
+ * the changes in the order they were made, from a queue that one thread of their own drains.
+ *
+ * <p>The units are kept in one or more {@link Warehouse}s, each with its own partition of the
+ * stock, which holds the units kept there and the reservations made on them. The orders reserve,
+ * sell and release their units in the partitions, so the orders do not contend for one quantity
+ * of a product: the lines of a basket in the warehouse that can ship most of them, and whatever
+ * it is missing in the warehouses with the most units. The quantities of the storage are the
+ * totals of all the warehouses, the aggregated index that answers the quantity of a product
+ * across the warehouses. The totals are derived from the partitions, they are changed after every
+ * change of the units of a partition and no order is checked against them. The units of every
+ * warehouse other than the main one are kept in "WarehouseQuantities.csv" in the Data directory,
+ * one "warehouse id;product id;quantity;" record for every product, which is written whenever the
+ * quantities are saved, and the main warehouse holds the rest of the total.
+ *
  * @version 1.0
  * @author George Liargovas
  */
 public class Storage {
   /** ArrayList where the products available in the storage are stored. */
   protected static ArrayList<Product> products = new ArrayList<Product>();
-  /** ArrayList where the quantities of the products available in the storage are stored. */
-  protected static ArrayList<int[]> productQuantities = new ArrayList<int[]>();
+  /** The quantities of the products in the storage, by the product id. */
+  protected static Inventory productQuantities = new Inventory();
+  /** The products of the product list by their id. */
+  private static final ConcurrentHashMap<Integer, Product> productIndex =
+      new ConcurrentHashMap<Integer, Product>();
+  /**
+   * The number of times the lines of a basket are reserved before it fails, when the units it is
+   * missing are held by the reservations of other baskets.
+   */
+  private static final int RESERVE_ATTEMPTS = 6;
+  /** The longest wait before the first retry of a basket, doubled on every retry. */
+  private static final long RESERVE_BACKOFF_NANOS = 100_000;
+  /** The words of the names, categories and descriptions of the products of the product list. */
+  private static final ProductSearchIndex searchIndex = new ProductSearchIndex();
+  /** The published prices of the products, null when they must be made again from the list. */
+  private static volatile PriceTable priceTable;
+  /** The lock of the changes of the product list and of the publication of the prices. */
+  private static final Object priceLock = new Object();
+  /** The history of the quantities, in the "Inventory" directory of the Data directory. */
+  private static final InventoryLog inventoryLog =
+      new InventoryLog(FileHandler.getDataFile("Inventory"));
+  /** Tracks the changes of the products since Products.csv was last written. */
+  static final ChangeTracker productChanges = new ChangeTracker();
+  /** Tracks the changes of the quantities since ProductQuantities.csv was last written. */
+  static final ChangeTracker quantityChanges = new ChangeTracker();
+  /** The file of the quantities of the warehouses other than the main one. */
+  private static final File WAREHOUSE_QUANTITIES_FILE =
+      FileHandler.getDataFile("WarehouseQuantities.csv");
+  /** The queue of the changes of the quantities, for the inventory log, reorders and alerts. */
+  private static final StockChanges stockChanges =
+      new StockChanges(Storage::consumeChange, "stock-changes");
 
   /**
    * Returns the product list.
@@ -28,11 +102,11 @@ public class Storage {
   }
 
   /**
-   * Returns a list with the combination of product id and available quantity.
+   * Returns the available quantities by the product id, in the order the products were added.
    *
-   * @return the product - quantities list
+   * @return the product - quantities map
    */
-  public static ArrayList<int[]> getProductQuantities() {
+  public static Inventory getProductQuantities() {
     return productQuantities;
   }
 
@@ -43,12 +117,7 @@ public class Storage {
    * @return the product with the specific id
    */
   public static Product searchById(int id) {
-    for (Product product : getProducts()) {
-      if (product.getProductId() == id) {
-        return product;
-      }
-    }
-    return null;
+    return productIndex.get(id);
   }
 
   /** Prints all the products with their available quantities in storage. */
@@ -64,24 +133,46 @@ public class Storage {
    * @param product the product to add
    */
   public static void addProductToList(Product product) {
-    products.add(product);
+    synchronized (priceLock) {
+      products.add(product);
+      productIndex.putIfAbsent(product.getProductId(), product);
+      searchIndex.add(product);
+      priceTable = null;
+    }
+    productChanges.markChanged();
+  }
 
+  /**
+   * Finds the products whose name, category or description contain all the words of a query, as
+   * whole words, as the start of words or inside words.
+   *
+   * @param query the words to search for
+   * @return the products, with the best match first
+   */
+  public static ArrayList<Product> searchProducts(String query) {
+    int[] ids = searchIndex.search(query);
+    ArrayList<Product> found = new ArrayList<Product>(ids.length);
+    for (int id : ids) {
+      Product product = searchById(id);
+      if (product != null) {
+        found.add(product);
+      }
+    }
+    return found;
   }
-  
+
   /**
-   * Searches and prints all products that contain a specific string in their name.
+   * Searches and prints all products that contain the words of a query in their name, category
+   * or description, with the best match first.
    *
-   * @param name the name of the product
+   * @param name the words to search for
    */
   public static void searchAndPrintProductsByName(String name) {
-    boolean found = false;
-    for (Product p : products) {
-      if (p.getName().toLowerCase().contains(name.toLowerCase())) {
-        found = true;
-        System.out.println(p);
-      }
+    ArrayList<Product> found = searchProducts(name);
+    for (Product p : found) {
+      System.out.println(p);
     }
-    if (found == false) {
+    if (found.isEmpty()) {
       System.out.println("No products with such name");
     }
   }
@@ -97,7 +188,31 @@ public class Storage {
     if (product == null) {
       throw new NoSuchElementException("Product with such id does not exist");
     }
-    products.remove(products.indexOf(product));
+    synchronized (priceLock) {
+      products.remove(products.indexOf(product));
+      productIndex.remove(id, product);
+      // an other product with the same id may follow the removed one
+      for (Product other : products) {
+        if (other.getProductId() == id) {
+          productIndex.putIfAbsent(id, other);
+          break;
+        }
+      }
+      searchIndex.remove(product);
+      priceTable = null;
+    }
+    productChanges.markChanged();
+  }
+
+  /** Removes all the products from the product list. */
+  public static void removeAllProducts() {
+    synchronized (priceLock) {
+      products.clear();
+      productIndex.clear();
+      searchIndex.clear();
+      priceTable = null;
+    }
+    productChanges.markChanged();
   }
 
   /** Prints all the products in the product list. */
@@ -114,19 +229,23 @@ public class Storage {
    * @param id the id of the product
    */
   public static void createProductQuantity(int id) {
-    int[] productQuantity = {id, 0};
-    productQuantities.add(productQuantity);
+    createProductQuantity(id, 0);
   }
   
   /**
-   * Makes a new association between a product and a quantity, with the given starting quantity.
+   * Makes a new association between a product and a quantity, with the given starting quantity,
+   * kept in the main warehouse. If the product already has a quantity, the existing quantity is
+   * kept. The starting quantity is recorded as a change from no units.
    *
    * @param id the id of the product
    * @param quantity the quantity of the product
    */
   public static void createProductQuantity(int id, int quantity) {
-    int[] productQuantity = {id, quantity};
-    productQuantities.add(productQuantity);
+    if (productQuantities.create(id, quantity)) {
+      Warehouse.getMain().getStock().create(id, quantity);
+      recordChange(id, quantity);
+      quantityChanges.markChanged();
+    }
   }
 
   /**
@@ -137,35 +256,78 @@ public class Storage {
    * @throws NoSuchElementException the product does not exist
    */
   public static int getProductQuantity(int id) throws NoSuchElementException {
-    for (int[] i : productQuantities) {
-      if (i[0] == id) {
-        return i[1];
+    return productQuantities.getQuantity(id);
+  }
+
+  /**
+   * Returns the quantity of a product that is not reserved by an order being made, the sum of the
+   * available units of all the warehouses.
+   *
+   * @param id the id of the product
+   * @return the available quantity of the product
+   * @throws NoSuchElementException the product does not exist
+   */
+  public static int getAvailableQuantity(int id) throws NoSuchElementException {
+    checkProduct(id);
+    int available = 0;
+    for (Warehouse warehouse : Warehouse.getWarehouses()) {
+      Inventory stock = warehouse.getStock();
+      if (stock.contains(id)) {
+        available += stock.getAvailable(id);
       }
     }
-    throw new NoSuchElementException("Product with such id does not exist");
+    return available;
+  }
+
+  /**
+   * Returns the quantity of a product kept in a warehouse.
+   *
+   * @param warehouseId the id of the warehouse
+   * @param id the id of the product
+   * @return the quantity of the product in the warehouse
+   * @throws NoSuchElementException the warehouse or the product does not exist
+   */
+  public static int getWarehouseQuantity(int warehouseId, int id) throws NoSuchElementException {
+    Inventory stock = getWarehouse(warehouseId).getStock();
+    checkProduct(id);
+    return stock.contains(id) ? stock.getQuantity(id) : 0;
   }
 
   /**
    * Checks if a product with a given quantity already exists and if it does, increases its
-   * quantity.
+   * quantity in the main warehouse.
    *
    * @param id the id of the product
    * @param quantity the quantity of the product to increase
    * @throws NoSuchElementException the product does not exist
    */
   public static void addProductQuantity(int id, int quantity) throws NoSuchElementException {
-    for (int[] i : productQuantities) {
-      if (i[0] == id) {
-        i[1] += quantity;
-        return;
-      }
-    }
-    throw new NoSuchElementException("Product with such id does not exist");
+    addProductQuantity(id, quantity, Warehouse.MAIN_ID);
+  }
+
+  /**
+   * Checks if a product with a given quantity already exists and if it does, increases its
+   * quantity in a warehouse.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity of the product to increase
+   * @param warehouseId the id of the warehouse that receives the units
+   * @throws NoSuchElementException the product or the warehouse does not exist
+   */
+  public static void addProductQuantity(int id, int quantity, int warehouseId)
+      throws NoSuchElementException {
+    Inventory stock = getWarehouse(warehouseId).getStock();
+    checkProduct(id);
+    stock.create(id, 0);
+    stock.add(id, quantity);
+    productQuantities.add(id, quantity);
+    recordChange(id, quantity);
+    quantityChanges.markChanged();
   }
 
   /**
    * Checks if a product with a given quantity already exists and if it does, decreases its
-   * quantity.
+   * quantity, first in the main warehouse and then in the warehouses with the most units.
    *
    * @param id the id of the product
    * @param quantity the quantity of the product
@@ -174,16 +336,611 @@ public class Storage {
    */
   public static void removeProductQuantity(int id, int quantity)
       throws Exception, NoSuchElementException {
-    for (int[] i : productQuantities) {
-      if (i[0] == id) {
-        if (i[1] - quantity < 0) {
-          throw new Exception("Not enough quantity");
+    checkProduct(id);
+    if (changeUnits(id, quantity, Warehouse.getMain(), Inventory::removeUpTo, Storage::putBack)
+        < quantity) {
+      throw new Exception("Not enough quantity");
+    }
+    productQuantities.add(id, -quantity);
+    recordChange(id, -quantity);
+    quantityChanges.markChanged();
+  }
+
+  /**
+   * Reserves units of a product for an order that is being made, if there are enough units
+   * available. The units are reserved in the main warehouse and, if it is missing some of them, in
+   * the warehouses with the most units. They stay in the storage until they are committed or
+   * released.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to reserve
+   * @return true if the units were reserved, false if there are not enough units available
+   * @throws NoSuchElementException the product does not exist
+   */
+  public static boolean reserveProductQuantity(int id, int quantity)
+      throws NoSuchElementException {
+    return reserveUnits(id, quantity, Warehouse.getMain());
+  }
+
+  /**
+   * Removes reserved units of a product from the storage, when their order is confirmed.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity
+   * @throws NoSuchElementException the product does not exist
+   */
+  public static void commitProductQuantity(int id, int quantity) throws NoSuchElementException {
+    commitUnits(id, quantity, Warehouse.getMain());
+    recordChange(id, -quantity);
+    quantityChanges.markChanged();
+  }
+
+  /**
+   * Makes reserved units of a product available again, when their order is cancelled.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity
+   * @throws NoSuchElementException the product does not exist
+   */
+  public static void releaseProductQuantity(int id, int quantity) throws NoSuchElementException {
+    releaseUnits(id, quantity, Warehouse.getMain());
+  }
+
+  /**
+   * Reserves the units of all the lines of a basket, or none of them. The lines are reserved one
+   * by one, in the order of the product ids, in the warehouse that can ship most of them, and if a
+   * line does not have enough units available the lines that were already reserved are released
+   * again.
+   *
+   * <p>The reservations are optimistic, so a basket can fail only because an other basket holds
+   * units that it releases again a moment later, when one of its own lines fails. If the storage
+   * has enough units for the line that failed but some of them are reserved, the basket is
+   * reserved again after a short random wait, which doubles on every retry, up to a few times. A
+   * basket whose units are not in the storage fails at once.
+   *
+   * @param basket the product id - quantity lines of the basket
+   * @return true if all the lines were reserved, false if nothing was reserved
+   * @throws NoSuchElementException a product of the basket does not exist, nothing was reserved
+   */
+  public static boolean reserveBasket(List<int[]> basket) throws NoSuchElementException {
+    int[][] lines = basket.toArray(new int[basket.size()][]);
+    Arrays.sort(lines, (a, b) -> Integer.compare(a[0], b[0]));
+    for (int attempt = 1; ; attempt++) {
+      int failed = reserveLines(lines, findBestWarehouse(basket, false));
+      if (failed < 0) {
+        return true;
+      }
+      int[] line = lines[failed];
+      if (attempt == RESERVE_ATTEMPTS || productQuantities.getQuantity(line[0]) < line[1]) {
+        return false;
+      }
+      long backoff = RESERVE_BACKOFF_NANOS << (attempt - 1);
+      LockSupport.parkNanos(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2));
+    }
+  }
+
+  /**
+   * Reserves the lines of a basket once, see {@link #reserveBasket(List)}.
+   *
+   * @param lines the product id - quantity lines of the basket
+   * @param best the warehouse the lines are reserved in first
+   * @return the index of the line that could not be reserved, -1 if all of them were reserved
+   * @throws NoSuchElementException a product of the basket does not exist, nothing was reserved
+   */
+  private static int reserveLines(int[][] lines, Warehouse best) throws NoSuchElementException {
+    int reserved = 0;
+    try {
+      while (reserved < lines.length
+          && reserveUnits(lines[reserved][0], lines[reserved][1], best)) {
+        reserved++;
+      }
+    } finally {
+      if (reserved < lines.length) {
+        for (int i = 0; i < reserved; i++) {
+          releaseUnits(lines[i][0], lines[i][1], best);
         }
-        i[1] -= quantity;
-        return;
       }
     }
-    throw new NoSuchElementException("Product with such id does not exist");
+    return reserved == lines.length ? -1 : reserved;
+  }
+
+  /**
+   * Removes the reserved units of all the lines of a basket from the storage, when its order is
+   * confirmed. The units are taken from the warehouse that holds the reservations of most of the
+   * lines.
+   *
+   * @param basket the product id - quantity lines of the reserved basket
+   * @return the warehouse the basket is shipped from
+   */
+  public static Warehouse commitBasket(List<int[]> basket) {
+    Warehouse best = findBestWarehouse(basket, true);
+    for (int[] line : basket) {
+      commitUnits(line[0], line[1], best);
+      recordChange(line[0], -line[1]);
+    }
+    quantityChanges.markChanged();
+    return best;
+  }
+
+  /**
+   * Makes the reserved units of all the lines of a basket available again, when its order is
+   * cancelled.
+   *
+   * @param basket the product id - quantity lines of the reserved basket
+   */
+  public static void releaseBasket(List<int[]> basket) {
+    Warehouse best = findBestWarehouse(basket, true);
+    for (int[] line : basket) {
+      releaseUnits(line[0], line[1], best);
+    }
+  }
+
+  /**
+   * Adds the units of all the lines of a storage order to the main warehouse. If a product of the
+   * order does not exist, no units are added.
+   *
+   * @param supplies the product id - quantity lines of the storage order
+   * @throws NoSuchElementException a product of the order does not exist
+   */
+  public static void addBasketQuantities(List<int[]> supplies) throws NoSuchElementException {
+    addBasketQuantities(supplies, Warehouse.MAIN_ID);
+  }
+
+  /**
+   * Adds the units of all the lines of a storage order to a warehouse. If a product of the order
+   * or the warehouse does not exist, no units are added.
+   *
+   * @param supplies the product id - quantity lines of the storage order
+   * @param warehouseId the id of the warehouse that receives the units
+   * @throws NoSuchElementException a product of the order or the warehouse does not exist
+   */
+  public static void addBasketQuantities(List<int[]> supplies, int warehouseId)
+      throws NoSuchElementException {
+    Inventory stock = getWarehouse(warehouseId).getStock();
+    // the products are never removed from the inventory, so they all exist while they are added
+    for (int[] line : supplies) {
+      checkProduct(line[0]);
+    }
+    for (int[] line : supplies) {
+      stock.create(line[0], 0);
+      stock.add(line[0], line[1]);
+      productQuantities.add(line[0], line[1]);
+      recordChange(line[0], line[1]);
+    }
+    quantityChanges.markChanged();
+  }
+
+  /**
+   * Makes the changes of the quantities of the orders and storage orders that are replayed from
+   * their journals at startup, which were made after the quantities were last saved. The journals
+   * are replayed after the warehouses are loaded: the supplies go to the warehouse of their
+   * storage order, or to the main warehouse if it does not exist anymore, and the sold units are
+   * taken from the warehouses like the units of a committed basket. The inventory log, which is
+   * opened after them, starts from the changed quantities. The products that do not exist anymore
+   * are skipped and a quantity never goes below 0.
+   *
+   * @param basket the product id - quantity lines of the order
+   * @param sold true for the units sold by an order, false for the supplies of a storage order
+   * @param warehouseId the id of the warehouse of a storage order, 0 for the main warehouse
+   */
+  static void replayQuantities(List<int[]> basket, boolean sold, int warehouseId) {
+    Warehouse target = Warehouse.searchById(warehouseId);
+    Warehouse best = sold ? findBestWarehouse(basket, false) : null;
+    Inventory stock = (target != null ? target : Warehouse.getMain()).getStock();
+    for (int[] line : basket) {
+      if (!productQuantities.contains(line[0])) {
+        continue;
+      }
+      if (sold) {
+        int removed = changeUnits(line[0], line[1], best, Inventory::removeUpTo, null);
+        productQuantities.add(line[0], -removed);
+        recordChange(line[0], -removed);
+      } else {
+        stock.create(line[0], 0);
+        stock.add(line[0], line[1]);
+        productQuantities.add(line[0], line[1]);
+        recordChange(line[0], line[1]);
+      }
+    }
+    quantityChanges.markChanged();
+  }
+
+  /**
+   * Returns the warehouse with the given id.
+   *
+   * @param warehouseId the id of the warehouse
+   * @return the warehouse
+   * @throws NoSuchElementException the warehouse does not exist
+   */
+  private static Warehouse getWarehouse(int warehouseId) throws NoSuchElementException {
+    Warehouse warehouse = Warehouse.searchById(warehouseId);
+    if (warehouse == null) {
+      throw new NoSuchElementException("Warehouse with such id does not exist");
+    }
+    return warehouse;
+  }
+
+  /**
+   * Checks that a product has a quantity in the storage.
+   *
+   * @param id the id of the product
+   * @throws NoSuchElementException the product does not exist
+   */
+  private static void checkProduct(int id) throws NoSuchElementException {
+    if (!productQuantities.contains(id)) {
+      throw new NoSuchElementException("Product with such id does not exist");
+    }
+  }
+
+  /**
+   * Reserves units of a product in the warehouses, see {@link #changeUnits}. If the warehouses do
+   * not have enough units available together, nothing is reserved.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to reserve
+   * @param preferred the warehouse the units are reserved in first
+   * @return true if the units were reserved, false if there are not enough units available
+   * @throws NoSuchElementException the product does not exist
+   */
+  private static boolean reserveUnits(int id, int quantity, Warehouse preferred)
+      throws NoSuchElementException {
+    checkProduct(id);
+    return changeUnits(id, quantity, preferred, Inventory::reserveUpTo, Storage::unreserve)
+        == quantity;
+  }
+
+  /**
+   * Removes reserved units of a product from the warehouses, see {@link #changeUnits}, and then
+   * from the totals.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity that was sold
+   * @param preferred the warehouse the units are taken from first
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException less units are reserved
+   */
+  private static void commitUnits(int id, int quantity, Warehouse preferred)
+      throws NoSuchElementException {
+    checkProduct(id);
+    int sold = changeUnits(id, quantity, preferred, Inventory::commitUpTo, null);
+    productQuantities.add(id, -sold);
+    if (sold < quantity) {
+      throw new IllegalStateException("Not enough reserved units of product " + id);
+    }
+  }
+
+  /**
+   * Makes reserved units of a product available again in the warehouses, see {@link
+   * #changeUnits}.
+   *
+   * @param id the id of the product
+   * @param quantity the reserved quantity
+   * @param preferred the warehouse the units are released in first
+   * @throws NoSuchElementException the product does not exist
+   * @throws IllegalStateException less units are reserved
+   */
+  private static void releaseUnits(int id, int quantity, Warehouse preferred)
+      throws NoSuchElementException {
+    checkProduct(id);
+    if (changeUnits(id, quantity, preferred, Inventory::releaseUpTo, null) < quantity) {
+      throw new IllegalStateException("Not enough reserved units of product " + id);
+    }
+  }
+
+  /** A change of up to a quantity of the units of a product in a partition of the stock. */
+  private interface PartitionChange {
+    /**
+     * Changes the units.
+     *
+     * @param stock the partition
+     * @param id the id of the product
+     * @param quantity the largest quantity to change
+     * @return the quantity that was changed
+     */
+    int apply(Inventory stock, int id, int quantity);
+  }
+
+  /**
+   * Changes up to a quantity of the units of a product in the partitions of the warehouses: first
+   * in the given warehouse and then in the others, the ones with the most available units first,
+   * until the whole quantity is changed. The partitions are changed one at a time, so the orders
+   * of different warehouses do not contend for the same units.
+   *
+   * @param id the id of the product
+   * @param quantity the quantity to change
+   * @param preferred the warehouse that is changed first
+   * @param change the change of the units of a partition
+   * @param undo the change that undoes the changes made if the whole quantity could not be
+   *     changed, null to keep them
+   * @return the quantity that was changed, 0 if the changes were undone
+   */
+  private static int changeUnits(
+      int id, int quantity, Warehouse preferred, PartitionChange change, PartitionChange undo) {
+    Warehouse[] warehouses = Warehouse.getWarehouses().toArray(new Warehouse[0]);
+    int[] units = new int[warehouses.length];
+    for (int i = 0; i < warehouses.length; i++) {
+      Inventory stock = warehouses[i].getStock();
+      if (warehouses[i] == preferred) {
+        units[i] = Integer.MAX_VALUE;
+      } else {
+        units[i] = stock.contains(id) ? stock.getAvailable(id) : -1;
+      }
+    }
+    // an insertion sort by the units, as there are only a few warehouses
+    for (int i = 1; i < warehouses.length; i++) {
+      for (int j = i; j > 0 && units[j] > units[j - 1]; j--) {
+        Warehouse warehouse = warehouses[j];
+        warehouses[j] = warehouses[j - 1];
+        warehouses[j - 1] = warehouse;
+        int unit = units[j];
+        units[j] = units[j - 1];
+        units[j - 1] = unit;
+      }
+    }
+    int[] changed = new int[warehouses.length];
+    int total = 0;
+    for (int i = 0; i < warehouses.length && total < quantity; i++) {
+      Inventory stock = warehouses[i].getStock();
+      if (stock.contains(id)) {
+        changed[i] = change.apply(stock, id, quantity - total);
+        total += changed[i];
+      }
+    }
+    if (total < quantity && undo != null) {
+      for (int i = 0; i < warehouses.length; i++) {
+        if (changed[i] > 0) {
+          undo.apply(warehouses[i].getStock(), id, changed[i]);
+        }
+      }
+      return 0;
+    }
+    return total;
+  }
+
+  /**
+   * Releases the units reserved in a partition, to undo a reservation, see {@link #changeUnits}.
+   *
+   * @param stock the partition
+   * @param id the id of the product
+   * @param quantity the reserved quantity
+   * @return the quantity
+   */
+  private static int unreserve(Inventory stock, int id, int quantity) {
+    stock.release(id, quantity);
+    return quantity;
+  }
+
+  /**
+   * Adds the units removed from a partition back, to undo a removal, see {@link #changeUnits}.
+   *
+   * @param stock the partition
+   * @param id the id of the product
+   * @param quantity the removed quantity
+   * @return the quantity
+   */
+  private static int putBack(Inventory stock, int id, int quantity) {
+    stock.add(id, quantity);
+    return quantity;
+  }
+
+  /**
+   * Finds the warehouse that can ship most of the lines of a basket in full, and of those the one
+   * that has the most of its units. The units are the available ones for a basket that is being
+   * reserved, and the ones it reserved for a reserved basket.
+   *
+   * @param basket the product id - quantity lines of the basket
+   * @param reserved true to count the reserved units, false to count the available units
+   * @return the warehouse
+   */
+  private static Warehouse findBestWarehouse(List<int[]> basket, boolean reserved) {
+    List<Warehouse> warehouses = Warehouse.getWarehouses();
+    Warehouse best = Warehouse.getMain();
+    if (warehouses.size() == 1) {
+      return best;
+    }
+    int bestLines = -1;
+    long bestUnits = -1;
+    for (Warehouse warehouse : warehouses) {
+      Inventory stock = warehouse.getStock();
+      int lines = 0;
+      long units = 0;
+      for (int[] line : basket) {
+        int quantity = 0;
+        if (stock.contains(line[0])) {
+          quantity = reserved ? stock.getReserved(line[0]) : stock.getAvailable(line[0]);
+        }
+        if (quantity >= line[1]) {
+          lines++;
+        }
+        units += Math.min(quantity, line[1]);
+      }
+      if (lines > bestLines || (lines == bestLines && units > bestUnits)) {
+        best = warehouse;
+        bestLines = lines;
+        bestUnits = units;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Reads the warehouses and the quantities of the warehouses other than the main one from their
+   * files, after the quantities of the storage have been loaded and before the journals are
+   * replayed, see {@link #loadWarehouseQuantities(CsvReader)}.
+   */
+  public static void loadWarehouses() {
+    Warehouse.loadWarehousesFromCsv();
+    if (!WAREHOUSE_QUANTITIES_FILE.exists()) {
+      return;
+    }
+    try (CsvReader reader =
+        new CsvReader(
+            new InputStreamReader(
+                new FileInputStream(WAREHOUSE_QUANTITIES_FILE), StandardCharsets.UTF_8))) {
+      loadWarehouseQuantities(reader);
+    } catch (IOException | NumberFormatException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Moves the units of the warehouses other than the main one out of the main warehouse, which
+   * holds the loaded quantities of the storage. The main warehouse keeps the rest of every total,
+   * and if the other warehouses hold more units than the total of a product, the total is raised
+   * to their sum.
+   *
+   * @param reader the reader of the "warehouse id;product id;quantity;" records
+   * @throws IOException the records could not be read
+   */
+  static void loadWarehouseQuantities(CsvReader reader) throws IOException {
+    Inventory main = Warehouse.getMain().getStock();
+    while (reader.nextRecord()) {
+      Warehouse warehouse = Warehouse.searchById(reader.nextInt());
+      int id = reader.nextInt();
+      int quantity = reader.nextInt();
+      if (warehouse == null
+          || warehouse == Warehouse.getMain()
+          || !productQuantities.contains(id)
+          || quantity <= 0) {
+        continue;
+      }
+      int moved = main.removeUpTo(id, quantity);
+      if (moved < quantity) {
+        productQuantities.add(id, quantity - moved);
+        recordChange(id, quantity - moved);
+        quantityChanges.markChanged();
+      }
+      warehouse.getStock().create(id, 0);
+      warehouse.getStock().add(id, quantity);
+    }
+  }
+
+  /**
+   * Writes the quantities of the warehouses other than the main one to their file, if there are
+   * other warehouses. The file is written together with the quantities of the storage, so the
+   * quantities of the warehouses are as recent as the totals they are loaded into.
+   *
+   * @return true if the file was written or is not needed, else false
+   */
+  public static boolean saveWarehouseQuantities() {
+    List<Warehouse> warehouses = Warehouse.getWarehouses();
+    if (warehouses.size() == 1 && !WAREHOUSE_QUANTITIES_FILE.exists()) {
+      return true;
+    }
+    try (AtomicFileWriter out = new AtomicFileWriter(WAREHOUSE_QUANTITIES_FILE)) {
+      for (Warehouse warehouse : warehouses) {
+        Inventory stock = warehouse.getStock();
+        for (int i = 0; warehouse != Warehouse.getMain() && i < stock.size(); i++) {
+          if (stock.quantityAt(i) != 0) {
+            out.write(
+                FileHandler.getWarehouseQuantityRecord(
+                    warehouse.getId(), stock.idAt(i), stock.quantityAt(i)));
+            out.newLine();
+          }
+        }
+      }
+      out.commit();
+      return true;
+    } catch (IOException e) {
+      System.out.println("The quantities of the warehouses could not be saved");
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Records a change of the quantity of a product in the storage in the inventory log, notes it
+   * for the reorder engine and adds it to the quantity of the low stock alerts. The change is
+   * only queued here and consumed on the thread of the stock changes, so that the threads that
+   * change the quantities do not wait for the locks of the consumers or for the disk. Only the
+   * change is queued: a quantity read after it would not be atomic with it, and the quantities of
+   * two concurrent changes could be queued in the wrong order.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity
+   */
+  private static void recordChange(int id, int change) {
+    stockChanges.submit(id, change);
+  }
+
+  /**
+   * Consumes a change of the quantity of a product on the thread of the stock changes, see {@link
+   * #recordChange(int, int)}.
+   *
+   * @param id the id of the product
+   * @param change the change of the quantity
+   */
+  private static void consumeChange(int id, int change) {
+    inventoryLog.record(id, change);
+    ReorderEngine.recordStockChange(id);
+    StockAlerts.update(id, change);
+  }
+
+  /**
+   * Waits until the changes of the quantities made before the call have been recorded in the
+   * inventory log and passed to the reorder engine and the low stock alerts.
+   */
+  public static void awaitStockChanges() {
+    stockChanges.await();
+  }
+
+  /**
+   * Returns the published prices of the products, making them again from the product list if a
+   * product was added or deleted since they were published.
+   *
+   * @return the prices of the products
+   */
+  public static PriceTable getPriceTable() {
+    PriceTable prices = priceTable;
+    if (prices != null && prices.getListSize() == products.size()) {
+      return prices;
+    }
+    synchronized (priceLock) {
+      prices = priceTable;
+      if (prices == null || prices.getListSize() != products.size()) {
+        prices = new PriceTable(IdAllocator.PRICE_VERSIONS.next(), products);
+        priceTable = prices;
+      }
+      return prices;
+    }
+  }
+
+  /**
+   * Returns the quantity of a product in the storage at a point in time, from the inventory log.
+   *
+   * @param id the id of the product
+   * @param time the point in time, in epoch milliseconds of the local date and time read as UTC
+   * @return the quantity at that time, -1 if the log does not reach back to that time
+   * @throws IOException the log could not be read
+   * @throws IllegalStateException the log is not open
+   */
+  public static int getProductQuantityAt(int id, long time) throws IOException {
+    stockChanges.await();
+    return inventoryLog.getQuantityAt(id, time);
+  }
+
+  /**
+   * Opens the inventory log, after the quantities have been loaded, so that the changes of the
+   * quantities are recorded from now on.
+   */
+  public static void openInventoryLog() {
+    // the changes made before the log is opened are part of the quantities it starts from
+    stockChanges.await();
+    try {
+      inventoryLog.open(productQuantities);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Syncs and closes the inventory log. */
+  public static void closeInventoryLog() {
+    stockChanges.await();
+    try {
+      inventoryLog.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 
   /** Contains the user prompts for creating a new product. */
@@ -252,14 +1009,15 @@ public class Storage {
   }
 
   /**
-   * Sets a specific product's price, with the given id to the given price.
+   * Sets a specific product's price, with the given id to the given price, and publishes the new
+   * prices.
    *
    * @param id the id of the product
    * @param price the new price
    * @throws NoSuchElementException product with such id does not exist
    * @throws NumberFormatException invalid price
    */
-  private static void changeProductPrice(int id, double price)
+  public static void changeProductPrice(int id, double price)
       throws NoSuchElementException, NumberFormatException {
     if (price <= 0) {
       throw new NumberFormatException("Price must be larger than 0");
@@ -267,7 +1025,17 @@ public class Storage {
     Product product = searchById(id);
     if (product == null) {
       throw new NoSuchElementException("Product with such id does not exist");
-    } else product.setSalePrice(price);
+    }
+    synchronized (priceLock) {
+      product.setSalePrice(price);
+      PriceTable prices = priceTable;
+      // a table that must be made again reads the new price from the product
+      if (prices != null && prices.getListSize() == products.size()) {
+        priceTable = prices.withPrice(id, price, IdAllocator.PRICE_VERSIONS.next());
+      } else {
+        priceTable = null;
+      }
+    }
   }
 
   /** Contains the user prompts for deleting a product from the product list. */
@@ -313,6 +1081,22 @@ public class Storage {
     }
   }
 
+  /**
+   * Creates the productQuantity elements by streaming the records of the product id-quantities
+   * .csv file.
+   *
+   * @param reader the reader of the product id-quantities file
+   * @throws IOException the file could not be read
+   */
+  public static void createProductQuantitiesFromCsv(CsvReader reader) throws IOException {
+    int id, quantity;
+    while (reader.nextRecord()) {
+      id = reader.nextInt();
+      quantity = reader.nextInt();
+      Storage.createProductQuantity(id, quantity);
+    }
+  }
+
   /**
    * Contains the user prompts for searching and printing a product from the product list by its id.
    */
@@ -343,9 +1127,75 @@ public class Storage {
     }
   }
 
+  /**
+   * Prints the products that have less units in the storage than their low stock threshold, from
+   * the smallest quantity to the largest, and the recent low stock alerts.
+   */
+  public static void printLowStockProducts() {
+    int[] ids = StockAlerts.getLowStockProducts();
+    if (ids.length == 0) {
+      System.out.println("No product is below its low stock threshold.");
+    }
+    for (int id : ids) {
+      Product product = searchById(id);
+      if (product != null) {
+        System.out.println(
+            product.toStringWithQuantity() + " | Threshold: " + StockAlerts.getThreshold(id));
+      }
+    }
+    ArrayList<StockAlerts.Alert> alerts = StockAlerts.getRecentAlerts();
+    if (!alerts.isEmpty()) {
+      System.out.println("--- Recent low stock alerts ---");
+      for (StockAlerts.Alert alert : alerts) {
+        System.out.println(alert);
+      }
+    }
+  }
+
+  /** Contains the user prompts for setting the low stock threshold of a product. */
+  public static void setLowStockThresholdMenu() {
+    Scanner in = new Scanner(System.in);
+    String input;
+    int id;
+    int threshold;
+    for (; ; ) {
+      try {
+        System.out.print(
+            "Enter the id of the product whose low stock threshold you want to set\n"
+                + "To cancel, press \"enter\": ");
+        input = in.nextLine();
+        if (input.equals("")) {
+          System.out.println("Process cancelled. Returning to previous menu...");
+          return;
+        }
+        id = Integer.parseInt(input);
+        if (searchById(id) == null) {
+          System.out.println("Product with such id does not exist. Try again...");
+          continue;
+        }
+        System.out.print(
+            "Current threshold: " + StockAlerts.getThreshold(id) + " units\n"
+                + "Enter the new threshold, or -1 for the default one: ");
+        threshold = Integer.parseInt(in.nextLine());
+        if (threshold < -1) {
+          System.out.println("Threshold must be a non-negative integer. Try again...");
+          continue;
+        }
+        StockAlerts.setThreshold(id, threshold);
+        System.out.println("Threshold set!");
+        return;
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid input given. Try again...");
+      } catch (NoSuchElementException e) {
+        System.out.println("Product with such id does not exist. Try again...");
+      }
+    }
+  }
+
   /**
    * Checks if a product with a given id, has at least the given amount of units available in the
-   * storage. Returns true in case the quantity is enough, otherwise, returns false.
+   * storage, not counting the reserved units. Returns true in case the quantity is enough,
+   * otherwise, returns false.
    *
    * @param id the id of the product
    * @param quantity the quantity of the product
@@ -355,7 +1205,7 @@ public class Storage {
   public static boolean checkIfQuantityIsEnough(int id, int quantity)
       throws NoSuchElementException {
     int productQuantity;
-    productQuantity = Storage.getProductQuantity(id);
+    productQuantity = Storage.getAvailableQuantity(id);
     if (productQuantity >= quantity) {
       return true;
     } else {
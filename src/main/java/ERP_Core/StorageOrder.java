@@ -1,11 +1,13 @@
 package ERP_Core;
 
-import java.util.Date;
+import java.io.IOException;
 import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class represents an order for resupplying the shop's storage, made in the ERP system.
@@ -14,28 +16,28 @@ import java.util.ArrayList;
  * @author Aggela Trivola
  */
 public class StorageOrder {
-  /** The counter for the unique orders created. */
-  private static int counter = FileHandler.getStorageOrderCounterFromFile();
   /** The unique number of each order. */
   private final int storageOrderNumber;
-  /** The date the order was made. */
-  private final String storageOrderDate;
+  /** The date the order was made, as epoch milliseconds of the local date and time. */
+  private final long storageOrderTime;
   /** The total cost of the order */
   private final double totalCost;
   /** The supplier object who the order concerned. */
   private final Supplier supplier;
   /** The storekeeper object who made the order. */
   private final Storekeeper storekeeper;
+  /** The id of the warehouse that received the supplies. */
+  private final int warehouseId;
   /** The list of supplies that the order contains. */
-  public ArrayList<int[]> supplies = new ArrayList<int[]>();
+  public Basket supplies = new Basket();
   /** The list of orders made */
   public static ArrayList<StorageOrder> orders = new ArrayList<StorageOrder>();
 
   /**
    * Constructor for creating a new order.
    *
-   * @param storageOrderDate the date as a String when the order was created in "dd/MM/yyyy
-   *     hh:mm:ss" format
+   * @param storageOrderDate the date as a String when the order was created in "dd-MM-yyyy
+   *     HH:mm:ss" format
    * @param totalCost the total cost of the basket products as double, in the same currency as the
    *     products
    * @param supplier the Supplier object of the order
@@ -46,15 +48,60 @@ public class StorageOrder {
       String storageOrderDate,
       Supplier supplier,
       Storekeeper storekeeper,
-      ArrayList<int[]> supplies,
+      List<int[]> supplies,
       double totalCost) {
-    this.storageOrderNumber = ++counter;
-    this.storageOrderDate = storageOrderDate;
-    this.supplies = supplies;
+    this(storageOrderDate, supplier, storekeeper, supplies, totalCost, Warehouse.MAIN_ID);
+  }
+
+  /**
+   * Constructor for creating a new order, whose supplies are received by a warehouse.
+   *
+   * @param storageOrderDate the date as a String when the order was created in "dd-MM-yyyy
+   *     HH:mm:ss" format
+   * @param supplier the Supplier object of the order
+   * @param storekeeper the Storekeeper object of the order, who made the order
+   * @param supplies the products and their quantities added to the storage with the order
+   * @param totalCost the total cost of the basket products as double, in the same currency as the
+   *     products
+   * @param warehouseId the id of the warehouse that received the supplies
+   */
+  public StorageOrder(
+      String storageOrderDate,
+      Supplier supplier,
+      Storekeeper storekeeper,
+      List<int[]> supplies,
+      double totalCost,
+      int warehouseId) {
+    this(
+        DateStamp.parse(storageOrderDate), supplier, storekeeper, supplies, totalCost, warehouseId);
+  }
+
+  /**
+   * Constructor for creating a new order, whose supplies are received by a warehouse.
+   *
+   * @param storageOrderTime the date the order was created, see {@link DateStamp}
+   * @param supplier the Supplier object of the order
+   * @param storekeeper the Storekeeper object of the order, who made the order
+   * @param supplies the products and their quantities added to the storage with the order
+   * @param totalCost the total cost of the basket products
+   * @param warehouseId the id of the warehouse that received the supplies
+   */
+  StorageOrder(
+      long storageOrderTime,
+      Supplier supplier,
+      Storekeeper storekeeper,
+      List<int[]> supplies,
+      double totalCost,
+      int warehouseId) {
+    this.storageOrderNumber = IdAllocator.STORAGE_ORDERS.next();
+    this.storageOrderTime = storageOrderTime;
+    this.supplies = Basket.of(supplies);
     this.totalCost = totalCost;
     this.supplier = supplier;
     this.storekeeper = storekeeper;
+    this.warehouseId = warehouseId;
     orders.add(this);
+    ReorderEngine.recordSupplier(supplier, supplies);
   }
 
   /**
@@ -63,8 +110,8 @@ public class StorageOrder {
    *
    * @param storageOrderNumber the id number that was assigned to the order when it was first
    *     created
-   * @param storageOrderDate the date as a String when the order was created in "dd/MM/yyyy
-   *     hh:mm:ss" format
+   * @param storageOrderDate the date as a String when the order was created in "dd-MM-yyyy
+   *     HH:mm:ss" format
    * @param totalCost the total cost of the basket products as double, in the same currency as the
    *     products
    * @param supplier the Supplier object of the order
@@ -77,23 +124,71 @@ public class StorageOrder {
       double totalCost,
       Supplier supplier,
       Storekeeper storekeeper,
-      ArrayList<int[]> supplies) {
+      List<int[]> supplies) {
+    this(
+        storageOrderNumber,
+        DateStamp.parse(storageOrderDate),
+        totalCost,
+        supplier,
+        storekeeper,
+        supplies,
+        Warehouse.MAIN_ID,
+        true);
+  }
+
+  /**
+   * Constructor for an already created storage order, that is only added to the order list if it
+   * is registered. The storage orders looked up in the repository are not registered, as they are
+   * already part of the list.
+   *
+   * @param storageOrderNumber the id number that was assigned to the order when it was first
+   *     created
+   * @param storageOrderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the total cost of the basket products
+   * @param supplier the Supplier object of the order
+   * @param storekeeper the Storekeeper object of the order, who made the order
+   * @param supplies the list of the products resupplied by the order
+   * @param warehouseId the id of the warehouse that received the supplies
+   * @param register whether the order is added to the order list
+   */
+  private StorageOrder(
+      int storageOrderNumber,
+      long storageOrderTime,
+      double totalCost,
+      Supplier supplier,
+      Storekeeper storekeeper,
+      List<int[]> supplies,
+      int warehouseId,
+      boolean register) {
     this.storageOrderNumber = storageOrderNumber;
-    this.storageOrderDate = storageOrderDate;
+    this.storageOrderTime = storageOrderTime;
     this.totalCost = totalCost;
     this.supplier = supplier;
     this.storekeeper = storekeeper;
-    this.supplies = supplies;
-    orders.add(this);
+    this.supplies = Basket.of(supplies);
+    this.warehouseId = warehouseId;
+    if (register) {
+      orders.add(this);
+      ReorderEngine.recordSupplier(supplier, supplies);
+    }
   }
 
   /**
-   * Returns the Date of the order.
+   * Returns the Date of the order, formatted as "dd-MM-yyyy HH:mm:ss".
    *
    * @return storageOrderDate, type String
    */
   public String getStorageOrderDate() {
-    return storageOrderDate;
+    return DateStamp.format(storageOrderTime);
+  }
+
+  /**
+   * Returns the date of the order as epoch milliseconds of its local date and time.
+   *
+   * @return the date of the order, see {@link DateStamp}
+   */
+  public long getStorageOrderTime() {
+    return storageOrderTime;
   }
 
   /**
@@ -132,12 +227,21 @@ public class StorageOrder {
     return storageOrderNumber;
   }
 
+  /**
+   * Returns the id of the warehouse that received the supplies.
+   *
+   * @return the warehouse id
+   */
+  public int getWarehouseId() {
+    return warehouseId;
+  }
+
   /**
    * Returns the supplies from the list.
    *
    * @return supplies
    */
-  public ArrayList<int[]> getSupplies() {
+  public Basket getSupplies() {
     return supplies;
   }
 
@@ -156,7 +260,7 @@ public class StorageOrder {
    * @return counter of orders as an int
    */
   public static int getIdCounter() {
-    return counter;
+    return IdAllocator.STORAGE_ORDERS.getCounter();
   }
 
   /** Prints all the storage orders. */
@@ -237,7 +341,26 @@ public class StorageOrder {
    * @param totalCost the total cost of the order
    */
   public static void previewOrder(
-      Storekeeper storekeeper, Supplier supplier, ArrayList<int[]> supplies, double totalCost) {
+      Storekeeper storekeeper, Supplier supplier, List<int[]> supplies, double totalCost) {
+    previewOrder(storekeeper, supplier, supplies, totalCost, Warehouse.MAIN_ID);
+  }
+
+  /**
+   * Prints a preview of the order, in the appropriate format, with the warehouse that receives
+   * the supplies when there are several warehouses.
+   *
+   * @param storekeeper the Storekeeper who made the order
+   * @param supplier the Supplier who the order concerns
+   * @param supplies the supplies list that the supplier resupplied
+   * @param totalCost the total cost of the order
+   * @param warehouseId the id of the warehouse that receives the supplies
+   */
+  public static void previewOrder(
+      Storekeeper storekeeper,
+      Supplier supplier,
+      List<int[]> supplies,
+      double totalCost,
+      int warehouseId) {
     int storekeeperId = storekeeper.getIdUser();
     System.out.println("***Preview of Storage Order***");
     System.out.println();
@@ -250,6 +373,7 @@ public class StorageOrder {
     } else {
       System.out.println("Supplier Deleted");
     }
+    printWarehouse(warehouseId);
     System.out.println("\n---Supplies List: ");
     for (int[] prod : supplies) {
       printProduct(prod[0], prod[1]);
@@ -259,6 +383,19 @@ public class StorageOrder {
     System.out.println("---Storage order's total cost: " + totalCost);
   }
 
+  /**
+   * Prints the warehouse that receives the supplies of an order, if there are several warehouses.
+   *
+   * @param warehouseId the id of the warehouse
+   */
+  private static void printWarehouse(int warehouseId) {
+    if (Warehouse.getWarehouses().size() > 1) {
+      Warehouse warehouse = Warehouse.searchById(warehouseId);
+      System.out.println(
+          "---Warehouse: " + (warehouse != null ? warehouse.getName() : "Warehouse Deleted"));
+    }
+  }
+
   /** Prints the storage order after it has been confirmed, in the appropriate format. */
   public void printFinalOrder() {
     System.out.println("\n***Final Order Report***");
@@ -281,6 +418,7 @@ public class StorageOrder {
     } else {
       System.out.println("Supplier Deleted");
     }
+    printWarehouse(warehouseId);
     System.out.println("\n---Product Basket: ");
     for (int[] prod : this.getSupplies()) {
       try {
@@ -303,8 +441,9 @@ public class StorageOrder {
     String ans;
     double totalCost;
     Supplier supplier;
-    ArrayList<int[]> supplies;
+    Basket supplies;
     int id;
+    int warehouseId;
     for (; ; ) {
       try {
         for (; ; ) {
@@ -324,29 +463,15 @@ public class StorageOrder {
           }
           break;
         }
+        warehouseId = readWarehouseId(in);
         supplies = fillBasket();
-        for (; ; ) {
-          try {
-            System.out.print("Enter the total cost of the order: ");
-            totalCost = in.nextDouble();
-            in.nextLine();
-            if (totalCost > 0) {
-              break;
-            } else {
-              System.out.println("Price must be larger than 0. Try again...");
-              continue;
-            }
-          } catch (InputMismatchException e) {
-            System.err.println("Please enter a number. Try again...");
-            in.nextLine();
-          }
-        }
-        StorageOrder.previewOrder(storekeeper, supplier, supplies, totalCost);
+        totalCost = readTotalCost(in);
+        StorageOrder.previewOrder(storekeeper, supplier, supplies, totalCost, warehouseId);
         for (; ; ) {
           System.out.print("Confirm storge order? (Y/N): ");
           ans = in.nextLine();
           if (ans.toLowerCase().equals("y") || ans.toLowerCase().equals("yes")) {
-            StorageOrder.confirmOrder(storekeeper, supplier, supplies, totalCost);
+            StorageOrder.confirmOrder(storekeeper, supplier, supplies, totalCost, warehouseId);
             return;
           } else if (ans.toLowerCase().equals("n") || ans.toLowerCase().equals("no")) {
             System.out.println("Process cancelled. Returning to previous menu...");
@@ -365,15 +490,124 @@ public class StorageOrder {
     }
   }
 
+  /**
+   * Contains the prompts in order to make the storage orders drafted by the reorder engine, for
+   * the products that reached their reorder point. Every draft is previewed and can be confirmed
+   * or skipped.
+   *
+   * @param storekeeper the Storekeeper who made the orders
+   */
+  public static void makeDraftedOrders(Storekeeper storekeeper) {
+    Scanner in = new Scanner(System.in);
+    String ans;
+    LinkedHashMap<Integer, Basket> drafts = ReorderEngine.draftStorageOrders();
+    if (drafts.isEmpty()) {
+      System.out.println("No product has reached its reorder point.");
+      return;
+    }
+    for (Map.Entry<Integer, Basket> draft : drafts.entrySet()) {
+      Supplier supplier = Supplier.searchById(draft.getKey());
+      Basket supplies = draft.getValue();
+      if (supplier == null) {
+        System.out.println(
+            "No supplier is known for the following products, order them manually:");
+        for (int[] line : supplies) {
+          printProduct(line[0], line[1]);
+        }
+        continue;
+      }
+      System.out.println("*** Drafted Storage Order to " + supplier.getName() + " ***");
+      for (int[] line : supplies) {
+        System.out.printf(
+            "Product %d: %.2f units sold per day, reorder point %d, %d units available\n",
+            line[0],
+            ReorderEngine.getDailyDemand(line[0]),
+            ReorderEngine.getReorderPoint(line[0]),
+            Storage.getAvailableQuantity(line[0]));
+      }
+      for (; ; ) {
+        System.out.print("Make this storage order? (Y/N): ");
+        ans = in.nextLine().toLowerCase();
+        if (ans.equals("y") || ans.equals("yes") || ans.equals("n") || ans.equals("no")) {
+          break;
+        }
+        System.out.println(
+            "Please enter either \"Yes\"(\"Y\") or \"No\"(\"N\").\n" + "Try again...");
+      }
+      if (ans.startsWith("n")) {
+        System.out.println("Storage order skipped.");
+        continue;
+      }
+      double totalCost = readTotalCost(in);
+      StorageOrder.previewOrder(storekeeper, supplier, supplies, totalCost);
+      StorageOrder.confirmOrder(storekeeper, supplier, supplies, totalCost);
+    }
+  }
+
+  /**
+   * Prompts for the warehouse that receives a storage order, if there are several warehouses,
+   * until the id of a warehouse is given.
+   *
+   * @param in the scanner of the input
+   * @return the id of the warehouse, the main one if there is only one warehouse
+   */
+  private static int readWarehouseId(Scanner in) {
+    if (Warehouse.getWarehouses().size() == 1) {
+      return Warehouse.MAIN_ID;
+    }
+    Warehouse.printAllWarehouses();
+    for (; ; ) {
+      System.out.print(
+          "Enter the id of the warehouse that receives the order. "
+              + "For the main warehouse, press \"enter\": ");
+      String ans = in.nextLine();
+      if (ans.equals("")) {
+        return Warehouse.MAIN_ID;
+      }
+      try {
+        if (Warehouse.searchById(Integer.parseInt(ans)) != null) {
+          return Integer.parseInt(ans);
+        }
+        System.out.println("Warehouse with such id does not exist. Try again...");
+      } catch (NumberFormatException e) {
+        System.out.println("Invalid input given. Try again...");
+      }
+    }
+  }
+
+  /**
+   * Prompts for the total cost of a storage order, until a number larger than 0 is given.
+   *
+   * @param in the scanner of the input
+   * @return the total cost of the order
+   */
+  private static double readTotalCost(Scanner in) {
+    double totalCost;
+    for (; ; ) {
+      try {
+        System.out.print("Enter the total cost of the order: ");
+        totalCost = in.nextDouble();
+        in.nextLine();
+        if (totalCost > 0) {
+          return totalCost;
+        }
+        System.out.println("Price must be larger than 0. Try again...");
+      } catch (InputMismatchException e) {
+        System.err.println("Please enter a number. Try again...");
+        in.nextLine();
+      }
+    }
+  }
+
   /**
    * Contains the prompts in order for the user to fill the order basket.
    *
    * @return the supplies of the order
    */
-  public static ArrayList<int[]> fillBasket() {
+  public static Basket fillBasket() {
     Scanner in = new Scanner(System.in);
     String input;
-    ArrayList<int[]> tempBasket = new ArrayList<int[]>();
+    Basket tempBasket = new Basket();
     int[] tempProduct = new int[2];
     boolean alreadyExists;
     for (; ; ) {
@@ -394,7 +628,7 @@ public class StorageOrder {
             checkIfProductAlreadyExistsAndAddQuantity(tempProduct[0], tempProduct[1], tempBasket);
         if (alreadyExists == false) {
           if (Storage.searchById(tempProduct[0]) != null) {
-            tempBasket.add(tempProduct);
+            tempBasket.add(tempProduct[0], tempProduct[1]);
           } else {
             throw new NoSuchElementException();
           }
@@ -412,9 +646,8 @@ public class StorageOrder {
   }
 
   /**
-   * Checks if a given product id exists in the given ArrayList. If it does, the existing's product
-   * quantity is increased, otherwise, a new entry with the new id and quantity is created on the
-   * ArrayList.
+   * Checks if a given product id exists in the given supplies. If it does, the existing's product
+   * quantity is increased.
    *
    * @param id the product id to add
    * @param quantity the product quantity to add
@@ -422,19 +655,19 @@ public class StorageOrder {
    * @return true if product exists already, else false
    */
   public static boolean checkIfProductAlreadyExistsAndAddQuantity(
-      int id, int quantity, ArrayList<int[]> supplies) {
-    for (int[] line : supplies) {
-      if (line[0] == id) {
-        line[1] += quantity;
-        return true;
-      }
+      int id, int quantity, Basket supplies) {
+    int line = supplies.findLine(id);
+    if (line < 0) {
+      return false;
     }
-    return false;
+    supplies.setQuantity(line, supplies.getQuantity(line) + quantity);
+    return true;
   }
 
   /**
    * Makes the needed changes in the storage product quantities, and creates the order object with
-   * the system's current date and time.
+   * the system's current date and time. The new storage order is appended to the storage order
+   * journal.
    *
    * @param storekeeper the storekeeper who made the order
    * @param supplier the supplier who the order concerns
@@ -442,19 +675,36 @@ public class StorageOrder {
    * @param totalCost the total cost of the order
    */
   public static void confirmOrder(
-      Storekeeper storekeeper, Supplier supplier, ArrayList<int[]> supplies, double totalCost) {
-    for (int[] product : supplies) {
-      try {
-        // add products to storage
-        Storage.addProductQuantity(product[0], product[1]);
-      } catch (NoSuchElementException e) {
-        e.printStackTrace();
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
+      Storekeeper storekeeper, Supplier supplier, List<int[]> supplies, double totalCost) {
+    confirmOrder(storekeeper, supplier, supplies, totalCost, Warehouse.MAIN_ID);
+  }
+
+  /**
+   * Makes the needed changes in the product quantities of a warehouse, and creates the order
+   * object with the system's current date and time. The new storage order is appended to the
+   * storage order journal.
+   *
+   * @param storekeeper the storekeeper who made the order
+   * @param supplier the supplier who the order concerns
+   * @param supplies the supplies list
+   * @param totalCost the total cost of the order
+   * @param warehouseId the id of the warehouse that receives the supplies
+   */
+  public static void confirmOrder(
+      Storekeeper storekeeper,
+      Supplier supplier,
+      List<int[]> supplies,
+      double totalCost,
+      int warehouseId) {
+    try {
+      Storage.addBasketQuantities(supplies, warehouseId);
+    } catch (NoSuchElementException e) {
+      System.out.println(e.getMessage() + ". The storage order was not made.");
+      return;
     }
-    String orderDate = getCurrentDate();
-    StorageOrder newOrder = new StorageOrder(orderDate, supplier, storekeeper, supplies, totalCost);
+    StorageOrder newOrder =
+        new StorageOrder(DateStamp.now(), supplier, storekeeper, supplies, totalCost, warehouseId);
+    Main.getRepository().appendStorageOrder(newOrder);
     newOrder.printFinalOrder();
   }
 
@@ -464,9 +714,7 @@ public class StorageOrder {
    * @return the system's current date and time
    */
   public static String getCurrentDate() {
-    SimpleDateFormat dateFormatter = new SimpleDateFormat("dd-MM-yyyy hh:mm:ss");
-    Date date = new Date();
-    return dateFormatter.format(date);
+    return DateStamp.format(DateStamp.now());
   }
 
   /**
@@ -479,35 +727,216 @@ public class StorageOrder {
     int storekeeperId;
     int orderNo;
     double totalCost;
-    ArrayList<int[]> supplies;
-    String orderDate;
-    Supplier supplier = null;
-    Storekeeper storekeeper;
-    int[] temp = null;
+    Basket supplies;
+    long orderTime;
+    int warehouseId;
     for (ArrayList<String> order : orders) {
-      supplies = new ArrayList<int[]>();
+      supplies = new Basket((order.size() - 5) / 2);
       orderNo = Integer.parseInt(order.get(0));
-      orderDate = order.get(1);
+      orderTime = DateStamp.parse(order.get(1));
       totalCost = Double.parseDouble(order.get(2));
       supplierId = Integer.parseInt(order.get(3));
       storekeeperId = Integer.parseInt(order.get(4));
-      try {
-        supplier = Supplier.searchById(supplierId);
-      } catch (NoSuchElementException e) {
-        supplier = null;
+      for (int i = 5; i + 1 < order.size(); i += 2) {
+        supplies.add(Integer.parseInt(order.get(i)), Integer.parseInt(order.get(i + 1)));
       }
-      try {
-        storekeeper = (Storekeeper) User.searchUserById(storekeeperId);
-      } catch (NoSuchElementException e) {
-        storekeeper = null;
+      // an odd number of fields ends with the warehouse
+      warehouseId = order.size() % 2 == 0 ? Integer.parseInt(order.get(order.size() - 1)) : 0;
+      restoreStorageOrder(
+          orderNo, orderTime, totalCost, supplierId, storekeeperId, supplies, warehouseId);
+    }
+  }
+
+  /**
+   * Creates the storage orders by streaming the records of a storage orders .csv file. The values
+   * are parsed directly by the reader, so no intermediate lists of strings are created.
+   *
+   * @param reader the reader of the storage orders file
+   * @throws IOException the file could not be read
+   */
+  public static void createStorageOrdersFromCsv(CsvReader reader) throws IOException {
+    createStorageOrdersFromCsv(reader, Integer.MIN_VALUE, false);
+  }
+
+  /**
+   * Creates the storage orders of the storage order journal whose number is larger than the given
+   * one, and adds their supplies to the quantities of the storage, which were last saved before
+   * they were made. The supplies are added to the totals before the warehouses are loaded, so they
+   * are counted in the main warehouse. The records of storage orders that are already loaded are
+   * skipped, their supplies are part of the saved quantities.
+   *
+   * @param reader the reader of the storage order journal
+   * @param lastOrderNo the number of the last storage order already loaded, {@link
+   *     Integer#MIN_VALUE} if no storage order is loaded
+   * @return the number of storage orders created
+   * @throws IOException the journal could not be read
+   */
+  public static int replayStorageOrdersFromJournal(CsvReader reader, int lastOrderNo)
+      throws IOException {
+    return createStorageOrdersFromCsv(reader, lastOrderNo, true);
+  }
+
+  /**
+   * Creates the storage orders of a .csv file or journal whose number is larger than the given
+   * one. The records of storage orders that are already loaded are skipped.
+   *
+   * @param reader the reader of the storage orders file or journal
+   * @param lastOrderNo the number of the last storage order already loaded
+   * @param replay true to add the supplies of the storage orders to the storage as well
+   * @return the number of storage orders created
+   * @throws IOException the file could not be read
+   */
+  private static int createStorageOrdersFromCsv(CsvReader reader, int lastOrderNo, boolean replay)
+      throws IOException {
+    int created = 0;
+    int supplierId;
+    int storekeeperId;
+    int orderNo;
+    double totalCost;
+    Basket supplies;
+    long orderTime;
+    int warehouseId;
+    while (reader.nextRecord()) {
+      orderNo = reader.nextInt();
+      if (orderNo <= lastOrderNo) {
+        continue;
+      }
+      orderTime = reader.nextDate();
+      totalCost = reader.nextDouble();
+      supplierId = reader.nextInt();
+      storekeeperId = reader.nextInt();
+      supplies = new Basket(reader.remainingFields() / 2);
+      warehouseId = 0;
+      while (reader.hasNextField()) {
+        int value = reader.nextInt();
+        if (!reader.hasNextField()) {
+          // an odd number of fields ends with the warehouse
+          warehouseId = value;
+          break;
+        }
+        supplies.add(value, reader.nextInt());
       }
-      for (int i = 5; i < order.size(); i += 2) {
-        temp = new int[2];
-        temp[0] = Integer.parseInt(order.get(i));
-        temp[1] = Integer.parseInt(order.get(i + 1));
-        supplies.add(temp);
+      restoreStorageOrder(
+          orderNo, orderTime, totalCost, supplierId, storekeeperId, supplies, warehouseId);
+      if (replay) {
+        Storage.replayQuantities(supplies, false, warehouseId);
       }
-      new StorageOrder(orderNo, orderDate, totalCost, supplier, storekeeper, supplies);
+      created++;
+    }
+    return created;
+  }
+
+  /**
+   * Creates the storage orders of a parsed storage orders file, by linking the stored supplier and
+   * storekeeper ids to the loaded objects.
+   *
+   * @param batch the parsed records of the storage orders file
+   */
+  public static void createStorageOrdersFromBatch(OrderBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      restoreStorageOrder(
+          batch.getOrderNo(i),
+          batch.getDateMillis(i),
+          batch.getTotalCost(i),
+          batch.getPartnerId(i),
+          batch.getUserId(i),
+          batch.getBasket(i),
+          batch.getLocationId(i));
+    }
+  }
+
+  /**
+   * Creates an already existing storage order, by linking the stored supplier and storekeeper ids
+   * to the loaded objects. An id that does not exist anymore results in a null reference. The
+   * counter is moved to the restored order number, in case the counters file was not written after
+   * the order was created.
+   *
+   * @param orderNo the storage order's number
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the order's total cost
+   * @param supplierId the id of the supplier of the order
+   * @param storekeeperId the id of the storekeeper who made the order
+   * @param supplies the products and their quantities added to the storage with the order
+   * @param warehouseId the id of the warehouse that received the supplies, 0 for the main one
+   * @return the restored storage order
+   */
+  static StorageOrder restoreStorageOrder(
+      int orderNo,
+      long orderTime,
+      double totalCost,
+      int supplierId,
+      int storekeeperId,
+      List<int[]> supplies,
+      int warehouseId) {
+    IdAllocator.STORAGE_ORDERS.observe(orderNo);
+    return new StorageOrder(
+        orderNo,
+        orderTime,
+        totalCost,
+        findSupplier(supplierId),
+        findStorekeeper(storekeeperId),
+        supplies,
+        warehouseId > 0 ? warehouseId : Warehouse.MAIN_ID,
+        true);
+  }
+
+  /**
+   * Creates a view of a stored storage order, linked to the loaded supplier and storekeeper like a
+   * restored storage order, without adding it to the order list.
+   *
+   * @param orderNo the storage order's number
+   * @param orderTime the date the order was created, see {@link DateStamp}
+   * @param totalCost the order's total cost
+   * @param supplierId the id of the supplier of the order
+   * @param storekeeperId the id of the storekeeper who made the order
+   * @param supplies the products and their quantities added to the storage with the order
+   * @param warehouseId the id of the warehouse that received the supplies, 0 for the main one
+   * @return the storage order view
+   */
+  static StorageOrder createView(
+      int orderNo,
+      long orderTime,
+      double totalCost,
+      int supplierId,
+      int storekeeperId,
+      List<int[]> supplies,
+      int warehouseId) {
+    return new StorageOrder(
+        orderNo,
+        orderTime,
+        totalCost,
+        findSupplier(supplierId),
+        findStorekeeper(storekeeperId),
+        supplies,
+        warehouseId > 0 ? warehouseId : Warehouse.MAIN_ID,
+        false);
+  }
+
+  /**
+   * Returns the supplier with the given id, or null for a deleted supplier.
+   *
+   * @param supplierId the id of the supplier
+   * @return the supplier, or null
+   */
+  private static Supplier findSupplier(int supplierId) {
+    try {
+      return Supplier.searchById(supplierId);
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the storekeeper with the given id, or null for a deleted storekeeper.
+   *
+   * @param storekeeperId the id of the storekeeper
+   * @return the storekeeper, or null
+   */
+  private static Storekeeper findStorekeeper(int storekeeperId) {
+    try {
+      return (Storekeeper) User.searchUserById(storekeeperId);
+    } catch (NoSuchElementException e) {
+      return null;
     }
   }
 }
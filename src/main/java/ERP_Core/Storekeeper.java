@@ -71,6 +71,7 @@ public class Storekeeper extends User {
             + "3) Make a new Storage Ressuply Order\n"
             + "4) Save changes\n"
             + "5) Logout and Return to Main Menu\n"
+            + "6) Make the Ressuply Orders of the Products below their Reorder Point\n"
             + "Option: ");
   }
   
@@ -84,6 +85,8 @@ public class Storekeeper extends User {
             + "4) Add a new product\n"
             + "5) Delete an existing product\n"
             + "6) Return to previous menu\n"
+            + "7) View products below their low stock threshold\n"
+            + "8) Set the low stock threshold of a product\n"
             + "Option: ");
   }
   
@@ -133,6 +136,9 @@ public class Storekeeper extends User {
           	break;
           case 5:
             return;
+          case 6:
+            StorageOrder.makeDraftedOrders(this);
+            break;
         }
       } catch (InputMismatchException e) {
         System.err.println("Your option must be an integer number. TTry again...");
@@ -171,6 +177,12 @@ public class Storekeeper extends User {
             break;
           case 6:
             return;
+          case 7:
+            Storage.printLowStockProducts();
+            break;
+          case 8:
+            Storage.setLowStockThresholdMenu();
+            break;
         }
       } catch (InputMismatchException e) {
         System.err.println("Your option must be an integer number. Try again...");
@@ -1,5 +1,6 @@
 package ERP_Core;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.NoSuchElementException;
@@ -25,10 +26,10 @@ public class Supplier {
   private int tel;
   /** The address of the supplier. */
   private String address;
-  /** The counter that counts the unique suppliers created. */
-  private static int idCounter = FileHandler.getSupplierCounterFromFile();
   /** The list where the suppliers are stored. */
   private static ArrayList<Supplier> suppliers = new ArrayList<Supplier>();
+  /** Tracks the changes of the suppliers since Suppliers.csv was last written. */
+  static final ChangeTracker changes = new ChangeTracker();
 
   /**
    * Constructor for loading objects from .csv file
@@ -45,6 +46,7 @@ public class Supplier {
     this.tel = tel;
     this.address = address;
     suppliers.add(this);
+    changes.markChanged();
   }
 
   /**
@@ -56,10 +58,11 @@ public class Supplier {
    */
   public Supplier(String name, int tel, String address) {
     this.name = name;
-    this.id = ++idCounter;
+    this.id = IdAllocator.SUPPLIERS.next();
     this.tel = tel;
     this.address = address;
     suppliers.add(this);
+    changes.markChanged();
   }
 
   /**
@@ -78,6 +81,7 @@ public class Supplier {
    */
   public void setName(String name) {
     this.name = name;
+    changes.markChanged();
   }
 
   /**
@@ -105,6 +109,7 @@ public class Supplier {
    */
   public void setTel(int tel) {
     this.tel = tel;
+    changes.markChanged();
   }
 
   /**
@@ -123,6 +128,7 @@ public class Supplier {
    */
   public void setAddress(String address) {
     this.address = address;
+    changes.markChanged();
   }
 
   /**
@@ -135,7 +141,7 @@ public class Supplier {
   }
 
   public static int getIdCounter() {
-    return idCounter;
+    return IdAllocator.SUPPLIERS.getCounter();
   }
 
   /** All the suppliers from the list are appeared. */
@@ -155,6 +161,7 @@ public class Supplier {
     for (Supplier i : suppliers) {
       if (i.getId() == id) {
         suppliers.remove(i);
+        changes.markChanged();
         return true;
       }
     }
@@ -196,6 +203,26 @@ public class Supplier {
     }
   }
 
+  /**
+   * Creates all the suppliers by streaming the records of the suppliers .csv file.
+   *
+   * @param reader the reader of the suppliers file
+   * @throws IOException the file could not be read
+   */
+  public static void createSuppliersFromCsv(CsvReader reader) throws IOException {
+    int id;
+    int tel;
+    String name;
+    String address;
+    while (reader.nextRecord()) {
+      id = reader.nextInt();
+      name = reader.nextString();
+      address = reader.nextString();
+      tel = reader.nextInt();
+      new Supplier(name, address, tel, id);
+    }
+  }
+
   /**
    * Searches the supplier and prints him according to the name that is given.
    *
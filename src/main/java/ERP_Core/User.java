@@ -1,5 +1,6 @@
 package ERP_Core;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
 
@@ -27,11 +28,8 @@ public abstract class User {
   private String password;
   /** The arrayList for storing the created users. */
   private static ArrayList<User> users = new ArrayList<User>();
-  /** 
-   *  The counter that counts the unique users that have been created and is
-   *  used for assigning their ids.
-   */
-  private static int userIdCounter = FileHandler.getUserCounterFromFile();
+  /** Tracks the changes of the users since Users.csv was last written. */
+  static final ChangeTracker changes = new ChangeTracker();
 
   /**
    * Constructor for new users.
@@ -42,12 +40,13 @@ public abstract class User {
    * @param password the user's password
    */
   public User(String name, String surname, String username, String password) {
-    this.idUser = ++userIdCounter;
+    this.idUser = IdAllocator.USERS.next();
     this.name = name;
     this.surname = surname;
     this.username = username;
     this.password = password;
     users.add(this);
+    changes.markChanged();
   }
 
   /**
@@ -66,6 +65,7 @@ public abstract class User {
     this.username = username;
     this.password = password;
     users.add(this);
+    changes.markChanged();
   }
 
   /**
@@ -74,7 +74,7 @@ public abstract class User {
    * @return the user counter
    */
   public static int getUserIdCounter() {
-    return userIdCounter;
+    return IdAllocator.USERS.getCounter();
   }
 
   /**
@@ -129,6 +129,7 @@ public abstract class User {
    */
   public void setPassword(String password) {
     this.password = password;
+    changes.markChanged();
   }
 
   /**
@@ -183,6 +184,38 @@ public abstract class User {
     }
   }
 
+  /**
+   * Creates the users by streaming the records of the users .csv file.
+   *
+   * @param reader the reader of the users file
+   * @throws IOException the file could not be read
+   */
+  public static void createUsersFromCsv(CsvReader reader) throws IOException {
+    int id;
+    String name;
+    String surname;
+    String username;
+    String password;
+    String type;
+    while (reader.nextRecord()) {
+      type = reader.nextString();
+      id = reader.nextInt();
+      name = reader.nextString();
+      surname = reader.nextString();
+      username = reader.nextString();
+      password = reader.nextString();
+      if (type.equals("Cashier")) {
+        new Cashier(id, name, surname, username, password);
+      } else if (type.equals("Storekeeper")) {
+        new Storekeeper(id, name, surname, username, password);
+      } else if (type.equals("DataAnalyst")) {
+        new DataAnalyst(id, name, surname, username, password);
+      } else if (type.equals("Admin")) {
+        new Administrator(id, name, surname, username, password);
+      }
+    }
+  }
+
   /**
    * Searches the user according to the id that is given.
    *
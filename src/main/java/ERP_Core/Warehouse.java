@@ -0,0 +1,155 @@
+package ERP_Core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A location where the products are stored. Every warehouse has its own partition of the stock,
+ * an {@link Inventory} of the units that are kept there, so the warehouses do not share their
+ * quantity maps or their locks. The {@link Storage} keeps the total of all the warehouses as the
+ * quantities of the products.
+ *
+ * <p>There is always a main warehouse, with id 1, which receives the units of the storage orders
+ * that do not name a warehouse. The other warehouses are read from "Warehouses.csv" in the Data
+ * directory, one "id;name;" record for every warehouse, e.g. "2;North Warehouse;". A record with
+ * id 1 renames the main warehouse.
+ *
+ * @version 1.0
+ */
+public class Warehouse {
+  /** The id of the main warehouse. */
+  public static final int MAIN_ID = 1;
+  /** The file of the warehouses. */
+  private static final File WAREHOUSES_FILE = FileHandler.getDataFile("Warehouses.csv");
+  /** The warehouses, the main warehouse first. */
+  private static final CopyOnWriteArrayList<Warehouse> warehouses =
+      new CopyOnWriteArrayList<Warehouse>();
+  /** The main warehouse. */
+  private static final Warehouse main = new Warehouse(MAIN_ID, "Main Warehouse");
+
+  /** The id of the warehouse. */
+  private final int id;
+  /** The name of the warehouse. */
+  private volatile String name;
+  /** The units kept in the warehouse, by the product id. */
+  private final Inventory stock = new Inventory();
+
+  /**
+   * Creates a warehouse and adds it to the warehouse list.
+   *
+   * @param id the id of the warehouse, larger than 0
+   * @param name the name of the warehouse
+   * @throws IllegalArgumentException the id is not larger than 0 or is used by an other warehouse
+   */
+  public Warehouse(int id, String name) throws IllegalArgumentException {
+    if (id <= 0 || searchById(id) != null) {
+      throw new IllegalArgumentException("Invalid or existing warehouse id " + id);
+    }
+    this.id = id;
+    this.name = name;
+    warehouses.add(this);
+  }
+
+  /**
+   * Returns the id of the warehouse.
+   *
+   * @return the id
+   */
+  public int getId() {
+    return id;
+  }
+
+  /**
+   * Returns the name of the warehouse.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the units kept in the warehouse.
+   *
+   * @return the partition of the stock of the warehouse
+   */
+  Inventory getStock() {
+    return stock;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Id: %3d | Name: %s", id, name);
+  }
+
+  /**
+   * Returns the main warehouse.
+   *
+   * @return the main warehouse
+   */
+  public static Warehouse getMain() {
+    return main;
+  }
+
+  /**
+   * Returns the warehouses.
+   *
+   * @return the warehouses, the main warehouse first
+   */
+  public static List<Warehouse> getWarehouses() {
+    return warehouses;
+  }
+
+  /**
+   * Returns the warehouse with the given id.
+   *
+   * @param id the id of the warehouse
+   * @return the warehouse, or null if there is no warehouse with this id
+   */
+  public static Warehouse searchById(int id) {
+    for (Warehouse warehouse : warehouses) {
+      if (warehouse.id == id) {
+        return warehouse;
+      }
+    }
+    return null;
+  }
+
+  /** Prints all the warehouses. */
+  public static void printAllWarehouses() {
+    for (Warehouse warehouse : warehouses) {
+      System.out.println(warehouse);
+    }
+  }
+
+  /** Reads the warehouses from their file, if it exists. */
+  public static void loadWarehousesFromCsv() {
+    if (!WAREHOUSES_FILE.exists()) {
+      return;
+    }
+    try (CsvReader reader =
+        new CsvReader(
+            new InputStreamReader(
+                new FileInputStream(WAREHOUSES_FILE), StandardCharsets.UTF_8))) {
+      while (reader.nextRecord()) {
+        int id = reader.nextInt();
+        String name = reader.nextString();
+        Warehouse warehouse = searchById(id);
+        if (warehouse != null) {
+          warehouse.name = name;
+        } else if (id > 0) {
+          new Warehouse(id, name);
+        } else {
+          System.err.println("Skipping the warehouse with the invalid id " + id);
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      e.printStackTrace();
+    }
+  }
+}
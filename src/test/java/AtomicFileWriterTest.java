@@ -0,0 +1,60 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import ERP_Core.AtomicFileWriter;
+
+public class AtomicFileWriterTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  public static void main(String[] args) throws IOException {
+    File dir = Files.createTempDirectory("atomic").toFile();
+    File file = new File(dir, "Products.csv");
+    File temp = new File(dir, "Products.csv.tmp");
+    Files.write(file.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+
+    // 1st test: a committed writer replaces the file, larger than the buffer
+    StringBuilder expected = new StringBuilder();
+    try (AtomicFileWriter writer = new AtomicFileWriter(file)) {
+      for (int i = 0; i < 200000; i++) {
+        String line = i + ";\u03a0\u03c1\u03bf\u03ca\u03cc\u03bd " + i + ";";
+        writer.write(line);
+        writer.newLine();
+        expected.append(line).append(System.lineSeparator());
+      }
+      check(read(file).equals("old"), "Test 1 file unchanged before commit");
+      writer.commit();
+    }
+    check(read(file).equals(expected.toString()), "Test 1 file replaced");
+    check(!temp.exists(), "Test 1 temporary file renamed");
+
+    // 2nd test: a writer closed without commit leaves the file untouched
+    try (AtomicFileWriter writer = new AtomicFileWriter(file)) {
+      writer.write("new");
+      writer.flush();
+    }
+    check(read(file).equals(expected.toString()), "Test 2 file unchanged");
+    check(!temp.exists(), "Test 2 temporary file deleted");
+
+    // 3rd test: the temporary files of unfinished writes are deleted
+    Files.write(temp.toPath(), "partial".getBytes(StandardCharsets.UTF_8));
+    check(AtomicFileWriter.deleteTempFiles(dir) == 1, "Test 3 temporary file found");
+    check(!temp.exists() && file.exists(), "Test 3 only the temporary file deleted");
+
+    file.delete();
+    dir.delete();
+    System.out.println("All tests ok!");
+  }
+}
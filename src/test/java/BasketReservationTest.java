@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import ERP_Core.BasketReservation;
+import ERP_Core.Storage;
+
+public class BasketReservationTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static ArrayList<int[]> basket(int... lines) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    for (int i = 0; i < lines.length; i += 2) {
+      basket.add(new int[] {lines[i], lines[i + 1]});
+    }
+    return basket;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    System.setProperty("erp.reservations.ttl", "1");
+    Storage.createProductQuantity(901, 10);
+    Storage.createProductQuantity(902, 3);
+
+    // 1st test: a basket is reserved all together or not at all
+    check(!Storage.reserveBasket(basket(901, 5, 902, 4)), "Test 1 not enough units");
+    check(
+        Storage.getAvailableQuantity(901) == 10 && Storage.getAvailableQuantity(902) == 3,
+        "Test 1 nothing reserved");
+    boolean thrown = false;
+    try {
+      Storage.reserveBasket(basket(901, 5, 999, 1));
+    } catch (NoSuchElementException e) {
+      thrown = true;
+    }
+    check(thrown && Storage.getAvailableQuantity(901) == 10, "Test 1 missing product");
+
+    // 2nd test: commit and release
+    ArrayList<int[]> sold = basket(902, 1, 901, 5);
+    check(Storage.reserveBasket(sold), "Test 2 reserved");
+    Storage.commitBasket(sold);
+    ArrayList<int[]> cancelled = basket(901, 2);
+    check(Storage.reserveBasket(cancelled), "Test 2 reserved again");
+    Storage.releaseBasket(cancelled);
+    check(
+        Storage.getProductQuantity(901) == 5 && Storage.getAvailableQuantity(901) == 5
+            && Storage.getProductQuantity(902) == 2,
+        "Test 2 committed and released");
+
+    // 3rd test: concurrent orders and storage orders never sell more units than there are
+    Storage.addBasketQuantities(basket(901, 995, 902, 998));
+    final AtomicInteger orders = new AtomicInteger();
+    Thread[] cashiers = new Thread[6];
+    for (int t = 0; t < cashiers.length; t++) {
+      final boolean storekeeper = t == 0;
+      cashiers[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 500; i++) {
+                  if (storekeeper) {
+                    Storage.addBasketQuantities(basket(901, 1, 902, 1));
+                  } else if (Storage.reserveBasket(basket(902, 2, 901, 3))) {
+                    Storage.commitBasket(basket(902, 2, 901, 3));
+                    orders.incrementAndGet();
+                  }
+                }
+              });
+      cashiers[t].start();
+    }
+    for (Thread cashier : cashiers) {
+      cashier.join();
+    }
+    int[] left = {Storage.getProductQuantity(901), Storage.getProductQuantity(902)};
+    check(
+        Arrays.equals(left, new int[] {1500 - 3 * orders.get(), 1500 - 2 * orders.get()})
+            && left[0] >= 0,
+        "Test 3 no units oversold");
+
+    // 4th test: the units of a basket are held while it is filled and converted on confirmation
+    Storage.createProductQuantity(903, 10);
+    BasketReservation confirmed = new BasketReservation();
+    check(confirmed.reserve(903, 4) && confirmed.reserve(903, 2), "Test 4 lines reserved");
+    check(!confirmed.reserve(903, 5), "Test 4 not enough units");
+    check(Storage.getAvailableQuantity(903) == 4, "Test 4 units held");
+    check(confirmed.confirm() && Storage.getProductQuantity(903) == 4, "Test 4 units removed");
+    BasketReservation cancelledBasket = new BasketReservation();
+    cancelledBasket.reserve(903, 3);
+    cancelledBasket.release();
+    check(Storage.getAvailableQuantity(903) == 4, "Test 4 cancelled basket released");
+
+    // 5th test: stale reservations are released by the wheel and reserved again when used
+    Storage.createProductQuantity(904, 20000);
+    for (int i = 0; i < 20000; i++) {
+      new BasketReservation().reserve(904, 1);
+    }
+    BasketReservation renewed = new BasketReservation();
+    renewed.reserve(903, 4);
+    check(
+        Storage.getAvailableQuantity(903) == 0 && Storage.getAvailableQuantity(904) == 0,
+        "Test 5 units held");
+    Thread.sleep(3500);
+    check(
+        Storage.getAvailableQuantity(903) == 4 && Storage.getAvailableQuantity(904) == 20000,
+        "Test 5 expired units released");
+    check(
+        renewed.confirm() && Storage.getProductQuantity(903) == 0, "Test 5 expired basket renewed");
+
+    // 6th test: a basket waits for the units an other basket holds for a moment, but not for
+    // units that are not in the storage
+    Storage.createProductQuantity(905, 1);
+    Storage.createProductQuantity(906, 0);
+    check(Storage.reserveBasket(basket(905, 1)), "Test 6 units held");
+    Thread failing =
+        new Thread(
+            () -> {
+              LockSupport.parkNanos(200_000);
+              Storage.releaseBasket(basket(905, 1));
+            });
+    failing.start();
+    check(Storage.reserveBasket(basket(905, 1)), "Test 6 retried");
+    failing.join();
+    check(
+        !Storage.reserveBasket(basket(905, 1)) && !Storage.reserveBasket(basket(906, 1)),
+        "Test 6 not enough units");
+    System.out.println("All tests ok!");
+  }
+}
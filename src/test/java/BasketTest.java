@@ -0,0 +1,64 @@
+import java.util.ArrayList;
+
+import ERP_Core.Basket;
+
+public class BasketTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) {
+    // 1st test: the lines are kept in the order they were added
+    Basket basket = new Basket();
+    basket.add(5, 2);
+    basket.add(new int[] {7, 3});
+    check(
+        basket.size() == 2
+            && basket.getProductId(1) == 7
+            && basket.getQuantity(1) == 3
+            && basket.get(0)[0] == 5
+            && basket.get(0)[1] == 2,
+        "Test 1");
+
+    // 2nd test: a copied line does not change the basket
+    basket.get(0)[1] = 100;
+    basket.setQuantity(1, 4);
+    check(basket.getQuantity(0) == 2 && basket.getQuantity(1) == 4, "Test 2");
+
+    // 3rd test: the lines are found by scanning and, in a large basket, by the hash table
+    for (int id = 10; id < 40; id++) {
+      basket.merge(id, 1);
+    }
+    basket.merge(25, 2);
+    basket.merge(5, 1);
+    check(
+        basket.size() == 32
+            && basket.findLine(25) == 17
+            && basket.getQuantity(17) == 3
+            && basket.getQuantity(0) == 3
+            && basket.findLine(99) == -1,
+        "Test 3");
+
+    // 4th test: removing a line moves the later lines
+    basket.remove(0);
+    check(basket.findLine(5) == -1 && basket.findLine(25) == 16 && basket.size() == 31, "Test 4");
+
+    // 5th test: a basket equals a list with the same lines
+    ArrayList<int[]> lines = new ArrayList<int[]>();
+    lines.add(new int[] {1, 2});
+    lines.add(new int[] {3, 4});
+    Basket copy = new Basket(lines);
+    int sum = 0;
+    for (int[] line : copy) {
+      sum += line[0] * line[1];
+    }
+    check(sum == 14 && Basket.of(copy) == copy && new Basket(copy).getQuantity(1) == 4, "Test 5");
+
+    System.out.println("All tests ok!");
+  }
+}
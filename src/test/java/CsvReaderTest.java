@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.io.StringReader;
+
+import ERP_Core.CsvReader;
+
+public class CsvReaderTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) throws IOException {
+    // 1st test: numeric fields, trailing separators, empty lines and windows line endings
+    CsvReader reader =
+        new CsvReader(new StringReader("1;Small Table;80.0;\r\n\n2;;0.15;-3\n3;x;12"));
+    check(reader.nextRecord(), "Test 1 first record");
+    check(reader.nextInt() == 1, "Test 1 int field");
+    check(reader.nextString().equals("Small Table"), "Test 1 string field");
+    check(reader.nextDouble() == 80.0, "Test 1 double field");
+    check(!reader.hasNextField(), "Test 1 trailing separator");
+    check(reader.nextRecord(), "Test 1 empty line skipped");
+    check(reader.nextInt() == 2 && reader.nextString().equals(""), "Test 1 empty field");
+    check(reader.nextDouble() == 0.15 && reader.nextInt() == -3, "Test 1 negative int");
+    check(reader.nextRecord() && reader.remainingFields() == 3, "Test 1 last line");
+    reader.skipField();
+    reader.skipField();
+    check(reader.nextDouble() == 12.0, "Test 1 last field without new line");
+    check(!reader.nextRecord(), "Test 1 end of file");
+    reader.close();
+
+    // 2nd test: records longer than the initial buffer and many records across refills
+    StringBuilder csv = new StringBuilder();
+    StringBuilder longField = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      longField.append('a');
+    }
+    csv.append("0;").append(longField).append('\n');
+    for (int i = 1; i <= 50000; i++) {
+      csv.append(i).append(';').append(i * 0.25).append('\n');
+    }
+    reader = new CsvReader(new StringReader(csv.toString()));
+    check(reader.nextRecord() && reader.nextInt() == 0, "Test 2 long record");
+    check(reader.nextString().length() == 100000, "Test 2 long field");
+    boolean valuesOk = true;
+    int records = 0;
+    while (reader.nextRecord()) {
+      records++;
+      valuesOk &= reader.nextInt() == records && reader.nextDouble() == records * 0.25;
+    }
+    check(valuesOk && records == 50000, "Test 2 buffer refills");
+    reader.close();
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,84 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+
+import ERP_Core.AnalyzeOrders;
+import ERP_Core.DateStamp;
+import ERP_Core.Order;
+import ERP_Core.ProductSale;
+
+public class DateStampTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static long millis(int year, int month, int day, int hour, int minute, int second) {
+    return LocalDateTime.of(year, month, day, hour, minute, second)
+        .toInstant(ZoneOffset.UTC)
+        .toEpochMilli();
+  }
+
+  public static boolean isInvalid(String date) {
+    try {
+      DateStamp.parse(date);
+      return false;
+    } catch (DateTimeParseException e) {
+      return true;
+    }
+  }
+
+  public static void main(String[] args) {
+    // 1st test: both forms of the files are parsed
+    check(DateStamp.parse("09-01-2020 09:09:22") == millis(2020, 1, 9, 9, 9, 22), "Test 1 long");
+    check(DateStamp.parse("11-1-2020 10:40") == millis(2020, 1, 11, 10, 40, 0), "Test 1 short");
+    check(
+        DateStamp.parse(" 29-2-2024  23:59:59 ") == millis(2024, 2, 29, 23, 59, 59),
+        "Test 1 blanks");
+
+    // 2nd test: the dates are formatted with a 24-hour clock
+    check(DateStamp.format(millis(2020, 1, 11, 10, 40, 0)).equals("11-01-2020 10:40:00"), "Test 2");
+    check(
+        DateStamp.format(millis(1969, 12, 31, 15, 5, 9)).equals("31-12-1969 15:05:09"),
+        "Test 2 afternoon");
+
+    // 3rd test: the fields of a date are computed without parsing it again
+    long date = millis(2000, 2, 29, 12, 0, 0);
+    check(
+        DateStamp.getYear(date) == 2000
+            && DateStamp.getMonth(date) == 2
+            && DateStamp.getDay(date) == 29
+            && AnalyzeOrders.getDateMonth("11-3-2019 10:40") == 3,
+        "Test 3");
+
+    // 4th test: the dates that are not valid are rejected
+    check(
+        isInvalid("11/1/2020 10:40")
+            && isInvalid("29-2-2023 10:40")
+            && isInvalid("11-13-2020 10:40")
+            && isInvalid("11-1-2020 24:00")
+            && isInvalid("11-1-2020")
+            && isInvalid("11-1-2020 10:40:00:00"),
+        "Test 4");
+
+    // 5th test: the orders and the sales keep the fields of their dates
+    Order order = new Order(7001, "11-12-2019 10:40", 0, null, null, new ArrayList<int[]>());
+    ProductSale sale = new ProductSale(1, 1, 1, "11-12-2019 10:40");
+    check(
+        order.getOrderYear() == 2019
+            && order.getOrderMonth() == 12
+            && order.getOrderDay() == 11
+            && order.getOrderDate().equals("11-12-2019 10:40:00")
+            && sale.getYear() == 2019
+            && sale.getMonth() == 0
+            && sale.getTime() == order.getOrderTime(),
+        "Test 5");
+
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,95 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import ERP_Core.FileHandler;
+import ERP_Core.IdAllocator;
+
+public class IdAllocatorTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static List<String> readCounters(File data) throws Exception {
+    return Files.readAllLines(new File(data, "Counters.txt").toPath(), StandardCharsets.UTF_8);
+  }
+
+  // starts an other ERP on the same data directory, as after a crash of this one, and returns the
+  // first product id it hands out
+  public static int nextIdAfterCrash(File data) throws Exception {
+    Process process =
+        new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Derp.dataDir=" + data.getPath(),
+                "-Derp.ids.blockSize=10",
+                "-cp",
+                System.getProperty("java.class.path"),
+                "IdAllocatorTest",
+                "next")
+            .redirectErrorStream(true)
+            .start();
+    byte[] output = new byte[64];
+    int length = process.getInputStream().read(output);
+    process.waitFor();
+    return Integer.parseInt(new String(output, 0, length, StandardCharsets.UTF_8).trim());
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].equals("next")) {
+      // the other ERP exits without writing the exact counters
+      System.out.println(IdAllocator.PRODUCTS.next());
+      Runtime.getRuntime().halt(0);
+    }
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+    System.setProperty("erp.ids.blockSize", "10");
+    FileHandler.createDefaultCountersFile();
+
+    // 1st test: the first id reserves a block of ids in the counters file
+    check(IdAllocator.PRODUCTS.next() == 1, "Test 1 id");
+    check(readCounters(data).contains("Product counter: 10"), "Test 1 reserved");
+
+    // 2nd test: the ids are still handed out when the counters file cannot be written, with one
+    // warning, and the file keeps its previous high-water mark
+    File counters = new File(data, "Counters.txt");
+    counters.delete();
+    counters.mkdir();
+    File blocker = new File(counters, "blocker");
+    blocker.createNewFile();
+    PrintStream err = System.err;
+    ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(warnings, true));
+    boolean consecutive = true;
+    for (int id = 2; id <= 30; id++) {
+      consecutive &= IdAllocator.PRODUCTS.next() == id;
+    }
+    System.setErr(err);
+    String printed = warnings.toString();
+    int first = printed.indexOf("could not be reserved");
+    check(consecutive, "Test 2 ids");
+    check(first >= 0 && printed.indexOf("could not be reserved", first + 1) < 0, "Test 2 warning");
+
+    // 3rd test: the write is tried again at the end of the block, and reserves the next block
+    blocker.delete();
+    counters.delete();
+    check(IdAllocator.PRODUCTS.next() == 31, "Test 3 id");
+    check(readCounters(data).contains("Product counter: 40"), "Test 3 reserved");
+
+    // 4th test: after a crash the ids continue from the high-water mark, never giving an id that
+    // was handed out again
+    int resumed = nextIdAfterCrash(data);
+    check(resumed == 41, "Test 4");
+    check(readCounters(data).contains("Product counter: 50"), "Test 4 reserved");
+
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import ERP_Core.IntIntMap;
+import ERP_Core.Inventory;
+
+/**
+ * Compares the memory and the lookup time of the product quantities kept in an ArrayList of
+ * id - quantity pairs, the same list indexed with a HashMap, an IntIntMap, and the Inventory that
+ * replaced the IntIntMap as the stock of the storage. The number of products can be given as the
+ * first argument.
+ */
+public class IntIntMapBenchmark {
+  private static final int ROUNDS = 5;
+
+  public static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static int[] shuffledIds(int products) {
+    int[] ids = new int[products];
+    for (int i = 0; i < products; i++) {
+      ids[i] = i + 1;
+    }
+    Random random = new Random(42);
+    for (int i = products - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int id = ids[i];
+      ids[i] = ids[j];
+      ids[j] = id;
+    }
+    return ids;
+  }
+
+  public static void report(String name, long bytes, long nanos, int lookups, long sum) {
+    System.out.printf(
+        "%-28s %10d bytes %8.1f ns/lookup (checksum %d)%n",
+        name, bytes, (double) nanos / lookups, sum);
+  }
+
+  public static void main(String[] args) {
+    int products = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int[] ids = shuffledIds(products);
+    int scanLookups = Math.min(products, 2000);
+
+    long before = usedMemory();
+    ArrayList<int[]> list = new ArrayList<int[]>();
+    for (int i = 0; i < products; i++) {
+      list.add(new int[] {i + 1, i});
+    }
+    long listBytes = usedMemory() - before;
+    before = usedMemory();
+    HashMap<Integer, int[]> index = new HashMap<Integer, int[]>();
+    for (int[] pair : list) {
+      index.put(pair[0], pair);
+    }
+    long indexBytes = usedMemory() - before;
+    before = usedMemory();
+    IntIntMap map = new IntIntMap();
+    for (int i = 0; i < products; i++) {
+      map.put(i + 1, i);
+    }
+    long mapBytes = usedMemory() - before;
+    before = usedMemory();
+    Inventory inventory = new Inventory();
+    for (int i = 0; i < products; i++) {
+      inventory.create(i + 1, i);
+    }
+    long inventoryBytes = usedMemory() - before;
+
+    for (int round = 1; round <= ROUNDS; round++) {
+      System.out.println("Round " + round + " (" + products + " products)");
+      long sum = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < scanLookups; i++) {
+        for (int[] pair : list) {
+          if (pair[0] == ids[i]) {
+            sum += pair[1];
+            break;
+          }
+        }
+      }
+      report("ArrayList<int[]> scan", listBytes, System.nanoTime() - start, scanLookups, sum);
+
+      sum = 0;
+      start = System.nanoTime();
+      for (int id : ids) {
+        sum += index.get(id)[1];
+      }
+      report(
+          "HashMap<Integer, int[]> index",
+          listBytes + indexBytes,
+          System.nanoTime() - start,
+          products,
+          sum);
+
+      sum = 0;
+      start = System.nanoTime();
+      for (int id : ids) {
+        sum += map.get(id, 0);
+      }
+      report("IntIntMap", mapBytes, System.nanoTime() - start, products, sum);
+
+      sum = 0;
+      start = System.nanoTime();
+      for (int id : ids) {
+        sum += inventory.getQuantity(id);
+      }
+      report("Inventory", inventoryBytes, System.nanoTime() - start, products, sum);
+    }
+  }
+}
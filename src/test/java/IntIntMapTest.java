@@ -0,0 +1,45 @@
+import ERP_Core.IntIntMap;
+
+public class IntIntMapTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) {
+    // 1st test: lookups and updates
+    IntIntMap map = new IntIntMap();
+    map.put(7, 70);
+    map.put(3, 30);
+    map.put(7, 71);
+    check(map.size() == 2, "Test 1 size");
+    check(map.get(7, -1) == 71 && map.get(3, -1) == 30, "Test 1 values");
+    check(map.get(5, -1) == -1 && !map.containsKey(5), "Test 1 missing key");
+    check(!map.putIfAbsent(3, 0) && map.get(3, -1) == 30, "Test 1 existing key kept");
+
+    // 2nd test: the entries keep the order they were added, also after the table grows
+    for (int i = 0; i < 10000; i++) {
+      map.putIfAbsent(i * 1024, i);
+    }
+    boolean found = true;
+    for (int i = 0; i < 10000; i++) {
+      found &= map.get(i * 1024, -1) == i;
+    }
+    check(found, "Test 2 keys with a common stride");
+    check(map.keyAt(0) == 7 && map.keyAt(1) == 3 && map.keyAt(2) == 0, "Test 2 order kept");
+
+    // 3rd test: updates by position and clearing
+    int index = map.indexOf(3);
+    map.setValueAt(index, map.valueAt(index) + 5);
+    check(map.get(3, -1) == 35, "Test 3 update by position");
+    map.clear();
+    check(map.size() == 0 && !map.containsKey(7), "Test 3 cleared");
+    map.put(-1, 1);
+    check(map.get(-1, 0) == 1 && map.keys().length == 1, "Test 3 negative key");
+    System.out.println("All tests ok!");
+  }
+}
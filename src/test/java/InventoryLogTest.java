@@ -0,0 +1,72 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import ERP_Core.Inventory;
+import ERP_Core.InventoryLog;
+
+public class InventoryLogTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static long now() throws InterruptedException {
+    Thread.sleep(5);
+    long now = LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
+    Thread.sleep(5);
+    return now;
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    System.setProperty("erp.inventory.snapshotInterval", "4");
+    File directory = Files.createTempDirectory("inventory").toFile();
+    Inventory inventory = new Inventory();
+    inventory.create(12, 40);
+    inventory.create(13, 5);
+
+    // 1st test: the history starts with the loaded quantities
+    long beforeOpen = now();
+    InventoryLog log = new InventoryLog(directory);
+    log.open(inventory);
+    long opened = now();
+    check(log.getQuantityAt(12, beforeOpen) == -1, "Test 1 no history before the log");
+    check(log.getQuantityAt(12, opened) == 40, "Test 1 loaded quantity");
+
+    // 2nd test: point in time queries over many snapshots
+    long[] times = new long[20];
+    for (int i = 0; i < times.length; i++) {
+      log.record(12, -1);
+      log.record(13, 2);
+      times[i] = now();
+    }
+    boolean correct = true;
+    for (int i = 0; i < times.length; i++) {
+      correct &= log.getQuantityAt(12, times[i]) == 39 - i;
+      correct &= log.getQuantityAt(13, times[i]) == 5 + 2 * (i + 1);
+    }
+    check(correct, "Test 2 quantities at every point in time");
+    check(directory.list().length > 5, "Test 2 snapshots taken");
+    log.close();
+
+    // 3rd test: reopening reads the history and records the changes made while it was closed
+    inventory.add(12, 20);
+    log = new InventoryLog(directory);
+    log.open(inventory);
+    long reopened = now();
+    check(log.getQuantityAt(12, times[9]) == 30, "Test 3 history kept");
+    check(log.getQuantityAt(12, reopened) == 60, "Test 3 difference recorded");
+    log.close();
+    for (File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,79 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ERP_Core.Inventory;
+
+public class InventoryTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    // 1st test: reserve, commit and release
+    Inventory inventory = new Inventory();
+    inventory.create(1, 10);
+    inventory.create(2, 5);
+    check(
+        !inventory.create(1, 99) && inventory.getQuantity(1) == 10, "Test 1 existing product kept");
+    check(inventory.reserve(1, 4) && inventory.getAvailable(1) == 6, "Test 1 reserved");
+    check(!inventory.reserve(1, 7), "Test 1 not enough available");
+    inventory.commit(1, 3);
+    inventory.release(1, 1);
+    check(
+        inventory.getQuantity(1) == 7 && inventory.getReserved(1) == 0,
+        "Test 1 committed and released");
+    check(!inventory.remove(2, 6) && inventory.remove(2, 5), "Test 1 remove");
+    boolean thrown = false;
+    try {
+      inventory.reserve(3, 1);
+    } catch (NoSuchElementException e) {
+      thrown = true;
+    }
+    check(thrown, "Test 1 missing product");
+
+    // 2nd test: the products keep the order they were added, across chunks
+    for (int id = 3; id <= 5000; id++) {
+      inventory.create(id * 7, id);
+    }
+    check(inventory.idAt(0) == 1 && inventory.idAt(4999) == 35000, "Test 2 order kept");
+    check(
+        inventory.getQuantity(35000) == 5000 && inventory.quantityAt(4999) == 5000,
+        "Test 2 lookup");
+
+    // 3rd test: cashiers that check out in parallel never sell more units than there are
+    final Inventory stock = new Inventory();
+    stock.create(42, 1000);
+    final AtomicInteger sold = new AtomicInteger();
+    Thread[] cashiers = new Thread[8];
+    for (int t = 0; t < cashiers.length; t++) {
+      cashiers[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 1000; i++) {
+                  if (stock.reserve(42, 1)) {
+                    if (i % 2 == 0) {
+                      stock.commit(42, 1);
+                      sold.incrementAndGet();
+                    } else {
+                      stock.release(42, 1);
+                    }
+                  }
+                }
+              });
+      cashiers[t].start();
+    }
+    for (Thread cashier : cashiers) {
+      cashier.join();
+    }
+    check(
+        stock.getQuantity(42) == 1000 - sold.get() && stock.getQuantity(42) >= 0,
+        "Test 3 no units oversold");
+    check(stock.getReserved(42) == 0, "Test 3 no units left reserved");
+    System.out.println("All tests ok!");
+  }
+}
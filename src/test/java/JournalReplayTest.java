@@ -0,0 +1,128 @@
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ERP_Core.Cashier;
+import ERP_Core.FileHandler;
+import ERP_Core.Order;
+import ERP_Core.Product;
+import ERP_Core.RegisteredCustomer;
+import ERP_Core.Storage;
+import ERP_Core.StorageOrder;
+import ERP_Core.Storekeeper;
+import ERP_Core.Supplier;
+
+public class JournalReplayTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+    FileHandler.createDefaultCountersFile();
+    Cashier cashier = new Cashier(961, "Nikos", "Papa", "nikos961", "pass");
+    RegisteredCustomer customer = new RegisteredCustomer("Maria", "Athens", 2101234, 962, 0);
+    Storekeeper storekeeper = new Storekeeper(963, "Eleni", "Papa", "eleni963", "pass");
+    Supplier supplier = new Supplier("Paper Co", "Athens", 2105555, 964);
+    new Product("Pencil", "Office", "A black pencil", 2.0, 991);
+    new Product("Folder", "Office", "A blue folder", 3.0, 992);
+    Storage.createProductQuantity(991, 20);
+    Storage.createProductQuantity(992, 5);
+
+    // the journals of orders made after the quantities and the customers were last saved
+    Files.write(
+        new File(data, "Orders.journal").toPath(),
+        Arrays.asList(
+            "1;09-01-2020 09:09:22;7.0;962;961;991;2;992;1;4;35",
+            "2;09-01-2020 10:00:00;6.0;0;961;991;3;5"),
+        StandardCharsets.UTF_8);
+    Files.write(
+        new File(data, "StorageOrders.journal").toPath(),
+        Arrays.asList("0;09-01-2020 11:00:00;10.0;0;0;992;7"),
+        StandardCharsets.UTF_8);
+
+    // 1st test: the replayed orders remove their units and give their customers the points
+    FileHandler.replayJournals();
+    check(
+        Order.getOrders().size() == 2
+            && Order.getOrders().get(0).getPriceVersion() == 4
+            && Order.getOrders().get(1).getPriceVersion() == 5,
+        "Test 1 orders");
+    check(
+        Storage.getProductQuantity(991) == 15 && customer.getPoints() == 35,
+        "Test 1 quantities and points");
+
+    // 2nd test: the replayed storage orders add their supplies, also the storage order 0
+    check(
+        StorageOrder.getOrders().size() == 1 && Storage.getProductQuantity(992) == 11,
+        "Test 2");
+
+    // 3rd test: the records of the orders that are already loaded are skipped with their changes
+    FileHandler.replayJournals();
+    check(
+        Order.getOrders().size() == 2
+            && StorageOrder.getOrders().size() == 1
+            && Storage.getProductQuantity(991) == 15
+            && Storage.getProductQuantity(992) == 11,
+        "Test 3");
+
+    // 4th test: a confirmed order is journaled with its price version and the points of its
+    // customer, and the versions continue after the replayed ones
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    basket.add(new int[] {991, 1});
+    Order.confirmOrder(cashier, customer, basket);
+    List<String> records =
+        Files.readAllLines(new File(data, "Orders.journal").toPath(), StandardCharsets.UTF_8);
+    long version = Order.getOrders().get(2).getPriceVersion();
+    check(
+        records.size() == 3
+            && version > 5
+            && records.get(2).endsWith(";962;961;991;1;" + version + ";10")
+            && customer.getPoints() == 10,
+        "Test 4");
+
+    // 5th test: compacting the journals empties both of them, since the saved quantities contain
+    // the changes of the records of both
+    ArrayList<int[]> supplies = new ArrayList<int[]>();
+    supplies.add(new int[] {992, 10});
+    Storage.addBasketQuantities(supplies);
+    FileHandler.appendStorageOrderToJournal(
+        new StorageOrder("09-01-2020 12:00:00", supplier, storekeeper, supplies, 10.0, 0));
+    FileHandler.compactJournals();
+    List<String> quantities =
+        Files.readAllLines(new File(data, "ProductQuantities.csv").toPath(), StandardCharsets.UTF_8);
+    check(
+        new File(data, "Orders.journal").length() == 0
+            && new File(data, "StorageOrders.journal").length() == 0
+            && quantities.contains("991;14;")
+            && quantities.contains("992;21;"),
+        "Test 5");
+
+    // 6th test: a saved order ends with its price version, and the counters file keeps the last
+    // version handed out
+    List<String> orders =
+        Files.readAllLines(new File(data, "Orders.csv").toPath(), StandardCharsets.UTF_8);
+    List<String> counters =
+        Files.readAllLines(new File(data, "Counters.txt").toPath(), StandardCharsets.UTF_8);
+    boolean reserved = false;
+    for (String counter : counters) {
+      reserved |=
+          counter.startsWith("Price version counter: ")
+              && Long.parseLong(counter.substring(23)) >= version;
+    }
+    check(orders.get(orders.size() - 1).endsWith(";991;1;" + version) && reserved, "Test 6");
+
+    FileHandler.closeJournals();
+    System.out.println("All tests ok!");
+  }
+}
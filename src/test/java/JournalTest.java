@@ -0,0 +1,94 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import ERP_Core.FileHandler;
+import ERP_Core.Journal;
+
+public class JournalTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static String read(File file) throws Exception {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  public static void write(File file, String contents, boolean append) throws Exception {
+    try (FileOutputStream out = new FileOutputStream(file, append)) {
+      out.write(contents.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+
+    // 1st test: the appended records are one line each, and are counted again when recovered
+    File file = new File(data, "Test.journal");
+    Journal journal = new Journal(file.getPath(), 2);
+    journal.append("1;09-01-2020 09:09:22;2.5;0;3;7;1");
+    journal.append("2;09-01-2020 09:10:00;5.0;0;3;7;2");
+    journal.append("3;09-01-2020 09:11:00;7.5;0;3;7;3");
+    journal.close();
+    Journal reopened = new Journal(file.getPath(), 2);
+    reopened.recover();
+    check(reopened.getRecords() == 3 && reopened.hasRecords(), "Test 1");
+
+    // 2nd test: a record torn by a crash in the middle of an append is removed
+    String complete = read(file);
+    write(file, "4;09-01-2020 09:1", true);
+    reopened.recover();
+    check(read(file).equals(complete) && reopened.getRecords() == 3, "Test 2 torn tail");
+    reopened.append("4;09-01-2020 09:12:00;10.0;0;3;7;4");
+    reopened.close();
+    check(
+        read(file).equals(complete + "4;09-01-2020 09:12:00;10.0;0;3;7;4\n"),
+        "Test 2 appended after the recovery");
+
+    // 3rd test: a journal that is only a torn record is emptied
+    File torn = new File(data, "Torn.journal");
+    write(torn, "1;09-01-2020", false);
+    Journal tornJournal = new Journal(torn.getPath(), 1);
+    tornJournal.recover();
+    check(torn.length() == 0 && tornJournal.getRecords() == 0, "Test 3");
+
+    // 4th test: a truncated journal is empty and is appended to from its start
+    reopened.truncate();
+    check(file.length() == 0 && reopened.getRecords() == 0 && !reopened.hasRecords(), "Test 4");
+    reopened.append("5;09-01-2020 09:13:00;2.5;0;3;7;1");
+    reopened.close();
+    check(read(file).equals("5;09-01-2020 09:13:00;2.5;0;3;7;1\n"), "Test 4 appended");
+
+    // 5th test: the partial copy of a journal record at the end of Orders.csv is removed
+    File orders = new File(data, "Orders.csv");
+    File orderJournal = new File(data, "Orders.journal");
+    write(orders, "1;09-01-2020 09:09:22;2.5;0;3;7;1\n", false);
+    write(
+        orderJournal,
+        "2;09-01-2020 09:10:00;5.0;0;3;7;2\n3;09-01-2020 09:11:00;7.5;0;3;7;3\n",
+        false);
+    write(orders, "2;09-01-2020 09:10:00;5.0;0;3;7;2\n3;09-01-2020 09:1", true);
+    FileHandler.recoverDataFiles();
+    check(
+        read(orders)
+            .equals("1;09-01-2020 09:09:22;2.5;0;3;7;1\n2;09-01-2020 09:10:00;5.0;0;3;7;2\n"),
+        "Test 5");
+
+    // 6th test: a last line that is not in the journal was written by another program, and is
+    // kept
+    write(orders, "9;09-01-2020 10:00:00;1.0;0;3;7;1", true);
+    String edited = read(orders);
+    FileHandler.recoverDataFiles();
+    check(read(orders).equals(edited), "Test 6");
+
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,77 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ERP_Core.LogStore;
+
+public class LogStoreTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  public static void main(String[] args) throws IOException {
+    File file = File.createTempFile("store", ".db");
+    file.deleteOnExit();
+
+    // 1st test: point lookups, overwrites and deletes
+    LogStore store = new LogStore(file);
+    store.put("order/0000000002", bytes("2;b"));
+    store.put("order/0000000001", bytes("1;a"));
+    store.put("order/0000000003", bytes("3;c"));
+    store.put("order/0000000002", bytes("2;bb"));
+    store.delete("order/0000000003");
+    check(Arrays.equals(store.get("order/0000000002"), bytes("2;bb")), "Test 1 latest value");
+    check(store.get("order/0000000003") == null, "Test 1 deleted key");
+    check(store.size() == 2, "Test 1 size");
+
+    // 2nd test: range scans return the keys in order
+    store.put("product/0000000001", bytes("p"));
+    check(
+        store.keysWithPrefix("order/").equals(
+            Arrays.asList("order/0000000001", "order/0000000002")),
+        "Test 2 prefix scan");
+    check(
+        store.keys("order/0000000002", "product/").equals(Arrays.asList("order/0000000002")),
+        "Test 2 range scan");
+    store.close();
+
+    // 3rd test: the index is rebuilt when the store is reopened
+    store = new LogStore(file);
+    check(store.size() == 3, "Test 3 size after reopening");
+    check(
+        Arrays.equals(store.get("order/0000000001"), bytes("1;a")), "Test 3 value after reopening");
+    store.close();
+
+    // 4th test: a partly written record is removed from the end of the file
+    long length = file.length();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(length);
+      raf.write(new byte[] {0, 0, 0, 5, 0, 0});
+    }
+    store = new LogStore(file);
+    check(store.size() == 3 && file.length() == length, "Test 4 partial record removed");
+
+    // 5th test: compaction keeps only the latest values
+    for (int i = 0; i < 1000; i++) {
+      store.put("order/0000000001", bytes("1;" + i));
+    }
+    long before = file.length();
+    store.compact();
+    check(file.length() < before, "Test 5 file compacted");
+    check(Arrays.equals(store.get("order/0000000001"), bytes("1;999")), "Test 5 latest value kept");
+    check(store.size() == 3, "Test 5 keys kept");
+    store.close();
+    System.out.println("All tests ok!");
+  }
+}
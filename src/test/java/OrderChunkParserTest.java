@@ -0,0 +1,86 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import ERP_Core.Basket;
+import ERP_Core.CsvReader;
+import ERP_Core.OrderBatch;
+import ERP_Core.OrderChunkParser;
+
+public class OrderChunkParserTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static boolean sameRecord(OrderBatch a, int i, OrderBatch b, int j) {
+    Basket basketA = a.getBasket(i);
+    Basket basketB = b.getBasket(j);
+    if (a.getOrderNo(i) != b.getOrderNo(j)
+        || a.getDateMillis(i) != b.getDateMillis(j)
+        || a.getTotalCost(i) != b.getTotalCost(j)
+        || a.getPartnerId(i) != b.getPartnerId(j)
+        || a.getUserId(i) != b.getUserId(j)
+        || basketA.size() != basketB.size()) {
+      return false;
+    }
+    for (int k = 0; k < basketA.size(); k++) {
+      if (basketA.get(k)[0] != basketB.get(k)[0] || basketA.get(k)[1] != basketB.get(k)[1]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws IOException {
+    // 1st test: a sorted file split into many small chunks gives the same records
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      csv.append(i).append(";0").append(i % 28 + 1).append("-01-2020 10:40:0").append(i % 10);
+      csv.append(';').append(i * 0.5).append(';').append(i % 7).append(';').append(i % 3 + 1);
+      for (int k = 0; k < i % 5; k++) {
+        csv.append(';').append(k + 1).append(';').append(i % 11 + k);
+      }
+      csv.append(i % 2 == 0 ? "\n" : "\r\n");
+    }
+    File file = File.createTempFile("orders", ".csv");
+    file.deleteOnExit();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    OrderBatch expected = OrderBatch.parse(new CsvReader(new StringReader(csv.toString())));
+    for (long chunkSize : new long[] {1, 100, 4096, 0}) {
+      OrderBatch batch = OrderChunkParser.parse(file, chunkSize);
+      boolean same = batch.size() == expected.size();
+      for (int i = 0; i < batch.size() && same; i++) {
+        same = sameRecord(batch, i, expected, i);
+      }
+      check(same, "Test 1 chunk size " + chunkSize);
+    }
+
+    // 2nd test: the records of an unsorted file are sorted by order number
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write("3;01-01-2020 10:00:00;3.0;0;1;5;1\n".getBytes(StandardCharsets.UTF_8));
+      out.write("1;02-01-2020 10:00:00;1.0;2;1\n".getBytes(StandardCharsets.UTF_8));
+      out.write("2;03-01-2020 10:00:00;2.0;0;4;6;2;7;3".getBytes(StandardCharsets.UTF_8));
+    }
+    OrderBatch batch = OrderChunkParser.parse(file, 1);
+    check(batch.size() == 3, "Test 2 last line without new line");
+    check(
+        batch.getOrderNo(0) == 1 && batch.getOrderNo(1) == 2 && batch.getOrderNo(2) == 3,
+        "Test 2 sorted by order number");
+    check(
+        batch.getBasket(0).isEmpty()
+            && batch.getBasket(1).size() == 2
+            && batch.getBasket(1).get(1)[0] == 7
+            && batch.getBasket(2).get(0)[1] == 1,
+        "Test 2 baskets follow their records");
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,138 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ERP_Core.Cashier;
+import ERP_Core.FileHandler;
+import ERP_Core.Order;
+import ERP_Core.OrderPipeline;
+import ERP_Core.OrderService.OrderRequest;
+import ERP_Core.OrderService.OrderResult;
+import ERP_Core.OrderService.Status;
+import ERP_Core.Product;
+import ERP_Core.Storage;
+
+public class OrderPipelineTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static ArrayList<int[]> basket(int id, int quantity) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    basket.add(new int[] {id, quantity});
+    return basket;
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+    System.setProperty("erp.binarySnapshots", "true");
+    FileHandler.createDefaultCountersFile();
+    final Cashier cashier = new Cashier(971, "Nikos", "Papa", "nikos971", "pass");
+    new Product("Eraser", "Office", "A white eraser", 0.5, 981);
+    Storage.createProductQuantity(981, 30);
+    int orders = Order.getOrders().size();
+
+    // 1st test: the requests pass through small queues, the first ones get the units
+    OrderPipeline pipeline = new OrderPipeline(2, 4);
+    ArrayList<CompletableFuture<OrderResult>> futures =
+        new ArrayList<CompletableFuture<OrderResult>>();
+    for (int i = 0; i < 50; i++) {
+      futures.add(pipeline.submit(new OrderRequest(0, 971, basket(981, 1))));
+    }
+    futures.add(pipeline.submit(new OrderRequest(0, 999, basket(981, 1))));
+    boolean inOrder = true;
+    for (int i = 0; i < 50; i++) {
+      OrderResult result = futures.get(i).get();
+      inOrder &= result.getStatus() == (i < 30 ? Status.CONFIRMED : Status.NOT_ENOUGH_UNITS);
+    }
+    check(inOrder, "Test 1");
+    check(futures.get(50).get().getStatus() == Status.UNKNOWN_CASHIER, "Test 1 invalid");
+    check(
+        Storage.getProductQuantity(981) == 0 && Order.getOrders().size() == orders + 30,
+        "Test 1 orders");
+
+    // 2nd test: every stage counts the requests it handled, in batches
+    pipeline.close();
+    List<OrderPipeline.Stage> stages = pipeline.getStages();
+    check(
+        stages.size() == 5
+            && stages.get(0).getRequests() == 51
+            && stages.get(1).getRequests() == 50
+            && stages.get(4).getRequests() == 30
+            && stages.get(0).getBatches() <= 51
+            && stages.get(4).getQueueSize() == 0,
+        "Test 2");
+
+    // 3rd test: a closed pipeline does not accept requests
+    boolean thrown = false;
+    try {
+      pipeline.submit(new OrderRequest(0, 971, basket(981, 1)));
+    } catch (IllegalStateException e) {
+      thrown = true;
+    }
+    check(thrown, "Test 3");
+
+    // 4th test: the journal is compacted while a cashier makes orders on another thread, and
+    // every order is saved once and kept in the order list
+    new Product("Ruler", "Office", "A plastic ruler", 1.5, 982);
+    Storage.createProductQuantity(982, 12000);
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicInteger made = new AtomicInteger();
+    Thread console =
+        new Thread(
+            () -> {
+              try {
+                while (!done.get()) {
+                  new Order("11-1-2020 10:40", null, cashier, basket(981, 1));
+                  made.incrementAndGet();
+                  Thread.sleep(0, 100000);
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    console.setDaemon(true);
+    console.start();
+    pipeline = new OrderPipeline();
+    futures.clear();
+    for (int i = 0; i < 12000; i++) {
+      futures.add(pipeline.submit(new OrderRequest(0, 971, basket(982, 1))));
+    }
+    int confirmed = 0;
+    for (CompletableFuture<OrderResult> future : futures) {
+      confirmed += future.get().getStatus() == Status.CONFIRMED ? 1 : 0;
+    }
+    pipeline.close();
+    done.set(true);
+    console.join();
+    FileHandler.compactJournals();
+    List<Order> all = Order.getOrders();
+    List<String> records = Files.readAllLines(new File(data, "Orders.csv").toPath());
+    boolean saved = records.size() == all.size();
+    HashSet<Integer> numbers = new HashSet<Integer>();
+    for (int i = 0; saved && i < records.size(); i++) {
+      int orderNo = Integer.parseInt(records.get(i).substring(0, records.get(i).indexOf(';')));
+      saved = orderNo == all.get(i).getOrderNo() && numbers.add(orderNo);
+    }
+    check(
+        confirmed == 12000
+            && all.size() == orders + 30 + 12000 + made.get()
+            && saved
+            && new File(data, "Orders.journal").length() == 0,
+        "Test 4");
+
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,143 @@
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import ERP_Core.Cashier;
+import ERP_Core.FileHandler;
+import ERP_Core.Order;
+import ERP_Core.OrderService;
+import ERP_Core.OrderService.OrderRequest;
+import ERP_Core.OrderService.OrderResult;
+import ERP_Core.OrderService.Status;
+import ERP_Core.Product;
+import ERP_Core.RegisteredCustomer;
+import ERP_Core.Storage;
+
+public class OrderServiceTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static ArrayList<int[]> basket(int... lines) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    for (int i = 0; i < lines.length; i += 2) {
+      basket.add(new int[] {lines[i], lines[i + 1]});
+    }
+    return basket;
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    System.setProperty("erp.dataDir", Files.createTempDirectory("erp").toString());
+    FileHandler.createDefaultCountersFile();
+    new Cashier(951, "Anna", "Papa", "anna951", "pass");
+    RegisteredCustomer customer = new RegisteredCustomer("Shop", "Street 1", 2101234567, 952, 0);
+    new Product("Pencil", "Office", "A pencil", 2.0, 961);
+    new Product("Lamp", "Office", "A desk lamp", 5.0, 962);
+    new Product("Desk", "Office", "A large desk", 500.0, 963);
+    Storage.createProductQuantity(961, 10);
+    Storage.createProductQuantity(962, 1);
+    Storage.createProductQuantity(963, 4);
+    int orders = Order.getOrders().size();
+
+    ArrayList<OrderRequest> requests = new ArrayList<OrderRequest>();
+    requests.add(new OrderRequest(0, 951, basket(961, 3, 962, 1)));
+    requests.add(new OrderRequest(0, 951, basket(962, 1)));
+    requests.add(new OrderRequest(952, 951, basket(963, 4)));
+    requests.add(new OrderRequest(999, 951, basket(961, 1)));
+    requests.add(new OrderRequest(0, 999, basket(961, 1)));
+    requests.add(new OrderRequest(0, 951, basket()));
+    requests.add(new OrderRequest(0, 951, basket(969, 1)));
+    requests.add(new OrderRequest(0, 951, basket(961, 0)));
+    List<OrderResult> results = OrderService.submit(requests);
+
+    // 1st test: the orders are made and priced, the units are removed from the storage
+    check(results.size() == requests.size(), "Test 1 results");
+    OrderResult first = results.get(0);
+    check(
+        first.isConfirmed()
+            && first.getOrder().getTotalCost() == 11.0
+            && first.getOrder().getCustomer() == null
+            && first.getOrder().getCashier().getIdUser() == 951,
+        "Test 1 order");
+    check(
+        Storage.getProductQuantity(961) == 7 && Storage.getProductQuantity(962) == 0,
+        "Test 1 storage");
+
+    // 2nd test: an earlier request gets the units before a later one
+    check(results.get(1).getStatus() == Status.NOT_ENOUGH_UNITS, "Test 2");
+
+    // 3rd test: the customer gets the points of the order and the discount
+    OrderResult third = results.get(2);
+    check(
+        third.isConfirmed()
+            && third.getOrder().getTotalCost() == 1800.0
+            && customer.getPoints() == 0,
+        "Test 3");
+
+    // 4th test: the invalid requests are rejected without changing anything
+    check(results.get(3).getStatus() == Status.UNKNOWN_CUSTOMER, "Test 4 customer");
+    check(results.get(4).getStatus() == Status.UNKNOWN_CASHIER, "Test 4 cashier");
+    check(results.get(5).getStatus() == Status.EMPTY_BASKET, "Test 4 empty basket");
+    check(results.get(6).getStatus() == Status.UNKNOWN_PRODUCT, "Test 4 product");
+    check(results.get(7).getStatus() == Status.INVALID_QUANTITY, "Test 4 quantity");
+    check(
+        Order.getOrders().size() == orders + 2 && Storage.getAvailableQuantity(961) == 7,
+        "Test 4 unchanged");
+
+    // 5th test: a malformed basket line fails only its own request, and the customers and
+    // cashiers created or deleted after the first batch are found by their id
+    ArrayList<int[]> malformed = basket(961, 1);
+    malformed.add(new int[] {962});
+    new Cashier(953, "Maria", "Papa", "maria953", "pass");
+    requests.clear();
+    requests.add(new OrderRequest(0, 951, malformed));
+    requests.add(new OrderRequest(0, 953, basket(961, 1)));
+    RegisteredCustomer.deleteRegisteredCustomer(952);
+    requests.add(new OrderRequest(952, 951, basket(961, 1)));
+    results = OrderService.submit(requests);
+    check(
+        results.get(0).getStatus() == Status.INVALID_LINE
+            && results.get(1).isConfirmed()
+            && results.get(2).getStatus() == Status.UNKNOWN_CUSTOMER
+            && Storage.getProductQuantity(961) == 6,
+        "Test 5");
+
+    // 6th test: the batches of concurrent threads are all made, with the points of the customer,
+    // and the orders are added to the order list in the order of their numbers
+    RegisteredCustomer regular = new RegisteredCustomer("Cafe", "Street 2", 2107654321, 954, 0);
+    new Product("Eraser", "Office", "An eraser", 2.0, 964);
+    Storage.createProductQuantity(964, 1000);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 50; i++) {
+                  ArrayList<OrderRequest> batch = new ArrayList<OrderRequest>();
+                  batch.add(new OrderRequest(954, 951, basket(964, 1)));
+                  OrderService.submit(batch);
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    List<Order> all = Order.getOrders();
+    boolean numbered = true;
+    for (int i = 1; i < all.size(); i++) {
+      numbered &= all.get(i - 1).getOrderNo() < all.get(i).getOrderNo();
+    }
+    check(
+        regular.getPoints() == 10 && Storage.getProductQuantity(964) == 800 && numbered,
+        "Test 6");
+
+    System.out.println("All tests ok!");
+  }
+}
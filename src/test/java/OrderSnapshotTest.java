@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import ERP_Core.Basket;
+import ERP_Core.Cashier;
+import ERP_Core.CsvReader;
+import ERP_Core.FileHandler;
+import ERP_Core.Order;
+import ERP_Core.OrderHistory;
+import ERP_Core.OrderSnapshot;
+import ERP_Core.Product;
+import ERP_Core.RegisteredCustomer;
+
+public class OrderSnapshotTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static Order makeOrder(int orderNo, RegisteredCustomer customer, Cashier cashier) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    for (int line = 0; line < orderNo % 4; line++) {
+      basket.add(new int[] {100 + line, orderNo + line});
+    }
+    String date = String.format("%02d-03-2020 10:%02d:%02d", orderNo % 28 + 1, orderNo % 60, 7);
+    return new Order(
+        orderNo, date, orderNo * 1.25, orderNo % 2 == 0 ? customer : null, cashier, basket);
+  }
+
+  public static boolean sameOrder(Order a, Order b) {
+    Basket basketA = a.getBasket();
+    Basket basketB = b.getBasket();
+    boolean same =
+        a.getOrderNo() == b.getOrderNo()
+            && a.getOrderTime() == b.getOrderTime()
+            && a.getTotalCost() == b.getTotalCost()
+            && (a.getCustomer() == null) == (b.getCustomer() == null)
+            && a.getCashier().getIdUser() == b.getCashier().getIdUser()
+            && basketA.size() == basketB.size();
+    for (int i = 0; same && i < basketA.size(); i++) {
+      same =
+          basketA.getProductId(i) == basketB.getProductId(i)
+              && basketA.getQuantity(i) == basketB.getQuantity(i);
+    }
+    return same;
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+    System.setProperty("erp.binarySnapshots", "true");
+    FileHandler.createDefaultCountersFile();
+    Cashier cashier = new Cashier(951, "Nikos", "Papa", "nikos951", "pass");
+    RegisteredCustomer customer = new RegisteredCustomer("Maria", "Athens", 2101234, 952, 0);
+    for (int id = 100; id <= 102; id++) {
+      new Product("Pen " + id, "Office", "A pen", 1.0, id);
+    }
+    ArrayList<Order> created = new ArrayList<Order>();
+    for (int orderNo = 1; orderNo <= 50; orderNo++) {
+      created.add(makeOrder(orderNo, customer, cashier));
+    }
+    List<Order> orders = Order.getOrders();
+
+    // 1st test: a snapshot has the same orders as the Orders.csv of the same order list
+    File bin = new File(data, "Test.bin");
+    OrderSnapshot.write(orders, bin);
+    check(FileHandler.writeOrderListToCSV(orders), "Test 1 written");
+    OrderSnapshot snapshot = OrderSnapshot.open(bin);
+    boolean same = true;
+    int lines = 0;
+    int count = 0;
+    try (CsvReader reader =
+        new CsvReader(
+            new InputStreamReader(
+                new FileInputStream(new File(data, "Orders.csv")), StandardCharsets.UTF_8))) {
+      while (reader.nextRecord()) {
+        same &=
+            reader.nextInt() == snapshot.getOrderNo(count)
+                && reader.nextDate() == snapshot.getDateMillis(count)
+                && reader.nextDouble() == snapshot.getTotalCost(count)
+                && reader.nextInt() == snapshot.getCustomerId(count)
+                && reader.nextInt() == snapshot.getCashierId(count);
+        int line = 0;
+        while (reader.hasNextField()) {
+          same &=
+              reader.nextInt() == snapshot.getBasketProductId(count, line)
+                  && reader.nextInt() == snapshot.getBasketQuantity(count, line);
+          line++;
+        }
+        same &= line == snapshot.getBasketSize(count);
+        lines += line;
+        count++;
+      }
+    }
+    check(
+        same && count == 50 && snapshot.size() == 50 && snapshot.getLines() == lines,
+        "Test 1 round trip");
+
+    // 2nd test: a damaged header is rejected as an invalid file
+    File damaged = new File(data, "Damaged.bin");
+    Files.copy(bin.toPath(), damaged.toPath());
+    try (RandomAccessFile raf = new RandomAccessFile(damaged, "rw")) {
+      raf.seek(8);
+      raf.writeInt(Integer.MAX_VALUE);
+    }
+    boolean rejected = false;
+    try {
+      OrderSnapshot.open(damaged);
+    } catch (IOException e) {
+      rejected = true;
+    }
+    check(rejected, "Test 2");
+
+    // 3rd test: compacting the journal attaches the snapshot as the order history
+    FileHandler.compactJournals();
+    OrderHistory history = (OrderHistory) orders;
+    same = history.size() == 50 && history.getSnapshotSize() == 50;
+    for (int i = 0; same && i < 50; i++) {
+      same =
+          sameOrder(history.get(i), created.get(i))
+              && history.getCustomerId(i) == (i % 2 == 1 ? 952 : 0);
+    }
+    check(same, "Test 3");
+
+    // 4th test: the orders made after the snapshot follow its orders
+    for (int orderNo = 51; orderNo <= 55; orderNo++) {
+      created.add(makeOrder(orderNo, customer, cashier));
+    }
+    check(
+        history.size() == 55
+            && history.getSnapshotSize() == 50
+            && history.get(49).getOrderNo() == 50
+            && history.get(50) == created.get(50)
+            && history.getOrderNo(54) == 55
+            && history.getBasketSize(54) == 3
+            && history.getBasketProductId(54, 2) == 102,
+        "Test 4");
+
+    // 5th test: the next snapshot replaces only the orders it covers
+    FileHandler.compactJournals();
+    same = history.size() == 55 && history.getSnapshotSize() == 55;
+    for (int i = 0; same && i < 55; i++) {
+      same = sameOrder(history.get(i), created.get(i));
+    }
+    check(same, "Test 5");
+
+    // 6th test: a snapshot that cannot be read is skipped, and Orders.csv is loaded instead
+    File orderBin = new File(data, "Orders.bin");
+    Files.write(orderBin.toPath(), new byte[] {1, 2, 3});
+    orderBin.setLastModified(System.currentTimeMillis() + 60_000);
+    check(!FileHandler.loadOrderSnapshot() && history.getSnapshotSize() == 55, "Test 6");
+
+    FileHandler.closeJournals();
+    System.out.println("All tests ok!");
+  }
+}
@@ -0,0 +1,71 @@
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import ERP_Core.FileHandler;
+import ERP_Core.Order;
+import ERP_Core.PriceTable;
+import ERP_Core.Product;
+import ERP_Core.Storage;
+
+public class PriceTableTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    System.setProperty("erp.dataDir", Files.createTempDirectory("erp").toString());
+    FileHandler.createDefaultCountersFile();
+    new Product("Folder", "Office", "A blue folder", 2.0, 1001);
+    new Product("Stapler", "Office", "A metal stapler", 3.5, 1002);
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    basket.add(new int[] {1001, 3});
+    basket.add(new int[] {1002, 2});
+
+    // 1st test: the prices of the product list
+    PriceTable prices = Storage.getPriceTable();
+    check(prices.getPrice(1001) == 2.0 && prices.getPrice(1002) == 3.5, "Test 1");
+    check(prices.getBasketCost(basket) == 13.0, "Test 1 basket");
+    check(Storage.getPriceTable() == prices, "Test 1 same table");
+    boolean thrown = false;
+    try {
+      prices.getPrice(1009);
+    } catch (NoSuchElementException e) {
+      thrown = true;
+    }
+    check(thrown && !prices.contains(1009), "Test 1 missing product");
+
+    // 2nd test: a price change publishes a new version and leaves the old table unchanged
+    Storage.changeProductPrice(1001, 2.5);
+    PriceTable changed = Storage.getPriceTable();
+    check(
+        changed.getVersion() > prices.getVersion()
+            && changed.getPrice(1001) == 2.5
+            && prices.getPrice(1001) == 2.0,
+        "Test 2");
+
+    // 3rd test: an order records the version of the prices it was priced with
+    Order order = new Order(Order.getCurrentDate(), null, null, basket);
+    check(
+        order.getTotalCost() == 14.5 && order.getPriceVersion() == changed.getVersion(),
+        "Test 3");
+
+    // 4th test: an added product is priced by the next table
+    new Product("Ruler", "Office", "A wooden ruler", 1.25, 1003);
+    PriceTable added = Storage.getPriceTable();
+    check(
+        added.getVersion() > changed.getVersion()
+            && added.getPrice(1003) == 1.25
+            && added.getPrice(1001) == 2.5
+            && added.size() == Storage.getProducts().size(),
+        "Test 4");
+
+    System.out.println("All tests ok!");
+  }
+}
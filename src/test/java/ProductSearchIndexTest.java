@@ -0,0 +1,56 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import ERP_Core.Product;
+import ERP_Core.ProductSearchIndex;
+import ERP_Core.Storage;
+
+public class ProductSearchIndexTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static void main(String[] args) throws Exception {
+    ProductSearchIndex index = new ProductSearchIndex();
+    Product milk = new Product("Fresh Milk", "Dairy", "Whole milk, 1 litre", 1.2, 941);
+    Product cheese = new Product("Goat Cheese", "Dairy", "Soft cheese of goat milk", 4.5, 942);
+    Product cookies = new Product("Milkshake Cookies", "Sweets", "Crunchy cookies", 2.0, 943);
+    Product buttermilk = new Product("Buttermilk", "Drinks", "Cultured", 1.0, 944);
+    index.add(milk);
+    index.add(cheese);
+    index.add(cookies);
+    index.add(buttermilk);
+
+    // 1st test: whole words score more in the name than in the description
+    check(index.size() == 4, "Test 1 size");
+    check(Arrays.equals(index.search("milk"), new int[] {941, 943, 942, 944}), "Test 1");
+    check(Arrays.equals(index.search("MILK!"), index.search("milk")), "Test 1 case");
+
+    // 2nd test: the start of a word and a part inside a word match too
+    check(Arrays.equals(index.search("chee"), new int[] {942}), "Test 2 prefix");
+    check(Arrays.equals(index.search("ermil"), new int[] {944}), "Test 2 infix");
+    check(index.search("xyz").length == 0 && index.search(" ").length == 0, "Test 2 none");
+
+    // 3rd test: a product must match every word of the query
+    check(Arrays.equals(index.search("dairy goat"), new int[] {942}), "Test 3");
+    check(index.search("dairy cookies").length == 0, "Test 3 none");
+
+    // 4th test: a removed product is not found until it is added again
+    index.remove(cheese);
+    check(index.size() == 3 && index.search("goat").length == 0, "Test 4 removed");
+    index.add(cheese);
+    check(Arrays.equals(index.search("goat"), new int[] {942}), "Test 4 added again");
+
+    // 5th test: the storage searches the products of the product list
+    ArrayList<Product> found = Storage.searchProducts("goat milk");
+    check(found.size() == 1 && found.get(0) == cheese, "Test 5");
+    check(Storage.searchProducts("milk").size() == 4, "Test 5 all");
+
+    System.out.println("All tests ok!");
+  }
+}
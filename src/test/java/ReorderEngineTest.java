@@ -0,0 +1,80 @@
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import ERP_Core.Basket;
+import ERP_Core.Order;
+import ERP_Core.OrderHistory;
+import ERP_Core.ReorderEngine;
+import ERP_Core.Storage;
+import ERP_Core.Supplier;
+
+public class ReorderEngineTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static ArrayList<int[]> basket(int... lines) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    for (int i = 0; i < lines.length; i += 2) {
+      basket.add(new int[] {lines[i], lines[i + 1]});
+    }
+    return basket;
+  }
+
+  public static int draftedQuantity(Basket draft, int id) {
+    if (draft != null) {
+      for (int[] line : draft) {
+        if (line[0] == id) {
+          return line[1];
+        }
+      }
+    }
+    return 0;
+  }
+
+  public static void main(String[] args) {
+    Storage.createProductQuantity(911, 50);
+    Storage.createProductQuantity(912, 10);
+    Storage.createProductQuantity(913, 500);
+    Supplier supplier = new Supplier("Reorder Supplier", "Test Street 1", 123456, 9001);
+    ReorderEngine.recordSupplier(supplier, basket(911, 1, 913, 1));
+
+    // 1st test: the loaded orders count less after every half-life
+    DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    String twoHalfLivesAgo = LocalDateTime.now().minusDays(28).format(format);
+    ArrayList<Order> loaded = new ArrayList<Order>();
+    loaded.add(new Order(9001, twoHalfLivesAgo, 0, null, null, basket(912, 112)));
+    ReorderEngine.loadSales(new OrderHistory(loaded));
+    double expected = 28 * Math.log(2) / 14;
+    check(Math.abs(ReorderEngine.getDailyDemand(912) - expected) < 0.01, "Test 1");
+
+    // 2nd test: the confirmed orders count fully
+    ReorderEngine.recordSale(basket(911, 140, 913, 14));
+    check(Math.abs(ReorderEngine.getDailyDemand(911) - 10 * Math.log(2)) < 0.01, "Test 2 demand");
+    check(ReorderEngine.getReorderPoint(911) == 70, "Test 2 reorder point");
+
+    // 3rd test: the products below their reorder point are drafted by supplier
+    LinkedHashMap<Integer, Basket> drafts = ReorderEngine.draftStorageOrders();
+    check(
+        draftedQuantity(drafts.get(9001), 911) == 117
+            && draftedQuantity(drafts.get(9001), 913) == 0,
+        "Test 3 known supplier");
+    check(draftedQuantity(drafts.get(0), 912) == 24, "Test 3 unknown supplier");
+
+    // 4th test: a resupplied product is not drafted again, the others still are
+    Storage.addProductQuantity(911, 200);
+    drafts = ReorderEngine.draftStorageOrders();
+    check(!drafts.containsKey(9001) && draftedQuantity(drafts.get(0), 912) == 24, "Test 4");
+    drafts = ReorderEngine.draftStorageOrders();
+    check(!drafts.containsKey(9001) && draftedQuantity(drafts.get(0), 912) == 24, "Test 4 again");
+
+    System.out.println("All tests ok!");
+  }
+}
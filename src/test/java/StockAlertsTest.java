@@ -0,0 +1,114 @@
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import ERP_Core.FileHandler;
+import ERP_Core.StockAlerts;
+import ERP_Core.Storage;
+
+public class StockAlertsTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  // whether a product is among the products found
+  public static boolean contains(int[] ids, int id) {
+    for (int found : ids) {
+      if (found == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    System.setProperty("erp.dataDir", Files.createTempDirectory("erp").toString());
+    FileHandler.createDefaultCountersFile();
+    final ArrayList<StockAlerts.Alert> alerts = new ArrayList<StockAlerts.Alert>();
+    StockAlerts.addListener(alerts::add);
+    Storage.createProductQuantity(921, 12);
+    Storage.createProductQuantity(922, 3);
+    Storage.createProductQuantity(923, 5000);
+    Storage.createProductQuantity(924, 40);
+
+    // 1st test: the products below a number of units, from the smallest quantity
+    check(Arrays.equals(StockAlerts.getProductsBelow(13), new int[] {922, 921}), "Test 1");
+    check(StockAlerts.getProductsBelow(3).length == 0, "Test 1 none");
+    check(
+        Arrays.equals(StockAlerts.getProductsBelow(6000), new int[] {922, 921, 924, 923}),
+        "Test 1 large quantities");
+
+    // 2nd test: an alert is sent when a quantity falls below the threshold, only once, on the
+    // thread of the stock changes
+    Storage.removeProductQuantity(921, 2);
+    Storage.awaitStockChanges();
+    check(alerts.isEmpty(), "Test 2 at the threshold");
+    Storage.removeProductQuantity(921, 1);
+    Storage.awaitStockChanges();
+    check(
+        alerts.size() == 1
+            && alerts.get(0).getProductId() == 921
+            && alerts.get(0).getQuantity() == 9
+            && alerts.get(0).getThreshold() == 10,
+        "Test 2 below the threshold");
+    Storage.removeProductQuantity(921, 1);
+    Storage.awaitStockChanges();
+    check(alerts.size() == 1, "Test 2 already below");
+    check(StockAlerts.getRecentAlerts().size() == 1, "Test 2 recent alerts");
+
+    // 3rd test: the orders crossing a threshold send alerts too
+    StockAlerts.setThreshold(924, 50);
+    check(alerts.size() == 1, "Test 3 no alert when set");
+    Storage.addProductQuantity(924, 20);
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    basket.add(new int[] {924, 15});
+    check(Storage.reserveBasket(basket), "Test 3 reserved");
+    Storage.commitBasket(basket);
+    Storage.awaitStockChanges();
+    check(alerts.size() == 2 && alerts.get(1).getProductId() == 924, "Test 3 alert");
+    check(
+        Arrays.equals(StockAlerts.getLowStockProducts(), new int[] {922, 921, 924}),
+        "Test 3 low stock products");
+
+    // 4th test: a resupplied product is not low on stock anymore
+    Storage.addProductQuantity(922, 100);
+    check(Arrays.equals(StockAlerts.getLowStockProducts(), new int[] {921, 924}), "Test 4");
+
+    // 5th test: the concurrent changes of a quantity are all indexed, whatever order they reach
+    // the alerts in
+    Storage.createProductQuantity(925, 500);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; i < 1000; i++) {
+                    Storage.removeProductQuantity(925, 1);
+                    Storage.addProductQuantity(925, 1);
+                  }
+                  Storage.removeProductQuantity(925, 100);
+                } catch (Exception e) {
+                  e.printStackTrace();
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    check(
+        Storage.getProductQuantity(925) == 100
+            && contains(StockAlerts.getProductsBelow(101), 925)
+            && !contains(StockAlerts.getProductsBelow(100), 925),
+        "Test 5");
+
+    System.out.println("All tests ok!");
+  }
+}
@@ -60,8 +60,8 @@ public class StorageTest {
     FileHandler.writeProductListToCSV(Storage.getProducts());
     FileHandler.writeProductQuantitiesListToCSV(Storage.getProductQuantities());
 
-    Storage.getProducts().removeAll(Storage.getProducts());
-    Storage.getProductQuantities().removeAll(Storage.getProductQuantities());
+    Storage.removeAllProducts();
+    Storage.getProductQuantities().clear();
 
     try {
       Product.createProductsFromList(FileHandler.getProductsFromCsv());
@@ -0,0 +1,137 @@
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import ERP_Core.CsvReader;
+import ERP_Core.FileHandler;
+import ERP_Core.OrderBatch;
+import ERP_Core.Storage;
+import ERP_Core.Storekeeper;
+import ERP_Core.Supplier;
+import ERP_Core.Warehouse;
+
+public class WarehouseTest {
+
+  public static void check(boolean condition, String test) {
+    if (!condition) {
+      System.err.println(test + " failed!");
+      System.exit(1);
+    }
+    System.out.println("--> " + test + " passed!");
+  }
+
+  public static ArrayList<int[]> basket(int... lines) {
+    ArrayList<int[]> basket = new ArrayList<int[]>();
+    for (int i = 0; i < lines.length; i += 2) {
+      basket.add(new int[] {lines[i], lines[i + 1]});
+    }
+    return basket;
+  }
+
+  public static void main(String[] args) throws Exception {
+    // the data files of the test are kept out of the Data directory
+    File data = Files.createTempDirectory("erp").toFile();
+    System.setProperty("erp.dataDir", data.getPath());
+    FileHandler.createDefaultCountersFile();
+    new Warehouse(2, "North Warehouse");
+    new Warehouse(3, "South Warehouse");
+    Storage.createProductQuantity(931);
+    Storage.createProductQuantity(932);
+
+    // 1st test: the units go to the warehouse of the storage order, the totals count them all
+    Storage.addBasketQuantities(basket(931, 5, 932, 4), 2);
+    Storage.addProductQuantity(931, 3);
+    check(
+        Storage.getAvailableQuantity(931) == 8
+            && Storage.getWarehouseQuantity(2, 931) == 5
+            && Storage.getWarehouseQuantity(Warehouse.MAIN_ID, 931) == 3
+            && Storage.getWarehouseQuantity(3, 931) == 0,
+        "Test 1");
+    boolean thrown = false;
+    try {
+      Storage.addBasketQuantities(basket(931, 1), 99);
+    } catch (NoSuchElementException e) {
+      thrown = true;
+    }
+    check(thrown && Storage.getAvailableQuantity(931) == 8, "Test 1 missing warehouse");
+
+    // 2nd test: a basket is shipped from the warehouse that has all of its lines
+    ArrayList<int[]> order = basket(931, 4, 932, 1);
+    check(Storage.reserveBasket(order), "Test 2 reserved");
+    check(Storage.commitBasket(order).getId() == 2, "Test 2 best warehouse");
+    check(
+        Storage.getWarehouseQuantity(2, 931) == 1
+            && Storage.getWarehouseQuantity(2, 932) == 3
+            && Storage.getWarehouseQuantity(Warehouse.MAIN_ID, 931) == 3,
+        "Test 2 picked");
+
+    // 3rd test: the units no warehouse has in full are picked from several warehouses
+    order = basket(931, 4);
+    check(Storage.reserveBasket(order), "Test 3 reserved");
+    check(Storage.commitBasket(order).getId() == Warehouse.MAIN_ID, "Test 3 most units");
+    check(
+        Storage.getProductQuantity(931) == 0
+            && Storage.getWarehouseQuantity(2, 931) == 0
+            && Storage.getWarehouseQuantity(Warehouse.MAIN_ID, 931) == 0,
+        "Test 3 picked");
+    Storage.removeProductQuantity(932, 2);
+    check(
+        Storage.getProductQuantity(932) == 1 && Storage.getWarehouseQuantity(2, 932) == 1,
+        "Test 3 removed");
+
+    // 4th test: the warehouse of a storage order is an optional last field
+    String records =
+        "1;09-01-2020 09:09:22;130.0;2;9;4;3;3\n" + "2;11-01-2020 08:05:03;120.0;1;9;3;2\n";
+    OrderBatch batch = OrderBatch.parse(new CsvReader(new StringReader(records)));
+    check(
+        batch.getLocationId(0) == 3
+            && batch.getBasket(0).size() == 1
+            && batch.getLocationId(1) == 0
+            && batch.getBasket(1).size() == 1,
+        "Test 4");
+
+    // 5th test: a basket is reserved in the partition of its warehouse, so the units of the other
+    // warehouses stay available
+    Storage.createProductQuantity(933, 2);
+    Storage.addBasketQuantities(basket(933, 5), 3);
+    order = basket(933, 5);
+    check(Storage.reserveBasket(order), "Test 5 reserved");
+    Storage.removeProductQuantity(933, 2);
+    check(
+        Storage.getAvailableQuantity(933) == 0 && Storage.getProductQuantity(933) == 5,
+        "Test 5 other warehouse");
+    check(
+        Storage.commitBasket(order).getId() == 3
+            && Storage.getProductQuantity(933) == 0
+            && Storage.getWarehouseQuantity(3, 933) == 0,
+        "Test 5 committed");
+
+    // 6th test: a replayed storage order adds its supplies to its warehouse, and the quantities
+    // of the warehouses are saved with the quantities of the storage
+    new Storekeeper(935, "Eleni", "Papa", "eleni935", "pass");
+    new Supplier("Paper Co", "Athens", 2105555, 936);
+    Files.write(
+        new File(data, "StorageOrders.journal").toPath(),
+        Arrays.asList("1;09-01-2020 11:00:00;10.0;936;935;931;6;3"),
+        StandardCharsets.UTF_8);
+    FileHandler.replayJournals();
+    check(
+        Storage.getWarehouseQuantity(3, 931) == 6 && Storage.getProductQuantity(931) == 6,
+        "Test 6 replayed");
+    FileHandler.compactJournals();
+    List<String> quantities =
+        Files.readAllLines(
+            new File(data, "WarehouseQuantities.csv").toPath(), StandardCharsets.UTF_8);
+    check(
+        quantities.contains("3;931;6;") && quantities.contains("2;932;1;"),
+        "Test 6 saved");
+
+    FileHandler.closeJournals();
+    System.out.println("All tests ok!");
+  }
+}